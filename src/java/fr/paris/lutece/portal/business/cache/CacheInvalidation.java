@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.business.cache;
+
+import java.sql.Timestamp;
+
+/**
+ * Cache invalidation published to the other nodes of a cluster
+ */
+public class CacheInvalidation
+{
+    /** Page event : the resource id is the page id and the event type is the page event type */
+    public static final String TYPE_PAGE = "page";
+
+    /** Portlet event : the resource id is the portlet id and the event type is the portlet event type */
+    public static final String TYPE_PORTLET = "portlet";
+
+    /** Reset of a cache, or of all the caches if the cache name is {@link #ALL_CACHES} */
+    public static final String TYPE_RESET = "reset";
+
+    /** Removal of a key from a cache */
+    public static final String TYPE_KEY = "key";
+
+    /** Cache name standing for all the caches */
+    public static final String ALL_CACHES = "*";
+
+    private int _nId;
+    private String _strNodeId;
+    private String _strType;
+    private int _nEventType;
+    private int _nIdResource;
+    private int _nIdPage;
+    private String _strCacheName;
+    private String _strKey;
+    private Timestamp _dateCreation;
+
+    /**
+     * Returns the id
+     *
+     * @return The id
+     */
+    public int getId( )
+    {
+        return _nId;
+    }
+
+    /**
+     * Sets the id
+     *
+     * @param nId
+     *            The id
+     */
+    public void setId( int nId )
+    {
+        _nId = nId;
+    }
+
+    /**
+     * Returns the id of the node which published the invalidation
+     *
+     * @return The node id
+     */
+    public String getNodeId( )
+    {
+        return _strNodeId;
+    }
+
+    /**
+     * Sets the id of the node which published the invalidation
+     *
+     * @param strNodeId
+     *            The node id
+     */
+    public void setNodeId( String strNodeId )
+    {
+        _strNodeId = strNodeId;
+    }
+
+    /**
+     * Returns the type
+     *
+     * @return The type
+     */
+    public String getType( )
+    {
+        return _strType;
+    }
+
+    /**
+     * Sets the type
+     *
+     * @param strType
+     *            The type
+     */
+    public void setType( String strType )
+    {
+        _strType = strType;
+    }
+
+    /**
+     * Returns the event type
+     *
+     * @return The event type
+     */
+    public int getEventType( )
+    {
+        return _nEventType;
+    }
+
+    /**
+     * Sets the event type
+     *
+     * @param nEventType
+     *            The event type
+     */
+    public void setEventType( int nEventType )
+    {
+        _nEventType = nEventType;
+    }
+
+    /**
+     * Returns the id of the resource (page or portlet)
+     *
+     * @return The resource id
+     */
+    public int getIdResource( )
+    {
+        return _nIdResource;
+    }
+
+    /**
+     * Sets the id of the resource (page or portlet)
+     *
+     * @param nIdResource
+     *            The resource id
+     */
+    public void setIdResource( int nIdResource )
+    {
+        _nIdResource = nIdResource;
+    }
+
+    /**
+     * Returns the page id of a portlet event
+     *
+     * @return The page id
+     */
+    public int getIdPage( )
+    {
+        return _nIdPage;
+    }
+
+    /**
+     * Sets the page id of a portlet event
+     *
+     * @param nIdPage
+     *            The page id
+     */
+    public void setIdPage( int nIdPage )
+    {
+        _nIdPage = nIdPage;
+    }
+
+    /**
+     * Returns the cache name
+     *
+     * @return The cache name
+     */
+    public String getCacheName( )
+    {
+        return _strCacheName;
+    }
+
+    /**
+     * Sets the cache name
+     *
+     * @param strCacheName
+     *            The cache name
+     */
+    public void setCacheName( String strCacheName )
+    {
+        _strCacheName = strCacheName;
+    }
+
+    /**
+     * Returns the cache key
+     *
+     * @return The cache key
+     */
+    public String getKey( )
+    {
+        return _strKey;
+    }
+
+    /**
+     * Sets the cache key
+     *
+     * @param strKey
+     *            The cache key
+     */
+    public void setKey( String strKey )
+    {
+        _strKey = strKey;
+    }
+
+    /**
+     * Returns the creation date
+     *
+     * @return The creation date
+     */
+    public Timestamp getDateCreation( )
+    {
+        return _dateCreation;
+    }
+
+    /**
+     * Sets the creation date
+     *
+     * @param dateCreation
+     *            The creation date
+     */
+    public void setDateCreation( Timestamp dateCreation )
+    {
+        _dateCreation = dateCreation;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public String toString( )
+    {
+        return "[" + _strType + " event=" + _nEventType + " resource=" + _nIdResource + " page=" + _nIdPage + " cache=" + _strCacheName + " key=" + _strKey
+                + " node=" + _strNodeId + "]";
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.business.cache;
+
+import fr.paris.lutece.util.sql.DAOUtil;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class provides Data Access methods for CacheInvalidation objects
+ */
+public final class CacheInvalidationDAO implements ICacheInvalidationDAO
+{
+    // Constants
+    private static final String SQL_QUERY_INSERT = "INSERT INTO core_cache_invalidation ( node_id, invalidation_type, event_type, id_resource, id_page, cache_name, cache_key, date_creation ) VALUES ( ?, ?, ?, ?, ?, ?, ?, ? ) ";
+    private static final String SQL_QUERY_SELECT_FROM = "SELECT id_invalidation, node_id, invalidation_type, event_type, id_resource, id_page, cache_name, cache_key, date_creation FROM core_cache_invalidation WHERE id_invalidation > ? AND node_id <> ? ORDER BY id_invalidation";
+    private static final String SQL_QUERY_SELECT_MAX_ID = "SELECT MAX( id_invalidation ) FROM core_cache_invalidation";
+    private static final String SQL_QUERY_DELETE_BEFORE = "DELETE FROM core_cache_invalidation WHERE date_creation < ? ";
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void insert( CacheInvalidation invalidation )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT, Statement.RETURN_GENERATED_KEYS ) )
+        {
+            int nIndex = 1;
+            daoUtil.setString( nIndex++, invalidation.getNodeId( ) );
+            daoUtil.setString( nIndex++, invalidation.getType( ) );
+            daoUtil.setInt( nIndex++, invalidation.getEventType( ) );
+            daoUtil.setInt( nIndex++, invalidation.getIdResource( ) );
+            daoUtil.setInt( nIndex++, invalidation.getIdPage( ) );
+            daoUtil.setString( nIndex++, invalidation.getCacheName( ) );
+            daoUtil.setString( nIndex++, invalidation.getKey( ) );
+            daoUtil.setTimestamp( nIndex, invalidation.getDateCreation( ) );
+
+            daoUtil.executeUpdate( );
+
+            if ( daoUtil.nextGeneratedKey( ) )
+            {
+                invalidation.setId( daoUtil.getGeneratedKeyInt( 1 ) );
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public List<CacheInvalidation> selectFrom( int nIdFrom, String strNodeId )
+    {
+        List<CacheInvalidation> list = new ArrayList<>( );
+
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_FROM ) )
+        {
+            daoUtil.setInt( 1, nIdFrom );
+            daoUtil.setString( 2, strNodeId );
+            daoUtil.executeQuery( );
+
+            while ( daoUtil.next( ) )
+            {
+                int nIndex = 1;
+                CacheInvalidation invalidation = new CacheInvalidation( );
+                invalidation.setId( daoUtil.getInt( nIndex++ ) );
+                invalidation.setNodeId( daoUtil.getString( nIndex++ ) );
+                invalidation.setType( daoUtil.getString( nIndex++ ) );
+                invalidation.setEventType( daoUtil.getInt( nIndex++ ) );
+                invalidation.setIdResource( daoUtil.getInt( nIndex++ ) );
+                invalidation.setIdPage( daoUtil.getInt( nIndex++ ) );
+                invalidation.setCacheName( daoUtil.getString( nIndex++ ) );
+                invalidation.setKey( daoUtil.getString( nIndex++ ) );
+                invalidation.setDateCreation( daoUtil.getTimestamp( nIndex ) );
+                list.add( invalidation );
+            }
+        }
+
+        return list;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int selectMaxId( )
+    {
+        int nMaxId = 0;
+
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_MAX_ID ) )
+        {
+            daoUtil.executeQuery( );
+
+            if ( daoUtil.next( ) )
+            {
+                nMaxId = daoUtil.getInt( 1 );
+            }
+        }
+
+        return nMaxId;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void deleteBefore( Timestamp date )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE_BEFORE ) )
+        {
+            daoUtil.setTimestamp( 1, date );
+            daoUtil.executeUpdate( );
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.business.cache;
+
+import fr.paris.lutece.portal.service.spring.SpringContextService;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * This class provides instances management methods (create, find, ...) for CacheInvalidation objects
+ */
+public final class CacheInvalidationHome
+{
+    // Static variable pointed at the DAO instance
+    private static ICacheInvalidationDAO _dao = SpringContextService.getBean( "cacheInvalidationDAO" );
+
+    /**
+     * Private constructor - this class need not be instantiated
+     */
+    private CacheInvalidationHome( )
+    {
+    }
+
+    /**
+     * Creation of an instance of CacheInvalidation
+     *
+     * @param invalidation
+     *            The instance of the invalidation which contains the informations to store
+     */
+    public static void create( CacheInvalidation invalidation )
+    {
+        _dao.insert( invalidation );
+    }
+
+    /**
+     * Returns the invalidations published by the other nodes from a given id
+     *
+     * @param nIdFrom
+     *            The invalidations with a greater id are returned
+     * @param strNodeId
+     *            The id of the current node
+     * @return The invalidations ordered by id
+     */
+    public static List<CacheInvalidation> findFrom( int nIdFrom, String strNodeId )
+    {
+        return _dao.selectFrom( nIdFrom, strNodeId );
+    }
+
+    /**
+     * Returns the greatest invalidation id
+     *
+     * @return The greatest id or 0 if there is no invalidation
+     */
+    public static int findMaxId( )
+    {
+        return _dao.selectMaxId( );
+    }
+
+    /**
+     * Removes the invalidations created before a given date
+     *
+     * @param date
+     *            The date
+     */
+    public static void removeBefore( Timestamp date )
+    {
+        _dao.deleteBefore( date );
+    }
+}
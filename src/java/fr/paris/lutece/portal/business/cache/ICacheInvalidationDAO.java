@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.business.cache;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * ICacheInvalidationDAO
+ */
+public interface ICacheInvalidationDAO
+{
+    /**
+     * Insert a new record in the table.
+     *
+     * @param invalidation
+     *            instance of the CacheInvalidation object to insert
+     */
+    void insert( CacheInvalidation invalidation );
+
+    /**
+     * Load the invalidations published by the other nodes from a given id
+     *
+     * @param nIdFrom
+     *            The invalidations with a greater id are loaded
+     * @param strNodeId
+     *            The id of the current node, whose invalidations are ignored
+     * @return The invalidations ordered by id
+     */
+    List<CacheInvalidation> selectFrom( int nIdFrom, String strNodeId );
+
+    /**
+     * Returns the greatest id of the table
+     *
+     * @return The greatest id or 0 if the table is empty
+     */
+    int selectMaxId( );
+
+    /**
+     * Delete the invalidations created before a given date
+     *
+     * @param date
+     *            The date
+     */
+    void deleteBefore( Timestamp date );
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.business.daemon;
+
+import fr.paris.lutece.portal.service.util.AppException;
+import fr.paris.lutece.util.sql.DAOUtil;
+
+import java.sql.Timestamp;
+
+/**
+ * This class provides Data Access methods for the daemon locks
+ */
+public final class DaemonLockDAO implements IDaemonLockDAO
+{
+    // Constants
+    private static final String SQL_QUERY_SELECT_NODE = "SELECT node_id FROM core_daemon_lock WHERE daemon_id = ? ";
+    private static final String SQL_QUERY_INSERT = "INSERT INTO core_daemon_lock ( daemon_id, node_id, date_expiry ) VALUES ( ?, ?, ? ) ";
+    private static final String SQL_QUERY_LOCK = "UPDATE core_daemon_lock SET node_id = ?, date_expiry = ? WHERE daemon_id = ? AND ( node_id = ? OR date_expiry < ? ) ";
+    private static final String SQL_QUERY_UNLOCK = "UPDATE core_daemon_lock SET date_expiry = ? WHERE daemon_id = ? AND node_id = ? ";
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean lock( String strDaemonId, String strNodeId, Timestamp dateNow, Timestamp dateExpiry )
+    {
+        // The conditional update is atomic : only one node can take over an expired lock
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_LOCK ) )
+        {
+            int nIndex = 1;
+            daoUtil.setString( nIndex++, strNodeId );
+            daoUtil.setTimestamp( nIndex++, dateExpiry );
+            daoUtil.setString( nIndex++, strDaemonId );
+            daoUtil.setString( nIndex++, strNodeId );
+            daoUtil.setTimestamp( nIndex, dateNow );
+            daoUtil.executeUpdate( );
+        }
+
+        String strHolder = selectNode( strDaemonId );
+
+        if ( strHolder == null )
+        {
+            try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT ) )
+            {
+                int nIndex = 1;
+                daoUtil.setString( nIndex++, strDaemonId );
+                daoUtil.setString( nIndex++, strNodeId );
+                daoUtil.setTimestamp( nIndex, dateExpiry );
+                daoUtil.executeUpdate( );
+            }
+            catch( AppException e )
+            {
+                // Another node created the lock at the same time
+            }
+
+            strHolder = selectNode( strDaemonId );
+        }
+
+        return strNodeId.equals( strHolder );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void unlock( String strDaemonId, String strNodeId, Timestamp dateNow )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_UNLOCK ) )
+        {
+            daoUtil.setTimestamp( 1, dateNow );
+            daoUtil.setString( 2, strDaemonId );
+            daoUtil.setString( 3, strNodeId );
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    /**
+     * Returns the node holding the lock of a daemon
+     *
+     * @param strDaemonId
+     *            The daemon id
+     * @return The node id or null if the lock doesn't exist
+     */
+    private String selectNode( String strDaemonId )
+    {
+        String strNodeId = null;
+
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_NODE ) )
+        {
+            daoUtil.setString( 1, strDaemonId );
+            daoUtil.executeQuery( );
+
+            if ( daoUtil.next( ) )
+            {
+                strNodeId = daoUtil.getString( 1 );
+            }
+        }
+
+        return strNodeId;
+    }
+}
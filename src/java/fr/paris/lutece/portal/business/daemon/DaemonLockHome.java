@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.business.daemon;
+
+import fr.paris.lutece.portal.service.spring.SpringContextService;
+
+import java.sql.Timestamp;
+
+/**
+ * This class provides the management of the daemon locks shared by the nodes of a cluster
+ */
+public final class DaemonLockHome
+{
+    // Static variable pointed at the DAO instance
+    private static IDaemonLockDAO _dao = SpringContextService.getBean( "daemonLockDAO" );
+
+    /**
+     * Private constructor - this class need not be instantiated
+     */
+    private DaemonLockHome( )
+    {
+    }
+
+    /**
+     * Acquires or renews the lock of a daemon
+     *
+     * @param strDaemonId
+     *            The daemon id
+     * @param strNodeId
+     *            The id of the node requesting the lock
+     * @param lExpiry
+     *            The expiry time of the lock in milliseconds
+     * @return <code>true</code> if the node holds the lock until the expiry time
+     */
+    public static boolean lock( String strDaemonId, String strNodeId, long lExpiry )
+    {
+        return _dao.lock( strDaemonId, strNodeId, new Timestamp( System.currentTimeMillis( ) ), new Timestamp( lExpiry ) );
+    }
+
+    /**
+     * Releases the lock of a daemon so that another node can take it over
+     *
+     * @param strDaemonId
+     *            The daemon id
+     * @param strNodeId
+     *            The id of the node holding the lock
+     */
+    public static void unlock( String strDaemonId, String strNodeId )
+    {
+        _dao.unlock( strDaemonId, strNodeId, new Timestamp( System.currentTimeMillis( ) ) );
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.business.daemon;
+
+import java.sql.Timestamp;
+
+/**
+ * IDaemonLockDAO
+ */
+public interface IDaemonLockDAO
+{
+    /**
+     * Acquires or renews the lock of a daemon. The lock is granted if it is free, expired or already held by the node.
+     *
+     * @param strDaemonId
+     *            The daemon id
+     * @param strNodeId
+     *            The id of the node requesting the lock
+     * @param dateNow
+     *            The current date, locks expired before this date are free
+     * @param dateExpiry
+     *            The expiry date of the lock if it is granted
+     * @return <code>true</code> if the node holds the lock
+     */
+    boolean lock( String strDaemonId, String strNodeId, Timestamp dateNow, Timestamp dateExpiry );
+
+    /**
+     * Releases the lock of a daemon if it is held by the node
+     *
+     * @param strDaemonId
+     *            The daemon id
+     * @param strNodeId
+     *            The id of the node holding the lock
+     * @param dateNow
+     *            The current date, used as the new expiry date of the lock
+     */
+    void unlock( String strDaemonId, String strNodeId, Timestamp dateNow );
+}
@@ -301,6 +301,30 @@ public class DashboardDAO implements IDashboardDAO
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void store( List<IDashboardComponent> listDashboardComponents )
+    {
+        if ( listDashboardComponents.isEmpty( ) )
+        {
+            return;
+        }
+
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_UPDATE ) )
+        {
+            for ( IDashboardComponent dashboardComponent : listDashboardComponents )
+            {
+                int nIndex = setInsertOrUpdateValues( 1, dashboardComponent, daoUtil );
+                daoUtil.setString( nIndex, dashboardComponent.getName( ) );
+                daoUtil.addBatch( );
+            }
+
+            daoUtil.executeBatch( );
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
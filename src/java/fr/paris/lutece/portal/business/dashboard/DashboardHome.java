@@ -79,6 +79,18 @@ public final class DashboardHome
         _dao.store( dashboardComponent );
     }
 
+    /**
+     * Update the order and the column of a list of DashboardComponents in a single batch
+     *
+     * @param listDashboardComponents
+     *            the DashboardComponents to update
+     * @since 7.0.17
+     */
+    public static void update( List<IDashboardComponent> listDashboardComponents )
+    {
+        _dao.store( listDashboardComponents );
+    }
+
     /**
      * Remove the DashboardComponent whose identifier is specified in parameter
      *
@@ -83,6 +83,21 @@ public interface IDashboardDAO
      */
     void store( IDashboardComponent dashboardComponent );
 
+    /**
+     * Update the order and the column of a list of dashboardComponents
+     *
+     * @param listDashboardComponents
+     *            the dashboardComponents to update
+     * @since 7.0.17
+     */
+    default void store( List<IDashboardComponent> listDashboardComponents )
+    {
+        for ( IDashboardComponent dashboardComponent : listDashboardComponents )
+        {
+            store( dashboardComponent );
+        }
+    }
+
     /**
      * Finds all DashboardComponent
      * 
@@ -49,7 +49,9 @@ public final class DataEntityDAO implements IDataEntityDAO
     private static final String SQL_QUERY_DELETE = "DELETE FROM core_datastore WHERE entity_key = ? ";
     private static final String SQL_QUERY_UPDATE = "UPDATE core_datastore SET entity_value = ? WHERE entity_key = ?";
     private static final String SQL_QUERY_SELECTALL = "SELECT entity_key, entity_value FROM core_datastore";
-    private static final String SQL_QUERY_SELECTBYPREFIX = "SELECT entity_key, entity_value FROM core_datastore WHERE entity_key LIKE ?";
+    private static final String SQL_QUERY_SELECTBYPREFIX = "SELECT entity_key, entity_value FROM core_datastore WHERE entity_key LIKE ? ESCAPE '!'";
+    private static final String SQL_QUERY_SELECTKEYSBYPREFIX = "SELECT entity_key FROM core_datastore WHERE entity_key LIKE ? ESCAPE '!'";
+    private static final char LIKE_ESCAPE = '!';
 
     /**
      * Insert a new record in the table.
@@ -168,20 +170,93 @@ public final class DataEntityDAO implements IDataEntityDAO
         List<DataEntity> entityList = new ArrayList<>( );
         try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECTBYPREFIX ) )
         {
-            daoUtil.setString( 1, strPrefix + "%" );
+            daoUtil.setString( 1, getLikePattern( strPrefix ) );
             daoUtil.executeQuery( );
 
             while ( daoUtil.next( ) )
             {
-                DataEntity entity = new DataEntity( );
+                String strKey = daoUtil.getString( 1 );
 
-                entity.setKey( daoUtil.getString( 1 ) );
-                entity.setValue( daoUtil.getString( 2 ) );
+                // LIKE may ignore the case, depending on the collation
+                if ( strKey.startsWith( strPrefix ) )
+                {
+                    DataEntity entity = new DataEntity( );
 
-                entityList.add( entity );
+                    entity.setKey( strKey );
+                    entity.setValue( daoUtil.getString( 2 ) );
+
+                    entityList.add( entity );
+                }
             }
 
         }
         return entityList;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteByPrefix( String strPrefix )
+    {
+        List<String> listKeys = new ArrayList<>( );
+
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECTKEYSBYPREFIX ) )
+        {
+            daoUtil.setString( 1, getLikePattern( strPrefix ) );
+            daoUtil.executeQuery( );
+
+            while ( daoUtil.next( ) )
+            {
+                String strKey = daoUtil.getString( 1 );
+
+                // LIKE may ignore the case, depending on the collation
+                if ( strKey.startsWith( strPrefix ) )
+                {
+                    listKeys.add( strKey );
+                }
+            }
+        }
+
+        if ( listKeys.isEmpty( ) )
+        {
+            return;
+        }
+
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE ) )
+        {
+            for ( String strKey : listKeys )
+            {
+                daoUtil.setString( 1, strKey );
+                daoUtil.addBatch( );
+            }
+
+            daoUtil.executeBatch( );
+        }
+    }
+
+    /**
+     * Build the LIKE pattern matching the keys starting with a prefix. The wildcards of the prefix are escaped so that they match literally. Depending on
+     * the collation of the database, the pattern may also match the keys starting with the prefix in another case : the keys must be checked by the caller.
+     * 
+     * @param strPrefix
+     *            the prefix
+     * @return the pattern
+     */
+    private static String getLikePattern( String strPrefix )
+    {
+        StringBuilder sbPattern = new StringBuilder( strPrefix.length( ) + 1 );
+
+        for ( char c : strPrefix.toCharArray( ) )
+        {
+            if ( c == LIKE_ESCAPE || c == '%' || c == '_' )
+            {
+                sbPattern.append( LIKE_ESCAPE );
+            }
+
+            sbPattern.append( c );
+        }
+
+        return sbPattern.append( '%' ).toString( );
+    }
 }
@@ -89,6 +89,18 @@ public final class DataEntityHome
         _dao.delete( strKey );
     }
 
+    /**
+     * Remove all the entities whose key share a prefix
+     * 
+     * @param strPrefix
+     *            the prefix
+     * @since 7.0.17
+     */
+    public static void removeByPrefix( String strPrefix )
+    {
+        _dao.deleteByPrefix( strPrefix );
+    }
+
     // /////////////////////////////////////////////////////////////////////////
     // Finders
 
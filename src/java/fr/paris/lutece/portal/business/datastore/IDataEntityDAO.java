@@ -93,4 +93,13 @@ public interface IDataEntityDAO
      * @since 7.0.17
      */
     List<DataEntity> selectEntitiesByPrefix( String strPrefix );
+
+    /**
+     * Delete all the entities whose key share a prefix
+     * 
+     * @param strPrefix
+     *            the prefix
+     * @since 7.0.17
+     */
+    void deleteByPrefix( String strPrefix );
 }
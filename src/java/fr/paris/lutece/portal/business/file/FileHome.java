@@ -33,9 +33,12 @@
  */
 package fr.paris.lutece.portal.business.file;
 
+import fr.paris.lutece.portal.business.physicalfile.PhysicalFile;
 import fr.paris.lutece.portal.business.physicalfile.PhysicalFileHome;
 import fr.paris.lutece.portal.service.spring.SpringContextService;
 
+import java.io.InputStream;
+
 /**
  * This class provides instances management methods (create, find, ...) for file objects
  */
@@ -69,6 +72,27 @@ public final class FileHome
         return _dao.insert( file );
     }
 
+    /**
+     * Creation of a file whose content is read from a stream, without loading the whole content in memory
+     *
+     * @param file
+     *            The instance of the file which contains the meta data to store
+     * @param inputStream
+     *            The stream of the content
+     * @param lLength
+     *            The length of the content, or -1 if unknown
+     * @return the id of the file after creation
+     * @since 7.0.17
+     */
+    public static int create( File file, InputStream inputStream, long lLength )
+    {
+        PhysicalFile physicalFile = new PhysicalFile( );
+        physicalFile.setIdPhysicalFile( PhysicalFileHome.create( inputStream, lLength ) );
+        file.setPhysicalFile( physicalFile );
+
+        return _dao.insert( file );
+    }
+
     /**
      * Update of file which is specified in parameter
      *
@@ -33,6 +33,8 @@
  */
 package fr.paris.lutece.portal.business.mail;
 
+import java.util.List;
+
 /**
  * This class provides Data Access methods for MailItemQueue objects
  */
@@ -46,6 +48,14 @@ public interface IMailItemQueueDAO
      */
     void insert( MailItemQueue mailItemQueue );
 
+    /**
+     * Insert several mail items in the table within a single transaction.
+     * 
+     * @param listMailItemQueues
+     *            the mail items
+     */
+    void insert( List<MailItemQueue> listMailItemQueues );
+
     /**
      * return the first mail item in the table
      * 
@@ -83,4 +93,32 @@ public interface IMailItemQueueDAO
      *            the id of the mail item to lock
      */
     void lockMailItemQueue( int nIdMailItemQueue );
+
+    /**
+     * Lock the oldest unlocked mail items in one statement. The locked items are marked with the given token so that they can be loaded and deleted by the
+     * caller without conflicting with other consumers.
+     * 
+     * @param nLockToken
+     *            the token marking the locked items, greater than 1
+     * @param nCount
+     *            the maximum number of items to lock
+     */
+    void lockMailItemQueues( int nLockToken, int nCount );
+
+    /**
+     * Load the mail items locked with a given token
+     * 
+     * @param nLockToken
+     *            the lock token
+     * @return the locked mail items ordered by id
+     */
+    List<MailItemQueue> loadLockedMailItemQueues( int nLockToken );
+
+    /**
+     * Delete the mail items locked with a given token
+     * 
+     * @param nLockToken
+     *            the lock token
+     */
+    void deleteLockedMailItemQueues( int nLockToken );
 }
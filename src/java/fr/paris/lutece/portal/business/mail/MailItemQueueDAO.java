@@ -35,21 +35,14 @@ package fr.paris.lutece.portal.business.mail;
 
 import fr.paris.lutece.portal.service.mail.MailItem;
 import fr.paris.lutece.portal.service.util.AppLogService;
-import fr.paris.lutece.util.mail.FileAttachment;
-import fr.paris.lutece.util.mail.UrlAttachment;
 import fr.paris.lutece.util.sql.DAOUtil;
 import fr.paris.lutece.util.sql.Transaction;
 import fr.paris.lutece.util.sql.TransactionManager;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.ObjectOutputStream;
-import java.net.URL;
 import java.sql.Statement;
 import java.util.ArrayList;
-
-import org.apache.commons.io.serialization.ValidatingObjectInputStream;
+import java.util.List;
 
 /**
  * This class provides Data Access methods for MailItemQueue objects
@@ -64,6 +57,13 @@ public class MailItemQueueDAO implements IMailItemQueueDAO
     private static final String SQL_QUERY_LOCK_MAIL_ITEM = " UPDATE core_mail_queue SET is_locked=1 WHERE id_mail_queue= ? ";
     private static final String SQL_QUERY_DELETE = " DELETE FROM core_mail_queue WHERE id_mail_queue = ?";
     private static final String SQL_QUERY_DELETE_MAIL_ITEM = " DELETE FROM core_mail_item WHERE id_mail_queue = ?";
+    private static final String SQL_QUERY_LOCK_MAIL_ITEMS = " UPDATE core_mail_queue SET is_locked = ? WHERE is_locked = 0 AND id_mail_queue IN "
+            + " ( SELECT id_mail_queue FROM ( SELECT id_mail_queue FROM core_mail_queue WHERE is_locked = 0 ORDER BY id_mail_queue LIMIT ? ) claimed ) ";
+    private static final String SQL_QUERY_LOAD_LOCKED_MAIL_ITEMS = "SELECT a.id_mail_queue, a.mail_item FROM core_mail_item a, core_mail_queue b "
+            + " WHERE a.id_mail_queue = b.id_mail_queue AND b.is_locked = ? ORDER BY a.id_mail_queue ";
+    private static final String SQL_QUERY_DELETE_LOCKED = " DELETE FROM core_mail_queue WHERE is_locked = ? ";
+    private static final String SQL_QUERY_DELETE_LOCKED_MAIL_ITEMS = " DELETE FROM core_mail_item WHERE id_mail_queue IN "
+            + " ( SELECT id_mail_queue FROM core_mail_queue WHERE is_locked = ? ) ";
 
     /**
      * return the next mail item queue id
@@ -112,26 +112,79 @@ public class MailItemQueueDAO implements IMailItemQueueDAO
      *            the mail item
      */
     @Override
-    public synchronized void insert( MailItemQueue mailItemQueue )
+    public void insert( MailItemQueue mailItemQueue )
     {
         try
         {
-            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream( );
-            ObjectOutputStream objectOutputStream;
-            objectOutputStream = new ObjectOutputStream( byteArrayOutputStream );
-            objectOutputStream.writeObject( mailItemQueue.getMailItem( ) );
-            objectOutputStream.close( );
-            byteArrayOutputStream.close( );
-
-            doInsertMail( mailItemQueue, byteArrayOutputStream );
+            doInsertMail( mailItemQueue, MailItemSerializer.serialize( mailItemQueue.getMailItem( ) ) );
+        }
+        catch( Exception e )
+        {
+            AppLogService.error( e );
+        }
+    }
+
+    /**
+     * Insert several mail items in the table. The items are inserted by JDBC batches within a single transaction.
+     * 
+     * @param listMailItemQueues
+     *            the mail items
+     */
+    @Override
+    public void insert( List<MailItemQueue> listMailItemQueues )
+    {
+        List<MailItemQueue> listSerialized = new ArrayList<>( listMailItemQueues.size( ) );
+        List<byte [ ]> listData = new ArrayList<>( listMailItemQueues.size( ) );
+
+        for ( MailItemQueue mailItemQueue : listMailItemQueues )
+        {
+            try
+            {
+                listData.add( MailItemSerializer.serialize( mailItemQueue.getMailItem( ) ) );
+                listSerialized.add( mailItemQueue );
+            }
+            catch( Exception e )
+            {
+                AppLogService.error( e );
+            }
+        }
+
+        if ( listSerialized.isEmpty( ) )
+        {
+            return;
+        }
+
+        TransactionManager.beginTransaction( null );
+        try ( DAOUtil daoUtilKey = new DAOUtil( SQL_QUERY_INSERT, Statement.RETURN_GENERATED_KEYS ) ;
+                DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT_MAIL_ITEM ) )
+        {
+            for ( int i = 0; i < listSerialized.size( ); i++ )
+            {
+                daoUtilKey.addBatch( );
+            }
+            daoUtilKey.executeBatch( );
+
+            List<Long> listKeys = daoUtilKey.getBatchGeneratedKeys( );
+
+            for ( int i = 0; i < listSerialized.size( ); i++ )
+            {
+                int nNewPrimaryKey = listKeys.get( i ).intValue( );
+                listSerialized.get( i ).setIdMailItemQueue( nNewPrimaryKey );
+                daoUtil.setInt( 1, nNewPrimaryKey );
+                daoUtil.setBytes( 2, listData.get( i ) );
+                daoUtil.addBatch( );
+            }
+            daoUtil.executeBatch( );
+            TransactionManager.commitTransaction( null );
         }
         catch( Exception e )
         {
+            TransactionManager.rollBack( null );
             AppLogService.error( e );
         }
     }
 
-    private void doInsertMail( MailItemQueue mailItemQueue, ByteArrayOutputStream byteArrayOutputStream )
+    private void doInsertMail( MailItemQueue mailItemQueue, byte [ ] mailItemData )
     {
         TransactionManager.beginTransaction( null );
         try ( DAOUtil daoUtilKey = new DAOUtil( SQL_QUERY_INSERT, Statement.RETURN_GENERATED_KEYS ) ;
@@ -142,7 +195,7 @@ public class MailItemQueueDAO implements IMailItemQueueDAO
             int nNewPrimaryKey = daoUtilKey.getGeneratedKeyInt( 1 );
             mailItemQueue.setIdMailItemQueue( nNewPrimaryKey );
             daoUtil.setInt( 1, nNewPrimaryKey );
-            daoUtil.setBytes( 2, byteArrayOutputStream.toByteArray( ) );
+            daoUtil.setBytes( 2, mailItemData );
             daoUtil.executeUpdate( );
             TransactionManager.commitTransaction( null );
         }
@@ -164,8 +217,6 @@ public class MailItemQueueDAO implements IMailItemQueueDAO
     public MailItemQueue load( int nIdMailItemQueue )
     {
         MailItemQueue mailItemQueue = null;
-        MailItem mailItem = null;
-        InputStream inputStream;
         try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_LOAD_MAIL_ITEM ) )
         {
             daoUtil.setInt( 1, nIdMailItemQueue );
@@ -173,37 +224,96 @@ public class MailItemQueueDAO implements IMailItemQueueDAO
 
             if ( daoUtil.next( ) )
             {
-                mailItemQueue = new MailItemQueue( );
-                mailItemQueue.setIdMailItemQueue( daoUtil.getInt( 1 ) );
-                inputStream = daoUtil.getBinaryStream( 2 );
-
-                try ( ValidatingObjectInputStream objectInputStream = new ValidatingObjectInputStream( inputStream ) )
-                {
-                    objectInputStream.accept( MailItem.class, ArrayList.class, byte [ ].class, FileAttachment.class, UrlAttachment.class,
-                            FileAttachment [ ].class, UrlAttachment [ ].class, URL.class );
-                    mailItem = (MailItem) objectInputStream.readObject( );
-                }
-                catch( ClassNotFoundException | IOException e )
-                {
-                    AppLogService.error( e.getMessage( ), e );
-                }
-                finally
-                {
-                    try
-                    {
-                        inputStream.close( );
-                    }
-                    catch( IOException e )
-                    {
-                        AppLogService.error( e.getMessage( ), e );
-                    }
-                }
-
-                mailItemQueue.setMailItem( mailItem );
+                mailItemQueue = dataToMailItemQueue( daoUtil );
+            }
+
+        }
+
+        return mailItemQueue;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void lockMailItemQueues( int nLockToken, int nCount )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_LOCK_MAIL_ITEMS ) )
+        {
+            daoUtil.setInt( 1, nLockToken );
+            daoUtil.setInt( 2, nCount );
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<MailItemQueue> loadLockedMailItemQueues( int nLockToken )
+    {
+        List<MailItemQueue> listMailItemQueues = new ArrayList<>( );
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_LOAD_LOCKED_MAIL_ITEMS ) )
+        {
+            daoUtil.setInt( 1, nLockToken );
+            daoUtil.executeQuery( );
+
+            while ( daoUtil.next( ) )
+            {
+                listMailItemQueues.add( dataToMailItemQueue( daoUtil ) );
             }
 
         }
 
+        return listMailItemQueues;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteLockedMailItemQueues( int nLockToken )
+    {
+        Transaction transaction = new Transaction( );
+
+        try
+        {
+            transaction.prepareStatement( SQL_QUERY_DELETE_LOCKED_MAIL_ITEMS );
+            transaction.getStatement( ).setInt( 1, nLockToken );
+            transaction.executeStatement( );
+            transaction.prepareStatement( SQL_QUERY_DELETE_LOCKED );
+            transaction.getStatement( ).setInt( 1, nLockToken );
+            transaction.executeStatement( );
+            transaction.commit( );
+        }
+        catch( Exception e )
+        {
+            transaction.rollback( e );
+            AppLogService.error( e );
+        }
+    }
+
+    /**
+     * Build a mail item queue from the current row
+     * 
+     * @param daoUtil
+     *            The daoUtil positioned on a row whose columns are the id and the mail item data
+     * @return The mail item queue. Its mail item is null if the data can not be read
+     */
+    private MailItemQueue dataToMailItemQueue( DAOUtil daoUtil )
+    {
+        MailItemQueue mailItemQueue = new MailItemQueue( );
+        mailItemQueue.setIdMailItemQueue( daoUtil.getInt( 1 ) );
+
+        try
+        {
+            mailItemQueue.setMailItem( MailItemSerializer.deserialize( daoUtil.getBytes( 2 ) ) );
+        }
+        catch( IOException e )
+        {
+            AppLogService.error( e.getMessage( ), e );
+        }
+
         return mailItemQueue;
     }
 
@@ -35,6 +35,10 @@ package fr.paris.lutece.portal.business.mail;
 
 import fr.paris.lutece.portal.service.spring.SpringContextService;
 
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * This class provides Data Access methods for MailItemQueue objects
  */
@@ -42,6 +46,10 @@ public final class MailItemQueueHome
 {
     // Static variable pointed at the DAO instance
     private static IMailItemQueueDAO _dao = SpringContextService.getBean( "mailItemQueueDAO" );
+    private static final int LOCK_TOKEN_MIN = 2;
+
+    // Lock tokens start at a random value so that nodes sharing the database use different tokens
+    private static final AtomicInteger _nLockToken = new AtomicInteger( ThreadLocalRandom.current( ).nextInt( Short.MAX_VALUE ) );
 
     /**
      * Creates a new MailItemQueueHome object.
@@ -61,6 +69,17 @@ public final class MailItemQueueHome
         _dao.insert( mailItemQueue );
     }
 
+    /**
+     * Insert several mail items in the database queue within a single transaction.
+     * 
+     * @param listMailItemQueues
+     *            the mail items to insert
+     */
+    public static void create( List<MailItemQueue> listMailItemQueues )
+    {
+        _dao.insert( listMailItemQueues );
+    }
+
     /**
      * Delete the mail item record in the table
      * 
@@ -93,6 +112,39 @@ public final class MailItemQueueHome
         return null;
     }
 
+    /**
+     * Claim the oldest mail items of the queue and remove them from the queue. The items are locked in one statement and deleted in bulk.
+     * 
+     * @param nCount
+     *            the maximum number of mail items to claim
+     * @return the claimed mail items, oldest first
+     */
+    public static List<MailItemQueue> getNextMailItemQueues( int nCount )
+    {
+        int nLockToken = nextLockToken( );
+        _dao.lockMailItemQueues( nLockToken, nCount );
+
+        List<MailItemQueue> listMailItemQueues = _dao.loadLockedMailItemQueues( nLockToken );
+
+        if ( !listMailItemQueues.isEmpty( ) )
+        {
+            _dao.deleteLockedMailItemQueues( nLockToken );
+        }
+
+        return listMailItemQueues;
+    }
+
+    /**
+     * Get the next lock token. Tokens cycle between 2 and the maximum value of the is_locked column, 0 and 1 being used by the unlocked and single locked
+     * items
+     * 
+     * @return the lock token
+     */
+    private static int nextLockToken( )
+    {
+        return LOCK_TOKEN_MIN + Math.floorMod( _nLockToken.getAndIncrement( ), Short.MAX_VALUE - LOCK_TOKEN_MIN + 1 );
+    }
+
     /**
      *
      * @return the number of mail item present in the queue
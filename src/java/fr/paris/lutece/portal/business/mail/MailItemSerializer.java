@@ -0,0 +1,322 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.business.mail;
+
+import fr.paris.lutece.portal.service.mail.MailItem;
+import fr.paris.lutece.util.mail.FileAttachment;
+import fr.paris.lutece.util.mail.UrlAttachment;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.serialization.ValidatingObjectInputStream;
+
+/**
+ * Compact binary format of the mail items stored in the mail queue. The data starts with a two bytes magic number followed by the version of the format, so
+ * that items written by the former Java serialization can still be read.
+ */
+public final class MailItemSerializer
+{
+    /** The current version of the format */
+    public static final int VERSION = 1;
+
+    private static final byte MAGIC_1 = 'L';
+    private static final byte MAGIC_2 = 'M';
+    private static final int JAVA_SERIALIZATION_MAGIC_1 = 0xAC;
+    private static final int JAVA_SERIALIZATION_MAGIC_2 = 0xED;
+    private static final int NULL_LENGTH = -1;
+
+    /**
+     * Private constructor
+     */
+    private MailItemSerializer( )
+    {
+    }
+
+    /**
+     * Serialize a mail item
+     * 
+     * @param mailItem
+     *            The mail item
+     * @return The serialized mail item
+     * @throws IOException
+     *             if an error occurs
+     */
+    public static byte [ ] serialize( MailItem mailItem ) throws IOException
+    {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream( );
+
+        try ( DataOutputStream out = new DataOutputStream( baos ) )
+        {
+            out.writeByte( MAGIC_1 );
+            out.writeByte( MAGIC_2 );
+            out.writeByte( VERSION );
+            writeString( out, mailItem.getRecipientsTo( ) );
+            writeString( out, mailItem.getRecipientsCc( ) );
+            writeString( out, mailItem.getRecipientsBcc( ) );
+            writeString( out, mailItem.getSenderName( ) );
+            writeString( out, mailItem.getSenderEmail( ) );
+            writeString( out, mailItem.getSubject( ) );
+            writeString( out, mailItem.getMessage( ) );
+            writeString( out, mailItem.getCalendarMessage( ) );
+            out.writeBoolean( mailItem.getCreateEvent( ) );
+            out.writeInt( mailItem.getFormat( ) );
+            out.writeBoolean( mailItem.isUniqueRecipientTo( ) );
+
+            List<UrlAttachment> listUrlAttachments = mailItem.getUrlsAttachement( );
+            out.writeInt( ( listUrlAttachments != null ) ? listUrlAttachments.size( ) : NULL_LENGTH );
+
+            if ( listUrlAttachments != null )
+            {
+                for ( UrlAttachment urlAttachment : listUrlAttachments )
+                {
+                    writeString( out, urlAttachment.getContentLocation( ) );
+                    writeString( out, ( urlAttachment.getUrlData( ) != null ) ? urlAttachment.getUrlData( ).toExternalForm( ) : null );
+                }
+            }
+
+            List<FileAttachment> listFileAttachments = mailItem.getFilesAttachement( );
+            out.writeInt( ( listFileAttachments != null ) ? listFileAttachments.size( ) : NULL_LENGTH );
+
+            if ( listFileAttachments != null )
+            {
+                for ( FileAttachment fileAttachment : listFileAttachments )
+                {
+                    writeString( out, fileAttachment.getFileName( ) );
+                    writeString( out, fileAttachment.getType( ) );
+                    writeBytes( out, fileAttachment.getData( ) );
+                }
+            }
+        }
+
+        return baos.toByteArray( );
+    }
+
+    /**
+     * Deserialize a mail item. Both the compact format and the former Java serialization are supported.
+     * 
+     * @param data
+     *            The serialized mail item
+     * @return The mail item
+     * @throws IOException
+     *             if the data can not be read
+     */
+    public static MailItem deserialize( byte [ ] data ) throws IOException
+    {
+        if ( data == null || data.length < 3 )
+        {
+            throw new IOException( "Invalid mail item data" );
+        }
+
+        if ( ( data [0] & 0xFF ) == JAVA_SERIALIZATION_MAGIC_1 && ( data [1] & 0xFF ) == JAVA_SERIALIZATION_MAGIC_2 )
+        {
+            return deserializeLegacy( new ByteArrayInputStream( data ) );
+        }
+
+        if ( data [0] != MAGIC_1 || data [1] != MAGIC_2 )
+        {
+            throw new IOException( "Unknown mail item format" );
+        }
+
+        if ( data [2] > VERSION )
+        {
+            throw new IOException( "Unsupported mail item format version : " + data [2] );
+        }
+
+        try ( DataInputStream in = new DataInputStream( new ByteArrayInputStream( data, 3, data.length - 3 ) ) )
+        {
+            MailItem mailItem = new MailItem( );
+            mailItem.setRecipientsTo( readString( in ) );
+            mailItem.setRecipientsCc( readString( in ) );
+            mailItem.setRecipientsBcc( readString( in ) );
+            mailItem.setSenderName( readString( in ) );
+            mailItem.setSenderEmail( readString( in ) );
+            mailItem.setSubject( readString( in ) );
+            mailItem.setMessage( readString( in ) );
+            mailItem.setCalendarMessage( readString( in ) );
+            mailItem.setCreateEvent( in.readBoolean( ) );
+            mailItem.setFormat( in.readInt( ) );
+            mailItem.setUniqueRecipientTo( in.readBoolean( ) );
+
+            int nUrlAttachments = in.readInt( );
+
+            if ( nUrlAttachments != NULL_LENGTH )
+            {
+                List<UrlAttachment> listUrlAttachments = new ArrayList<>( nUrlAttachments );
+
+                for ( int i = 0; i < nUrlAttachments; i++ )
+                {
+                    String strContentLocation = readString( in );
+                    String strUrl = readString( in );
+                    listUrlAttachments.add( new UrlAttachment( strContentLocation, ( strUrl != null ) ? new URL( strUrl ) : null ) );
+                }
+
+                mailItem.setUrlsAttachement( listUrlAttachments );
+            }
+
+            int nFileAttachments = in.readInt( );
+
+            if ( nFileAttachments != NULL_LENGTH )
+            {
+                List<FileAttachment> listFileAttachments = new ArrayList<>( nFileAttachments );
+
+                for ( int i = 0; i < nFileAttachments; i++ )
+                {
+                    String strFileName = readString( in );
+                    String strType = readString( in );
+                    listFileAttachments.add( new FileAttachment( strFileName, readBytes( in ), strType ) );
+                }
+
+                mailItem.setFilesAttachement( listFileAttachments );
+            }
+
+            return mailItem;
+        }
+    }
+
+    /**
+     * Read a mail item written with the Java serialization
+     * 
+     * @param inputStream
+     *            The input stream
+     * @return The mail item
+     * @throws IOException
+     *             if the data can not be read
+     */
+    private static MailItem deserializeLegacy( InputStream inputStream ) throws IOException
+    {
+        try ( ValidatingObjectInputStream objectInputStream = new ValidatingObjectInputStream( inputStream ) )
+        {
+            objectInputStream.accept( MailItem.class, ArrayList.class, byte [ ].class, FileAttachment.class, UrlAttachment.class, FileAttachment [ ].class,
+                    UrlAttachment [ ].class, URL.class );
+
+            return (MailItem) objectInputStream.readObject( );
+        }
+        catch( ClassNotFoundException e )
+        {
+            throw new IOException( e.getMessage( ), e );
+        }
+    }
+
+    /**
+     * Write a nullable string
+     * 
+     * @param out
+     *            The output
+     * @param strValue
+     *            The value
+     * @throws IOException
+     *             if an error occurs
+     */
+    private static void writeString( DataOutputStream out, String strValue ) throws IOException
+    {
+        writeBytes( out, ( strValue != null ) ? strValue.getBytes( StandardCharsets.UTF_8 ) : null );
+    }
+
+    /**
+     * Write a nullable byte array
+     * 
+     * @param out
+     *            The output
+     * @param data
+     *            The value
+     * @throws IOException
+     *             if an error occurs
+     */
+    private static void writeBytes( DataOutputStream out, byte [ ] data ) throws IOException
+    {
+        if ( data == null )
+        {
+            out.writeInt( NULL_LENGTH );
+        }
+        else
+        {
+            out.writeInt( data.length );
+            out.write( data );
+        }
+    }
+
+    /**
+     * Read a nullable string
+     * 
+     * @param in
+     *            The input
+     * @return The value
+     * @throws IOException
+     *             if an error occurs
+     */
+    private static String readString( DataInputStream in ) throws IOException
+    {
+        byte [ ] data = readBytes( in );
+
+        return ( data != null ) ? new String( data, StandardCharsets.UTF_8 ) : null;
+    }
+
+    /**
+     * Read a nullable byte array
+     * 
+     * @param in
+     *            The input
+     * @return The value
+     * @throws IOException
+     *             if an error occurs
+     */
+    private static byte [ ] readBytes( DataInputStream in ) throws IOException
+    {
+        int nLength = in.readInt( );
+
+        if ( nLength == NULL_LENGTH )
+        {
+            return null;
+        }
+
+        if ( nLength < 0 || nLength > in.available( ) )
+        {
+            throw new IOException( "Invalid mail item data length : " + nLength );
+        }
+
+        byte [ ] data = new byte [ nLength];
+        in.readFully( data );
+
+        return data;
+    }
+}
@@ -33,7 +33,6 @@
  */
 package fr.paris.lutece.portal.business.page;
 
-import fr.paris.lutece.portal.business.portlet.Portlet;
 import fr.paris.lutece.portal.business.portlet.PortletHome;
 import fr.paris.lutece.portal.service.image.ImageResource;
 import fr.paris.lutece.util.ReferenceList;
@@ -423,15 +422,8 @@ public final class PageDAO implements IPageDAO
 
         }
 
-        ArrayList<Portlet> pageColl = new ArrayList<>( );
-
-        for ( Integer nPortletId : portletIds )
-        {
-            Portlet portlet = PortletHome.findByPrimaryKey( nPortletId );
-            pageColl.add( portlet );
-        }
-
-        page.setPortlets( pageColl );
+        // Load all the portlets at once instead of two queries per portlet
+        page.setPortlets( PortletHome.findByPrimaryKeys( portletIds ) );
     }
 
     /**
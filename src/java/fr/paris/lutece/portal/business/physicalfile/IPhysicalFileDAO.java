@@ -33,6 +33,8 @@
  */
 package fr.paris.lutece.portal.business.physicalfile;
 
+import java.io.InputStream;
+
 /**
  *
  * IPhysicalFileDAO
@@ -50,6 +52,42 @@ public interface IPhysicalFileDAO
      */
     int insert( PhysicalFile physicalFile );
 
+    /**
+     * Insert a new record in the table, reading its value from a stream
+     *
+     * @param inputStream
+     *            the stream of the value
+     * @param lLength
+     *            the length of the value, or -1 if unknown
+     * @return the id of the new physical file
+     * @since 7.0.17
+     */
+    int insert( InputStream inputStream, long lLength );
+
+    /**
+     * Returns the length of the value of a physical file
+     *
+     * @param nId
+     *            The identifier of the file
+     * @return the length in bytes, or -1 if the physical file doesn't exist
+     * @since 7.0.17
+     */
+    long selectValueLength( int nId );
+
+    /**
+     * Loads a part of the value of a physical file
+     *
+     * @param nId
+     *            The identifier of the file
+     * @param lOffset
+     *            The offset of the first byte to load
+     * @param nLength
+     *            The maximum number of bytes to load
+     * @return the bytes, or null if the physical file doesn't exist
+     * @since 7.0.17
+     */
+    byte [ ] selectValueRange( int nId, long lOffset, int nLength );
+
     /**
      * Load the data of the PhysicalFile from the table
      *
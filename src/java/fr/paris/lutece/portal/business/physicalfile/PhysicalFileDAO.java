@@ -33,6 +33,7 @@
  */
 package fr.paris.lutece.portal.business.physicalfile;
 
+import java.io.InputStream;
 import java.sql.Statement;
 
 import fr.paris.lutece.util.sql.DAOUtil;
@@ -47,6 +48,8 @@ public final class PhysicalFileDAO implements IPhysicalFileDAO
     private static final String SQL_QUERY_INSERT = "INSERT INTO core_physical_file(file_value)" + " VALUES(?)";
     private static final String SQL_QUERY_DELETE = "DELETE FROM core_physical_file WHERE id_physical_file = ? ";
     private static final String SQL_QUERY_UPDATE = "UPDATE  core_physical_file SET " + "id_physical_file=?,file_value=? WHERE id_physical_file = ?";
+    private static final String SQL_QUERY_SELECT_VALUE_LENGTH = "SELECT OCTET_LENGTH(file_value) FROM core_physical_file WHERE id_physical_file = ?";
+    private static final String SQL_QUERY_SELECT_VALUE_RANGE = "SELECT SUBSTRING(file_value FROM ? FOR ?) FROM core_physical_file WHERE id_physical_file = ?";
 
     /**
      * {@inheritDoc}
@@ -67,6 +70,76 @@ public final class PhysicalFileDAO implements IPhysicalFileDAO
         return physicalFile.getIdPhysicalFile( );
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int insert( InputStream inputStream, long lLength )
+    {
+        int nIdPhysicalFile = 0;
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT, Statement.RETURN_GENERATED_KEYS ) )
+        {
+            if ( lLength >= 0 )
+            {
+                daoUtil.setBinaryStream( 1, inputStream, lLength );
+            }
+            else
+            {
+                daoUtil.setBinaryStream( 1, inputStream );
+            }
+            daoUtil.executeUpdate( );
+
+            if ( daoUtil.nextGeneratedKey( ) )
+            {
+                nIdPhysicalFile = daoUtil.getGeneratedKeyInt( 1 );
+            }
+        }
+        return nIdPhysicalFile;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long selectValueLength( int nId )
+    {
+        long lLength = -1;
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_VALUE_LENGTH ) )
+        {
+            daoUtil.setInt( 1, nId );
+            daoUtil.executeQuery( );
+
+            if ( daoUtil.next( ) )
+            {
+                lLength = daoUtil.getLong( 1 );
+            }
+        }
+        return lLength;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte [ ] selectValueRange( int nId, long lOffset, int nLength )
+    {
+        byte [ ] value = null;
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_VALUE_RANGE ) )
+        {
+            // SQL positions start at 1
+            daoUtil.setLong( 1, lOffset + 1 );
+            daoUtil.setInt( 2, nLength );
+            daoUtil.setInt( 3, nId );
+            daoUtil.executeQuery( );
+
+            if ( daoUtil.next( ) )
+            {
+                value = daoUtil.getBytes( 1 );
+            }
+        }
+        return value;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -35,6 +35,8 @@ package fr.paris.lutece.portal.business.physicalfile;
 
 import fr.paris.lutece.portal.service.spring.SpringContextService;
 
+import java.io.InputStream;
+
 /**
  * This class provides instances management methods (create, find, ...) for physical file objects
  */
@@ -64,6 +66,21 @@ public final class PhysicalFileHome
         return _dao.insert( physicalFile );
     }
 
+    /**
+     * Creation of a physical file whose value is read from a stream, without loading the whole value in memory
+     *
+     * @param inputStream
+     *            The stream of the value
+     * @param lLength
+     *            The length of the value, or -1 if unknown
+     * @return the id of the physical file after creation
+     * @since 7.0.17
+     */
+    public static int create( InputStream inputStream, long lLength )
+    {
+        return _dao.insert( inputStream, lLength );
+    }
+
     /**
      * Update of physical file which is specified in parameter
      *
@@ -101,4 +118,34 @@ public final class PhysicalFileHome
     {
         return _dao.load( nKey );
     }
+
+    /**
+     * Returns the length of the value of a physical file, without loading it
+     *
+     * @param nKey
+     *            The physical file primary key
+     * @return the length in bytes, or -1 if the physical file doesn't exist
+     * @since 7.0.17
+     */
+    public static long findValueLength( int nKey )
+    {
+        return _dao.selectValueLength( nKey );
+    }
+
+    /**
+     * Returns a part of the value of a physical file
+     *
+     * @param nKey
+     *            The physical file primary key
+     * @param lOffset
+     *            The offset of the first byte
+     * @param nLength
+     *            The maximum number of bytes
+     * @return the bytes, or null if the physical file doesn't exist
+     * @since 7.0.17
+     */
+    public static byte [ ] findValueRange( int nKey, long lOffset, int nLength )
+    {
+        return _dao.selectValueRange( nKey, lOffset, nLength );
+    }
 }
@@ -35,7 +35,10 @@ package fr.paris.lutece.portal.business.portlet;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import fr.paris.lutece.util.ReferenceList;
 import fr.paris.lutece.util.sql.DAOUtil;
@@ -49,6 +52,7 @@ public final class AliasPortletDAO implements IAliasPortletDAO
     private static final String SQL_QUERY_INSERT = "INSERT INTO core_portlet_alias ( id_portlet , id_alias ) VALUES ( ?, ? )";
     private static final String SQL_QUERY_DELETE = "DELETE FROM core_portlet_alias WHERE id_portlet = ?";
     private static final String SQL_QUERY_SELECT = "SELECT id_alias FROM core_portlet_alias WHERE id_portlet = ? ";
+    private static final String SQL_QUERY_SELECT_ALL = "SELECT id_portlet, id_alias FROM core_portlet_alias WHERE id_portlet IN ( ";
     private static final String SQL_QUERY_UPDATE = "UPDATE core_portlet_alias SET id_alias=? WHERE id_portlet = ?";
     private static final String SQL_QUERY_SELECT_PORTLETS_BY_TYPE = "SELECT  id_portlet, name FROM core_portlet WHERE id_portlet_type = ? ORDER BY name";
     private static final String SQL_QUERY_SELECT_ALIAS_ID = "SELECT id_alias FROM core_portlet_alias WHERE id_portlet= ? ";
@@ -109,6 +113,48 @@ public final class AliasPortletDAO implements IAliasPortletDAO
         return portlet;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<Integer, Portlet> loadAll( Collection<Integer> listPortletIds )
+    {
+        Map<Integer, Portlet> mapPortlets = new HashMap<>( );
+
+        for ( Integer nPortletId : listPortletIds )
+        {
+            // Same result as load( ) for the portlets without a row in core_portlet_alias
+            mapPortlets.put( nPortletId, new AliasPortlet( ) );
+        }
+
+        if ( listPortletIds.isEmpty( ) )
+        {
+            return mapPortlets;
+        }
+
+        String strSQL = SQL_QUERY_SELECT_ALL + listPortletIds.stream( ).map( id -> "?" ).collect( Collectors.joining( "," ) ) + " )";
+
+        try ( DAOUtil daoUtil = new DAOUtil( strSQL ) )
+        {
+            int nIndex = 1;
+
+            for ( Integer nPortletId : listPortletIds )
+            {
+                daoUtil.setInt( nIndex++, nPortletId );
+            }
+
+            daoUtil.executeQuery( );
+
+            while ( daoUtil.next( ) )
+            {
+                AliasPortlet portlet = (AliasPortlet) mapPortlets.get( daoUtil.getInt( 1 ) );
+                portlet.setAliasId( daoUtil.getInt( 2 ) );
+            }
+        }
+
+        return mapPortlets;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -70,6 +70,15 @@ public interface IPortletDAO
      */
     Portlet load( int nPortletId );
 
+    /**
+     * Loads the common data of the portlets whose identifiers are specified in parameter, with a single query
+     *
+     * @param listPortletIds
+     *            the identifiers of the portlets
+     * @return the portlets, in the order of the identifiers. Unknown identifiers are ignored.
+     */
+    List<Portlet> loadAll( Collection<Integer> listPortletIds );
+
     /**
      * Update the record in the table
      *
@@ -111,6 +120,17 @@ public interface IPortletDAO
      */
     StyleSheet selectXslFile( int nPortletId, int nIdMode );
 
+    /**
+     * Returns the stylesheet of the portlet according to the mode, without its source
+     *
+     * @param nPortletId
+     *            the identifier of the portlet
+     * @param nIdMode
+     *            the selected mode
+     * @return the stylesheet (id, description and file name)
+     */
+    StyleSheet selectStyleSheet( int nPortletId, int nIdMode );
+
     /**
      * Returns the list of portlets in a distinct name
      *
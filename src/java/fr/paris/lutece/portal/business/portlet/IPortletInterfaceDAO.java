@@ -33,6 +33,10 @@
  */
 package fr.paris.lutece.portal.business.portlet;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * This class represents business objects IPortletInterfaceDAO
  */
@@ -63,6 +67,26 @@ public interface IPortletInterfaceDAO
      */
     Portlet load( int nPortletId );
 
+    /**
+     * Load the portlets whose identifiers are specified in parameter. <br>
+     * The default implementation loads the portlets one by one : DAOs should override it to load them with a single query.
+     *
+     * @param listPortletIds
+     *            the identifiers of the portlets
+     * @return The portlet instances, by portlet identifier
+     */
+    default Map<Integer, Portlet> loadAll( Collection<Integer> listPortletIds )
+    {
+        Map<Integer, Portlet> mapPortlets = new HashMap<>( );
+
+        for ( Integer nPortletId : listPortletIds )
+        {
+            mapPortlets.put( nPortletId, load( nPortletId ) );
+        }
+
+        return mapPortlets;
+    }
+
     /**
      * Update the portlet
      *
@@ -556,25 +556,42 @@ public abstract class Portlet implements XmlContent
      */
     public String getXslFile( int nMode )
     {
-        StyleSheet xsl;
+        return getStyleSheet( nMode ).getFile( );
+    }
+
+    /**
+     * Recovers the stylesheet of the portlet according to the mode, without its source. The result is cached, so this method should be preferred to
+     * {@link #getXslSource(int)} on the rendering path : the source is only needed when the stylesheet is not yet compiled.
+     *
+     * @param nMode
+     *            the selected mode.
+     * @return the stylesheet (id, description and file name)
+     */
+    public StyleSheet getStyleSheet( int nMode )
+    {
+        return PortletHome.getStyleSheet( getId( ), getStyleSheetMode( nMode ) );
+    }
 
+    /**
+     * Returns the mode used to find the stylesheet of the portlet
+     *
+     * @param nMode
+     *            the selected mode.
+     * @return the stylesheet mode
+     */
+    private static int getStyleSheetMode( int nMode )
+    {
         // Added in v1.3
         // Use the same stylesheet for normal or admin mode
         switch( nMode )
         {
             case MODE_NORMAL:
             case MODE_ADMIN:
-                xsl = PortletHome.getXsl( getId( ), MODE_NORMAL );
-
-                break;
+                return MODE_NORMAL;
 
             default:
-                xsl = PortletHome.getXsl( getId( ), nMode );
-
-                break;
+                return nMode;
         }
-
-        return xsl.getFile( );
     }
 
     /**
@@ -586,25 +603,7 @@ public abstract class Portlet implements XmlContent
      */
     public byte [ ] getXslSource( int nMode )
     {
-        StyleSheet xsl;
-
-        // Added in v1.3
-        // Use the same stylesheet for normal or admin mode
-        switch( nMode )
-        {
-            case MODE_NORMAL:
-            case MODE_ADMIN:
-                xsl = PortletHome.getXsl( getId( ), MODE_NORMAL );
-
-                break;
-
-            default:
-                xsl = PortletHome.getXsl( getId( ), nMode );
-
-                break;
-        }
-
-        return xsl.getSource( );
+        return PortletHome.getXsl( getId( ), getStyleSheetMode( nMode ) ).getSource( );
     }
 
     /**
@@ -42,7 +42,10 @@ import java.sql.Timestamp;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * This class provides Data Access methods for Portlet objects
@@ -57,6 +60,10 @@ public final class PortletDAO implements IPortletDAO
             + " b.url_creation, b.url_update, a.date_update, a.column_no, a.portlet_order, "
             + " b.home_class, a.accept_alias , a.role , b.plugin_name , a.display_portlet_title, a.status, a.device_display_flags "
             + " FROM core_portlet a , core_portlet_type b WHERE a.id_portlet_type = b.id_portlet_type AND a.id_portlet = ?";
+    private static final String SQL_QUERY_SELECT_ALL = " SELECT b.id_portlet_type, a.id_page, a.id_style, a.name , b.name, "
+            + " b.url_creation, b.url_update, a.date_update, a.column_no, a.portlet_order, "
+            + " b.home_class, a.accept_alias , a.role , b.plugin_name , a.display_portlet_title, a.status, a.device_display_flags, a.id_portlet "
+            + " FROM core_portlet a , core_portlet_type b WHERE a.id_portlet_type = b.id_portlet_type AND a.id_portlet IN ( ";
     private static final String SQL_QUERY_SELECT_ALIAS = " SELECT a.id_portlet FROM core_portlet a, core_portlet_alias b "
             + " WHERE a.id_portlet = b.id_portlet AND b.id_alias= ? ";
     private static final String SQL_QUERY_DELETE = "DELETE FROM core_portlet WHERE id_portlet = ?";
@@ -70,6 +77,9 @@ public final class PortletDAO implements IPortletDAO
     private static final String SQL_QUERY_SELECT_XSL_FILE = " SELECT a.id_stylesheet , a.description , a.file_name, a.source "
             + " FROM core_stylesheet a, core_portlet b, core_style_mode_stylesheet c " + " WHERE a.id_stylesheet = c.id_stylesheet "
             + " AND b.id_style = c.id_style AND b.id_portlet = ? AND c.id_mode = ? ";
+    private static final String SQL_QUERY_SELECT_STYLESHEET = " SELECT a.id_stylesheet , a.description , a.file_name "
+            + " FROM core_stylesheet a, core_portlet b, core_style_mode_stylesheet c " + " WHERE a.id_stylesheet = c.id_stylesheet "
+            + " AND b.id_style = c.id_style AND b.id_portlet = ? AND c.id_mode = ? ";
     private static final String SQL_QUERY_SELECT_STYLE_LIST = " SELECT distinct a.id_style , a.description_style "
             + " FROM core_style a , core_style_mode_stylesheet b " + " WHERE  a.id_style = b.id_style "
             + " AND a.id_portlet_type = ? ORDER BY a.description_style";
@@ -164,23 +174,7 @@ public final class PortletDAO implements IPortletDAO
             if ( daoUtil.next( ) )
             {
                 portlet.setId( nPortletId );
-                portlet.setPortletTypeId( daoUtil.getString( 1 ) );
-                portlet.setPageId( daoUtil.getInt( 2 ) );
-                portlet.setStyleId( daoUtil.getInt( 3 ) );
-                portlet.setName( daoUtil.getString( 4 ) );
-                portlet.setPortletTypeName( daoUtil.getString( 5 ) );
-                portlet.setUrlCreation( daoUtil.getString( 6 ) );
-                portlet.setUrlUpdate( daoUtil.getString( 7 ) );
-                portlet.setDateUpdate( daoUtil.getTimestamp( 8 ) );
-                portlet.setColumn( daoUtil.getInt( 9 ) );
-                portlet.setOrder( daoUtil.getInt( 10 ) );
-                portlet.setHomeClassName( daoUtil.getString( 11 ) );
-                portlet.setAcceptAlias( daoUtil.getInt( 12 ) );
-                portlet.setRole( daoUtil.getString( 13 ) );
-                portlet.setPluginName( daoUtil.getString( 14 ) );
-                portlet.setDisplayPortletTitle( daoUtil.getInt( 15 ) );
-                portlet.setStatus( daoUtil.getInt( 16 ) );
-                portlet.setDeviceDisplayFlags( daoUtil.getInt( 17 ) );
+                fillPortlet( portlet, daoUtil );
             }
 
         }
@@ -188,6 +182,84 @@ public final class PortletDAO implements IPortletDAO
         return portlet;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Portlet> loadAll( Collection<Integer> listPortletIds )
+    {
+        List<Portlet> listPortlets = new ArrayList<>( );
+
+        if ( listPortletIds.isEmpty( ) )
+        {
+            return listPortlets;
+        }
+
+        String strSQL = SQL_QUERY_SELECT_ALL + listPortletIds.stream( ).map( id -> "?" ).collect( Collectors.joining( "," ) ) + " )";
+        Map<Integer, Portlet> mapPortlets = new HashMap<>( );
+
+        try ( DAOUtil daoUtil = new DAOUtil( strSQL ) )
+        {
+            int nIndex = 1;
+
+            for ( Integer nPortletId : listPortletIds )
+            {
+                daoUtil.setInt( nIndex++, nPortletId );
+            }
+
+            daoUtil.executeQuery( );
+
+            while ( daoUtil.next( ) )
+            {
+                PortletImpl portlet = new PortletImpl( );
+                portlet.setId( daoUtil.getInt( 18 ) );
+                fillPortlet( portlet, daoUtil );
+                mapPortlets.put( portlet.getId( ), portlet );
+            }
+        }
+
+        for ( Integer nPortletId : listPortletIds )
+        {
+            Portlet portlet = mapPortlets.get( nPortletId );
+
+            if ( portlet != null )
+            {
+                listPortlets.add( portlet );
+            }
+        }
+
+        return listPortlets;
+    }
+
+    /**
+     * Fills the common data of a portlet from the current row of {@link #SQL_QUERY_SELECT} or {@link #SQL_QUERY_SELECT_ALL}
+     *
+     * @param portlet
+     *            the portlet
+     * @param daoUtil
+     *            the daoUtil positioned on the row
+     */
+    private static void fillPortlet( PortletImpl portlet, DAOUtil daoUtil )
+    {
+        portlet.setPortletTypeId( daoUtil.getString( 1 ) );
+        portlet.setPageId( daoUtil.getInt( 2 ) );
+        portlet.setStyleId( daoUtil.getInt( 3 ) );
+        portlet.setName( daoUtil.getString( 4 ) );
+        portlet.setPortletTypeName( daoUtil.getString( 5 ) );
+        portlet.setUrlCreation( daoUtil.getString( 6 ) );
+        portlet.setUrlUpdate( daoUtil.getString( 7 ) );
+        portlet.setDateUpdate( daoUtil.getTimestamp( 8 ) );
+        portlet.setColumn( daoUtil.getInt( 9 ) );
+        portlet.setOrder( daoUtil.getInt( 10 ) );
+        portlet.setHomeClassName( daoUtil.getString( 11 ) );
+        portlet.setAcceptAlias( daoUtil.getInt( 12 ) );
+        portlet.setRole( daoUtil.getString( 13 ) );
+        portlet.setPluginName( daoUtil.getString( 14 ) );
+        portlet.setDisplayPortletTitle( daoUtil.getInt( 15 ) );
+        portlet.setStatus( daoUtil.getInt( 16 ) );
+        portlet.setDeviceDisplayFlags( daoUtil.getInt( 17 ) );
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -268,6 +340,31 @@ public final class PortletDAO implements IPortletDAO
         return stylesheet;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StyleSheet selectStyleSheet( int nPortletId, int nIdMode )
+    {
+        StyleSheet stylesheet = new StyleSheet( );
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_STYLESHEET ) )
+        {
+            daoUtil.setInt( 1, nPortletId );
+            daoUtil.setInt( 2, nIdMode );
+            daoUtil.executeQuery( );
+
+            if ( daoUtil.next( ) )
+            {
+                stylesheet.setId( daoUtil.getInt( 1 ) );
+                stylesheet.setDescription( daoUtil.getString( 2 ) );
+                stylesheet.setFile( daoUtil.getString( 3 ) );
+            }
+
+        }
+
+        return stylesheet;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -34,15 +34,22 @@
 package fr.paris.lutece.portal.business.portlet;
 
 import fr.paris.lutece.portal.business.stylesheet.StyleSheet;
+import fr.paris.lutece.portal.service.cache.CacheInvalidationService;
 import fr.paris.lutece.portal.service.portlet.PortletEvent;
 import fr.paris.lutece.portal.service.portlet.PortletEventListener;
+import fr.paris.lutece.portal.service.portlet.PortletStyleSheetCacheService;
 import fr.paris.lutece.portal.service.spring.SpringContextService;
 import fr.paris.lutece.portal.service.util.AppLogService;
 import fr.paris.lutece.portal.service.util.AppPropertiesService;
 import fr.paris.lutece.util.ReferenceList;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class provides instances management methods (create, find, ...) for Portlet objects
@@ -55,6 +62,9 @@ public abstract class PortletHome implements PortletHomeInterface
     // Static variable pointed at the DAO instance
     private static IPortletDAO _dao = SpringContextService.getBean( "portletDAO" );
 
+    // Instances of the portlet type homes, by class name
+    private static Map<String, PortletHomeInterface> _mapHomes = new ConcurrentHashMap<>( );
+
     // /////////////////////////////////////////////////////////////////////////
     // Finders
 
@@ -68,21 +78,95 @@ public abstract class PortletHome implements PortletHomeInterface
     public static Portlet findByPrimaryKey( int nKey )
     {
         Portlet portlet = _dao.load( nKey );
-        String strHomeClass = portlet.getHomeClassName( );
+        PortletHomeInterface home = getHome( portlet.getHomeClassName( ) );
         Portlet p = null;
 
-        try
+        if ( home != null )
         {
-            PortletHomeInterface home = (PortletHomeInterface) Class.forName( strHomeClass ).newInstance( );
             p = home.getDAO( ).load( nKey );
             p.copy( portlet );
         }
-        catch( IllegalAccessException | InstantiationException | ClassNotFoundException e )
+
+        return p;
+    }
+
+    /**
+     * Returns the portlets whose primary keys are specified in parameter. <br>
+     * The common data of the portlets is loaded with a single query, then the portlets are grouped by type so that each type loads its specific data at once.
+     *
+     * @param listKeys
+     *            the portlet identifiers
+     * @return The portlets, in the order of the identifiers
+     */
+    public static List<Portlet> findByPrimaryKeys( Collection<Integer> listKeys )
+    {
+        List<Portlet> listCommon = _dao.loadAll( listKeys );
+        Map<String, List<Integer>> mapIdsByHome = new LinkedHashMap<>( );
+
+        for ( Portlet portlet : listCommon )
         {
-            AppLogService.error( e.getMessage( ), e );
+            mapIdsByHome.computeIfAbsent( portlet.getHomeClassName( ), k -> new ArrayList<>( ) ).add( portlet.getId( ) );
         }
 
-        return p;
+        Map<Integer, Portlet> mapSpecific = new HashMap<>( );
+
+        for ( Map.Entry<String, List<Integer>> entry : mapIdsByHome.entrySet( ) )
+        {
+            PortletHomeInterface home = getHome( entry.getKey( ) );
+
+            if ( home != null )
+            {
+                for ( Map.Entry<Integer, Portlet> portletEntry : home.loadAll( entry.getValue( ) ).entrySet( ) )
+                {
+                    if ( portletEntry.getValue( ) != null )
+                    {
+                        mapSpecific.put( portletEntry.getKey( ), portletEntry.getValue( ) );
+                    }
+                }
+            }
+        }
+
+        List<Portlet> listPortlets = new ArrayList<>( listCommon.size( ) );
+
+        for ( Portlet portlet : listCommon )
+        {
+            Portlet p = mapSpecific.get( portlet.getId( ) );
+
+            if ( p != null )
+            {
+                p.copy( portlet );
+                listPortlets.add( p );
+            }
+        }
+
+        return listPortlets;
+    }
+
+    /**
+     * Returns the home of a portlet type. The homes are instantiated once and then shared.
+     *
+     * @param strHomeClass
+     *            the class name of the home
+     * @return the home, or null if it can't be instantiated
+     */
+    private static PortletHomeInterface getHome( String strHomeClass )
+    {
+        PortletHomeInterface home = _mapHomes.get( strHomeClass );
+
+        if ( home == null )
+        {
+            try
+            {
+                home = (PortletHomeInterface) Class.forName( strHomeClass ).newInstance( );
+                _mapHomes.put( strHomeClass, home );
+            }
+            catch( IllegalAccessException | InstantiationException | ClassNotFoundException e )
+            {
+                AppLogService.error( e.getMessage( ), e );
+            }
+        }
+
+        return home;
     }
 
     /**
@@ -123,6 +207,30 @@ public abstract class PortletHome implements PortletHomeInterface
         return _dao.selectXslFile( nIdPortlet, nIdMode );
     }
 
+    /**
+     * Returns the stylesheet of the portlet according to the mode, without its source. The result is cached until the portlet or a stylesheet is modified.
+     *
+     * @param nIdPortlet
+     *            the identifier of the portlet
+     * @param nIdMode
+     *            the selected mode
+     * @return the stylesheet (id, description and file name)
+     */
+    static StyleSheet getStyleSheet( int nIdPortlet, int nIdMode )
+    {
+        PortletStyleSheetCacheService cacheService = PortletStyleSheetCacheService.getInstance( );
+        StyleSheet stylesheet = cacheService.getStyleSheet( nIdPortlet, nIdMode );
+
+        if ( stylesheet == null )
+        {
+            long lVersion = cacheService.getVersion( nIdPortlet );
+            stylesheet = _dao.selectStyleSheet( nIdPortlet, nIdMode );
+            cacheService.putStyleSheet( nIdPortlet, nIdMode, stylesheet, lVersion );
+        }
+
+        return stylesheet;
+    }
+
     /**
      * Returns all the styles corresponding to a portlet typeun type de portlet
      *
@@ -342,6 +450,8 @@ public abstract class PortletHome implements PortletHomeInterface
         {
             listener.processPortletEvent( event );
         }
+
+        CacheInvalidationService.getInstance( ).publishPortletEvent( event );
     }
 
     /**
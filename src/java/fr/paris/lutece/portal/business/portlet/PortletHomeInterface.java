@@ -33,6 +33,9 @@
  */
 package fr.paris.lutece.portal.business.portlet;
 
+import java.util.Collection;
+import java.util.Map;
+
 /**
  * This interface provides the signature of methods to implement by classes which implements it
  */
@@ -51,4 +54,16 @@ public interface PortletHomeInterface
      * @return the identifier of the portlet
      */
     String getPortletTypeId( );
+
+    /**
+     * Loads the type specific data of several portlets of this type
+     *
+     * @param listPortletIds
+     *            the identifiers of the portlets
+     * @return the portlets, by portlet identifier
+     */
+    default Map<Integer, Portlet> loadAll( Collection<Integer> listPortletIds )
+    {
+        return getDAO( ).loadAll( listPortletIds );
+    }
 }
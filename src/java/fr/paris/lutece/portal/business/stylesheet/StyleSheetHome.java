@@ -33,7 +33,10 @@
  */
 package fr.paris.lutece.portal.business.stylesheet;
 
+import fr.paris.lutece.portal.service.cache.CacheInvalidationService;
+import fr.paris.lutece.portal.service.html.XmlTransformerCacheService;
 import fr.paris.lutece.portal.service.html.XmlTransformerService;
+import fr.paris.lutece.portal.service.portlet.PortletStyleSheetCacheService;
 import fr.paris.lutece.portal.service.spring.SpringContextService;
 
 import java.util.Collection;
@@ -63,6 +66,8 @@ public final class StyleSheetHome
     public static StyleSheet create( StyleSheet stylesheet )
     {
         _dao.insert( stylesheet );
+        PortletStyleSheetCacheService.getInstance( ).resetCache( );
+        CacheInvalidationService.getInstance( ).publishCacheReset( PortletStyleSheetCacheService.getInstance( ).getName( ) );
 
         return stylesheet;
     }
@@ -76,7 +81,9 @@ public final class StyleSheetHome
     public static void remove( int nId )
     {
         _dao.delete( nId );
+        PortletStyleSheetCacheService.getInstance( ).resetCache( );
         XmlTransformerService.clearXslCache( );
+        publishCachesReset( );
     }
 
     /**
@@ -88,7 +95,9 @@ public final class StyleSheetHome
     public static void update( StyleSheet stylesheet )
     {
         _dao.store( stylesheet );
+        PortletStyleSheetCacheService.getInstance( ).resetCache( );
         XmlTransformerService.clearXslCache( );
+        publishCachesReset( );
     }
 
     // /////////////////////////////////////////////////////////////////////////
@@ -131,4 +140,13 @@ public final class StyleSheetHome
     {
         return _dao.selectStyleSheetList( nModeId );
     }
+
+    /**
+     * Publishes the reset of the stylesheets caches to the other nodes of the cluster
+     */
+    private static void publishCachesReset( )
+    {
+        CacheInvalidationService.getInstance( ).publishCacheReset( PortletStyleSheetCacheService.getInstance( ).getName( ) );
+        CacheInvalidationService.getInstance( ).publishCacheReset( XmlTransformerCacheService.SERVICE_NAME );
+    }
 }
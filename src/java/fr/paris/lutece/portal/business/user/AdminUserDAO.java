@@ -115,6 +115,7 @@ public class AdminUserDAO implements IAdminUserDAO
     private static final String SQL_QUERY_UPDATE_STATUS = " UPDATE core_admin_user SET status = ? WHERE id_user IN ( ";
     private static final String SQL_QUERY_UPDATE_NB_ALERT = " UPDATE core_admin_user SET nb_alerts_sent = nb_alerts_sent + 1 WHERE id_user IN ( ";
     private static final String SQL_QUERY_UPDATE_RESET_PASSWORD_LIST_ID = " UPDATE core_admin_user SET reset_password = 1 WHERE id_user IN ( ";
+    private static final String SQL_QUERY_SELECT_USERS_FROM_ID_LIST = "SELECT id_user , access_code, last_name , first_name, email, status, password, locale, level_user, reset_password, accessibility_mode, password_max_valid_date, account_max_valid_date FROM core_admin_user WHERE id_user IN ( ";
     private static final String SQL_QUERY_UPDATE_REACTIVATE_ACCOUNT = " UPDATE core_admin_user SET nb_alerts_sent = 0, account_max_valid_date = ? WHERE id_user = ? ";
     private static final String SQL_QUERY_UPDATE_DATE_LAST_LOGIN = " UPDATE core_admin_user SET last_login = ? WHERE id_user = ? ";
     private static final String CONSTANT_CLOSE_PARENTHESIS = " ) ";
@@ -399,6 +400,15 @@ public class AdminUserDAO implements IAdminUserDAO
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void insertRightsListForUser( int nUserId, Collection<String> listRightIds )
+    {
+        insertBatchForUser( SQL_QUERY_INSERT_USER_RIGHT, nUserId, listRightIds );
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -453,6 +463,45 @@ public class AdminUserDAO implements IAdminUserDAO
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void insertRolesListForUser( int nUserId, Collection<String> listRoleKeys )
+    {
+        insertBatchForUser( SQL_QUERY_INSERT_USER_ROLE, nUserId, listRoleKeys );
+    }
+
+    /**
+     * Inserts the ( key, user ) rows of a user in a single batch
+     * 
+     * @param strSQL
+     *            the insert query
+     * @param nUserId
+     *            the user id
+     * @param listKeys
+     *            the keys
+     */
+    private void insertBatchForUser( String strSQL, int nUserId, Collection<String> listKeys )
+    {
+        if ( CollectionUtils.isEmpty( listKeys ) )
+        {
+            return;
+        }
+
+        try ( DAOUtil daoUtil = new DAOUtil( strSQL ) )
+        {
+            for ( String strKey : listKeys )
+            {
+                daoUtil.setString( 1, strKey );
+                daoUtil.setInt( 2, nUserId );
+                daoUtil.addBatch( );
+            }
+
+            daoUtil.executeBatch( );
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -1258,6 +1307,73 @@ public class AdminUserDAO implements IAdminUserDAO
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<AdminUser> selectUsersByIdList( List<Integer> listIdUser )
+    {
+        List<AdminUser> listUsers = new ArrayList<>( );
+
+        if ( CollectionUtils.isEmpty( listIdUser ) )
+        {
+            return listUsers;
+        }
+
+        StringBuilder sbSQL = new StringBuilder( SQL_QUERY_SELECT_USERS_FROM_ID_LIST );
+
+        for ( int i = 0; i < listIdUser.size( ); i++ )
+        {
+            if ( i > 0 )
+            {
+                sbSQL.append( CONSTANT_COMMA );
+            }
+
+            sbSQL.append( '?' );
+        }
+
+        sbSQL.append( CONSTANT_CLOSE_PARENTHESIS );
+
+        try ( DAOUtil daoUtil = new DAOUtil( sbSQL.toString( ) ) )
+        {
+            int nIndex = 1;
+
+            for ( Integer nIdUser : listIdUser )
+            {
+                daoUtil.setInt( nIndex++, nIdUser );
+            }
+
+            daoUtil.executeQuery( );
+
+            while ( daoUtil.next( ) )
+            {
+                AdminUser user = new AdminUser( );
+                user.setUserId( daoUtil.getInt( 1 ) );
+                user.setAccessCode( daoUtil.getString( 2 ) );
+                user.setLastName( daoUtil.getString( 3 ) );
+                user.setFirstName( daoUtil.getString( 4 ) );
+                user.setEmail( daoUtil.getString( 5 ) );
+                user.setStatus( daoUtil.getInt( 6 ) );
+                user.setLocale( new Locale( daoUtil.getString( 8 ) ) );
+                user.setUserLevel( daoUtil.getInt( 9 ) );
+                user.setPasswordReset( daoUtil.getBoolean( 10 ) );
+                user.setAccessibilityMode( daoUtil.getBoolean( 11 ) );
+                user.setPasswordMaxValidDate( daoUtil.getTimestamp( 12 ) );
+
+                long accountTime = daoUtil.getLong( 13 );
+
+                if ( accountTime > 0 )
+                {
+                    user.setAccountMaxValidDate( new Timestamp( accountTime ) );
+                }
+
+                listUsers.add( user );
+            }
+        }
+
+        return listUsers;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -156,6 +156,19 @@ public final class AdminUserHome
         _dao.insertRightsListForUser( nUserId, strRightId );
     }
 
+    /**
+     * Gives several rights to a user in a single batch
+     * 
+     * @param nUserId
+     *            The user identifier
+     * @param listRightIds
+     *            The right identifiers
+     */
+    public static void createRightsForUser( int nUserId, Collection<String> listRightIds )
+    {
+        _dao.insertRightsListForUser( nUserId, listRightIds );
+    }
+
     /**
      * @param nUserId
      *            The user identifier
@@ -206,6 +219,19 @@ public final class AdminUserHome
         _dao.insertRolesListForUser( nUserId, strRightId );
     }
 
+    /**
+     * Gives several roles to a user in a single batch
+     * 
+     * @param nUserId
+     *            the id of the user
+     * @param listRoleKeys
+     *            the role keys
+     */
+    public static void createRolesForUser( int nUserId, Collection<String> listRoleKeys )
+    {
+        _dao.insertRolesListForUser( nUserId, listRoleKeys );
+    }
+
     /**
      * @param nUserId
      *            the user identifier
@@ -569,6 +595,18 @@ public final class AdminUserHome
         _dao.updateNbAlert( listIdUser );
     }
 
+    /**
+     * Get the users of a list of ids, loaded in a single query
+     * 
+     * @param listIdUser
+     *            The list of user ids
+     * @return The users found, in no particular order
+     */
+    public static List<AdminUser> findByPrimaryKeyList( List<Integer> listIdUser )
+    {
+        return _dao.selectUsersByIdList( listIdUser );
+    }
+
     /**
      * Set the "change password" flag of users to true
      * 
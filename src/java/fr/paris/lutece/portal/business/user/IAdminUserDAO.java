@@ -146,6 +146,16 @@ public interface IAdminUserDAO
      */
     void insertRightsListForUser( int nUserId, String strRightId );
 
+    /**
+     * Add several rights to an user in a single batch
+     * 
+     * @param nUserId
+     *            the user id
+     * @param listRightIds
+     *            the right ids
+     */
+    void insertRightsListForUser( int nUserId, Collection<String> listRightIds );
+
     /**
      * Gives a role to an user
      * 
@@ -156,6 +166,16 @@ public interface IAdminUserDAO
      */
     void insertRolesListForUser( int nUserId, String strRoleKey );
 
+    /**
+     * Gives several roles to an user in a single batch
+     * 
+     * @param nUserId
+     *            the user id
+     * @param listRoleKeys
+     *            the role keys
+     */
+    void insertRolesListForUser( int nUserId, Collection<String> listRoleKeys );
+
     /**
      * Load an AdminUser
      * 
@@ -443,6 +463,15 @@ public interface IAdminUserDAO
      */
     void updateNbAlert( List<Integer> listIdUser );
 
+    /**
+     * Load the users of a list of ids in a single query
+     * 
+     * @param listIdUser
+     *            The list of user ids
+     * @return The users found, in no particular order
+     */
+    List<AdminUser> selectUsersByIdList( List<Integer> listIdUser );
+
     /**
      * Set the "change password" flag of users to true
      * 
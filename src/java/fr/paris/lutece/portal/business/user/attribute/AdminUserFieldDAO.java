@@ -133,31 +133,74 @@ public class AdminUserFieldDAO implements IAdminUserFieldDAO
     {
         try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT, Statement.RETURN_GENERATED_KEYS ) )
         {
-            int nIndex = 1;
-            daoUtil.setInt( nIndex++, userField.getUser( ).getUserId( ) );
-            daoUtil.setInt( nIndex++, userField.getAttribute( ).getIdAttribute( ) );
-            daoUtil.setInt( nIndex++, userField.getAttributeField( ).getIdField( ) );
+            setInsertParameters( daoUtil, userField );
+
+            daoUtil.executeUpdate( );
 
-            if ( userField.getFile( ) != null )
+            if ( daoUtil.nextGeneratedKey( ) )
             {
-                daoUtil.setInt( nIndex++, userField.getFile( ).getIdFile( ) );
+                userField.setIdUserField( daoUtil.getGeneratedKeyInt( 1 ) );
             }
-            else
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void insert( List<AdminUserField> listUserFields )
+    {
+        if ( CollectionUtils.isEmpty( listUserFields ) )
+        {
+            return;
+        }
+
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT, Statement.RETURN_GENERATED_KEYS ) )
+        {
+            for ( AdminUserField userField : listUserFields )
             {
-                daoUtil.setIntNull( nIndex++ );
+                setInsertParameters( daoUtil, userField );
+                daoUtil.addBatch( );
             }
 
-            daoUtil.setString( nIndex, userField.getValue( ) );
+            daoUtil.executeBatch( );
 
-            daoUtil.executeUpdate( );
+            List<Long> listKeys = daoUtil.getBatchGeneratedKeys( );
 
-            if ( daoUtil.nextGeneratedKey( ) )
+            for ( int i = 0; i < listKeys.size( ) && i < listUserFields.size( ); i++ )
             {
-                userField.setIdUserField( daoUtil.getGeneratedKeyInt( 1 ) );
+                listUserFields.get( i ).setIdUserField( listKeys.get( i ).intValue( ) );
             }
         }
     }
 
+    /**
+     * Sets the parameters of the insert query
+     * 
+     * @param daoUtil
+     *            the DAOUtil
+     * @param userField
+     *            the user field
+     */
+    private void setInsertParameters( DAOUtil daoUtil, AdminUserField userField )
+    {
+        int nIndex = 1;
+        daoUtil.setInt( nIndex++, userField.getUser( ).getUserId( ) );
+        daoUtil.setInt( nIndex++, userField.getAttribute( ).getIdAttribute( ) );
+        daoUtil.setInt( nIndex++, userField.getAttributeField( ).getIdField( ) );
+
+        if ( userField.getFile( ) != null )
+        {
+            daoUtil.setInt( nIndex++, userField.getFile( ).getIdFile( ) );
+        }
+        else
+        {
+            daoUtil.setIntNull( nIndex++ );
+        }
+
+        daoUtil.setString( nIndex, userField.getValue( ) );
+    }
+
     /**
      * Update an user field
      * 
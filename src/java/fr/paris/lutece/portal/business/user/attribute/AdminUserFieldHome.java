@@ -37,6 +37,7 @@ import fr.paris.lutece.portal.business.file.FileHome;
 import fr.paris.lutece.portal.business.user.AdminUser;
 import fr.paris.lutece.portal.service.spring.SpringContextService;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -75,12 +76,45 @@ public final class AdminUserFieldHome
      */
     public static void create( AdminUserField userField )
     {
-        if ( userField.getFile( ) != null )
+        createFile( userField );
+        _dao.insert( userField );
+    }
+
+    /**
+     * Insert a list of user fields in a single batch. The null elements of the list are ignored.
+     * 
+     * @param listUserFields
+     *            the user fields
+     * @since 7.0.17
+     */
+    public static void create( List<AdminUserField> listUserFields )
+    {
+        List<AdminUserField> listCreated = new ArrayList<>( listUserFields.size( ) );
+
+        for ( AdminUserField userField : listUserFields )
         {
-            userField.getFile( ).setIdFile( FileHome.create( userField.getFile( ) ) );
+            if ( userField != null )
+            {
+                createFile( userField );
+                listCreated.add( userField );
+            }
         }
 
-        _dao.insert( userField );
+        _dao.insert( listCreated );
+    }
+
+    /**
+     * Insert the file of a user field, if any, and set its key
+     * 
+     * @param userField
+     *            the user field
+     */
+    private static void createFile( AdminUserField userField )
+    {
+        if ( userField.getFile( ) != null )
+        {
+            userField.getFile( ).setFileKey( String.valueOf( FileHome.create( userField.getFile( ) ) ) );
+        }
     }
 
     /**
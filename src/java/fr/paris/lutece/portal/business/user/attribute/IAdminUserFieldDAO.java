@@ -61,6 +61,21 @@ public interface IAdminUserFieldDAO
      */
     void insert( AdminUserField userField );
 
+    /**
+     * Insert a list of user fields
+     * 
+     * @param listUserFields
+     *            the user fields
+     * @since 7.0.17
+     */
+    default void insert( List<AdminUserField> listUserFields )
+    {
+        for ( AdminUserField userField : listUserFields )
+        {
+            insert( userField );
+        }
+    }
+
     /**
      * Update an user field
      * 
@@ -114,12 +114,12 @@ public abstract class SimpleAdminUserFieldListener implements AdminUserFieldList
                     // Instead of having the ID of the attribute field, we put the attribute field title
                     // which represents the profile's ID
                     userField.setValue( userField.getAttributeField( ).getTitle( ) );
-                    AdminUserFieldHome.create( userField );
                     listUserFields.add( userField );
                 }
             }
         }
 
+        AdminUserFieldHome.create( listUserFields );
         doCreateUserFields( user, listUserFields, locale );
     }
 
@@ -144,12 +144,12 @@ public abstract class SimpleAdminUserFieldListener implements AdminUserFieldList
                     // Instead of having the ID of the attribute field, we put the attribute field title
                     // which represents the profile's ID
                     userField.setValue( userField.getAttributeField( ).getTitle( ) );
-                    AdminUserFieldHome.create( userField );
                     listUserFields.add( userField );
                 }
             }
         }
 
+        AdminUserFieldHome.create( listUserFields );
         doModifyUserFields( user, listUserFields, locale, currentUser );
     }
 
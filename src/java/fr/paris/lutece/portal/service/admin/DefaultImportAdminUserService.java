@@ -181,16 +181,10 @@ public class DefaultImportAdminUserService extends ImportAdminUserService
         }
 
         // We create rights
-        for ( String strRight : listAdminRights )
-        {
-            AdminUserHome.createRightForUser( user.getUserId( ), strRight );
-        }
+        AdminUserHome.createRightsForUser( user.getUserId( ), listAdminRights );
 
         // We create roles
-        for ( String strRole : listAdminRoles )
-        {
-            AdminUserHome.createRoleForUser( user.getUserId( ), strRole );
-        }
+        AdminUserHome.createRolesForUser( user.getUserId( ), listAdminRoles );
 
         // We create workgroups
         for ( String strWorkgoup : listAdminWorkgroups )
@@ -352,10 +346,11 @@ public class DefaultImportAdminUserService extends ImportAdminUserService
                 if ( userField != null )
                 {
                     userField.getAttributeField( ).setIdField( nIdField );
-                    AdminUserFieldHome.create( userField );
                 }
             }
 
+            AdminUserFieldHome.create( listUserFields );
+
             if ( !bCoreAttribute )
             {
                 for ( AdminUserFieldListenerService adminUserFieldListenerService : SpringContextService.getBeansOfType( AdminUserFieldListenerService.class ) )
@@ -39,23 +39,26 @@ import net.sf.ehcache.Cache;
 import net.sf.ehcache.CacheException;
 import net.sf.ehcache.Ehcache;
 import net.sf.ehcache.Element;
-import net.sf.ehcache.Statistics;
 import net.sf.ehcache.event.CacheEventListener;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 /**
- * Base implementation for a cacheable service
+ * Base implementation for a cacheable service. The cache is created by the cache provider selected for the service (see {@link ICacheProvider}).
  */
-public abstract class AbstractCacheableService implements CacheableService, CacheEventListener
+public abstract class AbstractCacheableService implements CacheableService, CacheEventListener, ICacheListener
 {
-    private Cache _cache;
+    private ICache _cache;
     private boolean _bEnable;
     private Logger _logger = LogManager.getLogger( "lutece.cache" );
+    private volatile SingleFlightLoader _singleFlightLoader;
+    private final CacheTagIndex _tagIndex = new CacheTagIndex( );
 
     /**
      * Init the cache. Should be called by the service at its initialization.
@@ -86,8 +89,8 @@ public abstract class AbstractCacheableService implements CacheableService, Cach
      */
     private void createCache( String strCacheName )
     {
-        _cache = CacheService.getInstance( ).createCache( strCacheName );
-        _cache.getCacheEventNotificationService( ).registerListener( this );
+        _cache = CacheService.getInstance( ).createServiceCache( strCacheName );
+        _cache.addListener( this );
     }
 
     /**
@@ -102,11 +105,53 @@ public abstract class AbstractCacheableService implements CacheableService, Cach
     {
         if ( ( _cache != null ) && isCacheEnable( ) )
         {
-            Element element = new Element( strKey, object );
-            _cache.put( element );
+            _cache.put( strKey, object );
         }
     }
 
+    /**
+     * Put an object into the cache and tag it with the resources it depends on, so that it can be removed by {@link #invalidateTag(String)}
+     * 
+     * @param strKey
+     *            The key of the object to put into the cache
+     * @param object
+     *            The object to put into the cache
+     * @param tags
+     *            The tags of the object
+     */
+    public void putInCache( String strKey, Object object, Collection<String> tags )
+    {
+        if ( ( _cache != null ) && isCacheEnable( ) )
+        {
+            // Tag first : an invalidation running during the put must see the key
+            _tagIndex.tag( strKey, tags );
+            _cache.put( strKey, object );
+        }
+    }
+
+    /**
+     * Removes from the cache all the objects tagged with a given tag
+     * 
+     * @param strTag
+     *            The tag
+     * @return The number of keys removed
+     */
+    public int invalidateTag( String strTag )
+    {
+        Set<String> setKeys = _tagIndex.removeTag( strTag );
+
+        if ( _cache != null )
+        {
+            for ( String strKey : setKeys )
+            {
+                _cache.remove( strKey );
+                _logger.debug( "Object removed from the cache : {} - key : {} - tag : {}", getName( ), strKey, strTag );
+            }
+        }
+
+        return setKeys.size( );
+    }
+
     /**
      * Gets an object from the cache
      * 
@@ -116,19 +161,75 @@ public abstract class AbstractCacheableService implements CacheableService, Cach
      */
     public Object getFromCache( String strKey )
     {
-        Object object = null;
-
         if ( ( _cache != null ) && isCacheEnable( ) )
         {
-            Element element = _cache.get( strKey );
+            return _cache.get( strKey );
+        }
+
+        return null;
+    }
 
-            if ( element != null )
+    /**
+     * Gets an object from the cache, or builds it if it is not in the cache. Concurrent requests for the same missing key are coalesced : only one of
+     * them runs the loader while the others wait for its result (see {@link SingleFlightLoader}).
+     * 
+     * @param <V>
+     *            The type of the object
+     * @param <E>
+     *            The type of exception thrown by the loader
+     * @param strKey
+     *            The key of the object to retrieve from the cache
+     * @param loader
+     *            Builds the object and puts it into the cache if it can be cached
+     * @return The object
+     * @throws E
+     *             If the object can't be built
+     */
+    @SuppressWarnings( "unchecked" )
+    public <V, E extends Exception> V getFromCache( String strKey, SingleFlightLoader.Loader<V, E> loader ) throws E
+    {
+        if ( ( _cache == null ) || !isCacheEnable( ) )
+        {
+            return loader.load( );
+        }
+
+        return getSingleFlightLoader( ).get( strKey, ( ) -> (V) getFromCache( strKey ), loader );
+    }
+
+    /**
+     * Returns the single flight loader of the cache, created on first use
+     * 
+     * @return The single flight loader
+     */
+    private SingleFlightLoader getSingleFlightLoader( )
+    {
+        SingleFlightLoader loader = _singleFlightLoader;
+
+        if ( loader == null )
+        {
+            synchronized( this )
             {
-                object = element.getObjectValue( );
+                loader = _singleFlightLoader;
+
+                if ( loader == null )
+                {
+                    loader = createSingleFlightLoader( );
+                    _singleFlightLoader = loader;
+                }
             }
         }
 
-        return object;
+        return loader;
+    }
+
+    /**
+     * Creates the single flight loader of the cache. Services can override this method to configure the loader.
+     * 
+     * @return The single flight loader
+     */
+    protected SingleFlightLoader createSingleFlightLoader( )
+    {
+        return new SingleFlightLoader( );
     }
 
     /**
@@ -194,11 +295,21 @@ public abstract class AbstractCacheableService implements CacheableService, Cach
     }
 
     /**
-     * Return a cache object
+     * Return the Ehcache cache object
      * 
-     * @return cache object
+     * @return cache object, or null if the cache is not provided by Ehcache
      */
     public Cache getCache( )
+    {
+        return ( _cache instanceof EhcacheCache ) ? ( (EhcacheCache) _cache ).getEhcache( ) : null;
+    }
+
+    /**
+     * Return the cache object created by the cache provider
+     * 
+     * @return cache object
+     */
+    public ICache getProvidedCache( )
     {
         return _cache;
     }
@@ -223,7 +334,7 @@ public abstract class AbstractCacheableService implements CacheableService, Cach
     @Override
     public int getMaxElements( )
     {
-        return _cache.getCacheConfiguration( ).getMaxElementsInMemory( );
+        return _cache.getConfiguration( ).getMaxElementsInMemory( );
     }
 
     /**
@@ -232,7 +343,7 @@ public abstract class AbstractCacheableService implements CacheableService, Cach
     @Override
     public long getTimeToLive( )
     {
-        return _cache.getCacheConfiguration( ).getTimeToLiveSeconds( );
+        return _cache.getConfiguration( ).getTimeToLiveSeconds( );
     }
 
     /**
@@ -241,7 +352,7 @@ public abstract class AbstractCacheableService implements CacheableService, Cach
     @Override
     public long getMemorySize( )
     {
-        return _cache.calculateInMemorySize( );
+        return _cache.getMemorySize( );
     }
 
     /**
@@ -250,7 +361,16 @@ public abstract class AbstractCacheableService implements CacheableService, Cach
     @Override
     public String getInfos( )
     {
-        return CacheService.getInfos( _cache );
+        SingleFlightLoader loader = _singleFlightLoader;
+
+        String strInfos = "provider=" + _cache.getClass( ).getSimpleName( ) + "\n" + CacheService.getInfos( _cache.getConfiguration( ) );
+
+        if ( loader != null )
+        {
+            return strInfos + loader.getInfos( );
+        }
+
+        return strInfos;
     }
 
     /**
@@ -264,22 +384,12 @@ public abstract class AbstractCacheableService implements CacheableService, Cach
      */
     public String getStatistics( )
     {
-        if ( !( isCacheEnable( ) && _cache.getCacheConfiguration( ).getStatistics( ) ) )
+        if ( !isCacheEnable( ) || ( _cache == null ) )
         {
             return null;
         }
-        Statistics stats = _cache.getStatistics( );
-        StringBuilder buidler = new StringBuilder( );
-        buidler.append( "name = " ).append( stats.getAssociatedCacheName( ) ).append( "\ncacheHits = " )
-                .append( stats.getCacheHits( ) ).append( "\nonDiskHits = " ).append( stats.getOnDiskHits( ) )
-                .append( "\noffHeapHits = " ).append( stats.getOffHeapHits( ) ).append( "\ninMemoryHits = " )
-                .append( stats.getInMemoryHits( ) ).append( "\nmisses = " ).append( stats.getCacheMisses( ) )
-                .append( "\nonDiskMisses = " ).append( stats.getOnDiskMisses( ) ).append( "\noffHeapMisses = " )
-                .append( stats.getOffHeapMisses( ) ).append( "\ninMemoryMisses = " )
-                .append( stats.getInMemoryMisses( ) ).append( "\nsize = " ).append( stats.getObjectCount( ) )
-                .append( "\naverageGetTime = " ).append( stats.getAverageGetTime( ) ).append( "\nevictionCount = " )
-                .append( stats.getEvictionCount( ) );
-        return buidler.toString( );
+
+        return _cache.getStatistics( );
     }
 
     // CacheEventListener implementation
@@ -300,9 +410,8 @@ public abstract class AbstractCacheableService implements CacheableService, Cach
     @Override
     public void notifyElementExpired( Ehcache cache, Element element )
     {
-        // Remove the element from the cache
-        _cache.remove( element.getKey( ) );
-        _logger.debug( "Object removed from the cache : {}  - key : {}", cache.getName( ), element.getKey( ) );
+        // The expired element is already being removed by the cache
+        onExpired( String.valueOf( element.getObjectKey( ) ), element.getObjectValue( ) );
     }
 
     /**
@@ -311,7 +420,7 @@ public abstract class AbstractCacheableService implements CacheableService, Cach
     @Override
     public void notifyElementRemoved( Ehcache ehch, Element elmnt )
     {
-        // Do nothing
+        onRemoved( String.valueOf( elmnt.getObjectKey( ) ), elmnt.getObjectValue( ) );
     }
 
     /**
@@ -320,7 +429,7 @@ public abstract class AbstractCacheableService implements CacheableService, Cach
     @Override
     public void notifyElementEvicted( Ehcache ehch, Element elmnt )
     {
-        // Do nothing
+        onEvicted( String.valueOf( elmnt.getObjectKey( ) ), elmnt.getObjectValue( ) );
     }
 
     /**
@@ -329,7 +438,7 @@ public abstract class AbstractCacheableService implements CacheableService, Cach
     @Override
     public void notifyRemoveAll( Ehcache ehch )
     {
-        // Do nothing
+        onRemoveAll( );
     }
 
     /**
@@ -338,7 +447,7 @@ public abstract class AbstractCacheableService implements CacheableService, Cach
     @Override
     public void notifyElementPut( Ehcache ehch, Element elmnt )
     {
-        // Do nothing
+        onPut( String.valueOf( elmnt.getObjectKey( ) ), elmnt.getObjectValue( ) );
     }
 
     /**
@@ -359,6 +468,86 @@ public abstract class AbstractCacheableService implements CacheableService, Cach
         // Do nothing
     }
 
+    // ICacheListener implementation
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void onPut( String strKey, Object object )
+    {
+        SingleFlightLoader loader = _singleFlightLoader;
+
+        if ( loader != null )
+        {
+            loader.removeStale( strKey );
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void onRemoved( String strKey, Object object )
+    {
+        SingleFlightLoader loader = _singleFlightLoader;
+
+        _tagIndex.removeKey( strKey );
+
+        // Keep the removed value to serve it while the entry is being built again
+        if ( loader != null )
+        {
+            loader.putStale( strKey, object );
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void onEvicted( String strKey, Object object )
+    {
+        _tagIndex.removeKey( strKey );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void onExpired( String strKey, Object object )
+    {
+        _logger.debug( "Object expired from the cache : {}  - key : {}", getName( ), strKey );
+        onRemoved( strKey, object );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void onRemoveAll( )
+    {
+        _tagIndex.clear( );
+
+        SingleFlightLoader loader = _singleFlightLoader;
+
+        if ( loader != null )
+        {
+            loader.clearStale( );
+        }
+    }
+
+    /**
+     * Removes a key invalidated by another node of the cluster (see {@link CacheInvalidationService}). Services can override this method to remove the
+     * entries depending on the key.
+     * 
+     * @param strKey
+     *            The key to remove
+     */
+    public void processKeyInvalidation( String strKey )
+    {
+        removeKey( strKey );
+    }
+
     /**
      * Remove a key from the cache
      * 
@@ -367,6 +556,9 @@ public abstract class AbstractCacheableService implements CacheableService, Cach
      */
     public void removeKey( String strKey )
     {
-        getCache( ).remove( strKey );
+        if ( _cache != null )
+        {
+            _cache.remove( strKey );
+        }
     }
 }
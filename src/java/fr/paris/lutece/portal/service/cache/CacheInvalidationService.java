@@ -0,0 +1,358 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.cache;
+
+import fr.paris.lutece.portal.business.cache.CacheInvalidation;
+import fr.paris.lutece.portal.business.page.Page;
+import fr.paris.lutece.portal.business.page.PageHome;
+import fr.paris.lutece.portal.business.portlet.PortletHome;
+import fr.paris.lutece.portal.service.init.ShutdownService;
+import fr.paris.lutece.portal.service.page.PageEvent;
+import fr.paris.lutece.portal.service.page.PageService;
+import fr.paris.lutece.portal.service.portlet.PortletEvent;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+import java.util.UUID;
+
+/**
+ * Cache invalidation bus. The page and portlet events and the resets of caches are published to the other nodes of a cluster, which apply them to their
+ * own caches. The transport is set by the property lutece.cache.invalidation.transport (class name), the database transport by default.
+ */
+public final class CacheInvalidationService implements ShutdownService
+{
+    private static final String SERVICE_NAME = "Cache Invalidation Service";
+    private static final String PROPERTY_ENABLED = "lutece.cache.invalidation.enabled";
+    private static final String PROPERTY_TRANSPORT = "lutece.cache.invalidation.transport";
+    private static final String PROPERTY_NODE_ID = "lutece.cache.invalidation.nodeId";
+    private static CacheInvalidationService _singleton = new CacheInvalidationService( );
+
+    // The invalidations caused by an invalidation received from another node are not published again
+    private final ThreadLocal<Boolean> _bApplying = ThreadLocal.withInitial( ( ) -> Boolean.FALSE );
+    private volatile ICacheInvalidationTransport _transport;
+    private String _strNodeId;
+
+    /**
+     * Private constructor
+     */
+    private CacheInvalidationService( )
+    {
+    }
+
+    /**
+     * Returns the unique instance of the service
+     *
+     * @return The instance
+     */
+    public static CacheInvalidationService getInstance( )
+    {
+        return _singleton;
+    }
+
+    /**
+     * Starts the bus if it is enabled
+     */
+    public synchronized void init( )
+    {
+        if ( !AppPropertiesService.getPropertyBoolean( PROPERTY_ENABLED, false ) || ( _transport != null ) )
+        {
+            return;
+        }
+
+        // The node id must be unique : a node restarted with the same id would ignore the invalidations of its previous run
+        _strNodeId = AppPropertiesService.getProperty( PROPERTY_NODE_ID, UUID.randomUUID( ).toString( ) ) + "-" + System.currentTimeMillis( );
+        String strTransport = AppPropertiesService.getProperty( PROPERTY_TRANSPORT, DatabaseCacheInvalidationTransport.class.getName( ) );
+
+        try
+        {
+            ICacheInvalidationTransport transport = (ICacheInvalidationTransport) Class.forName( strTransport ).getDeclaredConstructor( ).newInstance( );
+            transport.start( _strNodeId, this::apply );
+            _transport = transport;
+            AppLogService.info( "Cache invalidation bus started : node {} - transport {}", _strNodeId, strTransport );
+        }
+        catch( ReflectiveOperationException | ClassCastException e )
+        {
+            AppLogService.error( "Invalid cache invalidation transport : {}", strTransport, e );
+        }
+    }
+
+    /**
+     * Returns whether the bus is started
+     *
+     * @return true if the bus is started
+     */
+    public boolean isEnabled( )
+    {
+        return _transport != null;
+    }
+
+    /**
+     * Tells whether the current thread is applying an invalidation received from another node. The listeners that persist something on an event (ie: indexer
+     * actions) should ignore such events since the node that published them has already done it.
+     *
+     * @return true if the current thread applies a remote invalidation
+     */
+    public boolean isApplyingRemoteInvalidation( )
+    {
+        return _bApplying.get( );
+    }
+
+    /**
+     * Publishes a page event
+     *
+     * @param event
+     *            The event
+     */
+    public void publishPageEvent( PageEvent event )
+    {
+        if ( ( event.getPage( ) != null ) && isPublishing( ) )
+        {
+            CacheInvalidation invalidation = new CacheInvalidation( );
+            invalidation.setType( CacheInvalidation.TYPE_PAGE );
+            invalidation.setEventType( event.getEventType( ) );
+            invalidation.setIdResource( event.getPage( ).getId( ) );
+            publish( invalidation );
+        }
+    }
+
+    /**
+     * Publishes a portlet event
+     *
+     * @param event
+     *            The event
+     */
+    public void publishPortletEvent( PortletEvent event )
+    {
+        if ( isPublishing( ) )
+        {
+            CacheInvalidation invalidation = new CacheInvalidation( );
+            invalidation.setType( CacheInvalidation.TYPE_PORTLET );
+            invalidation.setEventType( event.getType( ) );
+            invalidation.setIdResource( event.getPortletId( ) );
+            invalidation.setIdPage( event.getPageId( ) );
+            publish( invalidation );
+        }
+    }
+
+    /**
+     * Publishes the reset of a cache
+     *
+     * @param strCacheName
+     *            The cache name or {@link CacheInvalidation#ALL_CACHES}
+     */
+    public void publishCacheReset( String strCacheName )
+    {
+        if ( isPublishing( ) )
+        {
+            CacheInvalidation invalidation = new CacheInvalidation( );
+            invalidation.setType( CacheInvalidation.TYPE_RESET );
+            invalidation.setCacheName( strCacheName );
+            publish( invalidation );
+        }
+    }
+
+    /**
+     * Publishes the removal of a key from a cache
+     *
+     * @param strCacheName
+     *            The cache name
+     * @param strKey
+     *            The key
+     */
+    public void publishKeyRemoval( String strCacheName, String strKey )
+    {
+        if ( isPublishing( ) )
+        {
+            CacheInvalidation invalidation = new CacheInvalidation( );
+            invalidation.setType( CacheInvalidation.TYPE_KEY );
+            invalidation.setCacheName( strCacheName );
+            invalidation.setKey( strKey );
+            publish( invalidation );
+        }
+    }
+
+    /**
+     * Checks whether an invalidation of the current thread has to be published
+     *
+     * @return true if the bus is started and the invalidation doesn't come from another node
+     */
+    private boolean isPublishing( )
+    {
+        return ( _transport != null ) && !_bApplying.get( );
+    }
+
+    /**
+     * Publishes an invalidation. A failure is logged : it must not fail the update which caused the invalidation.
+     *
+     * @param invalidation
+     *            The invalidation
+     */
+    private void publish( CacheInvalidation invalidation )
+    {
+        ICacheInvalidationTransport transport = _transport;
+
+        if ( transport != null )
+        {
+            invalidation.setNodeId( _strNodeId );
+
+            try
+            {
+                transport.publish( invalidation );
+            }
+            catch( Exception e )
+            {
+                AppLogService.error( "Error publishing the cache invalidation {} : {}", invalidation, e.getMessage( ), e );
+            }
+        }
+    }
+
+    /**
+     * Applies an invalidation received from another node
+     *
+     * @param invalidation
+     *            The invalidation
+     */
+    void apply( CacheInvalidation invalidation )
+    {
+        AppLogService.debug( "Cache invalidation received : {}", invalidation );
+        _bApplying.set( Boolean.TRUE );
+
+        try
+        {
+            switch( invalidation.getType( ) )
+            {
+                case CacheInvalidation.TYPE_PAGE:
+                    PageService.notifyPageEventListeners( new PageEvent( getPage( invalidation ), invalidation.getEventType( ) ) );
+                    break;
+                case CacheInvalidation.TYPE_PORTLET:
+                    PortletHome.notifyListeners( new PortletEvent( invalidation.getEventType( ), invalidation.getIdResource( ), invalidation.getIdPage( ) ) );
+                    break;
+                case CacheInvalidation.TYPE_RESET:
+                    resetCaches( invalidation.getCacheName( ) );
+                    break;
+                case CacheInvalidation.TYPE_KEY:
+                    removeKey( invalidation.getCacheName( ), invalidation.getKey( ) );
+                    break;
+                default:
+                    AppLogService.error( "Unknown cache invalidation type : {}", invalidation.getType( ) );
+            }
+        }
+        catch( Exception e )
+        {
+            AppLogService.error( "Error applying the cache invalidation {} : {}", invalidation, e.getMessage( ), e );
+        }
+        finally
+        {
+            _bApplying.remove( );
+        }
+    }
+
+    /**
+     * Returns the page of a page invalidation
+     *
+     * @param invalidation
+     *            The invalidation
+     * @return The page, or a page with only its id if it has been deleted
+     */
+    private Page getPage( CacheInvalidation invalidation )
+    {
+        Page page = ( invalidation.getEventType( ) != PageEvent.PAGE_DELETED ) ? PageHome.getPage( invalidation.getIdResource( ) ) : null;
+
+        if ( page == null )
+        {
+            page = new Page( );
+            page.setId( invalidation.getIdResource( ) );
+        }
+
+        return page;
+    }
+
+    /**
+     * Resets a cache or all the caches
+     *
+     * @param strCacheName
+     *            The cache name or {@link CacheInvalidation#ALL_CACHES}
+     */
+    private void resetCaches( String strCacheName )
+    {
+        for ( CacheableService cs : CacheService.getCacheableServicesList( ) )
+        {
+            if ( CacheInvalidation.ALL_CACHES.equals( strCacheName ) || cs.getName( ).equals( strCacheName ) )
+            {
+                cs.resetCache( );
+            }
+        }
+    }
+
+    /**
+     * Removes a key from a cache
+     *
+     * @param strCacheName
+     *            The cache name
+     * @param strKey
+     *            The key
+     */
+    private void removeKey( String strCacheName, String strKey )
+    {
+        for ( CacheableService cs : CacheService.getCacheableServicesList( ) )
+        {
+            if ( cs.getName( ).equals( strCacheName ) && ( cs instanceof AbstractCacheableService ) )
+            {
+                ( (AbstractCacheableService) cs ).processKeyInvalidation( strKey );
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public String getName( )
+    {
+        return SERVICE_NAME;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public synchronized void process( )
+    {
+        if ( _transport != null )
+        {
+            _transport.stop( );
+            _transport = null;
+        }
+    }
+}
@@ -39,10 +39,13 @@ import java.io.FileNotFoundException;
 import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.management.MBeanServer;
 
+import fr.paris.lutece.portal.business.cache.CacheInvalidation;
 import fr.paris.lutece.portal.service.datastore.DatastoreService;
 import fr.paris.lutece.portal.service.util.AppLogService;
 import fr.paris.lutece.portal.service.util.AppPathService;
@@ -74,6 +77,8 @@ public final class CacheService
     private static final String PROPERTY_DISK_EXPIRY = ".diskExpiryThreadIntervalSeconds";
     private static final String PROPERTY_MAX_ELEMENTS_DISK = ".maxElementsOnDisk";
     private static final String PROPERTY_STATISTICS = ".statistics";
+    private static final String PROPERTY_PROVIDER = ".provider";
+    private static final String PREFIX_CACHE = "lutece.cache.";
 
     // Datastore
     private static final String KEY_PREFIX = "core.cache.status.";
@@ -95,6 +100,8 @@ public final class CacheService
     private static CacheManager _manager;
 
     private static List<CacheableService> _listCacheableServicesRegistry = new ArrayList<>( );
+    private static Map<String, ICacheProvider> _mapProviders = new ConcurrentHashMap<>( );
+    private static EhcacheCacheProvider _ehcacheProvider;
     private int _nDefaultMaxElementsInMemory;
     private boolean _bDefaultEternal;
     private long _lDefaultTimeToIdle;
@@ -126,6 +133,9 @@ public final class CacheService
             Configuration configuration = ConfigurationFactory.parseConfiguration( );
             configuration.setName( LUTECE_CACHEMANAGER_NAME );
             _manager = CacheManager.create( configuration );
+            _ehcacheProvider = new EhcacheCacheProvider( _manager );
+            registerCacheProvider( _ehcacheProvider );
+            registerCacheProvider( new LocalCacheProvider( ) );
         }
 
         return _singleton;
@@ -171,14 +181,109 @@ public final class CacheService
      */
     public Cache createCache( String strCacheName )
     {
-        Cache cache = new Cache( getCacheConfiguration( strCacheName ) );
-        _manager.addCache( cache );
+        return _ehcacheProvider.createEhcache( getCacheConfiguration( strCacheName ) );
+    }
+
+    /**
+     * Create a cache for a given Service with the provider selected for this cache
+     *
+     * @param strCacheName
+     *            The Cache/Service name
+     * @return A cache object
+     */
+    public ICache createServiceCache( String strCacheName )
+    {
+        return getCacheProvider( strCacheName ).createCache( getCacheConfiguration( strCacheName ) );
+    }
+
+    /**
+     * Registers a cache provider
+     *
+     * @param provider
+     *            The provider
+     */
+    public static void registerCacheProvider( ICacheProvider provider )
+    {
+        _mapProviders.put( provider.getName( ), provider );
+    }
+
+    /**
+     * Returns the provider of a cache, selected by the property lutece.cache.[cache name].provider or lutece.cache.default.provider. The value of the
+     * property is the name of a registered provider or the class name of a provider.
+     *
+     * @param strCacheName
+     *            The cache name
+     * @return The provider
+     */
+    private ICacheProvider getCacheProvider( String strCacheName )
+    {
+        String strProvider = getProviderProperty( strCacheName, PROPERTY_PROVIDER, EhcacheCacheProvider.NAME );
+        ICacheProvider provider = _mapProviders.get( strProvider );
+
+        if ( provider == null )
+        {
+            try
+            {
+                provider = (ICacheProvider) Class.forName( strProvider ).getDeclaredConstructor( ).newInstance( );
+                _mapProviders.put( strProvider, provider );
+            }
+            catch( ReflectiveOperationException | ClassCastException e )
+            {
+                AppLogService.error( "Invalid cache provider {} for the cache {}", strProvider, strCacheName, e );
+                provider = _ehcacheProvider;
+            }
+        }
+
+        return provider;
+    }
+
+    /**
+     * Returns a provider property of a cache : lutece.cache.[cache name without spaces][property] or by default lutece.cache.default[property]
+     *
+     * @param strCacheName
+     *            The cache name
+     * @param strProperty
+     *            The property suffix
+     * @param strDefault
+     *            The default value
+     * @return The property's value
+     */
+    static String getProviderProperty( String strCacheName, String strProperty, String strDefault )
+    {
+        String strValue = AppPropertiesService.getProperty( PREFIX_CACHE + normalizeName( strCacheName ) + strProperty );
+
+        return ( strValue != null ) ? strValue.trim( ) : AppPropertiesService.getProperty( PREFIX_DEFAULT + strProperty, strDefault ).trim( );
+    }
+
+    /**
+     * Returns a numeric provider property of a cache
+     *
+     * @param strCacheName
+     *            The cache name
+     * @param strProperty
+     *            The property suffix
+     * @param lDefault
+     *            The default value
+     * @return The property's value
+     */
+    static long getProviderPropertyLong( String strCacheName, String strProperty, long lDefault )
+    {
+        String strValue = getProviderProperty( strCacheName, strProperty, String.valueOf( lDefault ) );
 
-        return _manager.getCache( strCacheName );
+        try
+        {
+            return Long.parseLong( strValue );
+        }
+        catch( NumberFormatException e )
+        {
+            AppLogService.error( ERROR_NUMERIC_PROP, strCacheName, strProperty, strValue, e );
+
+            return lDefault;
+        }
     }
 
     /**
-     * Reset all caches
+     * Reset all caches, on all the nodes of the cluster
      */
     public static void resetCaches( )
     {
@@ -187,6 +292,8 @@ public final class CacheService
         {
             cs.resetCache( );
         }
+
+        CacheInvalidationService.getInstance( ).publishCacheReset( CacheInvalidation.ALL_CACHES );
     }
 
     /**
@@ -242,17 +349,29 @@ public final class CacheService
      * @return Cache infos
      */
     static String getInfos( Cache cache )
+    {
+        return getInfos( cache.getCacheConfiguration( ) );
+    }
+
+    /**
+     * Returns cache config
+     *
+     * @param config
+     *            The cache configuration
+     * @return Cache infos
+     */
+    static String getInfos( CacheConfiguration config )
     {
         StringBuilder sbInfos = new StringBuilder( );
-        sbInfos.append( PROPERTY_MAX_ELEMENTS ).append( "=" ).append( cache.getCacheConfiguration( ).getMaxElementsInMemory( ) ).append( "\n" );
-        sbInfos.append( PROPERTY_ETERNAL ).append( "=" ).append( cache.getCacheConfiguration( ).isEternal( ) ).append( "\n" );
-        sbInfos.append( PROPERTY_TIME_TO_IDLE ).append( "=" ).append( cache.getCacheConfiguration( ).getTimeToIdleSeconds( ) ).append( "\n" );
-        sbInfos.append( PROPERTY_TIME_TO_LIVE ).append( "=" ).append( cache.getCacheConfiguration( ).getTimeToLiveSeconds( ) ).append( "\n" );
-        sbInfos.append( PROPERTY_OVERFLOW_TO_DISK ).append( "=" ).append( cache.getCacheConfiguration( ).isOverflowToDisk( ) ).append( "\n" );
-        sbInfos.append( PROPERTY_DISK_PERSISTENT ).append( "=" ).append( cache.getCacheConfiguration( ).isDiskPersistent( ) ).append( "\n" );
-        sbInfos.append( PROPERTY_DISK_EXPIRY ).append( "=" ).append( cache.getCacheConfiguration( ).getDiskExpiryThreadIntervalSeconds( ) ).append( "\n" );
-        sbInfos.append( PROPERTY_MAX_ELEMENTS_DISK ).append( "=" ).append( cache.getCacheConfiguration( ).getMaxElementsOnDisk( ) ).append( "\n" );
-        sbInfos.append( PROPERTY_STATISTICS ).append( '=' ).append( cache.getCacheConfiguration( ).getStatistics( ) ).append( "\n" );
+        sbInfos.append( PROPERTY_MAX_ELEMENTS ).append( "=" ).append( config.getMaxElementsInMemory( ) ).append( "\n" );
+        sbInfos.append( PROPERTY_ETERNAL ).append( "=" ).append( config.isEternal( ) ).append( "\n" );
+        sbInfos.append( PROPERTY_TIME_TO_IDLE ).append( "=" ).append( config.getTimeToIdleSeconds( ) ).append( "\n" );
+        sbInfos.append( PROPERTY_TIME_TO_LIVE ).append( "=" ).append( config.getTimeToLiveSeconds( ) ).append( "\n" );
+        sbInfos.append( PROPERTY_OVERFLOW_TO_DISK ).append( "=" ).append( config.isOverflowToDisk( ) ).append( "\n" );
+        sbInfos.append( PROPERTY_DISK_PERSISTENT ).append( "=" ).append( config.isDiskPersistent( ) ).append( "\n" );
+        sbInfos.append( PROPERTY_DISK_EXPIRY ).append( "=" ).append( config.getDiskExpiryThreadIntervalSeconds( ) ).append( "\n" );
+        sbInfos.append( PROPERTY_MAX_ELEMENTS_DISK ).append( "=" ).append( config.getMaxElementsOnDisk( ) ).append( "\n" );
+        sbInfos.append( PROPERTY_STATISTICS ).append( '=' ).append( config.getStatistics( ) ).append( "\n" );
 
         return sbInfos.toString( );
     }
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.cache;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Index of the keys of a cache by tag. <br>
+ * A tag identifies a resource the cached entries depend on (a page, a portlet, ...). Invalidating a resource then costs the number of entries depending on
+ * it instead of a scan of all the keys of the cache. The index must be kept in sync with the cache : keys are tagged before being put in the cache and
+ * removed from the index when they are removed, evicted or expired.
+ */
+public class CacheTagIndex
+{
+    private final ConcurrentMap<String, Set<String>> _mapKeysByTag = new ConcurrentHashMap<>( );
+    private final ConcurrentMap<String, Set<String>> _mapTagsByKey = new ConcurrentHashMap<>( );
+
+    /**
+     * Tags a key
+     *
+     * @param strKey
+     *            The key
+     * @param tags
+     *            The tags of the key
+     */
+    public void tag( String strKey, Collection<String> tags )
+    {
+        if ( tags.isEmpty( ) )
+        {
+            return;
+        }
+
+        _mapTagsByKey.computeIfAbsent( strKey, k -> ConcurrentHashMap.newKeySet( ) ).addAll( tags );
+
+        for ( String strTag : tags )
+        {
+            // compute is atomic per tag : a set can't be dropped by removeKey while a key is being added to it
+            _mapKeysByTag.compute( strTag, ( t, setKeys ) -> {
+                Set<String> set = ( setKeys != null ) ? setKeys : ConcurrentHashMap.newKeySet( );
+                set.add( strKey );
+
+                return set;
+            } );
+        }
+    }
+
+    /**
+     * Removes a tag from the index
+     *
+     * @param strTag
+     *            The tag
+     * @return The keys which were tagged with this tag
+     */
+    public Set<String> removeTag( String strTag )
+    {
+        Set<String> setKeys = _mapKeysByTag.remove( strTag );
+
+        if ( setKeys == null )
+        {
+            return Collections.emptySet( );
+        }
+
+        for ( String strKey : setKeys )
+        {
+            removeKey( strKey );
+        }
+
+        return setKeys;
+    }
+
+    /**
+     * Removes a key from the index
+     *
+     * @param strKey
+     *            The key
+     */
+    public void removeKey( String strKey )
+    {
+        Set<String> setTags = _mapTagsByKey.remove( strKey );
+
+        if ( setTags == null )
+        {
+            return;
+        }
+
+        for ( String strTag : setTags )
+        {
+            _mapKeysByTag.computeIfPresent( strTag, ( t, setKeys ) -> {
+                setKeys.remove( strKey );
+
+                return setKeys.isEmpty( ) ? null : setKeys;
+            } );
+        }
+    }
+
+    /**
+     * Returns the keys tagged with a tag
+     *
+     * @param strTag
+     *            The tag
+     * @return The keys
+     */
+    public Set<String> getKeys( String strTag )
+    {
+        Set<String> setKeys = _mapKeysByTag.get( strTag );
+
+        return ( setKeys != null ) ? Collections.unmodifiableSet( setKeys ) : Collections.emptySet( );
+    }
+
+    /**
+     * Returns the number of tags
+     *
+     * @return The number of tags
+     */
+    public int getTagsCount( )
+    {
+        return _mapKeysByTag.size( );
+    }
+
+    /**
+     * Returns the number of tagged keys
+     *
+     * @return The number of keys
+     */
+    public int getKeysCount( )
+    {
+        return _mapTagsByKey.size( );
+    }
+
+    /**
+     * Clears the index
+     */
+    public void clear( )
+    {
+        _mapKeysByTag.clear( );
+        _mapTagsByKey.clear( );
+    }
+}
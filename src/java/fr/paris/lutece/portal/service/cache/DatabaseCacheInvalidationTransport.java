@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.cache;
+
+import fr.paris.lutece.portal.business.cache.CacheInvalidation;
+import fr.paris.lutece.portal.business.cache.CacheInvalidationHome;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+import java.sql.Timestamp;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Transport of the cache invalidations through the table core_cache_invalidation. Each node inserts its invalidations in the table and polls the
+ * invalidations of the other nodes. <br>
+ * Auto increment ids may be committed out of order : each poll reads again a window of the last ids and skips the invalidations already received.
+ */
+public class DatabaseCacheInvalidationTransport implements ICacheInvalidationTransport
+{
+    private static final String PROPERTY_POLL_INTERVAL = "lutece.cache.invalidation.database.pollInterval";
+    private static final String PROPERTY_RETENTION = "lutece.cache.invalidation.database.retention";
+    private static final long DEFAULT_POLL_INTERVAL = 2000L;
+    private static final long DEFAULT_RETENTION = 3600L;
+    private static final int ID_WINDOW = 100;
+    private static final int MAX_RECEIVED_IDS = 1000;
+    private static final String THREAD_NAME = "Lutece-CacheInvalidation-Thread";
+
+    private String _strNodeId;
+    private Consumer<CacheInvalidation> _handler;
+    private ScheduledExecutorService _executor;
+    private int _nStartId;
+    private int _nLastId;
+    private final Set<Integer> _setReceivedIds = new HashSet<>( );
+    private final Deque<Integer> _queueReceivedIds = new ArrayDeque<>( );
+    private long _lNextPurge;
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public synchronized void start( String strNodeId, Consumer<CacheInvalidation> handler )
+    {
+        _strNodeId = strNodeId;
+        _handler = handler;
+
+        // The invalidations published before the start don't concern the caches of this node
+        _nStartId = CacheInvalidationHome.findMaxId( );
+        _nLastId = _nStartId;
+
+        long lPollInterval = AppPropertiesService.getPropertyLong( PROPERTY_POLL_INTERVAL, DEFAULT_POLL_INTERVAL );
+        _executor = Executors.newSingleThreadScheduledExecutor( runnable -> {
+            Thread thread = new Thread( runnable, THREAD_NAME );
+            thread.setDaemon( true );
+
+            return thread;
+        } );
+        _executor.scheduleWithFixedDelay( this::pollSafely, lPollInterval, lPollInterval, TimeUnit.MILLISECONDS );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void publish( CacheInvalidation invalidation )
+    {
+        invalidation.setDateCreation( new Timestamp( System.currentTimeMillis( ) ) );
+        CacheInvalidationHome.create( invalidation );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public synchronized void stop( )
+    {
+        if ( _executor != null )
+        {
+            _executor.shutdownNow( );
+            _executor = null;
+        }
+    }
+
+    /**
+     * Polls the invalidations without letting an error stop the scheduling
+     */
+    private void pollSafely( )
+    {
+        try
+        {
+            poll( );
+        }
+        catch( Exception e )
+        {
+            AppLogService.error( "Error polling the cache invalidations : {}", e.getMessage( ), e );
+        }
+    }
+
+    /**
+     * Polls the invalidations of the other nodes and purges the old ones
+     */
+    void poll( )
+    {
+        for ( CacheInvalidation invalidation : CacheInvalidationHome.findFrom( _nLastId - ID_WINDOW, _strNodeId ) )
+        {
+            if ( ( invalidation.getId( ) > _nStartId ) && addReceivedId( invalidation.getId( ) ) )
+            {
+                _nLastId = Math.max( _nLastId, invalidation.getId( ) );
+                _handler.accept( invalidation );
+            }
+        }
+
+        long lNow = System.currentTimeMillis( );
+
+        if ( lNow > _lNextPurge )
+        {
+            long lRetention = TimeUnit.SECONDS.toMillis( AppPropertiesService.getPropertyLong( PROPERTY_RETENTION, DEFAULT_RETENTION ) );
+            CacheInvalidationHome.removeBefore( new Timestamp( lNow - lRetention ) );
+            _lNextPurge = lNow + ( lRetention / 10 );
+        }
+    }
+
+    /**
+     * Records a received invalidation id
+     *
+     * @param nId
+     *            The id
+     * @return false if the id has already been received
+     */
+    private boolean addReceivedId( int nId )
+    {
+        if ( !_setReceivedIds.add( nId ) )
+        {
+            return false;
+        }
+
+        _queueReceivedIds.addLast( nId );
+
+        if ( _queueReceivedIds.size( ) > MAX_RECEIVED_IDS )
+        {
+            _setReceivedIds.remove( _queueReceivedIds.removeFirst( ) );
+        }
+
+        return true;
+    }
+}
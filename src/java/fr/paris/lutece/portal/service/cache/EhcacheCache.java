@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.cache;
+
+import net.sf.ehcache.Cache;
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
+import net.sf.ehcache.Statistics;
+import net.sf.ehcache.config.CacheConfiguration;
+import net.sf.ehcache.event.CacheEventListener;
+import net.sf.ehcache.event.CacheEventListenerAdapter;
+
+import java.util.List;
+
+/**
+ * Cache based on an Ehcache cache
+ */
+public class EhcacheCache implements ICache
+{
+    private final Cache _cache;
+
+    /**
+     * Constructor
+     *
+     * @param cache
+     *            The Ehcache cache
+     */
+    public EhcacheCache( Cache cache )
+    {
+        _cache = cache;
+    }
+
+    /**
+     * Returns the Ehcache cache
+     *
+     * @return The Ehcache cache
+     */
+    public Cache getEhcache( )
+    {
+        return _cache;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public String getName( )
+    {
+        return _cache.getName( );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public Object get( String strKey )
+    {
+        Element element = _cache.get( strKey );
+
+        return ( element != null ) ? element.getObjectValue( ) : null;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void put( String strKey, Object object )
+    {
+        _cache.put( new Element( strKey, object ) );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean remove( String strKey )
+    {
+        return _cache.remove( strKey );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void removeAll( )
+    {
+        _cache.removeAll( );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int getSize( )
+    {
+        return _cache.getSize( );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    @SuppressWarnings( "unchecked" )
+    public List<String> getKeys( )
+    {
+        return _cache.getKeys( );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public long getMemorySize( )
+    {
+        return _cache.calculateInMemorySize( );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public CacheConfiguration getConfiguration( )
+    {
+        return _cache.getCacheConfiguration( );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public String getStatistics( )
+    {
+        if ( !_cache.getCacheConfiguration( ).getStatistics( ) )
+        {
+            return null;
+        }
+
+        Statistics stats = _cache.getStatistics( );
+        StringBuilder buidler = new StringBuilder( );
+        buidler.append( "name = " ).append( stats.getAssociatedCacheName( ) ).append( "\ncacheHits = " )
+                .append( stats.getCacheHits( ) ).append( "\nonDiskHits = " ).append( stats.getOnDiskHits( ) )
+                .append( "\noffHeapHits = " ).append( stats.getOffHeapHits( ) ).append( "\ninMemoryHits = " )
+                .append( stats.getInMemoryHits( ) ).append( "\nmisses = " ).append( stats.getCacheMisses( ) )
+                .append( "\nonDiskMisses = " ).append( stats.getOnDiskMisses( ) ).append( "\noffHeapMisses = " )
+                .append( stats.getOffHeapMisses( ) ).append( "\ninMemoryMisses = " )
+                .append( stats.getInMemoryMisses( ) ).append( "\nsize = " ).append( stats.getObjectCount( ) )
+                .append( "\naverageGetTime = " ).append( stats.getAverageGetTime( ) ).append( "\nevictionCount = " )
+                .append( stats.getEvictionCount( ) );
+        return buidler.toString( );
+    }
+
+    /**
+     * {@inheritDoc }
+     * <br>
+     * A listener which is also an Ehcache listener is registered as is, so that it receives the native Ehcache events.
+     */
+    @Override
+    public void addListener( ICacheListener listener )
+    {
+        if ( listener instanceof CacheEventListener )
+        {
+            _cache.getCacheEventNotificationService( ).registerListener( (CacheEventListener) listener );
+        }
+        else
+        {
+            _cache.getCacheEventNotificationService( ).registerListener( new ListenerAdapter( listener ) );
+        }
+    }
+
+    /**
+     * Adapter of the Ehcache events to a cache listener
+     */
+    private static class ListenerAdapter extends CacheEventListenerAdapter
+    {
+        private final ICacheListener _listener;
+
+        /**
+         * Constructor
+         *
+         * @param listener
+         *            The listener
+         */
+        ListenerAdapter( ICacheListener listener )
+        {
+            _listener = listener;
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public void notifyElementPut( Ehcache cache, Element element )
+        {
+            _listener.onPut( String.valueOf( element.getObjectKey( ) ), element.getObjectValue( ) );
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public void notifyElementUpdated( Ehcache cache, Element element )
+        {
+            _listener.onPut( String.valueOf( element.getObjectKey( ) ), element.getObjectValue( ) );
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public void notifyElementRemoved( Ehcache cache, Element element )
+        {
+            _listener.onRemoved( String.valueOf( element.getObjectKey( ) ), element.getObjectValue( ) );
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public void notifyElementExpired( Ehcache cache, Element element )
+        {
+            _listener.onExpired( String.valueOf( element.getObjectKey( ) ), element.getObjectValue( ) );
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public void notifyElementEvicted( Ehcache cache, Element element )
+        {
+            _listener.onEvicted( String.valueOf( element.getObjectKey( ) ), element.getObjectValue( ) );
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public void notifyRemoveAll( Ehcache cache )
+        {
+            _listener.onRemoveAll( );
+        }
+    }
+}
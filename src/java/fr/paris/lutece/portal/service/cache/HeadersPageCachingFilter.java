@@ -41,14 +41,19 @@ import net.sf.ehcache.Cache;
 import net.sf.ehcache.CacheException;
 import net.sf.ehcache.CacheManager;
 import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
 import net.sf.ehcache.constructs.blocking.BlockingCache;
 import net.sf.ehcache.constructs.blocking.LockTimeoutException;
 import net.sf.ehcache.constructs.web.AlreadyCommittedException;
 import net.sf.ehcache.constructs.web.AlreadyGzippedException;
 import net.sf.ehcache.constructs.web.filter.FilterNonReentrantException;
 import net.sf.ehcache.constructs.web.filter.SimpleCachingHeadersPageCachingFilter;
+import net.sf.ehcache.event.CacheEventListenerAdapter;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
@@ -65,6 +70,8 @@ public class HeadersPageCachingFilter extends SimpleCachingHeadersPageCachingFil
 {
     private static final String BLOCKING_TIMEOUT_MILLIS = "blockingTimeoutMillis";
     private static final String INIT_PARAM_CACHE_NAME = "cacheName";
+    private static final Pattern PATTERN_PAGE_ID = Pattern.compile( "[?&]page_id=(\\d+)(?:&|$)" );
+    private final CacheTagIndex _tagIndex = new CacheTagIndex( );
     private Cache _cache;
     private Logger _logger = LogManager.getLogger( "lutece.cache" );
     private boolean _bInit;
@@ -95,6 +102,7 @@ public class HeadersPageCachingFilter extends SimpleCachingHeadersPageCachingFil
                 _strCacheName = filterConfig.getInitParameter( INIT_PARAM_CACHE_NAME );
                 CacheService.getInstance( ).createCache( _strCacheName );
                 _cache = CacheManager.getInstance( ).getCache( _strCacheName );
+                _cache.getCacheEventNotificationService( ).registerListener( new TagIndexListener( ) );
                 CacheService.registerCacheableService( this );
                 _logger.debug( "Initializing cache : {}", _strCacheName );
 
@@ -299,14 +307,94 @@ public class HeadersPageCachingFilter extends SimpleCachingHeadersPageCachingFil
     @Override
     public void processPageEvent( PageEvent event )
     {
-        String strPattern = "page_id=" + event.getPage( ).getId( );
+        if ( ( event.getEventType( ) == PageEvent.PAGE_CREATED ) || ( blockingCache == null ) )
+        {
+            return;
+        }
+
+        for ( String strKey : _tagIndex.removeTag( String.valueOf( event.getPage( ).getId( ) ) ) )
+        {
+            blockingCache.remove( strKey );
+        }
+    }
+
+    /**
+     * Returns the page id of a cache key
+     *
+     * @param strKey
+     *            The cache key (method, URI and query string of the request)
+     * @return The page id or null if the key doesn't hold a page id parameter
+     */
+    static String getPageId( String strKey )
+    {
+        Matcher matcher = PATTERN_PAGE_ID.matcher( strKey );
+
+        return matcher.find( ) ? matcher.group( 1 ) : null;
+    }
 
-        for ( String strKey : (List<String>) blockingCache.getKeys( ) )
+    /**
+     * Listener keeping the tag index of the page ids in sync with the cache
+     */
+    private class TagIndexListener extends CacheEventListenerAdapter
+    {
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public void notifyElementPut( Ehcache cache, Element element )
         {
-            if ( strKey.contains( strPattern ) && ( event.getEventType( ) != PageEvent.PAGE_CREATED ) )
+            String strKey = String.valueOf( element.getObjectKey( ) );
+            String strPageId = getPageId( strKey );
+
+            if ( strPageId != null )
             {
-                blockingCache.remove( strKey );
+                _tagIndex.tag( strKey, Collections.singletonList( strPageId ) );
             }
         }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public void notifyElementUpdated( Ehcache cache, Element element )
+        {
+            notifyElementPut( cache, element );
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public void notifyElementRemoved( Ehcache cache, Element element )
+        {
+            _tagIndex.removeKey( String.valueOf( element.getObjectKey( ) ) );
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public void notifyElementExpired( Ehcache cache, Element element )
+        {
+            _tagIndex.removeKey( String.valueOf( element.getObjectKey( ) ) );
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public void notifyElementEvicted( Ehcache cache, Element element )
+        {
+            _tagIndex.removeKey( String.valueOf( element.getObjectKey( ) ) );
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public void notifyRemoveAll( Ehcache cache )
+        {
+            _tagIndex.clear( );
+        }
     }
 }
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.cache;
+
+import net.sf.ehcache.config.CacheConfiguration;
+
+import java.util.List;
+
+/**
+ * Cache created by a cache provider
+ */
+public interface ICache
+{
+    /**
+     * Returns the name of the cache
+     *
+     * @return The name
+     */
+    String getName( );
+
+    /**
+     * Gets an object from the cache
+     *
+     * @param strKey
+     *            The key
+     * @return The object or null if the key is not in the cache or has expired
+     */
+    Object get( String strKey );
+
+    /**
+     * Puts an object into the cache
+     *
+     * @param strKey
+     *            The key
+     * @param object
+     *            The object
+     */
+    void put( String strKey, Object object );
+
+    /**
+     * Removes an object from the cache
+     *
+     * @param strKey
+     *            The key
+     * @return true if the key was in the cache
+     */
+    boolean remove( String strKey );
+
+    /**
+     * Removes all the objects of the cache
+     */
+    void removeAll( );
+
+    /**
+     * Returns the number of objects in the cache
+     *
+     * @return The size
+     */
+    int getSize( );
+
+    /**
+     * Returns the keys of the cache
+     *
+     * @return The keys
+     */
+    List<String> getKeys( );
+
+    /**
+     * Returns the memory used by the cache in bytes. The value may be an estimate.
+     *
+     * @return The memory size
+     */
+    long getMemorySize( );
+
+    /**
+     * Returns the configuration of the cache
+     *
+     * @return The configuration
+     */
+    CacheConfiguration getConfiguration( );
+
+    /**
+     * Returns the statistics of the cache. The string representation is susceptible to change
+     *
+     * @return The statistics or null if the statistics are not enabled
+     */
+    String getStatistics( );
+
+    /**
+     * Adds a listener of the cache events
+     *
+     * @param listener
+     *            The listener
+     */
+    void addListener( ICacheListener listener );
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.cache;
+
+/**
+ * Listener of the events of a cache created by a cache provider
+ */
+public interface ICacheListener
+{
+    /**
+     * Called when an object has been put into the cache
+     *
+     * @param strKey
+     *            The key
+     * @param object
+     *            The object
+     */
+    default void onPut( String strKey, Object object )
+    {
+    }
+
+    /**
+     * Called when an object has been removed from the cache
+     *
+     * @param strKey
+     *            The key
+     * @param object
+     *            The removed object
+     */
+    default void onRemoved( String strKey, Object object )
+    {
+    }
+
+    /**
+     * Called when an object has been evicted from the cache to free space
+     *
+     * @param strKey
+     *            The key
+     * @param object
+     *            The evicted object
+     */
+    default void onEvicted( String strKey, Object object )
+    {
+    }
+
+    /**
+     * Called when an object has expired
+     *
+     * @param strKey
+     *            The key
+     * @param object
+     *            The expired object
+     */
+    default void onExpired( String strKey, Object object )
+    {
+    }
+
+    /**
+     * Called when all the objects of the cache have been removed
+     */
+    default void onRemoveAll( )
+    {
+    }
+}
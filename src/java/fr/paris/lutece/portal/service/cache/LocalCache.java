@@ -0,0 +1,574 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.cache;
+
+import net.sf.ehcache.config.CacheConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process cache without Ehcache elements nor listeners threads. <br>
+ * <ul>
+ * <li>Size and weight based eviction use the CLOCK algorithm (second chance) : an entry read since the last pass of the clock is kept for another pass.
+ * The weight of an entry is the estimated memory size of its value.</li>
+ * <li>Time based eviction (time to live and time to idle) is checked when an entry is read, when the clock passes over it, and on each put for a few
+ * entries of the clock, so that the expired entries don't stay resident. The size and the keys of the cache exclude the expired entries.</li>
+ * <li>Statistics (hits, misses, evictions, expirations) are always recorded.</li>
+ * </ul>
+ * The disk settings of the cache configuration are ignored.
+ */
+public class LocalCache implements ICache
+{
+    private static final int WEIGHT_STRING_OVERHEAD = 40;
+    private static final int WEIGHT_ARRAY_OVERHEAD = 16;
+    private static final int WEIGHT_OBJECT = 64;
+    private static final int MIN_DEAD_ENTRIES_PURGE = 1024;
+    private static final int EXPIRATION_STEPS_PER_PUT = 2;
+
+    private final CacheConfiguration _config;
+    private final int _nMaxElements;
+    private final long _lMaxWeight;
+    private final long _lTimeToLiveNanos;
+    private final long _lTimeToIdleNanos;
+    private final ConcurrentMap<String, Entry> _map = new ConcurrentHashMap<>( );
+    private final Queue<Entry> _clock = new ConcurrentLinkedQueue<>( );
+    private final AtomicInteger _nClockSize = new AtomicInteger( );
+    private final AtomicLong _lWeight = new AtomicLong( );
+    private final ReentrantLock _lockPurge = new ReentrantLock( );
+    private final List<ICacheListener> _listListeners = new CopyOnWriteArrayList<>( );
+    private final LongAdder _lHits = new LongAdder( );
+    private final LongAdder _lMisses = new LongAdder( );
+    private final LongAdder _lEvictions = new LongAdder( );
+    private final LongAdder _lExpirations = new LongAdder( );
+
+    /**
+     * Constructor
+     *
+     * @param config
+     *            The configuration of the cache
+     * @param lMaxWeight
+     *            The max weight of the cache (estimated memory size in bytes), 0 for no limit
+     */
+    public LocalCache( CacheConfiguration config, long lMaxWeight )
+    {
+        _config = config;
+        _nMaxElements = config.getMaxElementsInMemory( );
+        _lMaxWeight = lMaxWeight;
+        _lTimeToLiveNanos = config.isEternal( ) ? 0 : TimeUnit.SECONDS.toNanos( config.getTimeToLiveSeconds( ) );
+        _lTimeToIdleNanos = config.isEternal( ) ? 0 : TimeUnit.SECONDS.toNanos( config.getTimeToIdleSeconds( ) );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public String getName( )
+    {
+        return _config.getName( );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public Object get( String strKey )
+    {
+        Entry entry = ( strKey != null ) ? _map.get( strKey ) : null;
+
+        if ( entry == null )
+        {
+            _lMisses.increment( );
+
+            return null;
+        }
+
+        long lNow = System.nanoTime( );
+
+        if ( isExpired( entry, lNow ) )
+        {
+            expire( entry );
+            _lMisses.increment( );
+
+            return null;
+        }
+
+        entry._lAccessTime = lNow;
+        entry._bReferenced = true;
+        _lHits.increment( );
+
+        return entry._value;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void put( String strKey, Object object )
+    {
+        if ( strKey == null )
+        {
+            return;
+        }
+
+        Entry entry = new Entry( strKey, object, System.nanoTime( ) );
+        Entry previous = _map.put( strKey, entry );
+        _lWeight.addAndGet( entry._nWeight - ( ( previous != null ) ? previous._nWeight : 0 ) );
+        _clock.offer( entry );
+        _nClockSize.incrementAndGet( );
+
+        for ( ICacheListener listener : _listListeners )
+        {
+            listener.onPut( strKey, object );
+        }
+
+        expireEntries( EXPIRATION_STEPS_PER_PUT );
+        evict( );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean remove( String strKey )
+    {
+        Entry entry = ( strKey != null ) ? _map.remove( strKey ) : null;
+
+        if ( entry == null )
+        {
+            return false;
+        }
+
+        _lWeight.addAndGet( -entry._nWeight );
+
+        for ( ICacheListener listener : _listListeners )
+        {
+            listener.onRemoved( strKey, entry._value );
+        }
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void removeAll( )
+    {
+        // The entries are removed one by one to keep the weight consistent with concurrent puts.
+        // The clock keeps the removed entries until the next pass or purge
+        for ( String strKey : _map.keySet( ) )
+        {
+            Entry entry = _map.remove( strKey );
+
+            if ( entry != null )
+            {
+                _lWeight.addAndGet( -entry._nWeight );
+            }
+        }
+
+        for ( ICacheListener listener : _listListeners )
+        {
+            listener.onRemoveAll( );
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int getSize( )
+    {
+        if ( !isTimeBased( ) )
+        {
+            return _map.size( );
+        }
+
+        return getKeys( ).size( );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public List<String> getKeys( )
+    {
+        if ( !isTimeBased( ) )
+        {
+            return new ArrayList<>( _map.keySet( ) );
+        }
+
+        // The expired entries found are removed
+        List<String> listKeys = new ArrayList<>( _map.size( ) );
+        long lNow = System.nanoTime( );
+
+        for ( Entry entry : _map.values( ) )
+        {
+            if ( isExpired( entry, lNow ) )
+            {
+                expire( entry );
+            }
+            else
+            {
+                listKeys.add( entry._strKey );
+            }
+        }
+
+        return listKeys;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public long getMemorySize( )
+    {
+        return _lWeight.get( );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public CacheConfiguration getConfiguration( )
+    {
+        return _config;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public String getStatistics( )
+    {
+        long lHits = _lHits.sum( );
+        long lMisses = _lMisses.sum( );
+        long lRequests = lHits + lMisses;
+
+        StringBuilder sbStats = new StringBuilder( );
+        sbStats.append( "name = " ).append( getName( ) ).append( "\ncacheHits = " ).append( lHits ).append( "\nmisses = " ).append( lMisses )
+                .append( "\nhitRatio = " ).append( ( lRequests > 0 ) ? ( ( 100 * lHits ) / lRequests ) : 0 ).append( "%\nsize = " ).append( getSize( ) )
+                .append( "\nweight = " ).append( _lWeight.get( ) ).append( "\nevictionCount = " ).append( _lEvictions.sum( ) )
+                .append( "\nexpiredCount = " ).append( _lExpirations.sum( ) );
+
+        return sbStats.toString( );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void addListener( ICacheListener listener )
+    {
+        _listListeners.add( listener );
+    }
+
+    /**
+     * Returns the number of hits
+     *
+     * @return The number of hits
+     */
+    public long getHitCount( )
+    {
+        return _lHits.sum( );
+    }
+
+    /**
+     * Returns the number of misses
+     *
+     * @return The number of misses
+     */
+    public long getMissCount( )
+    {
+        return _lMisses.sum( );
+    }
+
+    /**
+     * Returns the number of evictions
+     *
+     * @return The number of evictions
+     */
+    public long getEvictionCount( )
+    {
+        return _lEvictions.sum( );
+    }
+
+    /**
+     * Returns the number of expirations
+     *
+     * @return The number of expirations
+     */
+    public long getExpirationCount( )
+    {
+        return _lExpirations.sum( );
+    }
+
+    /**
+     * Checks whether the entries have a time to live or a time to idle
+     *
+     * @return true if the entries can expire
+     */
+    private boolean isTimeBased( )
+    {
+        return ( _lTimeToLiveNanos > 0 ) || ( _lTimeToIdleNanos > 0 );
+    }
+
+    /**
+     * Checks whether an entry has expired
+     *
+     * @param entry
+     *            The entry
+     * @param lNow
+     *            The current time in nanoseconds
+     * @return true if the entry has expired
+     */
+    private boolean isExpired( Entry entry, long lNow )
+    {
+        return ( ( _lTimeToLiveNanos > 0 ) && ( ( lNow - entry._lWriteTime ) > _lTimeToLiveNanos ) )
+                || ( ( _lTimeToIdleNanos > 0 ) && ( ( lNow - entry._lAccessTime ) > _lTimeToIdleNanos ) );
+    }
+
+    /**
+     * Checks whether the cache exceeds its size or weight limits
+     *
+     * @return true if the cache is full
+     */
+    private boolean isOverflowing( )
+    {
+        return ( ( _nMaxElements > 0 ) && ( _map.size( ) > _nMaxElements ) ) || ( ( _lMaxWeight > 0 ) && ( _lWeight.get( ) > _lMaxWeight ) );
+    }
+
+    /**
+     * Removes an expired entry from the cache, unless it has been removed or replaced meanwhile
+     *
+     * @param entry
+     *            The entry
+     */
+    private void expire( Entry entry )
+    {
+        if ( _map.remove( entry._strKey, entry ) )
+        {
+            _lWeight.addAndGet( -entry._nWeight );
+            _lExpirations.increment( );
+
+            for ( ICacheListener listener : _listListeners )
+            {
+                listener.onExpired( entry._strKey, entry._value );
+            }
+        }
+    }
+
+    /**
+     * Advances the clock over a few entries to remove the expired ones. The other entries go back to the clock with their second chance.
+     *
+     * @param nSteps
+     *            The number of entries to check
+     */
+    private void expireEntries( int nSteps )
+    {
+        if ( !isTimeBased( ) )
+        {
+            return;
+        }
+
+        long lNow = System.nanoTime( );
+
+        for ( int i = 0; i < nSteps; i++ )
+        {
+            Entry entry = _clock.poll( );
+
+            if ( entry == null )
+            {
+                return;
+            }
+
+            if ( _map.get( entry._strKey ) != entry )
+            {
+                // Entry already removed or replaced
+                _nClockSize.decrementAndGet( );
+            }
+            else
+                if ( isExpired( entry, lNow ) )
+                {
+                    _nClockSize.decrementAndGet( );
+                    expire( entry );
+                }
+                else
+                {
+                    _clock.offer( entry );
+                }
+        }
+    }
+
+    /**
+     * Evicts entries until the cache fits its limits
+     */
+    private void evict( )
+    {
+        // Each entry is given a second chance at most once per pass : two passes are enough to find a victim
+        int nMaxSteps = ( 2 * _nClockSize.get( ) ) + 1;
+
+        while ( isOverflowing( ) && ( nMaxSteps-- > 0 ) )
+        {
+            Entry entry = _clock.poll( );
+
+            if ( entry == null )
+            {
+                break;
+            }
+
+            _nClockSize.decrementAndGet( );
+
+            if ( _map.get( entry._strKey ) != entry )
+            {
+                // Entry already removed or replaced
+                continue;
+            }
+
+            if ( isExpired( entry, System.nanoTime( ) ) )
+            {
+                // An expired entry is removed whatever its second chance
+                expire( entry );
+            }
+            else
+                if ( entry._bReferenced )
+            {
+                entry._bReferenced = false;
+                _clock.offer( entry );
+                _nClockSize.incrementAndGet( );
+            }
+            else
+                if ( _map.remove( entry._strKey, entry ) )
+                {
+                    _lWeight.addAndGet( -entry._nWeight );
+                    _lEvictions.increment( );
+
+                    for ( ICacheListener listener : _listListeners )
+                    {
+                        listener.onEvicted( entry._strKey, entry._value );
+                    }
+                }
+        }
+
+        purgeDeadEntries( );
+    }
+
+    /**
+     * Removes from the clock the entries which are no longer in the cache, when they outnumber the entries of the cache
+     */
+    private void purgeDeadEntries( )
+    {
+        if ( ( _nClockSize.get( ) > ( ( 2 * _map.size( ) ) + MIN_DEAD_ENTRIES_PURGE ) ) && _lockPurge.tryLock( ) )
+        {
+            try
+            {
+                _clock.removeIf( entry -> _map.get( entry._strKey ) != entry );
+                _nClockSize.set( _clock.size( ) );
+            }
+            finally
+            {
+                _lockPurge.unlock( );
+            }
+        }
+    }
+
+    /**
+     * Returns the weight of a value
+     *
+     * @param value
+     *            The value
+     * @return The estimated memory size of the value
+     */
+    static int weigh( Object value )
+    {
+        if ( value instanceof CharSequence )
+        {
+            return WEIGHT_STRING_OVERHEAD + ( 2 * ( (CharSequence) value ).length( ) );
+        }
+
+        if ( value instanceof byte [ ] )
+        {
+            return WEIGHT_ARRAY_OVERHEAD + ( (byte [ ]) value ).length;
+        }
+
+        if ( value instanceof IWeighable )
+        {
+            return ( (IWeighable) value ).getWeight( );
+        }
+
+        return WEIGHT_OBJECT;
+    }
+
+    /**
+     * Cache entry
+     */
+    private static final class Entry
+    {
+        private final String _strKey;
+        private final Object _value;
+        private final int _nWeight;
+        private final long _lWriteTime;
+        private volatile long _lAccessTime;
+        private volatile boolean _bReferenced;
+
+        /**
+         * Constructor
+         *
+         * @param strKey
+         *            The key
+         * @param value
+         *            The value
+         * @param lNow
+         *            The current time in nanoseconds
+         */
+        Entry( String strKey, Object value, long lNow )
+        {
+            _strKey = strKey;
+            _value = value;
+            _nWeight = weigh( value );
+            _lWriteTime = lNow;
+            _lAccessTime = lNow;
+        }
+    }
+}
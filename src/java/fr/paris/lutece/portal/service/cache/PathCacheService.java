@@ -33,13 +33,24 @@
  */
 package fr.paris.lutece.portal.service.cache;
 
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 import javax.servlet.http.HttpServletRequest;
 
 import org.apache.commons.lang3.StringUtils;
 
+import fr.paris.lutece.portal.business.page.Page;
+import fr.paris.lutece.portal.business.page.PageHome;
 import fr.paris.lutece.portal.service.page.PageEvent;
 import fr.paris.lutece.portal.service.page.PageEventListener;
 import fr.paris.lutece.portal.service.page.PageService;
+import fr.paris.lutece.portal.service.portal.PortalService;
 import fr.paris.lutece.portal.web.constants.Parameters;
 
 /**
@@ -47,6 +58,10 @@ import fr.paris.lutece.portal.web.constants.Parameters;
  */
 public class PathCacheService extends AbstractCacheableService implements IPathCacheService, PageEventListener
 {
+    private static final String TAG_PAGE_PREFIX = "page:";
+    private static final String TAG_UNTAGGED = "untagged";
+    private static final Pattern PATTERN_PAGE_ID = Pattern.compile( "\\[" + Parameters.PAGE_ID + ":([^\\]]+)\\]" );
+    private static final int MAX_INVALIDATED_PAGES = 1000;
 
     /**
      * Constructor
@@ -109,7 +124,11 @@ public class PathCacheService extends AbstractCacheableService implements IPathC
     @Override
     public void putInCache( String strKey, String path )
     {
-        super.putInCache( strKey, path );
+        // the path of a page depends on the page and its parents : it is tagged with its page id.
+        // Paths without page id are only tagged to be invalidated on any page event
+        Matcher matcher = PATTERN_PAGE_ID.matcher( strKey );
+        String strTag = matcher.find( ) ? ( TAG_PAGE_PREFIX + matcher.group( 1 ) ) : TAG_UNTAGGED;
+        super.putInCache( strKey, path, Collections.singletonList( strTag ) );
     }
 
     @Override
@@ -118,9 +137,68 @@ public class PathCacheService extends AbstractCacheableService implements IPathC
         if ( isCacheEnable( ) && event.getEventType( ) != PageEvent.PAGE_CREATED )
         {
             // some cached paths might contain page info that need invalidation, but not for
-            // a page which was just created
-            resetCache( );
+            // a page which was just created. The paths of the page and of its descendants are removed
+            int nPageId = event.getPage( ).getId( );
+
+            if ( nPageId == PortalService.getRootPageId( ) )
+            {
+                resetCache( );
+
+                return;
+            }
+
+            Set<Integer> setPageIds = getSubtreePageIds( nPageId );
+
+            if ( setPageIds == null )
+            {
+                resetCache( );
+
+                return;
+            }
+
+            for ( Integer nId : setPageIds )
+            {
+                invalidateTag( TAG_PAGE_PREFIX + nId );
+            }
+
+            invalidateTag( TAG_UNTAGGED );
+        }
+    }
+
+    /**
+     * Returns the ids of a page and of its descendants
+     *
+     * @param nPageId
+     *            The page id
+     * @return The page ids or null if the subtree has more than MAX_INVALIDATED_PAGES pages
+     */
+    private static Set<Integer> getSubtreePageIds( int nPageId )
+    {
+        Set<Integer> setPageIds = new HashSet<>( );
+        Deque<Integer> stack = new ArrayDeque<>( );
+        stack.push( nPageId );
+
+        while ( !stack.isEmpty( ) )
+        {
+            int nId = stack.pop( );
+
+            if ( !setPageIds.add( nId ) )
+            {
+                continue;
+            }
+
+            if ( setPageIds.size( ) > MAX_INVALIDATED_PAGES )
+            {
+                return null;
+            }
+
+            for ( Page child : PageHome.getChildPagesMinimalData( nId ) )
+            {
+                stack.push( child.getId( ) );
+            }
         }
+
+        return setPageIds;
     }
 
 }
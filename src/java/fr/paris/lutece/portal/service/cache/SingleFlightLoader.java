@@ -0,0 +1,412 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.cache;
+
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coordinates the loading of the entries of a cache : when several requests miss the same key at the same time, only one of them (the leader) builds the
+ * entry while the others wait for it, then read it from the cache. <br>
+ * The wait is bounded : a request that waits longer than the max wait builds the entry by itself. If a previous value of the entry has been kept (see
+ * {@link #putStale(String, Object)}), the waiting requests are served with this stale value instead of waiting.
+ */
+public class SingleFlightLoader
+{
+    private static final String PROPERTY_MAX_WAIT = "lutece.cache.singleFlight.maxWait";
+    private static final String PROPERTY_STALE_MAX_AGE = "lutece.cache.singleFlight.staleMaxAge";
+    private static final String PROPERTY_STALE_MAX_ENTRIES = "lutece.cache.singleFlight.staleMaxEntries";
+    private static final long DEFAULT_MAX_WAIT = 5000L;
+    private static final long DEFAULT_STALE_MAX_AGE = 60L;
+    private static final int DEFAULT_STALE_MAX_ENTRIES = 1000;
+    private final ConcurrentMap<String, CompletableFuture<Void>> _mapFlights = new ConcurrentHashMap<>( );
+    private final ConcurrentMap<String, StaleEntry> _mapStaleEntries = new ConcurrentHashMap<>( );
+    private final long _lMaxWait;
+    private final long _lStaleMaxAge;
+    private final int _nStaleMaxEntries;
+    private final LongAdder _lLoads = new LongAdder( );
+    private final LongAdder _lCoalesced = new LongAdder( );
+    private final LongAdder _lStaleServed = new LongAdder( );
+    private final LongAdder _lTimeouts = new LongAdder( );
+
+    /**
+     * Loader of a cache entry
+     *
+     * @param <V>
+     *            The type of the entry
+     * @param <E>
+     *            The type of exception thrown by the loader
+     */
+    @FunctionalInterface
+    public interface Loader<V, E extends Exception>
+    {
+        /**
+         * Builds the entry and puts it in the cache if it can be cached
+         *
+         * @return The entry
+         * @throws E
+         *             If the entry can't be built
+         */
+        V load( ) throws E;
+    }
+
+    /**
+     * Creates a loader configured by the properties <code>lutece.cache.singleFlight.*</code>
+     */
+    public SingleFlightLoader( )
+    {
+        this( true );
+    }
+
+    /**
+     * Creates a loader configured by the properties <code>lutece.cache.singleFlight.*</code>
+     *
+     * @param bServeStaleValues
+     *            false if the stale values must never be served, for instance when the entries are used to build the entries of another cache
+     */
+    public SingleFlightLoader( boolean bServeStaleValues )
+    {
+        this( AppPropertiesService.getPropertyLong( PROPERTY_MAX_WAIT, DEFAULT_MAX_WAIT ),
+                bServeStaleValues ? AppPropertiesService.getPropertyLong( PROPERTY_STALE_MAX_AGE, DEFAULT_STALE_MAX_AGE ) : 0L,
+                AppPropertiesService.getPropertyInt( PROPERTY_STALE_MAX_ENTRIES, DEFAULT_STALE_MAX_ENTRIES ) );
+    }
+
+    /**
+     * Creates a loader
+     *
+     * @param lMaxWait
+     *            The max time to wait for an entry built by another request, in milliseconds
+     * @param lStaleMaxAge
+     *            The max age of the stale values, in seconds. 0 disables the stale values
+     * @param nStaleMaxEntries
+     *            The max number of stale values kept
+     */
+    public SingleFlightLoader( long lMaxWait, long lStaleMaxAge, int nStaleMaxEntries )
+    {
+        _lMaxWait = lMaxWait;
+        _lStaleMaxAge = lStaleMaxAge;
+        _nStaleMaxEntries = nStaleMaxEntries;
+    }
+
+    /**
+     * Gets an entry from the cache or builds it. Only one request builds a given key at a time.
+     *
+     * @param <V>
+     *            The type of the entry
+     * @param <E>
+     *            The type of exception thrown by the loader
+     * @param strKey
+     *            The key of the entry
+     * @param cacheReader
+     *            Reads the entry from the cache, returns null if the entry is not in the cache
+     * @param loader
+     *            Builds the entry and puts it in the cache
+     * @return The entry
+     * @throws E
+     *             If the entry can't be built
+     */
+    @SuppressWarnings( "unchecked" )
+    public <V, E extends Exception> V get( String strKey, Supplier<V> cacheReader, Loader<V, E> loader ) throws E
+    {
+        V value = cacheReader.get( );
+
+        if ( value != null )
+        {
+            return value;
+        }
+
+        CompletableFuture<Void> flight = new CompletableFuture<>( );
+        CompletableFuture<Void> current = _mapFlights.putIfAbsent( strKey, flight );
+
+        if ( current == null )
+        {
+            // This request is the leader : it builds the entry for the others
+            _lLoads.increment( );
+
+            try
+            {
+                return loader.load( );
+            }
+            finally
+            {
+                _mapStaleEntries.remove( strKey );
+                _mapFlights.remove( strKey, flight );
+                flight.complete( null );
+            }
+        }
+
+        StaleEntry stale = _mapStaleEntries.get( strKey );
+
+        if ( stale != null )
+        {
+            if ( !stale.isExpired( _lStaleMaxAge ) )
+            {
+                _lStaleServed.increment( );
+
+                return (V) stale.getValue( );
+            }
+
+            _mapStaleEntries.remove( strKey, stale );
+        }
+
+        if ( waitFor( current ) )
+        {
+            value = cacheReader.get( );
+
+            if ( value != null )
+            {
+                _lCoalesced.increment( );
+
+                return value;
+            }
+        }
+
+        // The leader's entry is not shareable (not cacheable, failure) or the leader is too slow
+        return loader.load( );
+    }
+
+    /**
+     * Waits for the end of the loading of an entry by another request
+     *
+     * @param flight
+     *            The loading
+     * @return true if the loading is over
+     */
+    private boolean waitFor( CompletableFuture<Void> flight )
+    {
+        try
+        {
+            flight.get( _lMaxWait, TimeUnit.MILLISECONDS );
+
+            return true;
+        }
+        catch( TimeoutException e )
+        {
+            _lTimeouts.increment( );
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+        }
+        catch( ExecutionException e )
+        {
+            // The flight is only completed normally
+        }
+
+        return false;
+    }
+
+    /**
+     * Keeps the previous value of an entry removed from the cache, to serve it while the entry is being built again. When the max number of values is
+     * reached, the expired values are removed, then the oldest ones.
+     *
+     * @param strKey
+     *            The key
+     * @param value
+     *            The previous value
+     */
+    public void putStale( String strKey, Object value )
+    {
+        if ( ( _lStaleMaxAge <= 0 ) || ( value == null ) || ( _nStaleMaxEntries <= 0 ) )
+        {
+            return;
+        }
+
+        if ( ( _mapStaleEntries.size( ) >= _nStaleMaxEntries ) && !_mapStaleEntries.containsKey( strKey ) )
+        {
+            evictStaleEntries( );
+        }
+
+        _mapStaleEntries.put( strKey, new StaleEntry( value ) );
+    }
+
+    /**
+     * Makes room for a new stale value : removes the expired values, and if none has expired, the oldest values
+     */
+    private void evictStaleEntries( )
+    {
+        _mapStaleEntries.values( ).removeIf( stale -> stale.isExpired( _lStaleMaxAge ) );
+
+        while ( _mapStaleEntries.size( ) >= _nStaleMaxEntries )
+        {
+            Map.Entry<String, StaleEntry> oldest = null;
+
+            for ( Map.Entry<String, StaleEntry> entry : _mapStaleEntries.entrySet( ) )
+            {
+                if ( ( oldest == null ) || ( entry.getValue( ).getCreationTime( ) < oldest.getValue( ).getCreationTime( ) ) )
+                {
+                    oldest = entry;
+                }
+            }
+
+            if ( oldest == null )
+            {
+                break;
+            }
+
+            _mapStaleEntries.remove( oldest.getKey( ), oldest.getValue( ) );
+        }
+    }
+
+    /**
+     * Returns the number of stale values kept
+     *
+     * @return The number of stale values
+     */
+    public int getStaleCount( )
+    {
+        return _mapStaleEntries.size( );
+    }
+
+    /**
+     * Removes the previous value of an entry
+     *
+     * @param strKey
+     *            The key
+     */
+    public void removeStale( String strKey )
+    {
+        _mapStaleEntries.remove( strKey );
+    }
+
+    /**
+     * Removes all the previous values
+     */
+    public void clearStale( )
+    {
+        _mapStaleEntries.clear( );
+    }
+
+    /**
+     * Returns the number of entries built by a leader request
+     *
+     * @return The number of loads
+     */
+    public long getLoadsCount( )
+    {
+        return _lLoads.sum( );
+    }
+
+    /**
+     * Returns the number of requests served with an entry built by another request
+     *
+     * @return The number of coalesced requests
+     */
+    public long getCoalescedCount( )
+    {
+        return _lCoalesced.sum( );
+    }
+
+    /**
+     * Returns the number of requests served with a stale value
+     *
+     * @return The number of stale values served
+     */
+    public long getStaleServedCount( )
+    {
+        return _lStaleServed.sum( );
+    }
+
+    /**
+     * Returns the number of requests that stopped waiting for another request
+     *
+     * @return The number of timeouts
+     */
+    public long getTimeoutsCount( )
+    {
+        return _lTimeouts.sum( );
+    }
+
+    /**
+     * Returns the statistics of the loader
+     *
+     * @return The statistics
+     */
+    public String getInfos( )
+    {
+        StringBuilder sbInfos = new StringBuilder( );
+        sbInfos.append( "singleFlight.loads=" ).append( getLoadsCount( ) ).append( "\n" );
+        sbInfos.append( "singleFlight.coalesced=" ).append( getCoalescedCount( ) ).append( "\n" );
+        sbInfos.append( "singleFlight.staleServed=" ).append( getStaleServedCount( ) ).append( "\n" );
+        sbInfos.append( "singleFlight.timeouts=" ).append( getTimeoutsCount( ) ).append( "\n" );
+        sbInfos.append( "singleFlight.inProgress=" ).append( _mapFlights.size( ) ).append( "\n" );
+        sbInfos.append( "singleFlight.staleValues=" ).append( getStaleCount( ) ).append( "\n" );
+
+        return sbInfos.toString( );
+    }
+
+    /**
+     * A previous value of an entry
+     */
+    private static final class StaleEntry
+    {
+        private final Object _value;
+        private final long _lCreationTime = System.currentTimeMillis( );
+
+        /**
+         * Constructor
+         *
+         * @param value
+         *            The value
+         */
+        StaleEntry( Object value )
+        {
+            _value = value;
+        }
+
+        Object getValue( )
+        {
+            return _value;
+        }
+
+        long getCreationTime( )
+        {
+            return _lCreationTime;
+        }
+
+        boolean isExpired( long lMaxAgeSeconds )
+        {
+            return System.currentTimeMillis( ) - _lCreationTime > TimeUnit.SECONDS.toMillis( lMaxAgeSeconds );
+        }
+    }
+}
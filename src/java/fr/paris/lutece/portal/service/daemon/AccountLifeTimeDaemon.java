@@ -35,10 +35,14 @@ package fr.paris.lutece.portal.service.daemon;
 
 import java.sql.Timestamp;
 import java.text.DateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -47,6 +51,7 @@ import fr.paris.lutece.portal.business.user.AdminUser;
 import fr.paris.lutece.portal.business.user.AdminUserHome;
 import fr.paris.lutece.portal.business.user.parameter.DefaultUserParameterHome;
 import fr.paris.lutece.portal.service.admin.AdminUserService;
+import fr.paris.lutece.portal.service.mail.MailItem;
 import fr.paris.lutece.portal.service.mail.MailService;
 import fr.paris.lutece.portal.service.template.AppTemplateService;
 import fr.paris.lutece.portal.service.template.DatabaseTemplateService;
@@ -89,6 +94,8 @@ public class AccountLifeTimeDaemon extends Daemon
     private static final String MARK_URL = "url";
     private static final String PROPERTY_PROD_URL = "init.webapp.prod.url";
     private static final String JSP_URL_REACTIVATE_ACCOUNT = "/jsp/admin/user/ReactivateAccount.jsp";
+    private static final String PROPERTY_BATCH_SIZE = "daemon.accountLifeTimeDaemon.batchSize";
+    private static final String TEMPLATE_NAME_PREFIX = "core.daemon.accountLifeTime.";
 
     /**
      * {@inheritDoc}
@@ -129,7 +136,7 @@ public class AccountLifeTimeDaemon extends Daemon
 
             String strSubject = ( defaultUserParameter == null ) ? StringUtils.EMPTY : defaultUserParameter;
 
-            sendMailAlerts( accountsToSetAsExpired, "expiration", strBody, strSender, strSubject );
+            String strAlerts = sendMailAlerts( accountsToSetAsExpired, "expiration", PARAMETER_CORE_EXPIRATION_MAIL, strBody, strSender, strSubject );
 
             AdminUserHome.updateUserStatus( accountsToSetAsExpired, AdminUser.EXPIRED_CODE );
 
@@ -137,6 +144,7 @@ public class AccountLifeTimeDaemon extends Daemon
             sbLogs.append( MESSAGE_DAEMON_NAME );
             sbLogs.append( Integer.toString( nbAccountToExpire ) );
             sbLogs.append( " account(s) have expired" );
+            sbLogs.append( strAlerts );
             AppLogService.info( "runSetExpiredUser: {}", sbLogs );
             sbResult.append( sbLogs.toString( ) );
             sbResult.append( "\n" );
@@ -174,7 +182,7 @@ public class AccountLifeTimeDaemon extends Daemon
 
                 String strSubject = ( defaultUserParameter == null ) ? StringUtils.EMPTY : defaultUserParameter;
 
-                sendMailAlerts( userIdListToSendFirstAlert, "first", strBody, strSender, strSubject );
+                String strAlerts = sendMailAlerts( userIdListToSendFirstAlert, "first", PARAMETER_CORE_FIRST_ALERT_MAIL, strBody, strSender, strSubject );
 
                 AdminUserHome.updateNbAlert( userIdListToSendFirstAlert );
 
@@ -182,6 +190,7 @@ public class AccountLifeTimeDaemon extends Daemon
                 sbLogs.append( MESSAGE_DAEMON_NAME );
                 sbLogs.append( Integer.toString( nbFirstAlertSent ) );
                 sbLogs.append( " first alert(s) have been sent" );
+                sbLogs.append( strAlerts );
                 AppLogService.info( sbLogs );
                 sbResult.append( sbLogs.toString( ) );
                 sbResult.append( "\n" );
@@ -223,7 +232,7 @@ public class AccountLifeTimeDaemon extends Daemon
 
                 String strSubject = ( defaultUserParameter == null ) ? StringUtils.EMPTY : defaultUserParameter;
 
-                sendMailAlerts( userIdListToSendNextAlert, "next", strBody, strSender, strSubject );
+                String strAlerts = sendMailAlerts( userIdListToSendNextAlert, "next", PARAMETER_CORE_OTHER_ALERT_MAIL, strBody, strSender, strSubject );
 
                 AdminUserHome.updateNbAlert( userIdListToSendNextAlert );
 
@@ -231,6 +240,7 @@ public class AccountLifeTimeDaemon extends Daemon
                 sbLogs.append( MESSAGE_DAEMON_NAME );
                 sbLogs.append( Integer.toString( nbOtherAlertSent ) );
                 sbLogs.append( " next alert(s) have been sent" );
+                sbLogs.append( strAlerts );
                 AppLogService.info( sbLogs );
                 sbResult.append( sbLogs.toString( ) );
             }
@@ -255,9 +265,12 @@ public class AccountLifeTimeDaemon extends Daemon
                 String strSubject = AdminUserService.getSecurityParameter( PARAMETER_PASSWORD_EXPIRED_MAIL_SUBJECT );
                 String strBody = DatabaseTemplateService.getTemplateFromKey( PARAMETER_CORE_PASSWORD_EXPIRED_ALERT_MAIL );
 
+                String strAlerts = StringUtils.EMPTY;
+
                 if ( StringUtils.isNotBlank( strBody ) )
                 {
-                    sendMailAlerts( accountsWithPasswordsExpired, "password expiration", strBody, strSender, strSubject );
+                    strAlerts = sendMailAlerts( accountsWithPasswordsExpired, "password expiration", PARAMETER_CORE_PASSWORD_EXPIRED_ALERT_MAIL, strBody,
+                            strSender, strSubject );
                 }
 
                 AdminUserHome.updateChangePassword( accountsWithPasswordsExpired );
@@ -265,6 +278,7 @@ public class AccountLifeTimeDaemon extends Daemon
                 sbLogs.append( MESSAGE_DAEMON_NAME );
                 sbLogs.append( Integer.toString( accountsWithPasswordsExpired.size( ) ) );
                 sbLogs.append( " user(s) have been notified their password has expired" );
+                sbLogs.append( strAlerts );
                 AppLogService.info( sbLogs );
                 sbResult.append( sbLogs.toString( ) );
                 sbResult.append( "\n" );
@@ -282,29 +296,107 @@ public class AccountLifeTimeDaemon extends Daemon
         }
     }
 
-    private void sendMailAlerts( List<Integer> userIdList, String type, String strBody, String strSender, String strSubject )
+    /**
+     * Sends an alert to a list of users. The users are loaded by batches, the template is compiled once per locale and the mails of a batch are queued at
+     * once.
+     *
+     * @param userIdList
+     *            the ids of the users to alert
+     * @param type
+     *            the type of alert, for the logs
+     * @param strTemplateKey
+     *            the key of the database template
+     * @param strBody
+     *            the template of the mail body
+     * @param strSender
+     *            the sender of the mail
+     * @param strSubject
+     *            the subject of the mail
+     * @return the number of mails queued and the time spent in each phase, for the logs
+     */
+    private String sendMailAlerts( List<Integer> userIdList, String type, String strTemplateKey, String strBody, String strSender, String strSubject )
     {
-        for ( Integer nIdUser : userIdList )
+        int nBatchSize = Math.max( 1, AppPropertiesService.getPropertyInt( PROPERTY_BATCH_SIZE, 500 ) );
+        String strTemplateName = TEMPLATE_NAME_PREFIX + strTemplateKey;
+        Set<Locale> compiledLocales = new HashSet<>( );
+        long lLoadTime = 0L;
+        long lRenderTime = 0L;
+        long lQueueTime = 0L;
+        int nQueued = 0;
+
+        for ( int nFrom = 0; nFrom < userIdList.size( ); nFrom += nBatchSize )
         {
-            try
-            {
-                AdminUser user = AdminUserHome.findByPrimaryKey( nIdUser );
-                String strUserMail = user.getEmail( );
+            long lStart = System.currentTimeMillis( );
+            List<AdminUser> listUsers = AdminUserHome.findByPrimaryKeyList( userIdList.subList( nFrom, Math.min( nFrom + nBatchSize, userIdList.size( ) ) ) );
+            long lLoaded = System.currentTimeMillis( );
+            List<MailItem> listMails = new ArrayList<>( listUsers.size( ) );
 
-                if ( StringUtils.isNotBlank( strUserMail ) )
+            for ( AdminUser user : listUsers )
+            {
+                try
                 {
-                    Map<String, String> model = new HashMap<>( );
-                    addParametersToModel( model, nIdUser );
-
-                    HtmlTemplate template = AppTemplateService.getTemplateFromStringFtl( strBody, user.getLocale( ), model );
-                    MailService.sendMailHtml( strUserMail, strSender, strSender, strSubject, template.getHtml( ) );
+                    if ( StringUtils.isNotBlank( user.getEmail( ) ) )
+                    {
+                        Map<String, String> model = new HashMap<>( );
+                        addParametersToModel( model, user );
+
+                        // the template is compiled on the first use of a locale in this run, then taken from the templates cache
+                        HtmlTemplate template = AppTemplateService.getTemplateFromStringFtl( strTemplateName, strBody, user.getLocale( ), model,
+                                compiledLocales.add( user.getLocale( ) ) );
+                        listMails.add( newMailItem( user.getEmail( ), strSender, strSubject, template.getHtml( ) ) );
+                    }
                 }
+                catch( Exception e )
+                {
+                    AppLogService.error( "AccountLifeTimeDaemon - Error sending {} alert to admin user {} : {}", type, user.getUserId( ), e.getMessage( ), e );
+                }
+            }
+
+            long lRendered = System.currentTimeMillis( );
+
+            try
+            {
+                MailService.sendMails( listMails );
+                nQueued += listMails.size( );
             }
             catch( Exception e )
             {
-                AppLogService.error( "AccountLifeTimeDaemon - Error sending {} alert to admin user : {}", type, e.getMessage( ), e );
+                AppLogService.error( "AccountLifeTimeDaemon - Error queuing {} {} alert(s) : {}", listMails.size( ), type, e.getMessage( ), e );
             }
+
+            lLoadTime += lLoaded - lStart;
+            lRenderTime += lRendered - lLoaded;
+            lQueueTime += System.currentTimeMillis( ) - lRendered;
         }
+
+        return " (" + nQueued + " mail(s) queued - users loading : " + lLoadTime + " ms, rendering : " + lRenderTime + " ms, queuing : " + lQueueTime
+                + " ms)";
+    }
+
+    /**
+     * Creates the mail item of an alert
+     *
+     * @param strRecipient
+     *            the recipient email
+     * @param strSender
+     *            the sender name and email
+     * @param strSubject
+     *            the subject
+     * @param strMessage
+     *            the HTML message
+     * @return the mail item
+     */
+    private static MailItem newMailItem( String strRecipient, String strSender, String strSubject, String strMessage )
+    {
+        MailItem item = new MailItem( );
+        item.setRecipientsTo( strRecipient );
+        item.setSenderName( strSender );
+        item.setSenderEmail( strSender );
+        item.setSubject( strSubject );
+        item.setMessage( strMessage );
+        item.setFormat( MailItem.FORMAT_HTML );
+
+        return item;
     }
 
     /**
@@ -317,8 +409,19 @@ public class AccountLifeTimeDaemon extends Daemon
      */
     protected void addParametersToModel( Map<String, String> model, Integer nIdUser )
     {
-        AdminUser user = AdminUserHome.findByPrimaryKey( nIdUser );
+        addParametersToModel( model, AdminUserHome.findByPrimaryKey( nIdUser ) );
+    }
 
+    /**
+     * Adds the parameters of an already loaded user to model.
+     *
+     * @param model
+     *            the model
+     * @param user
+     *            the user
+     */
+    protected void addParametersToModel( Map<String, String> model, AdminUser user )
+    {
         if ( user.getAccountMaxValidDate( ) != null )
         {
             DateFormat dateFormat = DateFormat.getDateInstance( DateFormat.SHORT, LocaleService.getDefault( ) );
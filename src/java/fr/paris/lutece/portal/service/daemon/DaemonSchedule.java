@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.daemon;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.scheduling.support.CronExpression;
+
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+/**
+ * Scheduling policy of a daemon : when its runs are planned, how they are spread and what happens to the runs which are due while the daemon is still
+ * running.
+ * <p>
+ * The policy is read from the properties <code>daemon.&lt;id&gt;.cron</code>, <code>.fixedDelay</code>, <code>.jitter</code>,
+ * <code>.missedRunPolicy</code> and <code>.clustered</code>. Without any of them, the daemon runs at the fixed rate of its interval, as it always did.
+ */
+final class DaemonSchedule
+{
+    /**
+     * What to do with the runs which are due while the daemon is still running or while the scheduler was late
+     */
+    enum MissedRunPolicy
+    {
+        /** The missed runs are merged into a single run performed as soon as possible */
+        COALESCE,
+        /** The missed runs are dropped, the daemon runs again at its next planned time */
+        SKIP
+    }
+
+    /** Value returned when a schedule has no next run */
+    static final long NEVER = -1L;
+
+    private static final String PROPERTY_PREFIX = "daemon.";
+    private static final String PROPERTY_CRON = ".cron";
+    private static final String PROPERTY_FIXED_DELAY = ".fixedDelay";
+    private static final String PROPERTY_JITTER = ".jitter";
+    private static final String PROPERTY_MISSED_RUN_POLICY = ".missedRunPolicy";
+    private static final String PROPERTY_CLUSTERED = ".clustered";
+    private static final String PROPERTY_DEFAULT_JITTER = "daemon.scheduler.jitter";
+    private static final String PROPERTY_DEFAULT_MISSED_RUN_POLICY = "daemon.scheduler.missedRunPolicy";
+
+    private final CronExpression _cron;
+    private final boolean _bFixedDelay;
+    private final long _lJitter;
+    private final MissedRunPolicy _missedRunPolicy;
+    private final boolean _bClustered;
+
+    /**
+     * Constructor
+     * 
+     * @param strCron
+     *            the cron expression (second minute hour day month weekday) or null to run at the daemon interval
+     * @param bFixedDelay
+     *            true to count the interval from the end of the previous run rather than from its planned time
+     * @param lJitter
+     *            the maximum random delay added to each run, in milliseconds
+     * @param missedRunPolicy
+     *            the missed run policy
+     * @param bClustered
+     *            true if the daemon runs only on the node holding its lock
+     */
+    DaemonSchedule( String strCron, boolean bFixedDelay, long lJitter, MissedRunPolicy missedRunPolicy, boolean bClustered )
+    {
+        _cron = ( strCron != null ) ? CronExpression.parse( strCron ) : null;
+        _bFixedDelay = bFixedDelay;
+        _lJitter = Math.max( 0L, lJitter );
+        _missedRunPolicy = missedRunPolicy;
+        _bClustered = bClustered;
+    }
+
+    /**
+     * Loads the schedule of a daemon from the properties
+     * 
+     * @param entry
+     *            the daemon entry
+     * @return the schedule
+     */
+    static DaemonSchedule load( DaemonEntry entry )
+    {
+        String strPrefix = PROPERTY_PREFIX + entry.getId( );
+        String strCron = AppPropertiesService.getProperty( strPrefix + PROPERTY_CRON );
+
+        if ( strCron != null && ( strCron.trim( ).isEmpty( ) || !CronExpression.isValidExpression( strCron ) ) )
+        {
+            if ( !strCron.trim( ).isEmpty( ) )
+            {
+                AppLogService.error( "Invalid cron expression '{}' for daemon {}, using its interval", strCron, entry.getId( ) );
+            }
+            strCron = null;
+        }
+
+        boolean bFixedDelay = AppPropertiesService.getPropertyBoolean( strPrefix + PROPERTY_FIXED_DELAY, false );
+        long lJitter = AppPropertiesService.getPropertyLong( strPrefix + PROPERTY_JITTER, AppPropertiesService.getPropertyLong( PROPERTY_DEFAULT_JITTER, 0L ) );
+        String strPolicy = AppPropertiesService.getProperty( strPrefix + PROPERTY_MISSED_RUN_POLICY,
+                AppPropertiesService.getProperty( PROPERTY_DEFAULT_MISSED_RUN_POLICY, MissedRunPolicy.COALESCE.name( ) ) );
+        MissedRunPolicy missedRunPolicy = MissedRunPolicy.COALESCE;
+
+        try
+        {
+            missedRunPolicy = MissedRunPolicy.valueOf( strPolicy.trim( ).toUpperCase( ) );
+        }
+        catch( IllegalArgumentException e )
+        {
+            AppLogService.error( "Invalid missed run policy '{}' for daemon {}, using {}", strPolicy, entry.getId( ), missedRunPolicy );
+        }
+
+        boolean bClustered = AppPropertiesService.getPropertyBoolean( strPrefix + PROPERTY_CLUSTERED, false );
+
+        return new DaemonSchedule( strCron, bFixedDelay, lJitter * 1000L, missedRunPolicy, bClustered );
+    }
+
+    /**
+     * Tells if the daemon runs at the times of a cron expression
+     * 
+     * @return true if the schedule is a cron schedule
+     */
+    boolean isCron( )
+    {
+        return _cron != null;
+    }
+
+    /**
+     * Tells if the interval is counted from the end of the previous run
+     * 
+     * @return true for a fixed delay schedule
+     */
+    boolean isFixedDelay( )
+    {
+        return _cron == null && _bFixedDelay;
+    }
+
+    /**
+     * Returns the missed run policy
+     * 
+     * @return the missed run policy
+     */
+    MissedRunPolicy getMissedRunPolicy( )
+    {
+        return _missedRunPolicy;
+    }
+
+    /**
+     * Tells if the daemon must run on a single node of the cluster
+     * 
+     * @return true if the daemon runs only on the node holding its lock
+     */
+    boolean isClustered( )
+    {
+        return _bClustered;
+    }
+
+    /**
+     * Returns the maximum random delay added to each run
+     * 
+     * @return the maximum jitter in milliseconds
+     */
+    long getMaxJitter( )
+    {
+        return _lJitter;
+    }
+
+    /**
+     * Returns a random delay to add to a run
+     * 
+     * @return the jitter in milliseconds
+     */
+    long nextJitter( )
+    {
+        return ( _lJitter > 0L ) ? ThreadLocalRandom.current( ).nextLong( _lJitter + 1L ) : 0L;
+    }
+
+    /**
+     * Computes the planned time of the next run, jitter excluded
+     * 
+     * @param lInterval
+     *            the interval of the daemon in milliseconds
+     * @param lPrevious
+     *            the planned time of the previous run
+     * @param lNow
+     *            the current time
+     * @return the planned time of the next run or {@link #NEVER}
+     */
+    long nextRunTime( long lInterval, long lPrevious, long lNow )
+    {
+        if ( _cron != null )
+        {
+            ZonedDateTime next = _cron.next( ZonedDateTime.ofInstant( Instant.ofEpochMilli( lNow ), ZoneId.systemDefault( ) ) );
+
+            return ( next != null ) ? next.toInstant( ).toEpochMilli( ) : NEVER;
+        }
+
+        if ( _bFixedDelay )
+        {
+            return lNow + lInterval;
+        }
+
+        long lNext = lPrevious + lInterval;
+
+        if ( lNext < lNow )
+        {
+            // the scheduler was late : the missed ticks give a single catch up run or are dropped
+            lNext = ( _missedRunPolicy == MissedRunPolicy.COALESCE ) ? lNow : lPrevious + ( ( ( lNow - lPrevious ) / lInterval ) + 1L ) * lInterval;
+        }
+
+        return lNext;
+    }
+
+    /**
+     * Returns the expected time between two runs
+     * 
+     * @param lInterval
+     *            the interval of the daemon in milliseconds
+     * @param lNow
+     *            the current time
+     * @return the period in milliseconds
+     */
+    long getPeriod( long lInterval, long lNow )
+    {
+        if ( _cron != null )
+        {
+            long lNext = nextRunTime( lInterval, lNow, lNow );
+            long lAfter = ( lNext != NEVER ) ? nextRunTime( lInterval, lNext, lNext ) : NEVER;
+
+            return ( lAfter != NEVER ) ? lAfter - lNext : lInterval;
+        }
+
+        return lInterval;
+    }
+}
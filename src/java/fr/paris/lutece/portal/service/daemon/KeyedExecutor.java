@@ -0,0 +1,359 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.daemon;
+
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.util.metrics.MetricsRegistry;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor running tasks with a global concurrency limit, a concurrency limit per group and a serialization per key : two tasks having the same key never run
+ * at the same time and run in submission order. A task is dispatched as soon as it is submitted or as soon as a running task completes, if the limits allow it.
+ */
+public final class KeyedExecutor
+{
+    private final ExecutorService _executor;
+    private final int _nMaxRunning;
+    private final int _nMaxRunningPerGroup;
+    private final MetricsRegistry.HistogramGroup _waitTimeHistograms;
+    private final MetricsRegistry.HistogramGroup _runTimeHistograms;
+
+    // Tasks ready to run : their key is not owned by another task
+    private final Deque<Task> _queueReady = new ArrayDeque<>( );
+
+    // Tasks waiting for a task with the same key. A key is present as long as a task with this key is ready or running
+    private final Map<String, Deque<Task>> _mapKeyBacklogs = new HashMap<>( );
+    private final Map<String, Integer> _mapRunningByGroup = new HashMap<>( );
+    private int _nRunning;
+    private int _nBacklogSize;
+    private long _lCompletedCount;
+    private boolean _bShutdown;
+
+    /**
+     * Constructor
+     * 
+     * @param executor
+     *            The executor running the tasks. It must accept at least nMaxRunning tasks at the same time
+     * @param nMaxRunning
+     *            The maximum number of tasks running at the same time
+     * @param nMaxRunningPerGroup
+     *            The maximum number of tasks of a group running at the same time, 0 for no limit
+     * @param strMetricsPrefix
+     *            The prefix of the metrics histograms
+     */
+    public KeyedExecutor( ExecutorService executor, int nMaxRunning, int nMaxRunningPerGroup, String strMetricsPrefix )
+    {
+        _executor = executor;
+        _nMaxRunning = Math.max( 1, nMaxRunning );
+        _nMaxRunningPerGroup = Math.max( 0, nMaxRunningPerGroup );
+        _waitTimeHistograms = MetricsRegistry.getGroup( strMetricsPrefix + ".waitTime" );
+        _runTimeHistograms = MetricsRegistry.getGroup( strMetricsPrefix + ".runTime" );
+    }
+
+    /**
+     * Submits a task
+     * 
+     * @param runnable
+     *            The task
+     * @param strKey
+     *            The key of the task, or null if the task can run concurrently with any other task
+     * @param strGroup
+     *            The group of the task, or null
+     */
+    public void submit( Runnable runnable, String strKey, String strGroup )
+    {
+        Task task = new Task( runnable, strKey, strGroup );
+
+        synchronized( this )
+        {
+            if ( _bShutdown )
+            {
+                throw new RejectedExecutionException( "The executor is shut down" );
+            }
+
+            if ( strKey != null )
+            {
+                Deque<Task> backlog = _mapKeyBacklogs.get( strKey );
+
+                if ( backlog != null )
+                {
+                    backlog.addLast( task );
+                    _nBacklogSize++;
+
+                    return;
+                }
+
+                _mapKeyBacklogs.put( strKey, new ArrayDeque<>( ) );
+            }
+
+            _queueReady.addLast( task );
+            dispatch( );
+        }
+    }
+
+    /**
+     * Starts the ready tasks allowed by the limits. Must be called holding the lock.
+     */
+    private void dispatch( )
+    {
+        while ( _nRunning < _nMaxRunning && !_queueReady.isEmpty( ) )
+        {
+            Task task = pollStartable( );
+
+            if ( task == null )
+            {
+                return;
+            }
+
+            _nRunning++;
+
+            if ( task._strGroup != null )
+            {
+                _mapRunningByGroup.merge( task._strGroup, 1, Integer::sum );
+            }
+
+            try
+            {
+                _executor.execute( task );
+            }
+            catch( RejectedExecutionException e )
+            {
+                AppLogService.error( "Task rejected by the executor : {}", e.getMessage( ), e );
+                release( task );
+            }
+        }
+    }
+
+    /**
+     * Removes from the ready queue the first task whose group is under its limit
+     * 
+     * @return The task, or null if no task can be started
+     */
+    private Task pollStartable( )
+    {
+        if ( _nMaxRunningPerGroup == 0 )
+        {
+            return _queueReady.pollFirst( );
+        }
+
+        Iterator<Task> iterator = _queueReady.iterator( );
+
+        while ( iterator.hasNext( ) )
+        {
+            Task task = iterator.next( );
+
+            if ( task._strGroup == null || _mapRunningByGroup.getOrDefault( task._strGroup, 0 ) < _nMaxRunningPerGroup )
+            {
+                iterator.remove( );
+
+                return task;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Releases the limits held by a task and makes the next task of its key ready. Must be called holding the lock.
+     * 
+     * @param task
+     *            The completed task
+     */
+    private void release( Task task )
+    {
+        _nRunning--;
+        _lCompletedCount++;
+
+        if ( task._strGroup != null )
+        {
+            _mapRunningByGroup.computeIfPresent( task._strGroup, ( g, n ) -> ( n > 1 ) ? n - 1 : null );
+        }
+
+        if ( task._strKey != null )
+        {
+            Deque<Task> backlog = _mapKeyBacklogs.get( task._strKey );
+            Task next = ( backlog != null ) ? backlog.pollFirst( ) : null;
+
+            if ( next != null )
+            {
+                _nBacklogSize--;
+                _queueReady.addLast( next );
+            }
+            else
+            {
+                _mapKeyBacklogs.remove( task._strKey );
+            }
+        }
+    }
+
+    /**
+     * Called by a task once it has run
+     * 
+     * @param task
+     *            The task
+     */
+    private synchronized void complete( Task task )
+    {
+        release( task );
+        dispatch( );
+    }
+
+    /**
+     * Returns the number of tasks waiting to run
+     * 
+     * @return The number of tasks waiting to run
+     */
+    public synchronized int getQueuedCount( )
+    {
+        return _queueReady.size( ) + _nBacklogSize;
+    }
+
+    /**
+     * Returns the number of running tasks
+     * 
+     * @return The number of running tasks
+     */
+    public synchronized int getRunningCount( )
+    {
+        return _nRunning;
+    }
+
+    /**
+     * Returns the number of completed tasks
+     * 
+     * @return The number of completed tasks
+     */
+    public synchronized long getCompletedCount( )
+    {
+        return _lCompletedCount;
+    }
+
+    /**
+     * Stops accepting tasks and waits for the running tasks to complete. The queued tasks are dropped.
+     * 
+     * @param lTimeout
+     *            The maximum time to wait
+     * @param unit
+     *            The unit of the timeout
+     * @return The number of dropped tasks
+     */
+    public int shutdown( long lTimeout, TimeUnit unit )
+    {
+        int nDropped;
+
+        synchronized( this )
+        {
+            _bShutdown = true;
+            nDropped = getQueuedCount( );
+            _queueReady.clear( );
+            _mapKeyBacklogs.clear( );
+            _nBacklogSize = 0;
+        }
+
+        _executor.shutdown( );
+
+        try
+        {
+            _executor.awaitTermination( lTimeout, unit );
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+        }
+
+        return nDropped;
+    }
+
+    /**
+     * A submitted task
+     */
+    private final class Task implements Runnable
+    {
+        private final Runnable _runnable;
+        private final String _strKey;
+        private final String _strGroup;
+        private final long _lSubmitted;
+
+        /**
+         * Constructor
+         * 
+         * @param runnable
+         *            The task
+         * @param strKey
+         *            The key
+         * @param strGroup
+         *            The group
+         */
+        Task( Runnable runnable, String strKey, String strGroup )
+        {
+            _runnable = runnable;
+            _strKey = strKey;
+            _strGroup = strGroup;
+            _lSubmitted = MetricsRegistry.start( );
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void run( )
+        {
+            _waitTimeHistograms.stop( _strGroup, _lSubmitted );
+
+            long lStart = MetricsRegistry.start( );
+
+            try
+            {
+                _runnable.run( );
+            }
+            catch( RuntimeException e )
+            {
+                AppLogService.error( "Error running task : {}", e.getMessage( ), e );
+            }
+            finally
+            {
+                _runTimeHistograms.stop( _strGroup, lStart );
+                complete( this );
+            }
+        }
+    }
+}
@@ -0,0 +1,696 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.daemon;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import fr.paris.lutece.portal.business.daemon.DaemonLockHome;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+import fr.paris.lutece.util.metrics.MetricsRegistry;
+import fr.paris.lutece.util.metrics.MetricsRegistry.HistogramGroup;
+
+/**
+ * Daemon scheduler based on a {@link ScheduledThreadPoolExecutor}.
+ * <p>
+ * The scheduler threads only plan the runs and hand them over to the daemons executor, so that a slow daemon never delays the others. Each daemon follows
+ * its {@link DaemonSchedule} : fixed rate, fixed delay or cron expression, with an optional jitter. A run which is due while the daemon is still running is an
+ * overrun : it is coalesced into a single run performed right after the current one or skipped, depending on the missed run policy of the daemon. Explicit
+ * requests are always coalesced.
+ * <p>
+ * Clustered daemons only run on the node holding their lock in the <code>core_daemon_lock</code> table. The lock is a lease renewed by each run, so the
+ * leader keeps it as long as it is alive and another node takes over once it has expired.
+ * <p>
+ * The duration of the runs is recorded in the <code>daemon.runTime.&lt;id&gt;</code> histograms.
+ */
+class ScheduledDaemonScheduler implements IDaemonScheduler
+{
+    private static final String PROPERTY_MAX_AWAIT_TERMINATION_DELAY = "daemon.maxAwaitTerminationDelay";
+    private static final String PROPERTY_SCHEDULER_THREADS = "daemon.scheduler.threads";
+    private static final String PROPERTY_LOCK_NODE_ID = "daemon.lock.nodeId";
+    private static final String PROPERTY_LOCK_LEASE_MARGIN = "daemon.lock.leaseMargin";
+    private static final String METRICS_RUN_TIME = "daemon.runTime";
+    private static final String THREAD_NAME_PREFIX = "Lutece-Daemons-Scheduler-";
+    private static final int STATUS_IDLE = 0;
+    private static final int STATUS_RUNNING = 1;
+    private static final int STATUS_RUNNING_AGAIN = 2;
+
+    private final ScheduledThreadPoolExecutor _timer;
+    private final ExecutorService _executor;
+    private final Function<DaemonEntry, DaemonSchedule> _scheduleLoader;
+    private final String _strNodeId;
+    private final long _lLeaseMargin;
+    private final ConcurrentMap<String, DaemonState> _mapStates = new ConcurrentHashMap<>( );
+    private final HistogramGroup _runTimeHistograms = MetricsRegistry.getGroup( METRICS_RUN_TIME );
+    private volatile boolean _bShuttingDown;
+
+    /**
+     * Constructor
+     * 
+     * @param executor
+     *            the executor service handling the execution of daemons
+     */
+    public ScheduledDaemonScheduler( ExecutorService executor )
+    {
+        this( executor, AppPropertiesService.getPropertyInt( PROPERTY_SCHEDULER_THREADS, 1 ), DaemonSchedule::load,
+                AppPropertiesService.getProperty( PROPERTY_LOCK_NODE_ID, getDefaultNodeId( ) ),
+                AppPropertiesService.getPropertyLong( PROPERTY_LOCK_LEASE_MARGIN, 600L ) * 1000L );
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param executor
+     *            the executor service handling the execution of daemons
+     * @param nThreads
+     *            the number of scheduler threads
+     * @param scheduleLoader
+     *            the function giving the schedule of a daemon
+     * @param strNodeId
+     *            the id of this node in the daemon locks
+     * @param lLeaseMargin
+     *            the time a lock is kept beyond the next expected run, in milliseconds
+     */
+    ScheduledDaemonScheduler( ExecutorService executor, int nThreads, Function<DaemonEntry, DaemonSchedule> scheduleLoader, String strNodeId,
+            long lLeaseMargin )
+    {
+        AtomicInteger counter = new AtomicInteger( );
+        _timer = new ScheduledThreadPoolExecutor( Math.max( 1, nThreads ), runnable -> {
+            Thread thread = new Thread( runnable, THREAD_NAME_PREFIX + counter.incrementAndGet( ) );
+            thread.setDaemon( true );
+            return thread;
+        } );
+        _timer.setRemoveOnCancelPolicy( true );
+        _timer.setExecuteExistingDelayedTasksAfterShutdownPolicy( false );
+        _executor = executor;
+        _scheduleLoader = scheduleLoader;
+        _strNodeId = strNodeId;
+        _lLeaseMargin = lLeaseMargin;
+    }
+
+    /**
+     * Returns the default id of this node : the host name. The id is kept across restarts, so that a node can take back its own locks after a crash without
+     * waiting for the end of their lease.
+     * 
+     * @return the node id
+     */
+    private static String getDefaultNodeId( )
+    {
+        String strHost;
+
+        try
+        {
+            strHost = InetAddress.getLocalHost( ).getHostName( );
+        }
+        catch( UnknownHostException e )
+        {
+            strHost = "node";
+        }
+
+        return strHost;
+    }
+
+    @Override
+    public boolean enqueue( DaemonEntry entry, long nDelay, TimeUnit unit )
+    {
+        assertNotShuttingDown( );
+
+        DaemonState state = getState( entry );
+
+        if ( nDelay <= 0L )
+        {
+            return trigger( state, false );
+        }
+
+        try
+        {
+            _timer.schedule( ( ) -> trigger( state, false ), nDelay, unit );
+
+            return true;
+        }
+        catch( RejectedExecutionException e )
+        {
+            return false;
+        }
+    }
+
+    @Override
+    public void schedule( DaemonEntry entry, long nInitialDelay, TimeUnit unit )
+    {
+        assertNotShuttingDown( );
+
+        DaemonState state = getState( entry );
+
+        synchronized( state )
+        {
+            if ( state._bScheduled )
+            {
+                AppLogService.error( "Daemon {} already scheduled, not scheduling again", entry.getId( ) );
+
+                return;
+            }
+
+            long lDelay = unit.toMillis( nInitialDelay );
+            state._bScheduled = true;
+            state._bStopAfterExecution.set( false );
+            state._lPlanned = System.currentTimeMillis( ) + lDelay;
+            state._future = _timer.schedule( ( ) -> onTimer( state ), lDelay, TimeUnit.MILLISECONDS );
+        }
+    }
+
+    @Override
+    public void unSchedule( DaemonEntry entry )
+    {
+        DaemonState state = _mapStates.get( entry.getId( ) );
+        boolean bScheduled = false;
+
+        if ( state != null )
+        {
+            synchronized( state )
+            {
+                bScheduled = state._bScheduled;
+                state._bScheduled = false;
+
+                if ( state._future != null )
+                {
+                    state._future.cancel( false );
+                    state._future = null;
+                }
+            }
+        }
+
+        if ( !bScheduled )
+        {
+            AppLogService.error( "Could not unschedule daemon {} which was not scheduled", entry.getId( ) );
+        }
+
+        if ( state == null )
+        {
+            stopDaemon( entry );
+
+            return;
+        }
+
+        // a running daemon is stopped by the end of its run
+        state._bStopAfterExecution.set( true );
+
+        if ( state._nStatus.get( ) == STATUS_IDLE && state._bStopAfterExecution.compareAndSet( true, false ) )
+        {
+            stopDaemon( state );
+        }
+    }
+
+    @Override
+    public void shutdown( )
+    {
+        _bShuttingDown = true; // prevent future scheduling of daemons
+        int maxAwaitTerminationDelay = AppPropertiesService.getPropertyInt( PROPERTY_MAX_AWAIT_TERMINATION_DELAY, 15 );
+        AppLogService.info( "Lutece daemons scheduler stop requested : trying to terminate gracefully daemons list (max wait {} s).",
+                maxAwaitTerminationDelay );
+        _timer.shutdownNow( );
+        _executor.shutdown( );
+
+        List<DaemonState> scheduled = new ArrayList<>( );
+
+        for ( DaemonState state : _mapStates.values( ) )
+        {
+            synchronized( state )
+            {
+                if ( state._bScheduled )
+                {
+                    scheduled.add( state );
+                }
+            }
+        }
+
+        scheduled.forEach( state -> unSchedule( state._entry ) );
+
+        try
+        {
+            if ( _executor.awaitTermination( maxAwaitTerminationDelay, TimeUnit.SECONDS ) )
+            {
+                AppLogService.info( "All daemons shutdown successfully." );
+            }
+            else
+            {
+                AppLogService.info( "Some daemons are still running, trying to interrupt them..." );
+                _executor.shutdownNow( );
+
+                if ( _executor.awaitTermination( 1, TimeUnit.SECONDS ) )
+                {
+                    AppLogService.info( "All running daemons successfully interrupted." );
+                }
+                else
+                {
+                    AppLogService.error( "Interrupt failed; daemons still running." );
+                }
+            }
+        }
+        catch( InterruptedException e )
+        {
+            AppLogService.error( "Interruped while waiting for daemons termination", e );
+            Thread.currentThread( ).interrupt( );
+        }
+    }
+
+    /**
+     * Returns the number of overruns of a daemon : the runs which were due while it was still running, or which lasted longer than its period
+     * 
+     * @param strDaemonId
+     *            the daemon id
+     * @return the number of overruns
+     */
+    long getOverrunCount( String strDaemonId )
+    {
+        DaemonState state = _mapStates.get( strDaemonId );
+
+        return ( state != null ) ? state._lOverruns.get( ) : 0L;
+    }
+
+    /**
+     * Throws an exception if the scheduler is shutting down
+     */
+    private void assertNotShuttingDown( )
+    {
+        if ( _bShuttingDown )
+        {
+            throw new IllegalStateException( "DaemonScheduler is shutting down. Enqueing tasks or scheduling tasks is not possible anymore." );
+        }
+    }
+
+    /**
+     * Returns the state of a daemon, creating it on first use
+     * 
+     * @param entry
+     *            the daemon entry
+     * @return the state
+     */
+    private DaemonState getState( DaemonEntry entry )
+    {
+        DaemonState state = _mapStates.get( entry.getId( ) );
+
+        if ( state == null || state._entry != entry )
+        {
+            // a daemon registered again gets a new state
+            state = _mapStates.compute( entry.getId( ), ( id, current ) -> ( current != null && current._entry == entry ) ? current
+                    : new DaemonState( entry, _scheduleLoader.apply( entry ) ) );
+        }
+
+        return state;
+    }
+
+    /**
+     * Called by the scheduler threads when a scheduled run is due
+     * 
+     * @param state
+     *            the daemon state
+     */
+    private void onTimer( DaemonState state )
+    {
+        try
+        {
+            long lNow = System.currentTimeMillis( );
+
+            synchronized( state )
+            {
+                if ( !state._bScheduled )
+                {
+                    return;
+                }
+
+                if ( !state._schedule.isFixedDelay( ) )
+                {
+                    // the next tick does not depend on this run
+                    scheduleNext( state, lNow );
+                }
+            }
+
+            if ( !trigger( state, true ) && state._schedule.isFixedDelay( ) )
+            {
+                synchronized( state )
+                {
+                    scheduleNext( state, lNow );
+                }
+            }
+        }
+        catch( Throwable t )
+        {
+            AppLogService.error( "Failed to trigger daemon {}", state._entry.getId( ), t );
+        }
+    }
+
+    /**
+     * Plans the next scheduled run of a daemon. Must be called while holding the lock of the state.
+     * 
+     * @param state
+     *            the daemon state
+     * @param lNow
+     *            the current time
+     */
+    private void scheduleNext( DaemonState state, long lNow )
+    {
+        if ( !state._bScheduled || _bShuttingDown )
+        {
+            return;
+        }
+
+        if ( state._future != null )
+        {
+            state._future.cancel( false );
+            state._future = null;
+        }
+
+        long lNext = state._schedule.nextRunTime( getInterval( state ), state._lPlanned, lNow );
+
+        if ( lNext == DaemonSchedule.NEVER )
+        {
+            AppLogService.error( "Daemon {} has no next run according to its cron expression", state._entry.getId( ) );
+
+            return;
+        }
+
+        state._lPlanned = lNext;
+
+        long lDelay = Math.max( 0L, lNext + state._schedule.nextJitter( ) - lNow );
+
+        try
+        {
+            state._future = _timer.schedule( ( ) -> onTimer( state ), lDelay, TimeUnit.MILLISECONDS );
+        }
+        catch( RejectedExecutionException e )
+        {
+            // the scheduler is shutting down
+        }
+    }
+
+    /**
+     * Requests a run of a daemon
+     * 
+     * @param state
+     *            the daemon state
+     * @param bScheduled
+     *            true for a scheduled run, false for an explicit request
+     * @return <code>true</code> if a run has started, is coalesced or is in progress
+     */
+    private boolean trigger( DaemonState state, boolean bScheduled )
+    {
+        boolean bOverrun = false;
+
+        while ( true )
+        {
+            int nStatus = state._nStatus.get( );
+
+            if ( nStatus == STATUS_IDLE )
+            {
+                if ( state._nStatus.compareAndSet( STATUS_IDLE, STATUS_RUNNING ) )
+                {
+                    return submit( state );
+                }
+            }
+            else
+            {
+                if ( bScheduled && !bOverrun )
+                {
+                    bOverrun = true;
+                    state._lOverruns.incrementAndGet( );
+                    AppLogService.info( "Daemon {} is still running since {} ms when its next run is due ({})", state._entry.getId( ),
+                            System.currentTimeMillis( ) - state._lRunStart, state._schedule.getMissedRunPolicy( ) );
+                }
+
+                if ( bScheduled && state._schedule.getMissedRunPolicy( ) == DaemonSchedule.MissedRunPolicy.SKIP )
+                {
+                    return true;
+                }
+
+                if ( nStatus == STATUS_RUNNING_AGAIN || state._nStatus.compareAndSet( STATUS_RUNNING, STATUS_RUNNING_AGAIN ) )
+                {
+                    // already executing; a new run will follow this one
+                    return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Hands a run over to the executor
+     * 
+     * @param state
+     *            the daemon state, which status is running
+     * @return <code>true</code> if the run has been accepted
+     */
+    private boolean submit( DaemonState state )
+    {
+        try
+        {
+            _executor.execute( ( ) -> run( state ) );
+
+            return true;
+        }
+        catch( RejectedExecutionException e )
+        {
+            state._nStatus.set( STATUS_IDLE );
+            AppLogService.error( "Failed to enqueue a run of daemon {}", state._entry.getId( ) );
+
+            return false;
+        }
+    }
+
+    /**
+     * Runs a daemon
+     * 
+     * @param state
+     *            the daemon state
+     */
+    private void run( DaemonState state )
+    {
+        DaemonEntry entry = state._entry;
+
+        try
+        {
+            if ( !state._schedule.isClustered( ) || lock( state ) )
+            {
+                long lStart = MetricsRegistry.start( );
+                state._lRunStart = System.currentTimeMillis( );
+                entry.getDaemonThread( ).run( );
+                _runTimeHistograms.stop( entry.getId( ), lStart );
+
+                long lEnd = System.currentTimeMillis( );
+                long lPeriod = state._schedule.getPeriod( getInterval( state ), lEnd );
+
+                if ( lEnd - state._lRunStart > lPeriod )
+                {
+                    state._lOverruns.incrementAndGet( );
+                    AppLogService.info( "Daemon {} ran for {} ms, longer than its period of {} ms", entry.getId( ), lEnd - state._lRunStart, lPeriod );
+                }
+
+                if ( state._schedule.isClustered( ) )
+                {
+                    // keep the lead until the next run
+                    lock( state );
+                }
+            }
+            else
+            {
+                AppLogService.debug( "Daemon {} not run : its lock is held by another node", entry.getId( ) );
+            }
+        }
+        catch( Throwable t )
+        {
+            AppLogService.error( "Could not process Daemon: {}", entry.getId( ), t );
+        }
+        finally
+        {
+            complete( state );
+        }
+    }
+
+    /**
+     * Ends a run : stops the daemon if it has been unscheduled, starts the coalesced run if any, or plans the next fixed delay run
+     * 
+     * @param state
+     *            the daemon state
+     */
+    private void complete( DaemonState state )
+    {
+        if ( state._bStopAfterExecution.get( ) )
+        {
+            state._nStatus.set( STATUS_IDLE );
+
+            if ( state._bStopAfterExecution.compareAndSet( true, false ) )
+            {
+                stopDaemon( state );
+            }
+
+            return;
+        }
+
+        boolean bRunAgain = !state._nStatus.compareAndSet( STATUS_RUNNING, STATUS_IDLE );
+
+        if ( bRunAgain )
+        {
+            state._nStatus.set( STATUS_RUNNING );
+            bRunAgain = submit( state );
+        }
+
+        if ( !bRunAgain && state._schedule.isFixedDelay( ) )
+        {
+            synchronized( state )
+            {
+                scheduleNext( state, System.currentTimeMillis( ) );
+            }
+        }
+    }
+
+    /**
+     * Acquires or renews the lock of a clustered daemon until its next expected run
+     * 
+     * @param state
+     *            the daemon state
+     * @return <code>true</code> if this node holds the lock
+     */
+    private boolean lock( DaemonState state )
+    {
+        long lNow = System.currentTimeMillis( );
+        long lExpiry = lNow + state._schedule.getPeriod( getInterval( state ), lNow ) + state._schedule.getMaxJitter( ) + _lLeaseMargin;
+
+        try
+        {
+            return DaemonLockHome.lock( state._entry.getId( ), _strNodeId, lExpiry );
+        }
+        catch( Exception e )
+        {
+            AppLogService.error( "Failed to acquire the lock of daemon {}", state._entry.getId( ), e );
+
+            return false;
+        }
+    }
+
+    /**
+     * Stops a daemon and releases its lock
+     * 
+     * @param state
+     *            the daemon state
+     */
+    private void stopDaemon( DaemonState state )
+    {
+        stopDaemon( state._entry );
+
+        if ( state._schedule.isClustered( ) )
+        {
+            try
+            {
+                DaemonLockHome.unlock( state._entry.getId( ), _strNodeId );
+            }
+            catch( Exception e )
+            {
+                AppLogService.error( "Failed to release the lock of daemon {}", state._entry.getId( ), e );
+            }
+        }
+    }
+
+    /**
+     * Stops a daemon
+     * 
+     * @param entry
+     *            the daemon entry
+     */
+    private static void stopDaemon( DaemonEntry entry )
+    {
+        try
+        {
+            entry.getDaemon( ).stop( );
+        }
+        catch( Throwable t )
+        {
+            AppLogService.error( "Failed to stop daemon {}", entry.getId( ), t );
+        }
+    }
+
+    /**
+     * Returns the interval of a daemon
+     * 
+     * @param state
+     *            the daemon state
+     * @return the interval in milliseconds
+     */
+    private static long getInterval( DaemonState state )
+    {
+        return Math.max( 1L, state._entry.getInterval( ) ) * 1000L;
+    }
+
+    /**
+     * Scheduling state of a daemon
+     */
+    private static final class DaemonState
+    {
+        private final DaemonEntry _entry;
+        private final DaemonSchedule _schedule;
+        private final AtomicInteger _nStatus = new AtomicInteger( STATUS_IDLE );
+        private final AtomicBoolean _bStopAfterExecution = new AtomicBoolean( );
+        private final AtomicLong _lOverruns = new AtomicLong( );
+        private volatile long _lRunStart;
+        // guarded by this
+        private boolean _bScheduled;
+        private long _lPlanned;
+        private ScheduledFuture<?> _future;
+
+        /**
+         * Constructor
+         * 
+         * @param entry
+         *            the daemon entry
+         * @param schedule
+         *            the daemon schedule
+         */
+        DaemonState( DaemonEntry entry, DaemonSchedule schedule )
+        {
+            _entry = entry;
+            _schedule = schedule;
+        }
+    }
+}
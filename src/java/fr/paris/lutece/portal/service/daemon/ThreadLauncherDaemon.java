@@ -34,64 +34,33 @@
 package fr.paris.lutece.portal.service.daemon;
 
 import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.portal.service.util.AppLogService;
 import fr.paris.lutece.portal.service.util.AppPropertiesService;
 
-import java.util.ArrayDeque;
-import java.util.ArrayList;
-import java.util.Deque;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
-
-import org.apache.commons.collections.CollectionUtils;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Daemon that manage a pool of threads to launch runnables.
+ * Daemon that manage a pool of threads to launch runnables. The runnables are run by a {@link KeyedExecutor} : runnables of a plugin having the same key run
+ * one after the other, and the number of runnables running at the same time is limited globally and by plugin. A runnable is started as soon as it is added
+ * or as soon as a running runnable completes. The daemon itself only reports the state of the executor. <br>
+ * The executor is stopped at the shutdown of the application by the {@link ThreadLauncherShutdownService} : the runnables added afterwards are rejected.
  */
 public class ThreadLauncherDaemon extends Daemon
 {
-    private static final String THREAD_LAUNCHER_DAEMON_ID = "threadLauncherDaemon";
-
-    /**
-     * Runnable wrapper to signal the daemon on processing end
-     */
-    private class RunnableWrapper implements Runnable
-    {
-        private final Runnable _wrapped;
-
-        /**
-         * Constructor
-         * 
-         * @param wrapped
-         *            the wrapped Runnable
-         */
-        public RunnableWrapper( Runnable wrapped )
-        {
-            _wrapped = wrapped;
-        }
-
-        @Override
-        public void run( )
-        {
-            try
-            {
-                _wrapped.run( );
-            }
-            finally
-            {
-                // will clean up the dead thread
-                // and permit execution of blocked tasks
-                AppDaemonService.signalDaemon( THREAD_LAUNCHER_DAEMON_ID );
-            }
-        }
-
-    }
-
     private static final String PROPERTY_MAX_NUMBER_THREAD = "daemon.threadLauncherDaemon.maxNumberOfThread";
-    private static Deque<RunnableQueueItem> _stackItems = new ArrayDeque<>( );
-    private Map<String, Thread> _mapThreadByKey = new HashMap<>( );
-    private List<Thread> _listThread = new ArrayList<>( );
+    private static final String PROPERTY_MAX_NUMBER_THREAD_PER_PLUGIN = "daemon.threadLauncherDaemon.maxNumberOfThreadPerPlugin";
+    private static final String PROPERTY_VIRTUAL_THREADS = "daemon.threadLauncherDaemon.virtualThreads";
+    private static final int DEFAULT_MAX_NUMBER_THREAD = 5;
+    private static final String THREAD_NAME = "Lutece-ThreadLauncher-";
+    private static final String METRICS_PREFIX = "threadLauncherDaemon";
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10L;
+    private static volatile KeyedExecutor _executor;
+    private static boolean _bShutdown;
 
     /**
      * {@inheritDoc}
@@ -99,113 +68,17 @@ public class ThreadLauncherDaemon extends Daemon
     @Override
     public void run( )
     {
-        int nMaxNumberThread = AppPropertiesService.getPropertyInt( PROPERTY_MAX_NUMBER_THREAD, 5 );
-
-        // We remove dead threads from running thread collections
-        String logs = removeDeadThreads( );
+        KeyedExecutor executor = _executor;
 
-        RunnableQueueItem item = null;
-        int nCurrentNumberRunningThreads = _mapThreadByKey.size( ) + _listThread.size( );
-
-        List<RunnableQueueItem> listLockedItems = new ArrayList<>( );
-
-        while ( ( nCurrentNumberRunningThreads < nMaxNumberThread ) && ( ( item = popItemFromQueue( ) ) != null ) )
+        if ( executor == null )
         {
-            String key = item.computeKey( );
-            // If the item has a key, then we must make sure that another thread with the same key and plugin is not running
-            if ( key != null )
-            {
-                Thread thread = _mapThreadByKey.get( key );
-
-                if ( thread != null )
-                {
-                    if ( thread.isAlive( ) )
-                    {
-                        // The thread is already running. We declare this item as locked for this run of the daemon.
-                        listLockedItems.add( item );
-                    }
-                    else
-                    {
-                        // Dead threads are removed from collections at the beginning of the run of the daemon
-                        // We still check again that the thread is alive just in case it died during the run
-                        thread = getThread( item );
-                        _mapThreadByKey.put( key, thread );
+            setLastRunLogs( "No runnable has been launched" );
 
-                        // We do not increase the number of running threads, because we removed and add one
-                    }
-                }
-                else
-                {
-                    thread = getThread( item );
-                    _mapThreadByKey.put( key, thread );
-                    nCurrentNumberRunningThreads++;
-                }
-            }
-            else
-            {
-                // If it has no key, or if the plugin has not been set, we create a thread in the keyless collection
-                Thread thread = getThread( item );
-                _mapThreadByKey.put( key, thread );
-                nCurrentNumberRunningThreads++;
-            }
-        }
-
-        // We replace in the queue items that was locked
-        listLockedItems.stream( ).forEach( ThreadLauncherDaemon::addItemToQueue );
-
-        // If the maximum number of running threads has been reached, we end this run
-        if ( nCurrentNumberRunningThreads >= nMaxNumberThread )
-        {
-            setLastRunLogs( logs + "Every threads are running. Daemon execution ending." );
             return;
         }
 
-        setLastRunLogs( logs + "There is no more runnable to launch." );
-    }
-
-    private Thread getThread( RunnableQueueItem item )
-    {
-        Thread thread = new Thread( new RunnableWrapper( item.getRunnable( ) ) );
-        thread.start( );
-        return thread;
-    }
-
-    private String removeDeadThreads( )
-    {
-        List<String> listDeadThreadKeys = new ArrayList<>( );
-        for ( Entry<String, Thread> threadEntry : _mapThreadByKey.entrySet( ) )
-        {
-            if ( !threadEntry.getValue( ).isAlive( ) )
-            {
-                listDeadThreadKeys.add( threadEntry.getKey( ) );
-            }
-        }
-
-        for ( String strThreadKey : listDeadThreadKeys )
-        {
-            _mapThreadByKey.remove( strThreadKey );
-        }
-
-        List<Thread> listDeadThreads = new ArrayList<>( );
-
-        for ( Thread thread : _listThread )
-        {
-            if ( !thread.isAlive( ) )
-            {
-                listDeadThreads.add( thread );
-            }
-        }
-
-        String logs = "";
-        if ( !listDeadThreads.isEmpty( ) )
-        {
-            logs = "Releasing " + listDeadThreads.size( ) + " dead threads.\n";
-        }
-        for ( Thread thread : listDeadThreads )
-        {
-            _listThread.remove( thread );
-        }
-        return logs;
+        setLastRunLogs( "Running runnables : " + executor.getRunningCount( ) + ", queued runnables : " + executor.getQueuedCount( )
+                + ", completed runnables : " + executor.getCompletedCount( ) );
     }
 
     /**
@@ -217,52 +90,113 @@ public class ThreadLauncherDaemon extends Daemon
      *            The key of the runnable. Runnables of a given plugin are ensured that they will not be executed at the same time if they have the same key.
      * @param plugin
      *            The plugin the runnable is associated with
+     * @throws RejectedExecutionException
+     *             If the daemon has been shut down
      */
     public static void addItemToQueue( Runnable runnable, String strKey, Plugin plugin )
     {
         RunnableQueueItem runnableItem = new RunnableQueueItem( runnable, strKey, plugin );
 
-        synchronized( ThreadLauncherDaemon.class )
-        {
-            _stackItems.addLast( runnableItem );
-        }
-
-        AppDaemonService.signalDaemon( THREAD_LAUNCHER_DAEMON_ID );
+        getExecutor( ).submit( runnableItem, runnableItem.computeKey( ), ( plugin != null ) ? plugin.getName( ) : null );
     }
 
     /**
-     * Add a runnable item to the queue
+     * Count the number of items in the queue.
      * 
-     * @param runnableItem
-     *            The runnable item to add to the queue
+     * @return The current number of items in the queue
      */
-    private static synchronized void addItemToQueue( RunnableQueueItem runnableItem )
+    public static Integer countItemsInQueue( )
     {
-        _stackItems.addLast( runnableItem );
+        KeyedExecutor executor = _executor;
+
+        return ( executor != null ) ? executor.getQueuedCount( ) : 0;
     }
 
     /**
-     * Pop the first item of the queue. The item is removed from the queue.
+     * Stops the executor, waiting for the running runnables to complete. The runnables added afterwards are rejected.
+     */
+    public static synchronized void shutdown( )
+    {
+        _bShutdown = true;
+
+        KeyedExecutor executor = _executor;
+
+        if ( executor != null )
+        {
+            int nDropped = executor.shutdown( SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS );
+
+            if ( nDropped > 0 )
+            {
+                AppLogService.error( "ThreadLauncherDaemon stopped : {} queued runnables have not been run", nDropped );
+            }
+        }
+    }
+
+    /**
+     * Returns the executor, creating it on first use. Once shut down, the executor is kept to reject the new runnables.
      * 
-     * @return The first item of the queue, or null if the queue is empty
+     * @return The executor
+     * @throws RejectedExecutionException
+     *             If the daemon has been shut down before the executor was created
      */
-    private static synchronized RunnableQueueItem popItemFromQueue( )
+    private static KeyedExecutor getExecutor( )
     {
-        if ( CollectionUtils.isEmpty( _stackItems ) )
+        KeyedExecutor executor = _executor;
+
+        if ( executor == null )
         {
-            return null;
+            synchronized( ThreadLauncherDaemon.class )
+            {
+                executor = _executor;
+
+                if ( executor == null )
+                {
+                    if ( _bShutdown )
+                    {
+                        throw new RejectedExecutionException( "The ThreadLauncherDaemon is shut down" );
+                    }
+
+                    executor = new KeyedExecutor( createExecutorService( AppPropertiesService.getPropertyBoolean( PROPERTY_VIRTUAL_THREADS, false ) ),
+                            AppPropertiesService.getPropertyInt( PROPERTY_MAX_NUMBER_THREAD, DEFAULT_MAX_NUMBER_THREAD ),
+                            AppPropertiesService.getPropertyInt( PROPERTY_MAX_NUMBER_THREAD_PER_PLUGIN, 0 ), METRICS_PREFIX );
+                    _executor = executor;
+                }
+            }
         }
 
-        return _stackItems.pop( );
+        return executor;
     }
 
     /**
-     * Count the number of items in the queue.
+     * Creates the executor service running the runnables. Virtual threads are used if they are enabled and available on the JVM.
      * 
-     * @return The current number of items in the queue
+     * @param bVirtualThreads
+     *            true to use virtual threads
+     * @return The executor service
      */
-    public static synchronized Integer countItemsInQueue( )
+    private static ExecutorService createExecutorService( boolean bVirtualThreads )
     {
-        return _stackItems.size( );
+        if ( bVirtualThreads )
+        {
+            try
+            {
+                Method method = Executors.class.getMethod( "newVirtualThreadPerTaskExecutor" );
+
+                return (ExecutorService) method.invoke( null );
+            }
+            catch( ReflectiveOperationException e )
+            {
+                AppLogService.error( "Virtual threads are not available on this JVM, the ThreadLauncherDaemon uses platform threads" );
+            }
+        }
+
+        AtomicInteger nThreadCount = new AtomicInteger( );
+
+        return Executors.newCachedThreadPool( runnable -> {
+            Thread thread = new Thread( runnable, THREAD_NAME + nThreadCount.incrementAndGet( ) );
+            thread.setDaemon( true );
+
+            return thread;
+        } );
     }
 }
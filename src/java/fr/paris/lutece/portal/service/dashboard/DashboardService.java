@@ -225,6 +225,8 @@ public final class DashboardService
     private void updateDashboardComponents( IDashboardComponent dashboard, List<IDashboardComponent> listColumnDashboards, int nOldOrder )
     {
         int nOrder = dashboard.getOrder( );
+        List<IDashboardComponent> listModified = new ArrayList<>( );
+
         for ( IDashboardComponent dc : listColumnDashboards )
         {
             if ( dc.equals( dashboard ) )
@@ -239,7 +241,7 @@ public final class DashboardService
                 if ( ( nCurrentOrder >= nOrder ) && ( nCurrentOrder < nOldOrder ) )
                 {
                     dc.setOrder( nCurrentOrder + 1 );
-                    DashboardHome.update( dc );
+                    listModified.add( dc );
                 }
             }
             else
@@ -250,10 +252,12 @@ public final class DashboardService
                     if ( ( nCurrentOrder <= nOrder ) && ( nCurrentOrder > nOldOrder ) )
                     {
                         dc.setOrder( nCurrentOrder - 1 );
-                        DashboardHome.update( dc );
+                        listModified.add( dc );
                     }
                 }
         }
+
+        DashboardHome.update( listModified );
     }
 
     /**
@@ -415,12 +419,14 @@ public final class DashboardService
     public void doReorderColumn( int nColumn )
     {
         int nOrder = CONSTANTE_FIRST_ORDER;
+        List<IDashboardComponent> listDashboards = getDashboardComponents( nColumn );
 
-        for ( IDashboardComponent dc : getDashboardComponents( nColumn ) )
+        for ( IDashboardComponent dc : listDashboards )
         {
             dc.setOrder( nOrder++ );
-            DashboardHome.update( dc );
         }
+
+        DashboardHome.update( listDashboards );
     }
 
     /**
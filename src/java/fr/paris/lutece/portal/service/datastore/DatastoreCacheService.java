@@ -33,24 +33,25 @@
  */
 package fr.paris.lutece.portal.service.datastore;
 
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+import fr.paris.lutece.portal.business.datastore.DataEntityHome;
 import fr.paris.lutece.portal.service.cache.AbstractCacheableService;
 
 /**
- * Datastore Cache Service
+ * Datastore Cache Service. The whole datastore is cached as a single immutable snapshot, loaded once and dropped on each modification. Each modification
+ * increments a version so that a snapshot loaded concurrently with a modification is never kept in the cache.
  */
 public class DatastoreCacheService extends AbstractCacheableService
 {
     private static final String CACHE_SERVICE_NAME = "Datastore Cache Service";
-    private final Set<String> _prefixes;
+    private static final String KEY_SNAPSHOT = "snapshot";
+    private final AtomicLong _lVersion = new AtomicLong( );
 
     /** Constructor */
     public DatastoreCacheService( )
     {
         initCache( );
-        _prefixes = ConcurrentHashMap.newKeySet( );
     }
 
     /**
@@ -65,36 +66,67 @@ public class DatastoreCacheService extends AbstractCacheableService
     }
 
     /**
-     * Get a cache key for an entity key
+     * Returns the snapshot of the datastore, loading it if needed
      * 
-     * @param strKey
-     *            the entity key
-     * @return the cache key
+     * @return the snapshot, or null if the cache is disabled
      */
-    String getEntityCacheKey( String strKey )
+    DatastoreSnapshot getSnapshot( )
     {
-        return "k:" + strKey;
+        if ( !isCacheEnable( ) )
+        {
+            return null;
+        }
+
+        return getFromCache( KEY_SNAPSHOT, this::loadSnapshot );
     }
 
     /**
-     * Get a cache key for a prefix
+     * Loads the snapshot of the datastore and puts it in the cache unless the datastore has been modified during the load
      * 
-     * @param strPrefix
-     *            the prefix
-     * @return the cache key
+     * @return the snapshot
+     */
+    private DatastoreSnapshot loadSnapshot( )
+    {
+        long lVersion = _lVersion.get( );
+        DatastoreSnapshot snapshot = new DatastoreSnapshot( DataEntityHome.findAll( ), lVersion );
+        putInCache( KEY_SNAPSHOT, snapshot );
+
+        if ( _lVersion.get( ) != lVersion )
+        {
+            // modified during the load : the invalidation may have happened before the put
+            removeKey( KEY_SNAPSHOT );
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Drops the snapshot after a modification of the datastore
      */
-    String getPrefixCacheKey( String strPrefix )
+    void invalidate( )
     {
-        String strCacheKey = "p:" + strPrefix;
-        _prefixes.add( strCacheKey );
-        return strCacheKey;
+        _lVersion.incrementAndGet( );
+        removeKey( KEY_SNAPSHOT );
     }
 
     /**
-     * Remove from the cache the values for all cached prefixes
+     * {@inheritDoc }
+     * <br>
+     * Any key modified on another node invalidates the whole snapshot.
      */
-    void removeCachedPrefixes( )
+    @Override
+    public void processKeyInvalidation( String strKey )
+    {
+        invalidate( );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void resetCache( )
     {
-        _prefixes.forEach( ( String strPrefix ) -> removeKey( strPrefix ) );
+        _lVersion.incrementAndGet( );
+        super.resetCache( );
     }
 }
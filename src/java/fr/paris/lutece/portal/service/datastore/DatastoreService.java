@@ -35,13 +35,14 @@ package fr.paris.lutece.portal.service.datastore;
 
 import fr.paris.lutece.portal.business.datastore.DataEntity;
 import fr.paris.lutece.portal.business.datastore.DataEntityHome;
+import fr.paris.lutece.portal.service.cache.CacheInvalidationService;
 import fr.paris.lutece.portal.service.template.FreeMarkerTemplateService;
 import fr.paris.lutece.portal.service.util.AppLogService;
 import fr.paris.lutece.portal.service.util.AppPathService;
 import fr.paris.lutece.portal.service.util.NoDatabaseException;
 import fr.paris.lutece.util.ReferenceList;
 
-import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -88,29 +89,16 @@ public final class DatastoreService
         {
             if ( _bDatabase )
             {
-                DataEntity entity = null;
+                DatastoreSnapshot snapshot = getSnapshot( );
 
-                if ( _cache != null )
+                if ( snapshot != null )
                 {
-                    entity = (DataEntity) _cache.getFromCache( _cache.getEntityCacheKey( strKey ) );
+                    return snapshot.containsKey( strKey ) ? snapshot.getValue( strKey ) : strDefault;
                 }
 
-                if ( entity == null )
-                {
-                    entity = DataEntityHome.findByPrimaryKey( strKey );
-
-                    if ( entity == null )
-                    {
-                        return strDefault;
-                    }
-
-                    if ( _cache != null )
-                    {
-                        _cache.putInCache( _cache.getEntityCacheKey( strKey ), entity );
-                    }
-                }
+                DataEntity entity = DataEntityHome.findByPrimaryKey( strKey );
 
-                return entity.getValue( );
+                return ( entity != null ) ? entity.getValue( ) : strDefault;
             }
         }
         catch( NoDatabaseException e )
@@ -157,21 +145,13 @@ public final class DatastoreService
                 if ( entity != null )
                 {
                     DataEntityHome.update( p );
-
-                    if ( _cache != null )
-                    {
-                        _cache.removeKey( _cache.getEntityCacheKey( strKey ) );
-                        _cache.removeCachedPrefixes( );
-                    }
                 }
                 else
                 {
                     DataEntityHome.create( p );
-                    if ( _cache != null )
-                    {
-                        _cache.removeCachedPrefixes( );
-                    }
                 }
+
+                invalidate( strKey );
             }
         }
         catch( NoDatabaseException e )
@@ -207,12 +187,7 @@ public final class DatastoreService
             if ( _bDatabase )
             {
                 DataEntityHome.remove( strKey );
-
-                if ( _cache != null )
-                {
-                    _cache.removeKey( _cache.getEntityCacheKey( strKey ) );
-                    _cache.removeCachedPrefixes( );
-                }
+                invalidate( strKey );
             }
         }
         catch( NoDatabaseException e )
@@ -245,15 +220,8 @@ public final class DatastoreService
         {
             if ( _bDatabase )
             {
-                List<DataEntity> listEntities = DataEntityHome.findAll( );
-
-                for ( DataEntity entity : listEntities )
-                {
-                    if ( entity.getKey( ).startsWith( strPrefix ) )
-                    {
-                        removeData( entity.getKey( ) );
-                    }
-                }
+                DataEntityHome.removeByPrefix( strPrefix );
+                invalidate( strPrefix );
             }
         }
         catch( NoDatabaseException e )
@@ -289,25 +257,22 @@ public final class DatastoreService
         }
         try
         {
-            ReferenceList list = null;
+            ReferenceList list = new ReferenceList( );
+            DatastoreSnapshot snapshot = getSnapshot( );
 
-            if ( _cache != null )
+            if ( snapshot != null )
             {
-                list = ( ReferenceList ) _cache.getFromCache( _cache.getPrefixCacheKey( strPrefix ) );
+                for ( Map.Entry<String, String> entry : snapshot.getByPrefix( strPrefix ).entrySet( ) )
+                {
+                    list.addItem( entry.getKey( ), entry.getValue( ) );
+                }
             }
-
-            if ( list == null )
+            else
             {
-                list = new ReferenceList( );
                 for ( DataEntity entity : DataEntityHome.findByPrefix( strPrefix ) )
                 {
                     list.addItem( entity.getKey( ), entity.getValue( ) );
                 }
-
-                if ( _cache != null )
-                {
-                    _cache.putInCache( _cache.getPrefixCacheKey( strPrefix ), list );
-                }
             }
 
             return list;
@@ -355,15 +320,7 @@ public final class DatastoreService
 
                 do
                 {
-                    String strKey = matcher.group( 1 );
-                    String strValue = DatastoreService.getDataValue( strKey, VALUE_MISSING );
-
-                    if ( VALUE_MISSING.equals( strValue ) )
-                    {
-                        AppLogService.error( "Datastore Key missing : {} - Please fix to avoid performance issues.", strKey );
-                    }
-
-                    matcher.appendReplacement( sb, strValue );
+                    matcher.appendReplacement( sb, getKeyReplacement( matcher.group( 1 ) ) );
                 }
                 while ( matcher.find( ) );
 
@@ -375,6 +332,25 @@ public final class DatastoreService
         return result;
     }
 
+    /**
+     * Returns the value replacing a datastore key in a content
+     *
+     * @param strKey
+     *            The key
+     * @return The value, or a "missing" value if the key doesn't exist
+     */
+    public static String getKeyReplacement( String strKey )
+    {
+        String strValue = getDataValue( strKey, VALUE_MISSING );
+
+        if ( VALUE_MISSING.equals( strValue ) )
+        {
+            AppLogService.error( "Datastore Key missing : {} - Please fix to avoid performance issues.", strKey );
+        }
+
+        return strValue;
+    }
+
     /**
      * Check if a key is available in the datastore
      *
@@ -388,24 +364,14 @@ public final class DatastoreService
         {
             if ( _bDatabase )
             {
-                DataEntity entity = null;
+                DatastoreSnapshot snapshot = getSnapshot( );
 
-                if ( _cache != null )
+                if ( snapshot != null )
                 {
-                    entity = (DataEntity) _cache.getFromCache( _cache.getEntityCacheKey( strKey ) );
+                    return snapshot.containsKey( strKey );
                 }
 
-                if ( entity == null )
-                {
-                    entity = DataEntityHome.findByPrimaryKey( strKey );
-
-                    if ( entity == null )
-                    {
-                        return false;
-                    }
-                }
-
-                return true;
+                return DataEntityHome.findByPrimaryKey( strKey ) != null;
             }
         }
         catch( NoDatabaseException e )
@@ -430,6 +396,31 @@ public final class DatastoreService
         return existsKey( strInstanceKey );
     }
 
+    /**
+     * Returns the cached snapshot of the datastore
+     *
+     * @return The snapshot, or null if the cache is not started or disabled
+     */
+    private static DatastoreSnapshot getSnapshot( )
+    {
+        return ( _cache != null ) ? _cache.getSnapshot( ) : null;
+    }
+
+    /**
+     * Drops the cached snapshot after a modification and publishes the modification to the other nodes of the cluster
+     *
+     * @param strKey
+     *            The modified key or prefix
+     */
+    private static void invalidate( String strKey )
+    {
+        if ( _cache != null )
+        {
+            _cache.invalidate( );
+            CacheInvalidationService.getInstance( ).publishKeyRemoval( _cache.getName( ), strKey );
+        }
+    }
+
     /**
      * Start cache. NB : Cache can't be created at DataStore creation because CacheService uses DatastoreService (Circular reference)
      */
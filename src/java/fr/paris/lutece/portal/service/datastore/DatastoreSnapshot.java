@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.datastore;
+
+import fr.paris.lutece.portal.business.datastore.DataEntity;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Immutable copy of the whole datastore. As the snapshot is complete, a key which is not in the snapshot is known to be missing without querying the
+ * database, and the keys sharing a prefix are found by a range query on the sorted keys.
+ */
+final class DatastoreSnapshot
+{
+    private final NavigableMap<String, String> _mapValues;
+    private final long _lVersion;
+
+    /**
+     * Constructor
+     * 
+     * @param listEntities
+     *            all the entities of the datastore
+     * @param lVersion
+     *            the version of the datastore when the entities have been loaded
+     */
+    DatastoreSnapshot( List<DataEntity> listEntities, long lVersion )
+    {
+        NavigableMap<String, String> mapValues = new TreeMap<>( );
+
+        for ( DataEntity entity : listEntities )
+        {
+            mapValues.put( entity.getKey( ), entity.getValue( ) );
+        }
+
+        _mapValues = Collections.unmodifiableNavigableMap( mapValues );
+        _lVersion = lVersion;
+    }
+
+    /**
+     * Returns the version of the datastore when the snapshot has been loaded
+     * 
+     * @return the version
+     */
+    long getVersion( )
+    {
+        return _lVersion;
+    }
+
+    /**
+     * Checks whether a key exists
+     * 
+     * @param strKey
+     *            the key
+     * @return true if the key exists
+     */
+    boolean containsKey( String strKey )
+    {
+        return _mapValues.containsKey( strKey );
+    }
+
+    /**
+     * Returns the value of a key
+     * 
+     * @param strKey
+     *            the key
+     * @return the value, or null if the key doesn't exist
+     */
+    String getValue( String strKey )
+    {
+        return _mapValues.get( strKey );
+    }
+
+    /**
+     * Returns the entries whose key starts with a prefix, sorted by key
+     * 
+     * @param strPrefix
+     *            the prefix
+     * @return the entries
+     */
+    NavigableMap<String, String> getByPrefix( String strPrefix )
+    {
+        if ( strPrefix.isEmpty( ) )
+        {
+            return _mapValues;
+        }
+
+        int nLast = strPrefix.length( ) - 1;
+        char cLast = strPrefix.charAt( nLast );
+
+        if ( cLast == Character.MAX_VALUE )
+        {
+            return getByPrefix( strPrefix.substring( 0, nLast ) ).tailMap( strPrefix, true );
+        }
+
+        // the keys starting with the prefix are lower than the prefix whose last character is incremented
+        return _mapValues.subMap( strPrefix, true, strPrefix.substring( 0, nLast ) + (char) ( cLast + 1 ), false );
+    }
+
+    /**
+     * Returns the number of keys
+     * 
+     * @return the number of keys
+     */
+    int size( )
+    {
+        return _mapValues.size( );
+    }
+}
@@ -38,7 +38,9 @@ import fr.paris.lutece.portal.business.file.File;
 import fr.paris.lutece.portal.service.admin.AccessDeniedException;
 import fr.paris.lutece.portal.service.security.UserNotSignedException;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.util.Map;
 import javax.servlet.http.HttpServletRequest;
@@ -208,6 +210,92 @@ public interface IFileStoreServiceProvider extends Serializable
      */
     File getFileFromRequestFO( HttpServletRequest request ) throws AccessDeniedException, ExpiredLinkException, UserNotSignedException, FileServiceException;
 
+    /**
+     * get the meta data of the requested file from BO, after the same checks as {@link #getFileFromRequestBO(HttpServletRequest)}. The content is then
+     * written with {@link #writeContent(File, long, long, OutputStream)}. By default, the file is loaded with its content.
+     * 
+     * @param request
+     * @return the file
+     * @throws fr.paris.lutece.portal.service.admin.AccessDeniedException
+     * @throws fr.paris.lutece.portal.service.file.ExpiredLinkException
+     * @throws fr.paris.lutece.portal.service.security.UserNotSignedException
+     * @since 7.0.17
+     */
+    default File getFileMetaDataFromRequestBO( HttpServletRequest request )
+            throws AccessDeniedException, ExpiredLinkException, UserNotSignedException, FileServiceException
+    {
+        return getFileFromRequestBO( request );
+    }
+
+    /**
+     * get the meta data of the requested file from FO, after the same checks as {@link #getFileFromRequestFO(HttpServletRequest)}. The content is then
+     * written with {@link #writeContent(File, long, long, OutputStream)}. By default, the file is loaded with its content.
+     * 
+     * @param request
+     * @return the file
+     * @throws fr.paris.lutece.portal.service.admin.AccessDeniedException
+     * @throws fr.paris.lutece.portal.service.file.ExpiredLinkException
+     * @throws fr.paris.lutece.portal.service.security.UserNotSignedException
+     * @since 7.0.17
+     */
+    default File getFileMetaDataFromRequestFO( HttpServletRequest request )
+            throws AccessDeniedException, ExpiredLinkException, UserNotSignedException, FileServiceException
+    {
+        return getFileFromRequestFO( request );
+    }
+
+    /**
+     * Gets the length of the content of a file
+     * 
+     * @param file
+     *            the file returned by the provider
+     * @return the length in bytes, or -1 if the file has no content
+     * @since 7.0.17
+     */
+    default long getContentLength( File file ) throws FileServiceException
+    {
+        if ( file.getPhysicalFile( ) == null || file.getPhysicalFile( ).getValue( ) == null )
+        {
+            return -1;
+        }
+
+        return file.getPhysicalFile( ).getValue( ).length;
+    }
+
+    /**
+     * Gets the entity tag identifying the content of a file, used to answer conditional download requests
+     * 
+     * @param file
+     *            the file returned by the provider
+     * @return the entity tag, with its quotes and weak prefix if any, or null if the provider has no entity tag
+     * @since 7.0.17
+     */
+    default String getETag( File file )
+    {
+        return null;
+    }
+
+    /**
+     * Writes the content of a file, or a part of it, to a stream. Providers storing large files should override this method to copy the content without
+     * loading it in memory.
+     * 
+     * @param file
+     *            the file returned by the provider
+     * @param lOffset
+     *            the offset of the first byte to write
+     * @param lLength
+     *            the number of bytes to write
+     * @param outputStream
+     *            the stream
+     * @throws IOException
+     *             if the stream can not be written
+     * @since 7.0.17
+     */
+    default void writeContent( File file, long lOffset, long lLength, OutputStream outputStream ) throws FileServiceException, IOException
+    {
+        outputStream.write( file.getPhysicalFile( ).getValue( ), (int) lOffset, (int) lLength );
+    }
+
     /**
      * check if current user can access the file
      * 
@@ -33,15 +33,14 @@
  */
 package fr.paris.lutece.portal.service.file.implementation;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
 
 import org.apache.commons.fileupload.FileItem;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 
 import fr.paris.lutece.api.user.User;
@@ -53,12 +52,14 @@ import fr.paris.lutece.portal.service.admin.AccessDeniedException;
 import fr.paris.lutece.portal.service.admin.AdminAuthenticationService;
 import fr.paris.lutece.portal.service.file.ExpiredLinkException;
 import fr.paris.lutece.portal.service.file.FileService;
+import fr.paris.lutece.portal.service.file.FileServiceException;
 import fr.paris.lutece.portal.service.file.IFileDownloadUrlService;
 import fr.paris.lutece.portal.service.file.IFileRBACService;
 import fr.paris.lutece.portal.service.file.IFileStoreServiceProvider;
 import fr.paris.lutece.portal.service.security.SecurityService;
 import fr.paris.lutece.portal.service.security.UserNotSignedException;
 import fr.paris.lutece.portal.service.util.AppException;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
 
 /**
  * 
@@ -68,6 +69,8 @@ import fr.paris.lutece.portal.service.util.AppException;
 public class LocalDatabaseFileService implements IFileStoreServiceProvider
 {
     private static final long serialVersionUID = 1L;
+    private static final String PROPERTY_CHUNK_SIZE = "lutece.file.database.chunkSize";
+    private static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
 
     private IFileDownloadUrlService _fileDownloadUrlService;
     private IFileRBACService _fileRBACService;
@@ -226,25 +229,10 @@ public class LocalDatabaseFileService implements IFileStoreServiceProvider
     public String storeInputStream( InputStream inputStream )
     {
         File file = new File( );
-        PhysicalFile physicalFile = new PhysicalFile( );
-
-        byte [ ] buffer;
-
-        try
-        {
-            buffer = new byte [ inputStream.available( )];
-        }
-        catch( IOException ex )
-        {
-            throw new AppException( ex.getMessage( ), ex );
-        }
-
-        physicalFile.setValue( buffer );
-        file.setPhysicalFile( physicalFile );
-
         file.setOrigin( getName( ) );
 
-        int nFileId = FileHome.create( file );
+        // the content is streamed to the database
+        int nFileId = FileHome.create( file, inputStream, -1 );
 
         return String.valueOf( nFileId );
     }
@@ -262,25 +250,19 @@ public class LocalDatabaseFileService implements IFileStoreServiceProvider
         file.setMimeType( fileItem.getContentType( ) );
 
         file.setOrigin( getName( ) );
-        
-        PhysicalFile physicalFile = new PhysicalFile( );
 
-        byte [ ] byteArray;
+        int nFileId;
 
-        try
+        // the content is streamed to the database
+        try ( InputStream inputStream = fileItem.getInputStream( ) )
         {
-            byteArray = IOUtils.toByteArray( fileItem.getInputStream( ) );
+            nFileId = FileHome.create( file, inputStream, fileItem.getSize( ) );
         }
         catch( IOException ex )
         {
             throw new AppException( ex.getMessage( ), ex );
         }
 
-        physicalFile.setValue( byteArray );
-        file.setPhysicalFile( physicalFile );
-
-        int nFileId = FileHome.create( file );
-
         return String.valueOf( nFileId );
     }
 
@@ -322,10 +304,193 @@ public class LocalDatabaseFileService implements IFileStoreServiceProvider
     @Override
     public InputStream getInputStream( String strKey )
     {
+        File file = getFileMetaData( strKey );
+
+        if ( file == null || file.getPhysicalFile( ) == null )
+        {
+            return null;
+        }
+
+        int nIdPhysicalFile = file.getPhysicalFile( ).getIdPhysicalFile( );
+
+        return new PhysicalFileInputStream( nIdPhysicalFile, PhysicalFileHome.findValueLength( nIdPhysicalFile ), getChunkSize( ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br>
+     * The length is read from the database without loading the content.
+     */
+    @Override
+    public long getContentLength( File file )
+    {
+        if ( file.getPhysicalFile( ) == null )
+        {
+            return -1;
+        }
+
+        return PhysicalFileHome.findValueLength( file.getPhysicalFile( ).getIdPhysicalFile( ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br>
+     * The entity tag is built from the ids and the size of the file. It is weak as the content of a physical file could be updated without changing its size.
+     */
+    @Override
+    public String getETag( File file )
+    {
+        if ( file.getPhysicalFile( ) == null )
+        {
+            return null;
+        }
+
+        return "W/\"" + file.getFileKey( ) + "-" + file.getPhysicalFile( ).getIdPhysicalFile( ) + "-" + file.getSize( ) + "\"";
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br>
+     * The content is read from the database by chunks, so the whole file is never loaded in memory.
+     */
+    @Override
+    public void writeContent( File file, long lOffset, long lLength, OutputStream outputStream ) throws FileServiceException, IOException
+    {
+        if ( file.getPhysicalFile( ) == null )
+        {
+            throw new FileServiceException( "No content for the file " + file.getFileKey( ) );
+        }
+
+        int nIdPhysicalFile = file.getPhysicalFile( ).getIdPhysicalFile( );
+        int nChunkSize = getChunkSize( );
+        long lPosition = lOffset;
+        long lEnd = lOffset + lLength;
+
+        while ( lPosition < lEnd )
+        {
+            byte [ ] chunk = PhysicalFileHome.findValueRange( nIdPhysicalFile, lPosition, (int) Math.min( nChunkSize, lEnd - lPosition ) );
+
+            if ( chunk == null || chunk.length == 0 )
+            {
+                throw new FileServiceException( "Unexpected end of the file " + file.getFileKey( ) );
+            }
+
+            outputStream.write( chunk );
+            lPosition += chunk.length;
+        }
+    }
+
+    /**
+     * Returns the size of the chunks read from the database
+     * 
+     * @return the size in bytes
+     */
+    private static int getChunkSize( )
+    {
+        return Math.max( 1, AppPropertiesService.getPropertyInt( PROPERTY_CHUNK_SIZE, DEFAULT_CHUNK_SIZE ) );
+    }
+
+    /**
+     * Stream of the value of a physical file, read from the database by chunks
+     */
+    private static final class PhysicalFileInputStream extends InputStream
+    {
+        private final int _nIdPhysicalFile;
+        private final long _lLength;
+        private final int _nChunkSize;
+        private long _lChunkOffset;
+        private byte [ ] _chunk = new byte [ 0];
+        private int _nChunkPosition;
+
+        /**
+         * Constructor
+         * 
+         * @param nIdPhysicalFile
+         *            the id of the physical file
+         * @param lLength
+         *            the length of the value
+         * @param nChunkSize
+         *            the size of the chunks
+         */
+        PhysicalFileInputStream( int nIdPhysicalFile, long lLength, int nChunkSize )
+        {
+            _nIdPhysicalFile = nIdPhysicalFile;
+            _lLength = lLength;
+            _nChunkSize = nChunkSize;
+        }
+
+        /**
+         * Loads the next chunk if the current one has been read
+         * 
+         * @return false at the end of the value
+         */
+        private boolean fill( )
+        {
+            if ( _nChunkPosition < _chunk.length )
+            {
+                return true;
+            }
+
+            _lChunkOffset += _chunk.length;
+
+            if ( _lChunkOffset >= _lLength )
+            {
+                return false;
+            }
 
-        File file = getFile( strKey );
+            byte [ ] chunk = PhysicalFileHome.findValueRange( _nIdPhysicalFile, _lChunkOffset, (int) Math.min( _nChunkSize, _lLength - _lChunkOffset ) );
+
+            if ( chunk == null || chunk.length == 0 )
+            {
+                return false;
+            }
+
+            _chunk = chunk;
+            _nChunkPosition = 0;
+
+            return true;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int read( )
+        {
+            return fill( ) ? ( _chunk [_nChunkPosition++] & 0xFF ) : -1;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int read( byte [ ] buffer, int nOffset, int nLength )
+        {
+            if ( nLength == 0 )
+            {
+                return 0;
+            }
+
+            if ( !fill( ) )
+            {
+                return -1;
+            }
 
-        return new ByteArrayInputStream( file.getPhysicalFile( ).getValue( ) );
+            int nRead = Math.min( nLength, _chunk.length - _nChunkPosition );
+            System.arraycopy( _chunk, _nChunkPosition, buffer, nOffset, nRead );
+            _nChunkPosition += nRead;
+
+            return nRead;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int available( )
+        {
+            return _chunk.length - _nChunkPosition;
+        }
     }
 
     /**
@@ -390,6 +555,30 @@ public class LocalDatabaseFileService implements IFileStoreServiceProvider
      */
     @Override
     public File getFileFromRequestBO( HttpServletRequest request ) throws AccessDeniedException, ExpiredLinkException, UserNotSignedException
+    {
+        return getFile( getCheckedFileIdBO( request ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public File getFileMetaDataFromRequestBO( HttpServletRequest request ) throws AccessDeniedException, ExpiredLinkException, UserNotSignedException
+    {
+        return getFileMetaData( getCheckedFileIdBO( request ) );
+    }
+
+    /**
+     * Gets the id of the file requested from BO, after checking the access rights and the validity of the link
+     * 
+     * @param request
+     *            the request
+     * @return the file id
+     * @throws AccessDeniedException
+     * @throws ExpiredLinkException
+     * @throws UserNotSignedException
+     */
+    private String getCheckedFileIdBO( HttpServletRequest request ) throws AccessDeniedException, ExpiredLinkException, UserNotSignedException
     {
         Map<String, String> fileData = _fileDownloadUrlService.getRequestDataBO( request );
 
@@ -399,9 +588,7 @@ public class LocalDatabaseFileService implements IFileStoreServiceProvider
         // check validity
         checkLinkValidity( fileData );
 
-        String strFileId = fileData.get( FileService.PARAMETER_FILE_ID );
-
-        return getFile( strFileId );
+        return fileData.get( FileService.PARAMETER_FILE_ID );
     }
 
     /**
@@ -410,7 +597,30 @@ public class LocalDatabaseFileService implements IFileStoreServiceProvider
     @Override
     public File getFileFromRequestFO( HttpServletRequest request ) throws AccessDeniedException, ExpiredLinkException, UserNotSignedException
     {
+        return getFile( getCheckedFileIdFO( request ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public File getFileMetaDataFromRequestFO( HttpServletRequest request ) throws AccessDeniedException, ExpiredLinkException, UserNotSignedException
+    {
+        return getFileMetaData( getCheckedFileIdFO( request ) );
+    }
 
+    /**
+     * Gets the id of the file requested from FO, after checking the access rights and the validity of the link
+     * 
+     * @param request
+     *            the request
+     * @return the file id
+     * @throws AccessDeniedException
+     * @throws ExpiredLinkException
+     * @throws UserNotSignedException
+     */
+    private String getCheckedFileIdFO( HttpServletRequest request ) throws AccessDeniedException, ExpiredLinkException, UserNotSignedException
+    {
         Map<String, String> fileData = _fileDownloadUrlService.getRequestDataFO( request );
 
         // check access rights
@@ -419,8 +629,6 @@ public class LocalDatabaseFileService implements IFileStoreServiceProvider
         // check validity
         checkLinkValidity( fileData );
 
-        String strFileId = fileData.get( FileService.PARAMETER_FILE_ID );
-
-        return getFile( strFileId );
+        return fileData.get( FileService.PARAMETER_FILE_ID );
     }
 }
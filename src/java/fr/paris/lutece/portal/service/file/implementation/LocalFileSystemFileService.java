@@ -0,0 +1,338 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.file.implementation;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.commons.fileupload.FileItem;
+
+import fr.paris.lutece.portal.business.file.File;
+import fr.paris.lutece.portal.business.file.FileHome;
+import fr.paris.lutece.portal.business.physicalfile.PhysicalFile;
+import fr.paris.lutece.portal.service.file.FileServiceException;
+import fr.paris.lutece.portal.service.file.IFileDownloadUrlService;
+import fr.paris.lutece.portal.service.file.IFileRBACService;
+import fr.paris.lutece.portal.service.util.AppException;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPathService;
+
+/**
+ * File store provider keeping the meta data of the files in the database and their content in a directory of the file system, one file per id. The content
+ * is sent to the downloads with {@link FileChannel#transferTo(long, long, WritableByteChannel)}, without being loaded in memory.
+ * <p>
+ * The directory must be shared by all the nodes of a cluster.
+ */
+public class LocalFileSystemFileService extends LocalDatabaseFileService
+{
+    private static final long serialVersionUID = 1L;
+
+    private String _strStoragePath;
+
+    /**
+     * init
+     * 
+     * @param fileDownloadUrlService
+     *            the download url service
+     * @param fileRBACService
+     *            the RBAC service
+     */
+    public LocalFileSystemFileService( IFileDownloadUrlService fileDownloadUrlService, IFileRBACService fileRBACService )
+    {
+        super( fileDownloadUrlService, fileRBACService );
+    }
+
+    /**
+     * Sets the directory of the files
+     * 
+     * @param strStoragePath
+     *            the absolute path, or a path relative to the webapp
+     */
+    public void setStoragePath( String strStoragePath )
+    {
+        _strStoragePath = strStoragePath;
+    }
+
+    /**
+     * Returns the path of the content of a file
+     * 
+     * @param strFileKey
+     *            the file key
+     * @return the path
+     */
+    private Path getContentPath( String strFileKey )
+    {
+        Path root = Paths.get( _strStoragePath );
+
+        if ( !root.isAbsolute( ) )
+        {
+            root = Paths.get( AppPathService.getAbsolutePathFromRelativePath( _strStoragePath ) );
+        }
+
+        return root.resolve( strFileKey );
+    }
+
+    /**
+     * Stores the meta data of a file, then its content
+     * 
+     * @param file
+     *            the meta data
+     * @param inputStream
+     *            the content
+     * @return the key of the file
+     */
+    private String store( File file, InputStream inputStream )
+    {
+        file.setOrigin( getName( ) );
+        file.setPhysicalFile( null );
+
+        int nIdFile = FileHome.create( file );
+        Path path = getContentPath( String.valueOf( nIdFile ) );
+
+        try
+        {
+            Files.createDirectories( path.getParent( ) );
+            Files.copy( inputStream, path, StandardCopyOption.REPLACE_EXISTING );
+        }
+        catch( IOException e )
+        {
+            FileHome.remove( nIdFile );
+            throw new AppException( e.getMessage( ), e );
+        }
+
+        return String.valueOf( nIdFile );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String storeBytes( byte [ ] blob )
+    {
+        File file = new File( );
+        file.setSize( blob.length );
+
+        return store( file, new ByteArrayInputStream( blob ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String storeInputStream( InputStream inputStream )
+    {
+        return store( new File( ), inputStream );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String storeFileItem( FileItem fileItem )
+    {
+        File file = new File( );
+        file.setTitle( fileItem.getName( ) );
+        file.setSize( (int) fileItem.getSize( ) );
+        file.setMimeType( fileItem.getContentType( ) );
+
+        try ( InputStream inputStream = fileItem.getInputStream( ) )
+        {
+            return store( file, inputStream );
+        }
+        catch( IOException e )
+        {
+            throw new AppException( e.getMessage( ), e );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String storeFile( File file )
+    {
+        byte [ ] value = ( file.getPhysicalFile( ) != null ) ? file.getPhysicalFile( ).getValue( ) : null;
+
+        return store( file, new ByteArrayInputStream( ( value != null ) ? value : new byte [ 0] ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br>
+     * The content is read from the file system.
+     */
+    @Override
+    public File getFile( String strKey, boolean withPhysicalFile )
+    {
+        File file = super.getFile( strKey, false );
+
+        if ( file != null && withPhysicalFile )
+        {
+            try
+            {
+                PhysicalFile physicalFile = new PhysicalFile( );
+                physicalFile.setValue( Files.readAllBytes( getContentPath( file.getFileKey( ) ) ) );
+                file.setPhysicalFile( physicalFile );
+            }
+            catch( IOException e )
+            {
+                AppLogService.error( "Unable to read the content of the file {} : {}", file.getFileKey( ), e.getMessage( ), e );
+
+                return null;
+            }
+        }
+
+        return file;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void delete( String strKey )
+    {
+        int nIdFile = Integer.parseInt( strKey );
+        FileHome.remove( nIdFile );
+
+        try
+        {
+            Files.deleteIfExists( getContentPath( strKey ) );
+        }
+        catch( IOException e )
+        {
+            AppLogService.error( "Unable to delete the content of the file {} : {}", nIdFile, e.getMessage( ), e );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputStream getInputStream( String strKey )
+    {
+        File file = getFileMetaData( strKey );
+
+        if ( file == null )
+        {
+            return null;
+        }
+
+        try
+        {
+            return Files.newInputStream( getContentPath( file.getFileKey( ) ) );
+        }
+        catch( IOException e )
+        {
+            throw new AppException( e.getMessage( ), e );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getContentLength( File file )
+    {
+        Path path = getContentPath( file.getFileKey( ) );
+
+        try
+        {
+            return Files.isRegularFile( path ) ? Files.size( path ) : -1;
+        }
+        catch( IOException e )
+        {
+            AppLogService.error( "Unable to read the size of the file {} : {}", file.getFileKey( ), e.getMessage( ), e );
+
+            return -1;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br>
+     * The entity tag is built from the id, the size and the last modification date of the content.
+     */
+    @Override
+    public String getETag( File file )
+    {
+        Path path = getContentPath( file.getFileKey( ) );
+
+        try
+        {
+            return "\"" + file.getFileKey( ) + "-" + Files.size( path ) + "-" + Files.getLastModifiedTime( path ).toMillis( ) + "\"";
+        }
+        catch( IOException e )
+        {
+            return null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br>
+     * The content is transferred from the file channel, which avoids copying it through the heap.
+     */
+    @Override
+    public void writeContent( File file, long lOffset, long lLength, OutputStream outputStream ) throws FileServiceException, IOException
+    {
+        try ( FileChannel channel = FileChannel.open( getContentPath( file.getFileKey( ) ), StandardOpenOption.READ ) )
+        {
+            WritableByteChannel target = Channels.newChannel( outputStream );
+            long lPosition = lOffset;
+            long lEnd = lOffset + lLength;
+
+            while ( lPosition < lEnd )
+            {
+                long lTransferred = channel.transferTo( lPosition, lEnd - lPosition, target );
+
+                if ( lTransferred <= 0 )
+                {
+                    throw new FileServiceException( "Unexpected end of the file " + file.getFileKey( ) );
+                }
+
+                lPosition += lTransferred;
+            }
+        }
+    }
+}
@@ -47,7 +47,7 @@ import java.util.List;
  */
 public class XmlTransformerCacheService implements CacheableService
 {
-    private static final String SERVICE_NAME = "XML Transformer Cache Service (XSLT)";
+    public static final String SERVICE_NAME = "XML Transformer Cache Service (XSLT)";
     private static final String MSG_KEYS_NOT_AVAILABLE = "Keys not available";
 
     /**
@@ -73,7 +73,7 @@ public class XmlTransformerCacheService implements CacheableService
     @Override
     public boolean isCacheEnable( )
     {
-        return true;
+        return XmlTransformer.CACHE_MAX_SIZE > 0;
     }
 
     /**
@@ -121,7 +121,7 @@ public class XmlTransformerCacheService implements CacheableService
     @Override
     public int getMaxElements( )
     {
-        return XmlTransformer.TRANSFORMER_POOL_SIZE * XmlTransformer.MAX_TRANSFORMER_SIZE;
+        return XmlTransformer.CACHE_MAX_SIZE;
     }
 
     /**
@@ -148,6 +148,12 @@ public class XmlTransformerCacheService implements CacheableService
     @Override
     public String getInfos( )
     {
-        return "This cache can't be disabled - Poolsize = " + XmlTransformer.TRANSFORMER_POOL_SIZE;
+        long lHits = XmlTransformer.getCacheHits( );
+        long lMisses = XmlTransformer.getCacheMisses( );
+        long lRequests = lHits + lMisses;
+        String strHitRatio = ( lRequests == 0 ) ? "-" : ( ( lHits * 100 / lRequests ) + "%" );
+
+        return "This cache can't be disabled at runtime (set " + XmlTransformer.PROPERTY_CACHE_MAX_SIZE + " to 0) - Hits = " + lHits + " - Misses = "
+                + lMisses + " - Hit ratio = " + strHitRatio + " - Compilation time : " + XmlTransformer.getCompileTimeHistogram( );
     }
 }
@@ -37,6 +37,7 @@ import java.io.ByteArrayInputStream;
 import java.io.StringReader;
 import java.util.Map;
 import java.util.Properties;
+import java.util.function.Supplier;
 
 import javax.xml.transform.Source;
 import javax.xml.transform.stream.StreamSource;
@@ -204,6 +205,42 @@ public final class XmlTransformerService
         return strContent;
     }
 
+    /**
+     * This method performs XSL transformation with cache. The XSL source is only loaded if the stylesheet is not already compiled.
+     * 
+     * @param strXml
+     *            The XML document content
+     * @param strStyleSheetId
+     *            The StyleSheet Id
+     * @param xslSourceLoader
+     *            Loader of the XSL source
+     * @param params
+     *            Parameters that can be used by the XSL StyleSheet
+     * @param outputProperties
+     *            the output parameter
+     * @return The output document
+     */
+    public String transformWithXslCache( String strXml, String strStyleSheetId, Supplier<Source> xslSourceLoader, Map<String, String> params,
+            Properties outputProperties )
+    {
+        StreamSource sourceDocument = new StreamSource( new StringReader( strXml ) );
+        String strContent = null;
+        XmlTransformer xmlTransformer = new XmlTransformer( );
+
+        try
+        {
+            _log.debug( strXml );
+            strContent = xmlTransformer.transform( sourceDocument, strStyleSheetId, xslSourceLoader, params, outputProperties );
+        }
+        catch( Exception e )
+        {
+            strContent = e.getMessage( );
+            AppLogService.error( e.getMessage( ), e );
+        }
+
+        return strContent;
+    }
+
     /**
      * This method clean XSL transformer cache
      */
@@ -59,6 +59,7 @@ import java.util.Map;
 import java.util.MissingResourceException;
 import java.util.ResourceBundle;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -83,6 +84,7 @@ public final class I18nService
     private static final String PROPERTY_PATH_OVERRIDE = "path.i18n.override";
     private static final ClassLoader _overrideLoader;
     private static final Map<String, ResourceBundle> _resourceBundleCache = Collections.synchronizedMap( new HashMap<String, ResourceBundle>( ) );
+    private static final Map<Locale, Map<String, String>> _localizedStringCache = new ConcurrentHashMap<>( );
 
     static
     {
@@ -189,6 +191,19 @@ public final class I18nService
     {
         Locale locale = theLocale;
         String strReturn = "";
+        Map<String, String> mapLocalizedStrings = null;
+
+        if ( theLocale != null && strKey != null )
+        {
+            mapLocalizedStrings = _localizedStringCache.computeIfAbsent( theLocale, l -> new ConcurrentHashMap<>( ) );
+
+            String strCached = mapLocalizedStrings.get( strKey );
+
+            if ( strCached != null )
+            {
+                return strCached;
+            }
+        }
 
         try
         {
@@ -242,6 +257,11 @@ public final class I18nService
 
                 ResourceBundle rbLabels = getResourceBundle( locale, strBundle );
                 strReturn = rbLabels.getString( strStringKey );
+
+                if ( mapLocalizedStrings != null )
+                {
+                    mapLocalizedStrings.put( strKey, strReturn );
+                }
             }
         }
         catch( Exception e )
@@ -540,5 +560,6 @@ public final class I18nService
         }
 
         _resourceBundleCache.clear( );
+        _localizedStringCache.clear( );
     }
 }
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.image;
+
+import java.io.Serializable;
+import java.util.zip.CRC32;
+
+import fr.paris.lutece.portal.service.cache.IWeighable;
+
+/**
+ * Immutable image content as served by the image servlet : the bytes, the mime type and an entity tag computed once from the content.
+ */
+final class CachedImageResource implements IWeighable, Serializable
+{
+    private static final long serialVersionUID = 2861396207459531472L;
+    private static final int WEIGHT_OVERHEAD = 160;
+
+    /** An image resource without content */
+    static final CachedImageResource EMPTY = new CachedImageResource( new byte [ 0], null );
+
+    private final byte [ ] _image;
+    private final String _strMimeType;
+    private final String _strETag;
+
+    /**
+     * Constructor
+     * 
+     * @param image
+     *            The content of the image
+     * @param strMimeType
+     *            The mime type
+     */
+    CachedImageResource( byte [ ] image, String strMimeType )
+    {
+        _image = image;
+        _strMimeType = strMimeType;
+
+        CRC32 crc = new CRC32( );
+        crc.update( image, 0, image.length );
+        _strETag = "\"" + Long.toHexString( crc.getValue( ) ) + "-" + Integer.toHexString( image.length ) + "\"";
+    }
+
+    /**
+     * Builds the cached image of an image resource
+     * 
+     * @param image
+     *            The image resource, may be null
+     * @return the cached image, {@link #EMPTY} if the resource has no content
+     */
+    static CachedImageResource of( ImageResource image )
+    {
+        if ( ( image == null ) || ( image.getImage( ) == null ) || ( image.getImage( ).length == 0 ) )
+        {
+            return EMPTY;
+        }
+
+        return new CachedImageResource( image.getImage( ), image.getMimeType( ) );
+    }
+
+    /**
+     * Returns the content of the image. The array must not be modified.
+     * 
+     * @return The content
+     */
+    byte [ ] getImage( )
+    {
+        return _image;
+    }
+
+    /**
+     * Returns the mime type
+     * 
+     * @return The mime type
+     */
+    String getMimeType( )
+    {
+        return _strMimeType;
+    }
+
+    /**
+     * Returns the strong entity tag of the content
+     * 
+     * @return The entity tag
+     */
+    String getETag( )
+    {
+        return _strETag;
+    }
+
+    /**
+     * Tells whether the image has no content
+     * 
+     * @return true if the image has no content
+     */
+    boolean isEmpty( )
+    {
+        return _image.length == 0;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int getWeight( )
+    {
+        return WEIGHT_OVERHEAD + _image.length;
+    }
+}
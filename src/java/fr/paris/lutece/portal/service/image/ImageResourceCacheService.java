@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.image;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import fr.paris.lutece.portal.business.event.EventRessourceListener;
+import fr.paris.lutece.portal.business.event.ResourceEvent;
+import fr.paris.lutece.portal.business.page.Page;
+import fr.paris.lutece.portal.service.cache.AbstractCacheableService;
+import fr.paris.lutece.portal.service.cache.CacheInvalidationService;
+import fr.paris.lutece.portal.service.event.ResourceEventManager;
+import fr.paris.lutece.portal.service.page.PageEvent;
+import fr.paris.lutece.portal.service.page.PageEventListener;
+import fr.paris.lutece.portal.service.page.PageService;
+
+/**
+ * Image Resource Cache Service. Keeps the images of the cacheable providers (see {@link ImageResourceProvider#isCacheable()}), keyed by resource type
+ * and resource id. An image is removed from the cache when its provider fires an update or a delete resource event, when
+ * {@link ImageResourceManager#notifyImageResourceChanged(String, String)} is called, or, for the page thumbnails, on each page event. Each
+ * invalidation increments a version so that an image loaded concurrently with a modification is never kept in the cache.
+ */
+public final class ImageResourceCacheService extends AbstractCacheableService implements EventRessourceListener, PageEventListener
+{
+    private static final String CACHE_SERVICE_NAME = "Image Resource Cache Service";
+    private static final String KEY_SEPARATOR = ":";
+    private final AtomicLong _lVersion = new AtomicLong( );
+
+    /**
+     * Lazy holder of the instance
+     */
+    private static final class InstanceHolder
+    {
+        private static final ImageResourceCacheService INSTANCE = new ImageResourceCacheService( );
+    }
+
+    /** Constructor */
+    private ImageResourceCacheService( )
+    {
+        initCache( );
+        ResourceEventManager.register( this );
+        PageService.addPageEventListener( this );
+    }
+
+    /**
+     * Returns the instance of the service
+     * 
+     * @return The service
+     */
+    public static ImageResourceCacheService getInstance( )
+    {
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * Gets the cache service name
+     * 
+     * @return The service name
+     */
+    @Override
+    public String getName( )
+    {
+        return CACHE_SERVICE_NAME;
+    }
+
+    /**
+     * Returns an image resource, from the cache if its provider is cacheable
+     * 
+     * @param strResourceTypeId
+     *            The resource's type ID
+     * @param nResourceId
+     *            The resource ID
+     * @return the image, {@link CachedImageResource#EMPTY} if the resource type is unknown or if the resource has no image
+     */
+    CachedImageResource getImageResource( String strResourceTypeId, int nResourceId )
+    {
+        ImageResourceProvider provider = ImageResourceManager.getProvider( strResourceTypeId );
+
+        if ( provider == null )
+        {
+            return CachedImageResource.EMPTY;
+        }
+
+        if ( !provider.isCacheable( ) )
+        {
+            return CachedImageResource.of( provider.getImageResource( nResourceId ) );
+        }
+
+        String strKey = getKey( strResourceTypeId, String.valueOf( nResourceId ) );
+
+        return getFromCache( strKey, ( ) -> loadImageResource( provider, strKey, nResourceId ) );
+    }
+
+    /**
+     * Loads an image resource and puts it in the cache unless an image has been invalidated during the load
+     * 
+     * @param provider
+     *            The provider
+     * @param strKey
+     *            The cache key
+     * @param nResourceId
+     *            The resource ID
+     * @return the image
+     */
+    private CachedImageResource loadImageResource( ImageResourceProvider provider, String strKey, int nResourceId )
+    {
+        long lVersion = _lVersion.get( );
+        CachedImageResource image = CachedImageResource.of( provider.getImageResource( nResourceId ) );
+        putInCache( strKey, image );
+
+        if ( _lVersion.get( ) != lVersion )
+        {
+            // modified during the load : the invalidation may have happened before the put
+            removeKey( strKey );
+        }
+
+        return image;
+    }
+
+    /**
+     * Removes an image from the cache and publishes the removal to the other nodes of the cluster
+     * 
+     * @param strResourceTypeId
+     *            The resource's type ID
+     * @param strResourceId
+     *            The resource ID
+     */
+    public void invalidate( String strResourceTypeId, String strResourceId )
+    {
+        String strKey = getKey( strResourceTypeId, strResourceId );
+        dropImage( strKey );
+        CacheInvalidationService.getInstance( ).publishKeyRemoval( CACHE_SERVICE_NAME, strKey );
+    }
+
+    /**
+     * Removes an image from the cache of this node
+     * 
+     * @param strKey
+     *            The cache key
+     */
+    private void dropImage( String strKey )
+    {
+        _lVersion.incrementAndGet( );
+        removeKey( strKey );
+    }
+
+    /**
+     * Returns the cache key of an image
+     * 
+     * @param strResourceTypeId
+     *            The resource's type ID
+     * @param strResourceId
+     *            The resource ID
+     * @return The key
+     */
+    private static String getKey( String strResourceTypeId, String strResourceId )
+    {
+        return strResourceTypeId + KEY_SEPARATOR + strResourceId;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void processKeyInvalidation( String strKey )
+    {
+        dropImage( strKey );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void resetCache( )
+    {
+        _lVersion.incrementAndGet( );
+        super.resetCache( );
+    }
+
+    /**
+     * {@inheritDoc }
+     * <br>
+     * The page events are already published to the other nodes : the thumbnail is only removed from the cache of this node.
+     */
+    @Override
+    public void processPageEvent( PageEvent event )
+    {
+        if ( event.getPage( ) != null )
+        {
+            dropImage( getKey( Page.IMAGE_RESOURCE_TYPE_ID, String.valueOf( event.getPage( ).getId( ) ) ) );
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void addedResource( ResourceEvent event )
+    {
+        // a new resource is not in the cache
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void updatedResource( ResourceEvent event )
+    {
+        processResourceEvent( event );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void deletedResource( ResourceEvent event )
+    {
+        processResourceEvent( event );
+    }
+
+    /**
+     * Removes the image of a modified resource if the resource type is a cacheable image resource type
+     * 
+     * @param event
+     *            The resource event
+     */
+    private void processResourceEvent( ResourceEvent event )
+    {
+        ImageResourceProvider provider = ImageResourceManager.getProvider( event.getTypeResource( ) );
+
+        if ( ( provider != null ) && provider.isCacheable( ) && ( event.getIdResource( ) != null ) )
+        {
+            invalidate( event.getTypeResource( ), event.getIdResource( ) );
+        }
+    }
+}
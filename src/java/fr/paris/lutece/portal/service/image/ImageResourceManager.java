@@ -36,8 +36,8 @@ package fr.paris.lutece.portal.service.image;
 import fr.paris.lutece.portal.service.util.AppLogService;
 import fr.paris.lutece.util.url.UrlItem;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.fileupload.FileItem;
 
@@ -47,7 +47,7 @@ import org.apache.commons.fileupload.FileItem;
 public final class ImageResourceManager
 {
     /** resource type registry */
-    private static Map<String, ImageResourceProvider> _mapResourceTypes = new HashMap<>( );
+    private static Map<String, ImageResourceProvider> _mapResourceTypes = new ConcurrentHashMap<>( );
     public static final String IMAGE_SERVLET_BASE_URL = "image";
 
     /** Private constructor */
@@ -65,6 +65,38 @@ public final class ImageResourceManager
     {
         _mapResourceTypes.put( resourceProvider.getResourceTypeId( ), resourceProvider );
         AppLogService.info( "New ImageResourceType registered : {}", resourceProvider.getClass( ).getName( ) );
+
+        if ( resourceProvider.isCacheable( ) )
+        {
+            // the cache listens to the resource events from now on
+            ImageResourceCacheService.getInstance( );
+        }
+    }
+
+    /**
+     * Returns the provider of a resource type
+     * 
+     * @param strResourceTypeId
+     *            The resource's type ID
+     * @return the provider, or null if the type is not registered
+     */
+    static ImageResourceProvider getProvider( String strResourceTypeId )
+    {
+        return ( strResourceTypeId != null ) ? _mapResourceTypes.get( strResourceTypeId ) : null;
+    }
+
+    /**
+     * Notifies that an image resource has been modified or removed, so that it is removed from the image cache of every node
+     * 
+     * @param strResourceTypeId
+     *            The resource's type ID
+     * @param strResourceId
+     *            The resource ID
+     * @since 7.0.17
+     */
+    public static void notifyImageResourceChanged( String strResourceTypeId, String strResourceId )
+    {
+        ImageResourceCacheService.getInstance( ).invalidate( strResourceTypeId, strResourceId );
     }
 
     /**
@@ -78,7 +110,7 @@ public final class ImageResourceManager
      */
     public static ImageResource getImageResource( String strResourceTypeId, int nResourceId )
     {
-        ImageResourceProvider resourceProvider = _mapResourceTypes.get( strResourceTypeId );
+        ImageResourceProvider resourceProvider = getProvider( strResourceTypeId );
 
         if ( resourceProvider != null )
         {
@@ -69,4 +69,17 @@ public interface ImageResourceProvider
 	{
 		throw new AppException( "not implemented yet" );
 	}
+
+    /**
+     * Tells whether the images of this provider can be kept in the shared image cache. A cacheable provider must not check access rights in
+     * {@link #getImageResource(int)} and must notify its modifications, either by firing resource events with its resource type or by calling
+     * {@link ImageResourceManager#notifyImageResourceChanged(String, String)}.
+     * 
+     * @return true if the images can be cached, false by default
+     * @since 7.0.17
+     */
+    default boolean isCacheable( )
+    {
+        return false;
+    }
 }
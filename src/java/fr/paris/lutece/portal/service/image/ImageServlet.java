@@ -34,11 +34,10 @@
 package fr.paris.lutece.portal.service.image;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.file.Files;
 
-import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -48,9 +47,11 @@ import fr.paris.lutece.portal.service.util.AppLogService;
 import fr.paris.lutece.portal.service.util.AppPathService;
 import fr.paris.lutece.portal.service.util.AppPropertiesService;
 import fr.paris.lutece.portal.web.LocalVariables;
+import fr.paris.lutece.portal.web.download.AbstractDownloadServlet;
 
 /**
- * Servlet serving document file resources
+ * Servlet serving document file resources. The images of the cacheable providers are served from the {@link ImageResourceCacheService}, and every
+ * image is sent with an entity tag so that the browsers revalidate their copy with a conditional request answered by a 304 status.
  */
 public class ImageServlet extends HttpServlet
 {
@@ -60,6 +61,14 @@ public class ImageServlet extends HttpServlet
     public static final String PARAMETER_ID = "id";
     private static final String PROPERTY_PATH_IMAGES = "path.images.root";
     private static final String PROPERTY_IMAGE_PAGE_DEFAULT = "image.page.default";
+    private static final String PROPERTY_CACHE_CONTROL = "image.cacheControl";
+    private static final String DEFAULT_CACHE_CONTROL = "private, no-cache";
+    private static final String HEADER_CACHE_CONTROL = "Cache-Control";
+    private static final String HEADER_ETAG = "ETag";
+    private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+
+    /** The default image and its path, read once */
+    private transient volatile DefaultImage _defaultImage;
 
     /**
      * Processes requests for both HTTP <code>GET</code> and <code>POST</code> methods.
@@ -82,60 +91,89 @@ public class ImageServlet extends HttpServlet
 
         try
         {
-            ImageResource image;
-
             if ( strResourceId != null )
             {
                 int nResourceId = Integer.parseInt( strResourceId );
-                image = ImageResourceManager.getImageResource( strResourceTypeId, nResourceId );
+                CachedImageResource image = ImageResourceCacheService.getInstance( ).getImageResource( strResourceTypeId, nResourceId );
 
-                // Test the field image value
-                if ( getImageExist( image ) )
-                {
-                    response.setContentType( image.getMimeType( ) );
-                    try ( OutputStream out = response.getOutputStream( ) )
-                    {
-                        out.write( image.getImage( ) );
-                    }
-                    catch( IOException ex )
-                    {
-                        AppLogService.error( ERROR_MSG, ex.getMessage( ), ex );
-                    }
-                }
-                else
+                if ( image.isEmpty( ) )
                 {
-                    ServletContext sc = getServletContext( );
-                    String strImageUrl = AppPathService.getAbsolutePathFromRelativePath(
-                            AppPropertiesService.getProperty( PROPERTY_PATH_IMAGES ) + "/" + AppPropertiesService.getProperty( PROPERTY_IMAGE_PAGE_DEFAULT ) ); //
-                    response.setContentType( sc.getMimeType( strImageUrl ) );
-
-                    File file = new File( strImageUrl );
-                    response.setContentLength( (int) file.length( ) );
-
-                    try ( FileInputStream in = new FileInputStream( file ) ; OutputStream out = response.getOutputStream( ) )
-                    {
-                        // Copy the contents of the file to the output stream
-                        byte [ ] buf = new byte [ 1024];
-                        int count;
-                        while ( ( count = in.read( buf ) ) >= 0 )
-                        {
-                            out.write( buf, 0, count );
-                        }
-
-                    }
-                    catch( IOException ex )
-                    {
-                        AppLogService.error( ERROR_MSG, ex.getMessage( ), ex );
-                    }
+                    image = getDefaultImage( );
                 }
+
+                sendImage( request, response, image );
             }
         }
+        catch( IOException ex )
+        {
+            AppLogService.error( ERROR_MSG, ex.getMessage( ), ex );
+        }
         finally
         {
             LocalVariables.setLocal( null, null, null );
         }
     }
 
+    /**
+     * Sends an image, or a 304 status if the image of the browser is up to date
+     * 
+     * @param request
+     *            servlet request
+     * @param response
+     *            servlet response
+     * @param image
+     *            the image
+     * @throws IOException
+     *             if the response can not be written
+     */
+    private void sendImage( HttpServletRequest request, HttpServletResponse response, CachedImageResource image ) throws IOException
+    {
+        response.setHeader( HEADER_CACHE_CONTROL, AppPropertiesService.getProperty( PROPERTY_CACHE_CONTROL, DEFAULT_CACHE_CONTROL ) );
+        response.setHeader( HEADER_ETAG, image.getETag( ) );
+
+        if ( AbstractDownloadServlet.matchesETag( request.getHeader( HEADER_IF_NONE_MATCH ), image.getETag( ) ) )
+        {
+            response.setStatus( HttpServletResponse.SC_NOT_MODIFIED );
+
+            return;
+        }
+
+        if ( image.getMimeType( ) != null )
+        {
+            response.setContentType( image.getMimeType( ) );
+        }
+
+        response.setContentLength( image.getImage( ).length );
+
+        try ( OutputStream out = response.getOutputStream( ) )
+        {
+            out.write( image.getImage( ) );
+        }
+    }
+
+    /**
+     * Returns the image sent when a resource has no image. The file is read again only if its configured path changes.
+     * 
+     * @return the default image
+     * @throws IOException
+     *             if the file can not be read
+     */
+    private CachedImageResource getDefaultImage( ) throws IOException
+    {
+        String strImagePath = AppPathService.getAbsolutePathFromRelativePath(
+                AppPropertiesService.getProperty( PROPERTY_PATH_IMAGES ) + "/" + AppPropertiesService.getProperty( PROPERTY_IMAGE_PAGE_DEFAULT ) );
+        DefaultImage defaultImage = _defaultImage;
+
+        if ( ( defaultImage == null ) || !defaultImage._strPath.equals( strImagePath ) )
+        {
+            byte [ ] content = Files.readAllBytes( new File( strImagePath ).toPath( ) );
+            defaultImage = new DefaultImage( strImagePath, new CachedImageResource( content, getServletContext( ).getMimeType( strImagePath ) ) );
+            _defaultImage = defaultImage;
+        }
+
+        return defaultImage._image;
+    }
+
     /**
      * Handles the HTTP <code>GET</code> method.
      * 
@@ -184,25 +222,25 @@ public class ImageServlet extends HttpServlet
     }
 
     /**
-     * Test the existence of an image in the base. If the size of the contents of the field is null or lower or equal 1, nImageLength is with false, otherwise
-     * it's true
-     * 
-     * @param image
-     *            The Resource Image
-     * @return true if images exist, otherwise return false
+     * The default image and the path it has been read from
      */
-    private boolean getImageExist( ImageResource image )
+    private static final class DefaultImage
     {
-        if ( image != null && image.getImage( ) != null )
+        private final String _strPath;
+        private final CachedImageResource _image;
+
+        /**
+         * Constructor
+         * 
+         * @param strPath
+         *            the path of the file
+         * @param image
+         *            the image
+         */
+        DefaultImage( String strPath, CachedImageResource image )
         {
-            int nImageLength = image.getImage( ).length;
-
-            if ( nImageLength >= 1 )
-            {
-                return true;
-            }
+            _strPath = strPath;
+            _image = image;
         }
-
-        return false;
     }
 }
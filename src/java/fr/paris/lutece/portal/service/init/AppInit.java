@@ -48,6 +48,7 @@ import fr.paris.lutece.portal.service.admin.AdminAuthenticationService;
 import fr.paris.lutece.portal.service.admin.AdminUserService;
 import fr.paris.lutece.portal.service.content.ContentPostProcessorService;
 import fr.paris.lutece.portal.service.content.ContentService;
+import fr.paris.lutece.portal.service.cache.CacheInvalidationService;
 import fr.paris.lutece.portal.service.daemon.AppDaemonService;
 import fr.paris.lutece.portal.service.database.AppConnectionService;
 import fr.paris.lutece.portal.service.datastore.CoreDataKeys;
@@ -57,8 +58,10 @@ import fr.paris.lutece.portal.service.filter.FilterService;
 import fr.paris.lutece.portal.service.html.XmlTransformerCacheService;
 import fr.paris.lutece.portal.service.i18n.I18nService;
 import fr.paris.lutece.portal.service.mailinglist.AdminMailingListService;
+import fr.paris.lutece.portal.service.metrics.MetricsService;
 import fr.paris.lutece.portal.service.plugin.PluginService;
 import fr.paris.lutece.portal.service.portal.PortalService;
+import fr.paris.lutece.portal.service.portlet.PortletStyleSheetCacheService;
 import fr.paris.lutece.portal.service.search.IndexationService;
 import fr.paris.lutece.portal.service.security.SecurityService;
 import fr.paris.lutece.portal.service.servlet.ServletService;
@@ -148,6 +151,9 @@ public final class AppInit
 
             AppLogService.info( " {} {} {} ...\n", AppInfo.LUTECE_BANNER_VERSION, "Starting  version", AppInfo.getVersion( ) );
 
+            // Request metrics, before the first timed sections
+            MetricsService.init( );
+
             // BeanUtil initialization, considering Lutèce availables locales and date
             // format properties
             BeanUtil.init( );
@@ -168,6 +174,7 @@ public final class AppInit
 
             // XmlTransformer service cache manager
             XmlTransformerCacheService.init( );
+            PortletStyleSheetCacheService.getInstance( ).initCache( );
 
             AdminMailingListService.init( );
 
@@ -220,6 +227,9 @@ public final class AppInit
             // Start datastore's cache after all processes that may use Datastore
             DatastoreService.startCache( );
 
+            // Start the cache invalidation bus once all the caches are registered
+            CacheInvalidationService.getInstance( ).init( );
+
             long lEnd = System.currentTimeMillis( );
             long lTime = 1 + ( lEnd - lStart ) / 1000;
 
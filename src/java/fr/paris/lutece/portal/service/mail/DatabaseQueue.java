@@ -36,6 +36,9 @@ package fr.paris.lutece.portal.service.mail;
 import fr.paris.lutece.portal.business.mail.MailItemQueue;
 import fr.paris.lutece.portal.business.mail.MailItemQueueHome;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * DatabaseQueue
  */
@@ -48,31 +51,68 @@ public class DatabaseQueue implements IMailQueue
      *            The mail item to add to the queue
      */
     @Override
-    public synchronized void send( MailItem item )
+    public void send( MailItem item )
     {
         MailItemQueue mailQueue = new MailItemQueue( );
         mailQueue.setMailItem( item );
         MailItemQueueHome.create( mailQueue );
     }
 
+    /**
+     * Put several mail items into the database queue within a single transaction
+     * 
+     * @param listItems
+     *            The mail items to add to the queue
+     */
+    @Override
+    public void send( List<MailItem> listItems )
+    {
+        List<MailItemQueue> listMailQueues = new ArrayList<>( listItems.size( ) );
+
+        for ( MailItem item : listItems )
+        {
+            MailItemQueue mailQueue = new MailItemQueue( );
+            mailQueue.setMailItem( item );
+            listMailQueues.add( mailQueue );
+        }
+
+        MailItemQueueHome.create( listMailQueues );
+    }
+
     /**
      * Get a mail item from the database queue and remove it from the queue
      * 
      * @return The older mail item of the queue
      */
     @Override
-    public synchronized MailItem consume( )
+    public MailItem consume( )
     {
-        MailItemQueue mailItemQueue = MailItemQueueHome.getNextMailItemQueue( );
+        List<MailItem> listMailItems = consume( 1 );
 
-        if ( mailItemQueue != null )
-        {
-            MailItemQueueHome.delete( mailItemQueue.getIdMailItemQueue( ) );
+        return listMailItems.isEmpty( ) ? null : listMailItems.get( 0 );
+    }
+
+    /**
+     * Claim up to nCount mail items from the database queue and remove them from the queue. The items are claimed in one statement and deleted in bulk.
+     * 
+     * @param nCount
+     *            The maximum number of mail items to get
+     * @return The older mail items of the queue
+     */
+    @Override
+    public List<MailItem> consume( int nCount )
+    {
+        List<MailItem> listMailItems = new ArrayList<>( );
 
-            return mailItemQueue.getMailItem( );
+        for ( MailItemQueue mailItemQueue : MailItemQueueHome.getNextMailItemQueues( nCount ) )
+        {
+            if ( mailItemQueue.getMailItem( ) != null )
+            {
+                listMailItems.add( mailItemQueue.getMailItem( ) );
+            }
         }
 
-        return null;
+        return listMailItems;
     }
 
     /**
@@ -33,6 +33,9 @@
  */
 package fr.paris.lutece.portal.service.mail;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * IMailQueue interface
  */
@@ -45,6 +48,26 @@ public interface IMailQueue
      */
     MailItem consume( );
 
+    /**
+     * Get up to nCount mail items from the list and remove them from the queue
+     * 
+     * @param nCount
+     *            The maximum number of mail items to get
+     * @return The older mail items of the queue, oldest first. An empty list if the queue is empty
+     */
+    default List<MailItem> consume( int nCount )
+    {
+        List<MailItem> listMailItems = new ArrayList<>( );
+        MailItem item;
+
+        while ( listMailItems.size( ) < nCount && ( item = consume( ) ) != null )
+        {
+            listMailItems.add( item );
+        }
+
+        return listMailItems;
+    }
+
     /**
      * Put a mail item into the list of the queue
      * 
@@ -53,6 +76,20 @@ public interface IMailQueue
      */
     void send( MailItem item );
 
+    /**
+     * Put several mail items into the list of the queue
+     * 
+     * @param listItems
+     *            The mail items to add to the queue
+     */
+    default void send( List<MailItem> listItems )
+    {
+        for ( MailItem item : listItems )
+        {
+            send( item );
+        }
+    }
+
     /**
      *
      * @return the number of mail item present in the queue
@@ -38,12 +38,18 @@ import fr.paris.lutece.portal.service.daemon.Daemon;
 import fr.paris.lutece.portal.service.util.AppLogService;
 import fr.paris.lutece.portal.service.util.AppPropertiesService;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.mail.MessagingException;
-import javax.mail.NoSuchProviderException;
 import javax.mail.SendFailedException;
 import javax.mail.Session;
 import javax.mail.Transport;
@@ -70,7 +76,11 @@ public class MailSenderDaemon extends Daemon
     private static final String PROPERTY_MAIL_PASSWORD = "mail.password";
     private static final String PROPERTY_MAIL_DAEMON_RETRYONERROR_WAITTIME = "mail.daemon.retryonerror.waittime";
     private static final String PROPERTY_MAIL_DAEMON_RETRYONERROR_WAITTIME_UNIT = "mail.daemon.retryonerror.waittime.unit";
+    private static final String PROPERTY_MAIL_DAEMON_BATCH_SIZE = "mail.daemon.batchSize";
+    private static final String PROPERTY_MAIL_DAEMON_TRANSPORT_POOL_SIZE = "mail.daemon.transport.poolSize";
     private static final int DEFAULT_SMTP_PORT = 25;
+    private static final int DEFAULT_BATCH_SIZE = 50;
+    private static final String THREAD_NAME_MAIL_SENDER = "Lutece-MailSender-";
 
     /**
      * {@inheritDoc}
@@ -94,39 +104,32 @@ public class MailSenderDaemon extends Daemon
             sbLogs.append( new Date( ).toString( ) );
 
             Session session = MailUtil.getMailSession( strHost, nStmpPort, strUsername, strPassword );
-            Transport transportSmtp = null;
+            int nPoolSize = Math.max( 1, AppPropertiesService.getPropertyInt( PROPERTY_MAIL_DAEMON_TRANSPORT_POOL_SIZE, 1 ) );
 
-            try
+            try ( SmtpTransportPool pool = new SmtpTransportPool( session, strHost, nStmpPort, strUsername, strPassword, nPoolSize ) )
             {
-                transportSmtp = MailUtil.getTransport( session );
+                // connect a first transport before claiming any mail from the queue
+                pool.release( pool.borrow( ) );
+
+                sendMails( pool, nPoolSize, session, queue, logger, sbLogs );
             }
-            catch( NoSuchProviderException e )
+            catch( MessagingException e )
             {
-                AppLogService.error( e.getMessage( ), e );
+                sbLogs.append( MESSAGE_ERROR_MAIL_MESSAGING );
+                sbLogs.append( e.getMessage( ) );
+                AppLogService.error( "{} {} ", MESSAGE_ERROR_MAIL_MESSAGING, e.getMessage( ), e );
             }
-
-            if ( transportSmtp != null )
+            catch( InterruptedException e )
             {
-                try
-                {
-                    transportSmtp.connect( strHost, nStmpPort, strUsername, strPassword );
-
-                    sendMails( transportSmtp, session, queue, logger, sbLogs );
-
-                    transportSmtp.close( );
-                }
-                catch( MessagingException e )
-                {
-                    sbLogs.append( MESSAGE_ERROR_MAIL_MESSAGING );
-                    sbLogs.append( e.getMessage( ) );
-                    AppLogService.error( "{} {} ", MESSAGE_ERROR_MAIL_MESSAGING, e.getMessage( ), e );
-                }
-                catch( Exception e )
-                {
-                    sbLogs.append( MESSAGE_ERROR_MAIL );
-                    sbLogs.append( e.getMessage( ) );
-                    AppLogService.error( "{} {} ", MESSAGE_ERROR_MAIL, e.getMessage( ), e );
-                }
+                Thread.currentThread( ).interrupt( );
+                sbLogs.append( MESSAGE_ERROR_MAIL );
+                sbLogs.append( e.getMessage( ) );
+            }
+            catch( Exception e )
+            {
+                sbLogs.append( MESSAGE_ERROR_MAIL );
+                sbLogs.append( e.getMessage( ) );
+                AppLogService.error( "{} {} ", MESSAGE_ERROR_MAIL, e.getMessage( ), e );
             }
 
             // reset all resource stored in MailAttachmentCacheService
@@ -141,65 +144,278 @@ public class MailSenderDaemon extends Daemon
         }
     }
 
-    private void sendMails( Transport transportSmtp, Session session, IMailQueue queue, Logger logger, StringBuilder sbLogs ) throws MessagingException
+    /**
+     * Send the mails of the queue. The mails are claimed from the queue by batches and each batch is sent in parallel over the transports of the pool.
+     * 
+     * @param pool
+     *            the SMTP transport pool
+     * @param nPoolSize
+     *            the size of the pool
+     * @param session
+     *            the SMTP session
+     * @param queue
+     *            the mail queue
+     * @param logger
+     *            the mail logger
+     * @param sbLogs
+     *            the daemon logs
+     */
+    private void sendMails( SmtpTransportPool pool, int nPoolSize, Session session, IMailQueue queue, Logger logger, StringBuilder sbLogs )
     {
         int nWaitTime = AppPropertiesService.getPropertyInt( PROPERTY_MAIL_DEAMON_WAITTIME, 1 );
         int nCount = AppPropertiesService.getPropertyInt( PROPERTY_MAIL_DEAMON_COUNT, 1000 );
+        int nBatchSize = Math.max( 1, AppPropertiesService.getPropertyInt( PROPERTY_MAIL_DAEMON_BATCH_SIZE, DEFAULT_BATCH_SIZE ) );
         long nRetryWaitTime = AppPropertiesService.getPropertyLong( PROPERTY_MAIL_DAEMON_RETRYONERROR_WAITTIME, 60L );
         TimeUnit retryWaitTimeUnit = TimeUnit.valueOf( AppPropertiesService.getProperty( PROPERTY_MAIL_DAEMON_RETRYONERROR_WAITTIME_UNIT, "SECONDS" ) );
 
-        MailItem mail = queue.consume( );
+        ExecutorService executor = null;
+
+        if ( nPoolSize > 1 )
+        {
+            AtomicInteger nThreadCount = new AtomicInteger( );
+            executor = Executors.newFixedThreadPool( nPoolSize, runnable -> {
+                Thread thread = new Thread( runnable, THREAD_NAME_MAIL_SENDER + nThreadCount.incrementAndGet( ) );
+                thread.setDaemon( true );
+
+                return thread;
+            } );
+        }
+
+        AtomicBoolean bConnectionFailed = new AtomicBoolean( );
         int count = 0;
 
-        while ( mail != null )
+        try
         {
-            try
+            List<MailItem> listMails = queue.consume( Math.min( nBatchSize, nCount ) );
+
+            while ( !listMails.isEmpty( ) )
             {
-                if ( mail.isUniqueRecipientTo( ) )
+                for ( String strLogs : sendBatch( listMails, pool, executor, session, queue, logger, bConnectionFailed ) )
                 {
-                    List<String> listAdressTo = MailUtil.getAllStringAdressOfRecipients( mail.getRecipientsTo( ) );
-
-                    for ( String strAdressTo : listAdressTo )
-                    {
-                        StringBuilder sbLogsLine = new StringBuilder( );
-                        // just one recipient by mail
-                        mail.setRecipientsTo( strAdressTo );
-                        sendMail( mail, transportSmtp, session, sbLogsLine );
-                        logger.info( sbLogsLine.toString( ) );
-                        sbLogs.append( "\r\n" );
-                        sbLogs.append( sbLogsLine );
-                    }
+                    sbLogs.append( strLogs );
                 }
-                else
+
+                if ( bConnectionFailed.get( ) )
+                {
+                    AppDaemonService.signalDaemon( DAEMON_ID, nRetryWaitTime, retryWaitTimeUnit );
+                    break;
+                }
+
+                count += listMails.size( );
+
+                if ( count >= nCount )
+                {
+                    // Tempo
+                    AppDaemonService.signalDaemon( DAEMON_ID, nWaitTime, TimeUnit.MILLISECONDS );
+                    break;
+                }
+
+                listMails = queue.consume( Math.min( nBatchSize, nCount - count ) );
+            }
+        }
+        finally
+        {
+            if ( executor != null )
+            {
+                executor.shutdownNow( );
+            }
+        }
+    }
+
+    /**
+     * Send a batch of mails, in parallel if an executor is given
+     * 
+     * @param listMails
+     *            the mails
+     * @param pool
+     *            the SMTP transport pool
+     * @param executor
+     *            the executor, or null to send the mails in the current thread
+     * @param session
+     *            the SMTP session
+     * @param queue
+     *            the mail queue
+     * @param logger
+     *            the mail logger
+     * @param bConnectionFailed
+     *            the flag set when a mail can not be sent because of the SMTP connection or an unexpected error
+     * @return the logs of each mail, in the order of the batch
+     */
+    private List<String> sendBatch( List<MailItem> listMails, SmtpTransportPool pool, ExecutorService executor, Session session, IMailQueue queue,
+            Logger logger, AtomicBoolean bConnectionFailed )
+    {
+        List<String> listLogs = new ArrayList<>( listMails.size( ) );
+
+        if ( executor == null )
+        {
+            for ( MailItem mail : listMails )
+            {
+                listLogs.add( sendQueuedMail( mail, pool, session, queue, logger, bConnectionFailed ) );
+            }
+
+            return listLogs;
+        }
+
+        List<Future<String>> listFutures = new ArrayList<>( listMails.size( ) );
+        List<AtomicBoolean> listClaims = new ArrayList<>( listMails.size( ) );
+
+        for ( MailItem mail : listMails )
+        {
+            // the mail is owned either by its task, if it starts, or by the batch that puts it back into the queue
+            AtomicBoolean bClaimed = new AtomicBoolean( );
+            listClaims.add( bClaimed );
+            listFutures.add( executor.submit( ( ) -> bClaimed.compareAndSet( false, true )
+                    ? sendQueuedMail( mail, pool, session, queue, logger, bConnectionFailed )
+                    : "" ) );
+        }
+
+        for ( int i = 0; i < listFutures.size( ); i++ )
+        {
+            try
+            {
+                listLogs.add( listFutures.get( i ).get( ) );
+            }
+            catch( ExecutionException e )
+            {
+                // the task failed without handling its mail
+                bConnectionFailed.set( true );
+                queue.send( listMails.get( i ) );
+                AppLogService.error( "{} {} ", MESSAGE_ERROR_MAIL, e.getMessage( ), e );
+            }
+            catch( InterruptedException e )
+            {
+                Thread.currentThread( ).interrupt( );
+                bConnectionFailed.set( true );
+                requeueNotStarted( listMails, listClaims, i, queue );
+                break;
+            }
+        }
+
+        return listLogs;
+    }
+
+    /**
+     * Puts back into the queue the mails of a batch which tasks have not started, so that they are not lost when the executor is shut down
+     * 
+     * @param listMails
+     *            the mails of the batch
+     * @param listClaims
+     *            the claims of the mails by their tasks
+     * @param nFrom
+     *            the index of the first mail to check
+     * @param queue
+     *            the mail queue
+     */
+    private void requeueNotStarted( List<MailItem> listMails, List<AtomicBoolean> listClaims, int nFrom, IMailQueue queue )
+    {
+        for ( int i = nFrom; i < listMails.size( ); i++ )
+        {
+            if ( listClaims.get( i ).compareAndSet( false, true ) )
+            {
+                queue.send( listMails.get( i ) );
+            }
+        }
+    }
+
+    /**
+     * Send a mail claimed from the queue over a transport of the pool. The mail is put back into the queue if the SMTP connection fails or if an unexpected
+     * error occurs, and the retry of the daemon is scheduled.
+     * 
+     * @param mail
+     *            the mail item
+     * @param pool
+     *            the SMTP transport pool
+     * @param session
+     *            the SMTP session
+     * @param queue
+     *            the mail queue
+     * @param logger
+     *            the mail logger
+     * @param bConnectionFailed
+     *            the flag set when a mail can not be sent because of the SMTP connection or an unexpected error
+     * @return the logs of the mail
+     */
+    String sendQueuedMail( MailItem mail, SmtpTransportPool pool, Session session, IMailQueue queue, Logger logger, AtomicBoolean bConnectionFailed )
+    {
+        StringBuilder sbLogs = new StringBuilder( );
+
+        if ( bConnectionFailed.get( ) )
+        {
+            // a previous mail failed because of the connection : keep this one for the retry
+            queue.send( mail );
+
+            return sbLogs.toString( );
+        }
+
+        Transport transportSmtp = null;
+        boolean bTransportValid = true;
+
+        try
+        {
+            transportSmtp = pool.borrow( );
+
+            if ( mail.isUniqueRecipientTo( ) )
+            {
+                List<String> listAdressTo = MailUtil.getAllStringAdressOfRecipients( mail.getRecipientsTo( ) );
+
+                for ( String strAdressTo : listAdressTo )
                 {
                     StringBuilder sbLogsLine = new StringBuilder( );
+                    // just one recipient by mail
+                    mail.setRecipientsTo( strAdressTo );
                     sendMail( mail, transportSmtp, session, sbLogsLine );
                     logger.info( sbLogsLine.toString( ) );
                     sbLogs.append( "\r\n" );
                     sbLogs.append( sbLogsLine );
                 }
             }
-            catch( MessagingException e )
+            else
             {
-                // if the connection is dead or not in the connected state
-                // we put the mail in the queue before end process
-                queue.send( mail );
-                AppLogService.error( "Error while sending a message. Will schedule a retry", e );
-                AppDaemonService.signalDaemon( DAEMON_ID, nRetryWaitTime, retryWaitTimeUnit );
-                break;
+                StringBuilder sbLogsLine = new StringBuilder( );
+                sendMail( mail, transportSmtp, session, sbLogsLine );
+                logger.info( sbLogsLine.toString( ) );
+                sbLogs.append( "\r\n" );
+                sbLogs.append( sbLogsLine );
             }
-
-            mail = queue.consume( );
-            // Tempo
-            count++;
-
-            if ( ( count % nCount ) == 0 )
+        }
+        catch( MessagingException e )
+        {
+            // if the connection is dead or not in the connected state
+            // we put the mail in the queue before end process
+            bTransportValid = false;
+            bConnectionFailed.set( true );
+            queue.send( mail );
+            AppLogService.error( "Error while sending a message. Will schedule a retry", e );
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+            bConnectionFailed.set( true );
+            queue.send( mail );
+        }
+        catch( RuntimeException e )
+        {
+            // the mail has been removed from the queue : keep it for the retry instead of losing it
+            bConnectionFailed.set( true );
+            queue.send( mail );
+            AppLogService.error( "Unexpected error while sending a message. Will schedule a retry : {}", e.getMessage( ), e );
+        }
+        finally
+        {
+            if ( transportSmtp != null )
             {
-                transportSmtp.close( );
-                AppDaemonService.signalDaemon( DAEMON_ID, nWaitTime, TimeUnit.MILLISECONDS );
-                break;
+                if ( bTransportValid )
+                {
+                    pool.release( transportSmtp );
+                }
+                else
+                {
+                    pool.invalidate( transportSmtp );
+                }
             }
         }
+
+        return sbLogs.toString( );
     }
 
     /**
@@ -71,6 +71,22 @@ public final class MailService
         AppDaemonService.signalDaemon( MailSenderDaemon.DAEMON_ID );
     }
 
+    /**
+     * Enqueues several mail items to be sent at once. The mail sender daemon is signaled once for all of them.
+     * 
+     * @param listItems
+     *            the mail items to enqueue
+     * @since 7.0.17
+     */
+    public static void sendMails( List<MailItem> listItems )
+    {
+        if ( !listItems.isEmpty( ) )
+        {
+            getQueue( ).send( listItems );
+            AppDaemonService.signalDaemon( MailSenderDaemon.DAEMON_ID );
+        }
+    }
+
     /**
      * Send a HTML message asynchronously. The message is queued until a daemon thread send all awaiting messages
      *
@@ -59,6 +59,21 @@ public class MemoryQueue implements IMailQueue
         }
     }
 
+    /**
+     * Put several mail items into the list of the queue
+     * 
+     * @param listItems
+     *            The mail items to add to the queue
+     */
+    @Override
+    public void send( List<MailItem> listItems )
+    {
+        synchronized( _listMails )
+        {
+            _listMails.addAll( listItems );
+        }
+    }
+
     /**
      * Get a mail item from the list and remove it from the queue
      * 
@@ -80,6 +95,22 @@ public class MemoryQueue implements IMailQueue
         return item;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<MailItem> consume( int nCount )
+    {
+        synchronized( _listMails )
+        {
+            List<MailItem> listHead = _listMails.subList( 0, Math.min( nCount, _listMails.size( ) ) );
+            List<MailItem> listMailItems = new ArrayList<>( listHead );
+            listHead.clear( );
+
+            return listMailItems;
+        }
+    }
+
     /**
      * get the MemoryQueue size
      * 
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.mail;
+
+import fr.paris.lutece.portal.service.util.AppLogService;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+
+/**
+ * Bounded pool of connected SMTP transports. A transport is not thread safe, so each sending thread borrows its own transport and gives it back once the
+ * message is sent. Transports are connected lazily, up to the size of the pool.
+ */
+final class SmtpTransportPool implements AutoCloseable
+{
+    private final Session _session;
+    private final String _strHost;
+    private final int _nPort;
+    private final String _strUsername;
+    private final String _strPassword;
+    private final BlockingQueue<Transport> _queueIdle = new LinkedBlockingQueue<>( );
+    private final Semaphore _semaphore;
+
+    /**
+     * Constructor
+     * 
+     * @param session
+     *            the SMTP session
+     * @param strHost
+     *            the SMTP host
+     * @param nPort
+     *            the SMTP port
+     * @param strUsername
+     *            the username, may be null
+     * @param strPassword
+     *            the password, may be null
+     * @param nSize
+     *            the maximum number of connected transports
+     */
+    SmtpTransportPool( Session session, String strHost, int nPort, String strUsername, String strPassword, int nSize )
+    {
+        _session = session;
+        _strHost = strHost;
+        _nPort = nPort;
+        _strUsername = strUsername;
+        _strPassword = strPassword;
+        _semaphore = new Semaphore( Math.max( 1, nSize ) );
+    }
+
+    /**
+     * Borrow a connected transport, waiting for one to be released if all the transports of the pool are in use
+     * 
+     * @return the transport
+     * @throws MessagingException
+     *             if a new transport can not be connected
+     * @throws InterruptedException
+     *             if the thread is interrupted while waiting
+     */
+    Transport borrow( ) throws MessagingException, InterruptedException
+    {
+        _semaphore.acquire( );
+
+        try
+        {
+            Transport transport;
+
+            while ( ( transport = _queueIdle.poll( ) ) != null )
+            {
+                if ( transport.isConnected( ) )
+                {
+                    return transport;
+                }
+
+                closeQuietly( transport );
+            }
+
+            transport = MailUtil.getTransport( _session );
+            transport.connect( _strHost, _nPort, _strUsername, _strPassword );
+
+            return transport;
+        }
+        catch( MessagingException | RuntimeException e )
+        {
+            _semaphore.release( );
+            throw e;
+        }
+    }
+
+    /**
+     * Give back a transport to the pool
+     * 
+     * @param transport
+     *            the transport
+     */
+    void release( Transport transport )
+    {
+        _queueIdle.offer( transport );
+        _semaphore.release( );
+    }
+
+    /**
+     * Close a transport whose connection failed instead of giving it back to the pool
+     * 
+     * @param transport
+     *            the transport
+     */
+    void invalidate( Transport transport )
+    {
+        closeQuietly( transport );
+        _semaphore.release( );
+    }
+
+    /**
+     * Close all the idle transports
+     */
+    @Override
+    public void close( )
+    {
+        Transport transport;
+
+        while ( ( transport = _queueIdle.poll( ) ) != null )
+        {
+            closeQuietly( transport );
+        }
+    }
+
+    /**
+     * Close a transport, logging errors
+     * 
+     * @param transport
+     *            the transport
+     */
+    private static void closeQuietly( Transport transport )
+    {
+        try
+        {
+            transport.close( );
+        }
+        catch( MessagingException e )
+        {
+            AppLogService.error( "Error closing SMTP transport : {}", e.getMessage( ), e );
+        }
+    }
+}
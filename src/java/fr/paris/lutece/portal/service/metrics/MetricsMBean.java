@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.metrics;
+
+/**
+ * JMX management interface of the request metrics
+ */
+public interface MetricsMBean
+{
+    /**
+     * Tells whether the timing of the instrumented sections is enabled
+     * 
+     * @return true if enabled
+     */
+    boolean isEnabled( );
+
+    /**
+     * Enables or disables the timing of the instrumented sections
+     * 
+     * @param bEnabled
+     *            true to enable
+     */
+    void setEnabled( boolean bEnabled );
+
+    /**
+     * Returns the names of the registered histograms
+     * 
+     * @return The names
+     */
+    String [ ] getHistogramNames( );
+
+    /**
+     * Returns a summary of all the registered histograms, one per line
+     * 
+     * @return The summaries
+     */
+    String [ ] getHistograms( );
+
+    /**
+     * Returns a percentile of an histogram
+     * 
+     * @param strName
+     *            The histogram name
+     * @param dPercentile
+     *            The percentile between 0 and 100
+     * @return The percentile in microseconds or -1 if the histogram doesn't exist
+     */
+    long getPercentileMicros( String strName, double dPercentile );
+
+    /**
+     * Returns the summaries of the rate limiters : limit, allowed and rejected requests
+     * 
+     * @return The summaries
+     * @since 7.0.17
+     */
+    String [ ] getRateLimiters( );
+
+    /**
+     * Resets all the histograms and the counts of the rate limiters
+     */
+    void reset( );
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+import fr.paris.lutece.util.metrics.LatencyHistogram;
+import fr.paris.lutece.util.metrics.MetricsRegistry;
+import fr.paris.lutece.util.ratelimit.RateLimiter;
+import fr.paris.lutece.util.ratelimit.RateLimiterRegistry;
+
+/**
+ * Request metrics service : initializes the {@link MetricsRegistry} from the properties and exposes it through JMX
+ */
+public final class MetricsService implements MetricsMBean
+{
+    /** The JMX name of the metrics */
+    public static final String OBJECT_NAME = "fr.paris.lutece:type=Metrics";
+
+    private static final String PROPERTY_ENABLED = "lutece.metrics.enabled";
+    private static final String PROPERTY_JMX_ENABLED = "lutece.metrics.jmx.enabled";
+    private static MetricsService _singleton = new MetricsService( );
+
+    /**
+     * Private constructor
+     */
+    private MetricsService( )
+    {
+    }
+
+    /**
+     * Returns the unique instance
+     * 
+     * @return The instance
+     */
+    public static MetricsService getInstance( )
+    {
+        return _singleton;
+    }
+
+    /**
+     * Initializes the metrics
+     */
+    public static void init( )
+    {
+        MetricsRegistry.setEnabled( AppPropertiesService.getPropertyBoolean( PROPERTY_ENABLED, false ) );
+
+        if ( AppPropertiesService.getPropertyBoolean( PROPERTY_JMX_ENABLED, true ) )
+        {
+            registerMBean( );
+        }
+
+        AppLogService.info( "Request metrics initialized - timing enabled : {}", MetricsRegistry.isEnabled( ) );
+    }
+
+    /**
+     * Registers the metrics MBean in the platform MBean server
+     */
+    private static void registerMBean( )
+    {
+        try
+        {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer( );
+            ObjectName name = new ObjectName( OBJECT_NAME );
+
+            if ( !mBeanServer.isRegistered( name ) )
+            {
+                mBeanServer.registerMBean( _singleton, name );
+            }
+        }
+        catch( JMException e )
+        {
+            AppLogService.error( "Unable to register the metrics MBean : {}", e.getMessage( ), e );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEnabled( )
+    {
+        return MetricsRegistry.isEnabled( );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setEnabled( boolean bEnabled )
+    {
+        MetricsRegistry.setEnabled( bEnabled );
+        AppLogService.info( "Request metrics timing enabled : {}", bEnabled );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String [ ] getHistogramNames( )
+    {
+        List<LatencyHistogram> listHistograms = MetricsRegistry.getHistograms( );
+        String [ ] names = new String [ listHistograms.size( )];
+
+        for ( int i = 0; i < names.length; i++ )
+        {
+            names [i] = listHistograms.get( i ).getName( );
+        }
+
+        return names;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String [ ] getHistograms( )
+    {
+        List<LatencyHistogram> listHistograms = MetricsRegistry.getHistograms( );
+        String [ ] summaries = new String [ listHistograms.size( )];
+
+        for ( int i = 0; i < summaries.length; i++ )
+        {
+            summaries [i] = listHistograms.get( i ).toString( );
+        }
+
+        return summaries;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getPercentileMicros( String strName, double dPercentile )
+    {
+        for ( LatencyHistogram histogram : MetricsRegistry.getHistograms( ) )
+        {
+            if ( histogram.getName( ).equals( strName ) )
+            {
+                return histogram.getPercentile( dPercentile, TimeUnit.MICROSECONDS );
+            }
+        }
+
+        return -1L;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String [ ] getRateLimiters( )
+    {
+        List<RateLimiter> listLimiters = RateLimiterRegistry.getRateLimiters( );
+        String [ ] summaries = new String [ listLimiters.size( )];
+
+        for ( int i = 0; i < summaries.length; i++ )
+        {
+            summaries [i] = listLimiters.get( i ).toString( );
+        }
+
+        return summaries;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset( )
+    {
+        MetricsRegistry.reset( );
+        RateLimiterRegistry.resetCounts( );
+    }
+}
@@ -33,11 +33,8 @@
  */
 package fr.paris.lutece.portal.service.page;
 
-import java.util.concurrent.ConcurrentHashMap;
-
 import fr.paris.lutece.portal.service.cache.AbstractCacheableService;
 import fr.paris.lutece.portal.service.util.AppException;
-import net.sf.ehcache.Ehcache;
 import net.sf.ehcache.Element;
 
 /**
@@ -46,9 +43,7 @@ import net.sf.ehcache.Element;
 public class PageCacheService extends AbstractCacheableService
 {
     private static final String SERVICE_NAME = "Page Cache Service";
-
-    // Performance patch
-    private static ConcurrentHashMap<String, String> _keyMemory = new ConcurrentHashMap<>( );
+    private static final String CACHE_PAGE_PREFIX = "page:";
 
     /**
      * {@inheritDoc }
@@ -59,81 +54,29 @@ public class PageCacheService extends AbstractCacheableService
     }
 
     /**
-     * Get a memory key
+     * Returns the tag of the cached contents of a page
      * 
-     * @param strKey
-     *            The key
-     * @return The key
-     */
-    String getKey( String strKey )
-    {
-        String keyInMemory = _keyMemory.putIfAbsent( strKey, strKey );
-
-        if ( keyInMemory != null )
-        {
-            return keyInMemory;
-        }
-
-        return strKey;
-    }
-
-    /**
-     * @see net.sf.ehcache.event.CacheEventListener#notifyElementEvicted(net.sf.ehcache.Ehcache, net.sf.ehcache.Element)
-     * @param cache
-     *            The Ehcache object
-     * @param element
-     *            The Element object
+     * @param strIdPage
+     *            The page id
+     * @return The tag
      */
-    @Override
-    public void notifyElementEvicted( Ehcache cache, Element element )
+    static String getTag( String strIdPage )
     {
-        removeKeyFromMap( element );
-    }
-
-    /**
-     * @see net.sf.ehcache.event.CacheEventListener#notifyElementExpired(net.sf.ehcache.Ehcache, net.sf.ehcache.Element)
-     * @param cache
-     *            The Ehcache object
-     * @param element
-     *            The Element object
-     */
-    @Override
-    public void notifyElementExpired( Ehcache cache, Element element )
-    {
-        removeKeyFromMap( element );
-    }
-
-    /**
-     * @see net.sf.ehcache.event.CacheEventListener#notifyElementRemoved(net.sf.ehcache.Ehcache, net.sf.ehcache.Element)
-     * @param cache
-     *            The Ehcache object
-     * @param element
-     *            The Element object
-     */
-    @Override
-    public void notifyElementRemoved( Ehcache cache, Element element )
-    {
-        removeKeyFromMap( element );
-    }
-
-    /**
-     * @see net.sf.ehcache.event.CacheEventListener#notifyRemoveAll(net.sf.ehcache.Ehcache)
-     * @param cache
-     *            The Ehcache object
-     */
-    @Override
-    public void notifyRemoveAll( Ehcache cache )
-    {
-        _keyMemory.clear( );
+        return CACHE_PAGE_PREFIX + strIdPage;
     }
 
     /**
+     * Formerly removed the key from the keys memory used to synchronize the generation of the pages.
+     * 
      * @param element
      *            The Element object
+     * @deprecated the generation of the pages is coordinated by {@link #getFromCache(String, fr.paris.lutece.portal.service.cache.SingleFlightLoader.Loader)}
+     *             which doesn't need any keys memory
      */
+    @Deprecated
     public void removeKeyFromMap( Element element )
     {
-        _keyMemory.remove( (String) element.getKey( ) );
+        // Nothing to do
     }
 
     /**
@@ -33,9 +33,11 @@
  */
 package fr.paris.lutece.portal.service.page;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.List;
@@ -43,9 +45,13 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.fileupload.FileItem;
@@ -58,8 +64,11 @@ import fr.paris.lutece.portal.business.portlet.Portlet;
 import fr.paris.lutece.portal.business.portlet.PortletRoleRemovalListener;
 import fr.paris.lutece.portal.business.portlet.PortletType;
 import fr.paris.lutece.portal.business.style.ModeHome;
+import fr.paris.lutece.portal.business.stylesheet.StyleSheet;
+import fr.paris.lutece.portal.business.stylesheet.StyleSheetHome;
 import fr.paris.lutece.portal.business.user.AdminUser;
 import fr.paris.lutece.portal.service.admin.AdminUserService;
+import fr.paris.lutece.portal.service.cache.CacheInvalidationService;
 import fr.paris.lutece.portal.service.cache.ICacheKeyService;
 import fr.paris.lutece.portal.service.content.PageData;
 import fr.paris.lutece.portal.service.html.XmlTransformerService;
@@ -88,6 +97,8 @@ import fr.paris.lutece.portal.web.LocalVariables;
 import fr.paris.lutece.portal.web.constants.Parameters;
 import fr.paris.lutece.portal.web.l10n.LocaleService;
 import fr.paris.lutece.util.html.HtmlTemplate;
+import fr.paris.lutece.util.metrics.LatencyHistogram;
+import fr.paris.lutece.util.metrics.MetricsRegistry;
 import fr.paris.lutece.util.url.UrlItem;
 
 /**
@@ -159,11 +170,15 @@ public class PageService implements IPageService, ImageResourceProvider, PageEve
     private static final String DOCUMENT_IMAGE_URL = "images/admin/skin/actions/publish.png";
     private static final String DOCUMENT_TITLE = "portal.site.portletPreview.buttonManage";
     private static final int MAX_COLUMNS = AppPropertiesService.getPropertyInt( PROPERTY_COLUMN_MAX, DEFAULT_COLUMN_MAX );
+    private static final LatencyHistogram _buildPageHistogram = MetricsRegistry.getHistogram( "pageService.buildPageContent" );
+    private static final LatencyHistogram _portletContentHistogram = MetricsRegistry.getHistogram( "pageService.getPortletContent" );
+    private static final MetricsRegistry.HistogramGroup _renderPortletHistograms = MetricsRegistry.getGroup( "pageService.renderPortlet" );
     private static List<PageEventListener> _listEventListeners = new ArrayList<>( );
     private ICacheKeyService _cksPage;
     private ICacheKeyService _cksPortlet;
     private PageCacheService _cachePages;
     private PortletCacheService _cachePortlets;
+    private PortletRenderingService _portletRenderingService;
 
     /**
      * Creates a new PageService object.
@@ -290,66 +305,65 @@ public class PageService implements IPageService, ImageResourceProvider, PageEve
 
         LuteceUser user = SecurityService.getInstance( ).getRegisteredUser( request );
 
-        // we add the key in the memory key only if cache is enable
         String strKey = getKey( htParamRequest, nMode, user );
 
-        // get page from cache
-        String strPage = (String) _cachePages.getFromCache( strKey );
+        // The page is tagged with the page id of its key, to be removed from the cache by invalidatePage
+        String strPageIdParam = htParamRequest.get( Parameters.PAGE_ID );
+        List<String> listTags = ( strPageIdParam != null ) ? Collections.singletonList( PageCacheService.getTag( strPageIdParam ) ) : Collections.emptyList( );
 
-        if ( strPage == null )
+        // Only one request builds a missing page : the concurrent requests for the same page wait for it and read it from the cache
+        return _cachePages.getFromCache( strKey, ( ) -> buildCachedPage( strKey, listTags, strIdPage, nMode, request ) );
+    }
+
+    /**
+     * Builds a page and puts it in the cache if it can be cached
+     *
+     * @param strKey
+     *            The cache key of the page
+     * @param listTags
+     *            The tags of the cache entry
+     * @param strIdPage
+     *            The page ID
+     * @param nMode
+     *            The current mode.
+     * @param request
+     *            The HttpRequest
+     * @return The HTML code of the page, or the redirection key followed by the redirection location
+     * @throws SiteMessageException
+     *             occurs when a site message need to be displayed
+     */
+    private String buildCachedPage( String strKey, List<String> listTags, String strIdPage, int nMode, HttpServletRequest request )
+            throws SiteMessageException
+    {
+        boolean bCanBeCached = true;
+
+        AppLogService.debug( "Page generation {}", strKey );
+
+        RedirectionResponseWrapper response = new RedirectionResponseWrapper( LocalVariables.getResponse( ) );
+
+        LocalVariables.setLocal( LocalVariables.getConfig( ), LocalVariables.getRequest( ), response );
+        request.setAttribute( ATTRIBUTE_CORE_CAN_PAGE_BE_CACHED, null );
+        // The key is not in the cache, so we have to build
+        // the page
+        String strPage = buildPageContent( strIdPage, nMode, request );
+
+        // We check if the page contains portlets that can not be cached.
+        if ( Boolean.FALSE.equals( request.getAttribute( ATTRIBUTE_CORE_CAN_PAGE_BE_CACHED ) ) )
         {
-            // only one thread can evaluate the page
-            synchronized( strKey )
-            {
-                // can be useful if an other thread had evaluate the
-                // page
-                strPage = (String) _cachePages.getFromCache( strKey );
-
-                // ignore checkstyle, this double verification is useful
-                // when page cache has been created when thread is
-                // blocked on synchronized
-                if ( strPage == null )
-                {
-                    boolean bCanBeCached = true;
-
-                    AppLogService.debug( "Page generation {}", strKey );
-
-                    RedirectionResponseWrapper response = new RedirectionResponseWrapper( LocalVariables.getResponse( ) );
-
-                    LocalVariables.setLocal( LocalVariables.getConfig( ), LocalVariables.getRequest( ), response );
-                    request.setAttribute( ATTRIBUTE_CORE_CAN_PAGE_BE_CACHED, null );
-                    // The key is not in the cache, so we have to build
-                    // the page
-                    strPage = buildPageContent( strIdPage, nMode, request );
-
-                    // We check if the page contains portlets that can not be cached.
-                    if ( Boolean.FALSE.equals( request.getAttribute( ATTRIBUTE_CORE_CAN_PAGE_BE_CACHED ) ) )
-                    {
-                        bCanBeCached = false;
-                    }
-
-                    if ( response.getRedirectLocation( ) != null )
-                    {
-                        AppLogService.debug( "Redirection found {}", response.getRedirectLocation( ) );
-                        strPage = REDIRECTION_KEY + response.getRedirectLocation( );
-                    }
-
-                    // Add the page to the cache if the page can be
-                    // cached
-                    if ( bCanBeCached && ( nMode != MODE_ADMIN ) )
-                    {
-                        _cachePages.putInCache( strKey, strPage );
-                    }
-                }
-                else
-                {
-                    AppLogService.debug( "Page read from cache after synchronisation {}", strKey );
-                }
-            }
+            bCanBeCached = false;
         }
-        else
+
+        if ( response.getRedirectLocation( ) != null )
         {
-            AppLogService.debug( "Page read from cache {}", strKey );
+            AppLogService.debug( "Redirection found {}", response.getRedirectLocation( ) );
+            strPage = REDIRECTION_KEY + response.getRedirectLocation( );
+        }
+
+        // Add the page to the cache if the page can be
+        // cached
+        if ( bCanBeCached && ( nMode != MODE_ADMIN ) )
+        {
+            _cachePages.putInCache( strKey, strPage, listTags );
         }
 
         return strPage;
@@ -399,6 +413,33 @@ public class PageService implements IPageService, ImageResourceProvider, PageEve
      *             occurs when a site message need to be displayed
      */
     public String buildPageContent( String strIdPage, int nMode, HttpServletRequest request ) throws SiteMessageException
+    {
+        long lStart = MetricsRegistry.start( );
+
+        try
+        {
+            return doBuildPageContent( strIdPage, nMode, request );
+        }
+        finally
+        {
+            MetricsRegistry.stop( _buildPageHistogram, lStart );
+        }
+    }
+
+    /**
+     * Build the page content without timing it.
+     *
+     * @param strIdPage
+     *            The page ID
+     * @param nMode
+     *            The current mode.
+     * @param request
+     *            The HttpRequest
+     * @return The HTML code of the page as a String.
+     * @throws SiteMessageException
+     *             occurs when a site message need to be displayed
+     */
+    private String doBuildPageContent( String strIdPage, int nMode, HttpServletRequest request ) throws SiteMessageException
     {
         int nIdPage;
         Page page;
@@ -509,11 +550,11 @@ public class PageService implements IPageService, ImageResourceProvider, PageEve
     {
         Locale locale = Optional.ofNullable( request ).map( HttpServletRequest::getLocale ).orElse( LocaleService.getDefault( ) );
 
-        String [ ] arrayContent = new String [ MAX_COLUMNS];
+        StringBuilder [ ] arrayContent = new StringBuilder [ MAX_COLUMNS];
 
         for ( int i = 0; i < MAX_COLUMNS; i++ )
         {
-            arrayContent [i] = "";
+            arrayContent [i] = new StringBuilder( );
         }
 
         Page page = PageHome.findByPrimaryKey( nIdPage );
@@ -521,15 +562,27 @@ public class PageService implements IPageService, ImageResourceProvider, PageEve
         boolean bCanPageBeCached = Boolean.TRUE;
         LuteceUser user = SecurityService.getInstance( ).getRegisteredUser( request );
 
-        for ( Portlet portlet : page.getPortlets( ) )
+        if ( ( nMode != MODE_ADMIN ) && ( page.getPortlets( ).size( ) > 1 ) && ( _portletRenderingService != null )
+                && _portletRenderingService.isEnabled( ) )
         {
-            int nCol = portlet.getColumn( ) - 1;
-
-            if ( nCol < MAX_COLUMNS )
+            // A page with a missing portlet must not be cached
+            bCanPageBeCached = getPortletsContentInParallel( request, page.getPortlets( ), mapParams, nMode, arrayContent );
+        }
+        else
+        {
+            for ( Portlet portlet : page.getPortlets( ) )
             {
-                arrayContent [nCol] += getPortletContent( request, portlet, mapParams, nMode );
+                int nCol = portlet.getColumn( ) - 1;
+
+                if ( nCol < MAX_COLUMNS )
+                {
+                    arrayContent [nCol].append( getPortletContent( request, portlet, mapParams, nMode ) );
+                }
             }
+        }
 
+        for ( Portlet portlet : page.getPortlets( ) )
+        {
             // We check if the portlet can be cached
             if ( ( user != null ) ? ( !portlet.canBeCachedForConnectedUsers( ) ) : ( !portlet.canBeCachedForAnonymousUsers( ) ) )
             {
@@ -537,12 +590,19 @@ public class PageService implements IPageService, ImageResourceProvider, PageEve
             }
         }
 
+        String [ ] arrayColumns = new String [ MAX_COLUMNS];
+
+        for ( int i = 0; i < MAX_COLUMNS; i++ )
+        {
+            arrayColumns [i] = arrayContent [i].toString( );
+        }
+
         // Add columns outline in admin mode
         if ( nMode == MODE_ADMIN )
         {
             for ( int i = 0; i < MAX_COLUMNS; i++ )
             {
-                arrayContent [i] = addColumnOutline( i + 1, arrayContent [i], locale );
+                arrayColumns [i] = addColumnOutline( i + 1, arrayColumns [i], locale );
             }
         }
 
@@ -556,7 +616,7 @@ public class PageService implements IPageService, ImageResourceProvider, PageEve
 
         for ( int j = 0; j < MAX_COLUMNS; j++ )
         {
-            rootModel.put( "page_content_col" + ( j + 1 ), arrayContent [j] );
+            rootModel.put( "page_content_col" + ( j + 1 ), arrayColumns [j] );
         }
 
         List<PageInclude> listIncludes = PageIncludeService.getIncludes( );
@@ -572,6 +632,94 @@ public class PageService implements IPageService, ImageResourceProvider, PageEve
         return t.getHtml( );
     }
 
+    /**
+     * Renders the portlets of a page concurrently and appends their content to the columns in the order of the page. A portlet that fails or that is not
+     * rendered within the timeout is left empty.
+     *
+     * @param request
+     *            The HTTP request
+     * @param listPortlets
+     *            The portlets of the page
+     * @param mapParams
+     *            request parameters
+     * @param nMode
+     *            The mode
+     * @param arrayContent
+     *            The content of the columns
+     * @return true if all the portlets have been rendered
+     * @throws SiteMessageException
+     *             If a portlet requires a site message to be displayed
+     */
+    private boolean getPortletsContentInParallel( HttpServletRequest request, List<Portlet> listPortlets, Map<String, String> mapParams, int nMode,
+            StringBuilder [ ] arrayContent ) throws SiteMessageException
+    {
+        List<Portlet> listRendered = new ArrayList<>( listPortlets.size( ) );
+        List<PortletRenderingService.RenderingTask<String>> listTasks = new ArrayList<>( listPortlets.size( ) );
+
+        for ( Portlet portlet : listPortlets )
+        {
+            if ( portlet.getColumn( ) - 1 < MAX_COLUMNS )
+            {
+                // getPortletContent adds the portlet parameters to the map : each portlet gets its own copy
+                Map<String, String> mapPortletParams = ( mapParams != null ) ? new HashMap<>( mapParams ) : null;
+                listRendered.add( portlet );
+                listTasks.add( taskRequest -> getPortletContent( taskRequest, portlet, mapPortletParams, nMode ) );
+            }
+        }
+
+        List<Future<String>> listFutures;
+
+        try
+        {
+            listFutures = _portletRenderingService.invokeAll( request, listTasks );
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+
+            return false;
+        }
+
+        boolean bComplete = true;
+
+        for ( int i = 0; i < listRendered.size( ); i++ )
+        {
+            Future<String> future = listFutures.get( i );
+            Portlet portlet = listRendered.get( i );
+
+            if ( future.isCancelled( ) )
+            {
+                AppLogService.error( "Timeout while rendering the portlet {} of the page {}", portlet.getId( ), portlet.getPageId( ) );
+                bComplete = false;
+
+                continue;
+            }
+
+            try
+            {
+                arrayContent [portlet.getColumn( ) - 1].append( future.get( ) );
+            }
+            catch( ExecutionException e )
+            {
+                if ( e.getCause( ) instanceof SiteMessageException )
+                {
+                    throw (SiteMessageException) e.getCause( );
+                }
+
+                AppLogService.error( "Error while rendering the portlet {} of the page {}", portlet.getId( ), portlet.getPageId( ), e.getCause( ) );
+                bComplete = false;
+            }
+            catch( InterruptedException e )
+            {
+                Thread.currentThread( ).interrupt( );
+
+                return false;
+            }
+        }
+
+        return bComplete;
+    }
+
     /**
      * Add the HTML code to display column outlines
      *
@@ -610,6 +758,35 @@ public class PageService implements IPageService, ImageResourceProvider, PageEve
      *             If an error occurs
      */
     private String getPortletContent( HttpServletRequest request, Portlet portlet, Map<String, String> mapRequestParams, int nMode ) throws SiteMessageException
+    {
+        long lStart = MetricsRegistry.start( );
+
+        try
+        {
+            return doGetPortletContent( request, portlet, mapRequestParams, nMode );
+        }
+        finally
+        {
+            MetricsRegistry.stop( _portletContentHistogram, lStart );
+        }
+    }
+
+    /**
+     * Returns the content of a portlet, from the cache if possible, without timing it
+     *
+     * @param request
+     *            The HTTP request
+     * @param portlet
+     *            The portlet
+     * @param mapRequestParams
+     *            request parameters
+     * @param nMode
+     *            The mode
+     * @return The content
+     * @throws SiteMessageException
+     *             If an error occurs
+     */
+    private String doGetPortletContent( HttpServletRequest request, Portlet portlet, Map<String, String> mapRequestParams, int nMode ) throws SiteMessageException
     {
         if ( ( request != null ) && !isPortletVisible( request, portlet, nMode ) )
         {
@@ -630,8 +807,6 @@ public class PageService implements IPageService, ImageResourceProvider, PageEve
             strPortletContent = ADMIN_PORTLET_OPEN_TAG + addAdminButtons( request, portlet );
         }
 
-        String strKey = StringUtils.EMPTY;
-
         LuteceUser user = null;
 
         if ( SecurityService.isAuthenticationEnable( ) )
@@ -641,10 +816,10 @@ public class PageService implements IPageService, ImageResourceProvider, PageEve
 
         boolean isCacheEnabled = nMode != MODE_ADMIN && _cachePortlets.isCacheEnable( );
         boolean bCanBeCached = user != null ? portlet.canBeCachedForConnectedUsers( ) : portlet.canBeCachedForAnonymousUsers( );
+        Map<String, String> mapParams = mapRequestParams;
 
         if ( portlet.isContentGeneratedByXmlAndXsl( ) )
         {
-            Map<String, String> mapParams = mapRequestParams;
             Map<String, String> mapXslParams = portlet.getXslParams( );
 
             if ( mapParams != null )
@@ -658,55 +833,124 @@ public class PageService implements IPageService, ImageResourceProvider, PageEve
             {
                 mapParams = mapXslParams;
             }
+        }
 
-            if ( isCacheEnabled && bCanBeCached )
-            {
-                mapParams.put( PARAMETER_PORTLET, String.valueOf( portlet.getId( ) ) );
-                strKey = _cksPortlet.getKey( mapParams, nMode, user );
+        if ( isCacheEnabled && bCanBeCached )
+        {
+            mapParams.put( PARAMETER_PORTLET, String.valueOf( portlet.getId( ) ) );
 
-                String strPortlet = (String) _cachePortlets.getFromCache( strKey );
+            String strKey = _cksPortlet.getKey( mapParams, nMode, user );
+            Map<String, String> mapRenderParams = mapParams;
 
-                if ( strPortlet != null )
-                {
-                    return strPortlet;
-                }
-            }
+            // Only one request renders a missing portlet : the concurrent requests for the same portlet wait for it and read it from the cache
+            return _cachePortlets.getFromCache( strKey, ( ) -> {
+                String strContent = renderPortlet( request, portlet, mapRenderParams, nMode );
+                _cachePortlets.putInCache( strKey, strContent, Collections.singletonList( PortletCacheService.getTag( portlet.getId( ) ) ) );
 
-            Properties outputProperties = ModeHome.getOuputXslProperties( nMode );
-            String strXslUniqueId = XSL_UNIQUE_PREFIX + String.valueOf( portlet.getStyleId( ) );
-            XmlTransformerService xmlTransformerService = new XmlTransformerService( );
-            String strPortletXmlContent = portlet.getXml( request );
-            strPortletContent += xmlTransformerService.transformBySourceWithXslCache( strPortletXmlContent, portlet.getXslSource( nMode ), strXslUniqueId, mapParams, outputProperties );
+                return strContent;
+            } );
         }
-        else
+
+        strPortletContent += renderPortlet( request, portlet, mapParams, nMode );
+
+        if ( nMode == MODE_ADMIN )
         {
-            if ( isCacheEnabled && bCanBeCached )
-            {
-                mapRequestParams.put( PARAMETER_PORTLET, String.valueOf( portlet.getId( ) ) );
-                strKey = _cksPortlet.getKey( mapRequestParams, nMode, user );
+            strPortletContent += ADMIN_PORTLET_CLOSE_TAG;
+        }
 
-                String strPortlet = (String) _cachePortlets.getFromCache( strKey );
+        return strPortletContent;
+    }
 
-                if ( strPortlet != null )
-                {
-                    return strPortlet;
-                }
-            }
+    /**
+     * Renders the content of a portlet
+     *
+     * @param request
+     *            The HTTP request
+     * @param portlet
+     *            The portlet
+     * @param mapParams
+     *            The parameters of the XSL transformation
+     * @param nMode
+     *            The mode
+     * @return The content
+     * @throws SiteMessageException
+     *             If an error occurs
+     */
+    private String renderPortlet( HttpServletRequest request, Portlet portlet, Map<String, String> mapParams, int nMode ) throws SiteMessageException
+    {
+        long lStart = MetricsRegistry.start( );
 
-            strPortletContent += portlet.getHtmlContent( request );
+        try
+        {
+            return doRenderPortlet( request, portlet, mapParams, nMode );
+        }
+        finally
+        {
+            // Renders are timed by portlet type
+            _renderPortletHistograms.stop( portlet.getPortletTypeId( ), lStart );
         }
+    }
 
-        if ( isCacheEnabled && StringUtils.isNotEmpty( strKey ) )
+    /**
+     * Renders the content of a portlet without timing it
+     *
+     * @param request
+     *            The HTTP request
+     * @param portlet
+     *            The portlet
+     * @param mapParams
+     *            The parameters of the XSL transformation
+     * @param nMode
+     *            The mode
+     * @return The content
+     * @throws SiteMessageException
+     *             If an error occurs
+     */
+    private String doRenderPortlet( HttpServletRequest request, Portlet portlet, Map<String, String> mapParams, int nMode ) throws SiteMessageException
+    {
+        if ( portlet.isContentGeneratedByXmlAndXsl( ) )
         {
-            _cachePortlets.putInCache( strKey, strPortletContent );
+            Properties outputProperties = ModeHome.getOuputXslProperties( nMode );
+            // The stylesheet descriptor is cached : its source is only read if the stylesheet is not compiled yet
+            StyleSheet stylesheet = portlet.getStyleSheet( nMode );
+
+            if ( ( stylesheet == null ) || ( stylesheet.getId( ) == 0 ) )
+            {
+                AppLogService.error( "No stylesheet found for the portlet {} in the mode {}", portlet.getId( ), nMode );
+
+                return StringUtils.EMPTY;
+            }
+
+            String strXslUniqueId = XSL_UNIQUE_PREFIX + String.valueOf( stylesheet.getId( ) );
+            XmlTransformerService xmlTransformerService = new XmlTransformerService( );
+            String strPortletXmlContent = portlet.getXml( request );
+
+            return xmlTransformerService.transformWithXslCache( strPortletXmlContent, strXslUniqueId, ( ) -> loadStyleSheetSource( stylesheet.getId( ) ),
+                    mapParams, outputProperties );
         }
-        
-        if ( nMode == MODE_ADMIN )
+
+        return portlet.getHtmlContent( request );
+    }
+
+    /**
+     * Loads the source of a stylesheet to compile it
+     *
+     * @param nStyleSheetId
+     *            The stylesheet id
+     * @return The source
+     * @throws AppException
+     *             If the stylesheet has been removed
+     */
+    private static Source loadStyleSheetSource( int nStyleSheetId )
+    {
+        StyleSheet stylesheet = StyleSheetHome.findByPrimaryKey( nStyleSheetId );
+
+        if ( ( stylesheet == null ) || ( stylesheet.getSource( ) == null ) )
         {
-            strPortletContent += ADMIN_PORTLET_CLOSE_TAG;
+            throw new AppException( "The stylesheet " + nStyleSheetId + " doesn't exist" );
         }
-        
-        return strPortletContent;
+
+        return new StreamSource( new ByteArrayInputStream( stylesheet.getSource( ) ) );
     }
 
     private boolean isPortletVisible( HttpServletRequest request, Portlet portlet, int nMode )
@@ -730,8 +974,7 @@ public class PageService implements IPageService, ImageResourceProvider, PageEve
     }
 
     /**
-     * Build the Cache HashMap key for pages Goal is to be able to have a synchronized on the key but a synchronize only work with strict reference. So we
-     * manage an hashmap of string reference for cache keys to be able to get them back.
+     * Build the Cache key for pages
      *
      * @param mapParams
      *            The Map params
@@ -743,9 +986,7 @@ public class PageService implements IPageService, ImageResourceProvider, PageEve
      */
     private String getKey( Map<String, String> mapParams, int nMode, LuteceUser user )
     {
-        String strKey = _cksPage.getKey( mapParams, nMode, user );
-
-        return _cachePages.getKey( strKey );
+        return _cksPage.getKey( mapParams, nMode, user );
     }
 
     /**
@@ -778,6 +1019,15 @@ public class PageService implements IPageService, ImageResourceProvider, PageEve
         _cksPortlet = cacheKeyService;
     }
 
+    /**
+     * @param portletRenderingService
+     *            the service used to render the portlets concurrently
+     */
+    public void setPortletRenderingService( PortletRenderingService portletRenderingService )
+    {
+        _portletRenderingService = portletRenderingService;
+    }
+
     /**
      * @param removalService
      *            the removal listener service
@@ -798,20 +1048,16 @@ public class PageService implements IPageService, ImageResourceProvider, PageEve
     {
         if ( _cachePages.isCacheEnable( ) )
         {
-            String strKey = "[" + Parameters.PAGE_ID + ":" + strIdPage + "]";
+            // The keys of the page are found by the tag index instead of a scan of all the keys
+            int nRemoved = _cachePages.invalidateTag( PageCacheService.getTag( strIdPage ) );
 
-            for ( String strKeyTemp : (List<String>) _cachePages.getCache( ).getKeys( ) )
+            if ( WELCOME_PAGE_ID.equals( strIdPage ) && ( _cachePages.getFromCache( WELCOME_PAGE_CACHE_KEY ) != null ) )
             {
-                if ( ( strKeyTemp.contains( strKey ) ) || ( WELCOME_PAGE_ID.equals( strIdPage ) && WELCOME_PAGE_CACHE_KEY.equals( strKeyTemp ) ) )
-                {
-                    _cachePages.getCache( ).remove( strKeyTemp );
-
-                    if ( AppLogService.isDebugEnabled( ) )
-                    {
-                        AppLogService.debug( "Page (cache key : " + strKeyTemp + ") removed from the cache." );
-                    }
-                }
+                _cachePages.removeKey( WELCOME_PAGE_CACHE_KEY );
+                nRemoved++;
             }
+
+            AppLogService.debug( "{} cache entries removed for the page {}", nRemoved, strIdPage );
         }
     }
 
@@ -836,6 +1082,18 @@ public class PageService implements IPageService, ImageResourceProvider, PageEve
      *            A page Event
      */
     private void notifyListeners( PageEvent event )
+    {
+        notifyPageEventListeners( event );
+        CacheInvalidationService.getInstance( ).publishPageEvent( event );
+    }
+
+    /**
+     * Notify an event to the listeners of this node only
+     *
+     * @param event
+     *            A page Event
+     */
+    public static void notifyPageEventListeners( PageEvent event )
     {
         for ( PageEventListener listener : _listEventListeners )
         {
@@ -867,6 +1125,17 @@ public class PageService implements IPageService, ImageResourceProvider, PageEve
         return PageHome.getImageResource( nIdResource );
     }
 
+    /**
+     * {@inheritDoc }
+     * <br>
+     * The page thumbnails are public and every modification of a page fires a page event.
+     */
+    @Override
+    public boolean isCacheable( )
+    {
+        return true;
+    }
+
     /**
      * Create a page
      *
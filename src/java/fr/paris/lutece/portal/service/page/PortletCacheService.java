@@ -34,13 +34,10 @@
 package fr.paris.lutece.portal.service.page;
 
 import fr.paris.lutece.portal.service.cache.AbstractCacheableService;
+import fr.paris.lutece.portal.service.cache.SingleFlightLoader;
 import fr.paris.lutece.portal.service.portlet.PortletEvent;
 import fr.paris.lutece.portal.service.portlet.PortletEventListener;
 
-import org.apache.commons.lang3.StringUtils;
-
-import java.util.List;
-
 /**
  * Portlet cache service
  */
@@ -57,19 +54,34 @@ public class PortletCacheService extends AbstractCacheableService implements Por
         return SERVICE_NAME;
     }
 
+    /**
+     * The portlets are cached to build pages which are cached too : a stale portlet must never be served, or it would be kept in the page cache.
+     * 
+     * @return The single flight loader
+     */
+    @Override
+    protected SingleFlightLoader createSingleFlightLoader( )
+    {
+        return new SingleFlightLoader( false );
+    }
+
+    /**
+     * Returns the tag of the cached contents of a portlet
+     * 
+     * @param nPortletId
+     *            The portlet id
+     * @return The tag
+     */
+    static String getTag( int nPortletId )
+    {
+        return CACHE_PORTLET_PREFIX + nPortletId;
+    }
+
     /**
      * {@inheritDoc}
      */
     public void processPortletEvent( PortletEvent event )
     {
-        String strKey = "[" + CACHE_PORTLET_PREFIX + event.getPortletId( ) + "]";
-
-        for ( String strKeyTemp : (List<String>) getCache( ).getKeys( ) )
-        {
-            if ( StringUtils.indexOf( strKeyTemp, strKey ) != -1 )
-            {
-                getCache( ).remove( strKeyTemp );
-            }
-        }
+        invalidateTag( getTag( event.getPortletId( ) ) );
     }
 }
@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.page;
+
+import fr.paris.lutece.portal.service.init.ShutdownService;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+import fr.paris.lutece.portal.web.LocalVariables;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletConfig;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Executor used to render the portlets of a page concurrently. <br>
+ * The parallel rendering is disabled by default. When it is enabled, the portlets are rendered by a bounded pool of threads. When the pool and its queue
+ * are full, the portlets are rendered by the calling thread. The {@link LocalVariables} of the calling thread are propagated to the rendering threads.
+ * The portlets of a page are rendered against snapshots of the page request rather than the request of the container.
+ */
+public class PortletRenderingService implements ShutdownService
+{
+    private static final String SERVICE_NAME = "Portlet Rendering Service";
+    private static final String PROPERTY_ENABLED = "lutece.page.portlets.parallelRendering.enabled";
+    private static final String PROPERTY_THREADS = "lutece.page.portlets.parallelRendering.threads";
+    private static final String PROPERTY_QUEUE_SIZE = "lutece.page.portlets.parallelRendering.queueSize";
+    private static final String PROPERTY_TIMEOUT = "lutece.page.portlets.parallelRendering.timeout";
+    private static final int DEFAULT_THREADS = 16;
+    private static final int DEFAULT_QUEUE_SIZE = 256;
+    private static final long DEFAULT_TIMEOUT = 5000L;
+    private static final long KEEP_ALIVE_SECONDS = 60L;
+    private static final String THREAD_NAME_PREFIX = "Lutece-PortletRendering-Thread-";
+    private final boolean _bEnabled;
+    private final long _lTimeout;
+    private final ThreadPoolExecutor _executor;
+
+    /**
+     * The rendering of a portlet
+     * 
+     * @param <T>
+     *            The type of the result
+     */
+    @FunctionalInterface
+    public interface RenderingTask<T>
+    {
+        /**
+         * Renders the portlet
+         * 
+         * @param request
+         *            The snapshot of the page request
+         * @return The result of the rendering
+         * @throws Exception
+         *             If the rendering fails
+         */
+        T render( HttpServletRequest request ) throws Exception;
+    }
+
+    /**
+     * Constructor
+     */
+    public PortletRenderingService( )
+    {
+        _bEnabled = AppPropertiesService.getPropertyBoolean( PROPERTY_ENABLED, false );
+        _lTimeout = AppPropertiesService.getPropertyLong( PROPERTY_TIMEOUT, DEFAULT_TIMEOUT );
+
+        if ( _bEnabled )
+        {
+            int nThreads = AppPropertiesService.getPropertyInt( PROPERTY_THREADS, DEFAULT_THREADS );
+            int nQueueSize = AppPropertiesService.getPropertyInt( PROPERTY_QUEUE_SIZE, DEFAULT_QUEUE_SIZE );
+            _executor = createExecutor( nThreads, nQueueSize );
+            AppLogService.info( "Parallel rendering of portlets enabled with {} threads", nThreads );
+        }
+        else
+        {
+            _executor = null;
+        }
+    }
+
+    /**
+     * Creates an enabled service
+     * 
+     * @param nThreads
+     *            The number of threads
+     * @param nQueueSize
+     *            The size of the queue
+     * @param lTimeout
+     *            The timeout in milliseconds
+     */
+    PortletRenderingService( int nThreads, int nQueueSize, long lTimeout )
+    {
+        _bEnabled = true;
+        _lTimeout = lTimeout;
+        _executor = createExecutor( nThreads, nQueueSize );
+    }
+
+    /**
+     * Creates the executor
+     * 
+     * @param nThreads
+     *            The number of threads
+     * @param nQueueSize
+     *            The size of the queue
+     * @return The executor
+     */
+    private static ThreadPoolExecutor createExecutor( int nThreads, int nQueueSize )
+    {
+        AtomicInteger nIndex = new AtomicInteger( );
+        ThreadPoolExecutor executor = new ThreadPoolExecutor( nThreads, nThreads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new ArrayBlockingQueue<>( nQueueSize ),
+                runnable -> {
+                    Thread thread = new Thread( runnable, THREAD_NAME_PREFIX + nIndex.incrementAndGet( ) );
+                    thread.setDaemon( true );
+
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy( ) );
+        executor.allowCoreThreadTimeOut( true );
+
+        return executor;
+    }
+
+    /**
+     * Returns true if the portlets should be rendered concurrently
+     * 
+     * @return true if the parallel rendering is enabled
+     */
+    public boolean isEnabled( )
+    {
+        return _bEnabled && !_executor.isShutdown( );
+    }
+
+    /**
+     * Returns the maximum time to wait for the rendering of the portlets of a page
+     * 
+     * @return The timeout in milliseconds
+     */
+    public long getTimeout( )
+    {
+        return _lTimeout;
+    }
+
+    /**
+     * Submits the rendering of a portlet. The {@link LocalVariables} of the calling thread are available to the task.
+     * 
+     * @param <T>
+     *            The type of the result
+     * @param task
+     *            The task
+     * @return The future result of the task
+     */
+    public <T> Future<T> submit( Callable<T> task )
+    {
+        return submit( task, LocalVariables.getRequest( ) );
+    }
+
+    /**
+     * Renders the portlets of a page. Each task gets its own snapshot of the page request, which is also the request of its {@link LocalVariables}. The
+     * tasks that are not completed within the timeout are cancelled, and the snapshots are detached from the page request before returning : a cancelled
+     * task that keeps running can no longer reach the request of the container.
+     * 
+     * @param <T>
+     *            The type of the results
+     * @param request
+     *            The page request
+     * @param listTasks
+     *            The tasks
+     * @return The futures of the tasks, in the order of the tasks. The future of a task that timed out is cancelled.
+     * @throws InterruptedException
+     *             If the calling thread is interrupted while waiting
+     */
+    public <T> List<Future<T>> invokeAll( HttpServletRequest request, List<RenderingTask<T>> listTasks ) throws InterruptedException
+    {
+        long lDeadline = System.nanoTime( ) + TimeUnit.MILLISECONDS.toNanos( _lTimeout );
+        PortletRequestSnapshot snapshot = new PortletRequestSnapshot( request );
+        List<PortletRequestSnapshot> listSnapshots = new ArrayList<>( listTasks.size( ) );
+        List<Future<T>> listFutures = new ArrayList<>( listTasks.size( ) );
+
+        try
+        {
+            for ( RenderingTask<T> task : listTasks )
+            {
+                PortletRequestSnapshot taskRequest = new PortletRequestSnapshot( snapshot );
+                listSnapshots.add( taskRequest );
+                listFutures.add( submit( ( ) -> task.render( taskRequest ), taskRequest ) );
+            }
+
+            for ( Future<T> future : listFutures )
+            {
+                try
+                {
+                    future.get( Math.max( 0L, lDeadline - System.nanoTime( ) ), TimeUnit.NANOSECONDS );
+                }
+                catch( TimeoutException e )
+                {
+                    future.cancel( true );
+                }
+                catch( ExecutionException e )
+                {
+                    // Reported to the caller by the future
+                }
+            }
+        }
+        finally
+        {
+            for ( Future<T> future : listFutures )
+            {
+                future.cancel( true );
+            }
+
+            for ( PortletRequestSnapshot taskRequest : listSnapshots )
+            {
+                taskRequest.detach( );
+            }
+        }
+
+        return listFutures;
+    }
+
+    /**
+     * Submits a task with the {@link LocalVariables} of the calling thread and the given request
+     * 
+     * @param <T>
+     *            The type of the result
+     * @param task
+     *            The task
+     * @param request
+     *            The request of the task
+     * @return The future result of the task
+     */
+    private <T> Future<T> submit( Callable<T> task, HttpServletRequest request )
+    {
+        ServletConfig config = LocalVariables.getConfig( );
+        HttpServletResponse response = LocalVariables.getResponse( );
+
+        return _executor.submit( ( ) -> {
+            // The task may be run by the calling thread when the pool is saturated : its variables are restored afterwards
+            ServletConfig previousConfig = LocalVariables.getConfig( );
+            HttpServletRequest previousRequest = LocalVariables.getRequest( );
+            HttpServletResponse previousResponse = LocalVariables.getResponse( );
+            LocalVariables.setLocal( config, request, response );
+
+            try
+            {
+                return task.call( );
+            }
+            finally
+            {
+                LocalVariables.setLocal( previousConfig, previousRequest, previousResponse );
+            }
+        } );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName( )
+    {
+        return SERVICE_NAME;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void process( )
+    {
+        if ( _executor != null )
+        {
+            _executor.shutdownNow( );
+        }
+    }
+}
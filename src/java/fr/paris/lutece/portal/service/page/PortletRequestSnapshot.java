@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.page;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * Request given to a portlet rendered by a thread of the {@link PortletRenderingService}. The parameters, the attributes and the locales of the page
+ * request are copied when the snapshot is created : the rendering threads never read them from the request of the container, and the attributes set by a
+ * portlet are only visible to this portlet. The other methods are delegated to the page request until the snapshot is detached, once the rendering of the
+ * page is over. A cancelled rendering still running then fails on these methods instead of using a request the container may have recycled.
+ */
+final class PortletRequestSnapshot extends HttpServletRequestWrapper
+{
+    private static final HttpServletRequest DETACHED_REQUEST = (HttpServletRequest) Proxy.newProxyInstance( PortletRequestSnapshot.class.getClassLoader( ),
+            new Class<?> [ ] {
+                    HttpServletRequest.class
+            }, ( proxy, method, args ) -> {
+                switch( method.getName( ) )
+                {
+                    case "equals":
+                        return proxy == args [0];
+                    case "hashCode":
+                        return System.identityHashCode( proxy );
+                    case "toString":
+                        return "DetachedRequest";
+                    default:
+                        break;
+                }
+
+                throw new IllegalStateException( "The request of the page is completed : " + method.getName( ) + " is not available" );
+            } );
+
+    private final Map<String, String [ ]> _mapParameters;
+    private final Map<String, Object> _mapAttributes;
+    private final List<Locale> _listLocales;
+
+    /**
+     * Creates a snapshot of a page request
+     * 
+     * @param request
+     *            The page request
+     */
+    PortletRequestSnapshot( HttpServletRequest request )
+    {
+        super( request );
+
+        Map<String, String [ ]> mapParameters = new HashMap<>( );
+
+        for ( Map.Entry<String, String [ ]> entry : request.getParameterMap( ).entrySet( ) )
+        {
+            mapParameters.put( entry.getKey( ), entry.getValue( ).clone( ) );
+        }
+
+        _mapParameters = Collections.unmodifiableMap( mapParameters );
+        _mapAttributes = new HashMap<>( );
+
+        for ( Enumeration<String> names = request.getAttributeNames( ); names.hasMoreElements( ); )
+        {
+            String strName = names.nextElement( );
+            _mapAttributes.put( strName, request.getAttribute( strName ) );
+        }
+
+        _listLocales = Collections.unmodifiableList( Collections.list( request.getLocales( ) ) );
+    }
+
+    /**
+     * Creates the snapshot of a portlet from the snapshot of the page : the parameters and the locales are shared, the attributes are copied
+     * 
+     * @param snapshot
+     *            The snapshot of the page
+     */
+    PortletRequestSnapshot( PortletRequestSnapshot snapshot )
+    {
+        super( (HttpServletRequest) snapshot.getRequest( ) );
+        _mapParameters = snapshot._mapParameters;
+        _mapAttributes = new HashMap<>( snapshot._mapAttributes );
+        _listLocales = snapshot._listLocales;
+    }
+
+    /**
+     * Stops delegating to the page request
+     */
+    void detach( )
+    {
+        setRequest( DETACHED_REQUEST );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getParameter( String strName )
+    {
+        String [ ] values = _mapParameters.get( strName );
+
+        return ( ( values != null ) && ( values.length > 0 ) ) ? values [0] : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String [ ] getParameterValues( String strName )
+    {
+        String [ ] values = _mapParameters.get( strName );
+
+        return ( values != null ) ? values.clone( ) : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, String [ ]> getParameterMap( )
+    {
+        return _mapParameters;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Enumeration<String> getParameterNames( )
+    {
+        return Collections.enumeration( _mapParameters.keySet( ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object getAttribute( String strName )
+    {
+        return _mapAttributes.get( strName );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Enumeration<String> getAttributeNames( )
+    {
+        return Collections.enumeration( new ArrayList<>( _mapAttributes.keySet( ) ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setAttribute( String strName, Object value )
+    {
+        if ( value == null )
+        {
+            _mapAttributes.remove( strName );
+        }
+        else
+        {
+            _mapAttributes.put( strName, value );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeAttribute( String strName )
+    {
+        _mapAttributes.remove( strName );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Locale getLocale( )
+    {
+        return _listLocales.isEmpty( ) ? Locale.getDefault( ) : _listLocales.get( 0 );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Enumeration<Locale> getLocales( )
+    {
+        return Collections.enumeration( _listLocales );
+    }
+}
@@ -0,0 +1,419 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.portlet;
+
+import fr.paris.lutece.portal.business.stylesheet.StyleSheet;
+import fr.paris.lutece.portal.service.cache.CacheService;
+import fr.paris.lutece.portal.service.cache.CacheableService;
+import fr.paris.lutece.portal.service.spring.SpringContextService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of the stylesheets used by the portlets for each mode. <br>
+ * The cache stores the stylesheet descriptors (id, file name, description) but not their source, so the rendering of a portlet whose compiled stylesheet
+ * is already known doesn't query the database. Entries are versioned : any stylesheet change increments the version of the whole cache and any portlet
+ * change increments the version of the portlet, so an entry loaded before the change can never be served after it. The callers get their own copy of
+ * the cached descriptors.
+ */
+public class PortletStyleSheetCacheService implements CacheableService, PortletEventListener
+{
+    public static final String BEAN_NAME = "portletStyleSheetCacheService";
+    private static final String SERVICE_NAME = "Portlet StyleSheet Cache Service";
+    private static final String PROPERTY_MAX_SIZE = "service.portletStyleSheetCache.maxSize";
+    private static final int DEFAULT_MAX_SIZE = 10000;
+    private static final int PORTLET_VERSION_STRIPES = 64;
+    private final ConcurrentMap<Long, VersionedStyleSheet> _mapStyleSheets = new ConcurrentHashMap<>( );
+    private final AtomicLong _lVersion = new AtomicLong( );
+    private final AtomicLongArray _portletVersions = new AtomicLongArray( PORTLET_VERSION_STRIPES );
+    private final LongAdder _lHits = new LongAdder( );
+    private final LongAdder _lMisses = new LongAdder( );
+    private final LongAdder _lEvictions = new LongAdder( );
+    private final int _nMaxSize;
+    private volatile boolean _bEnable = true;
+
+    /**
+     * Constructor
+     */
+    public PortletStyleSheetCacheService( )
+    {
+        this( AppPropertiesService.getPropertyInt( PROPERTY_MAX_SIZE, DEFAULT_MAX_SIZE ) );
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param nMaxSize
+     *            The maximum number of cached stylesheets
+     */
+    PortletStyleSheetCacheService( int nMaxSize )
+    {
+        _nMaxSize = nMaxSize;
+    }
+
+    /**
+     * Returns the instance of the service
+     * 
+     * @return The service
+     */
+    public static PortletStyleSheetCacheService getInstance( )
+    {
+        return SpringContextService.getBean( BEAN_NAME );
+    }
+
+    /**
+     * Registers the cache in the cache service. Should be called at the initialization of the application.
+     */
+    public void initCache( )
+    {
+        CacheService.registerCacheableService( this );
+    }
+
+    /**
+     * Returns the current version of the cache for a portlet
+     * 
+     * @param nPortletId
+     *            The portlet id
+     * @return The version. Must be read before loading a stylesheet to put in cache
+     */
+    public long getVersion( int nPortletId )
+    {
+        // Both counters only increase : their sum changes whenever one of them does
+        return _lVersion.get( ) + _portletVersions.get( getStripe( nPortletId ) );
+    }
+
+    /**
+     * Gets the stylesheet of a portlet for a mode
+     * 
+     * @param nPortletId
+     *            The portlet id
+     * @param nMode
+     *            The mode
+     * @return A copy of the stylesheet descriptor, without source, or null if not in cache
+     */
+    public StyleSheet getStyleSheet( int nPortletId, int nMode )
+    {
+        if ( _bEnable )
+        {
+            VersionedStyleSheet entry = _mapStyleSheets.get( getKey( nPortletId, nMode ) );
+
+            if ( ( entry != null ) && ( entry.getVersion( ) == getVersion( nPortletId ) ) )
+            {
+                _lHits.increment( );
+
+                return copy( entry.getStyleSheet( ) );
+            }
+        }
+
+        _lMisses.increment( );
+
+        return null;
+    }
+
+    /**
+     * Puts the stylesheet of a portlet for a mode in cache, unless the cache or the portlet has been invalidated since the given version
+     * 
+     * @param nPortletId
+     *            The portlet id
+     * @param nMode
+     *            The mode
+     * @param stylesheet
+     *            The stylesheet descriptor, without source
+     * @param lVersion
+     *            The version of the cache for the portlet read before loading the stylesheet
+     */
+    public void putStyleSheet( int nPortletId, int nMode, StyleSheet stylesheet, long lVersion )
+    {
+        if ( !_bEnable || ( _nMaxSize <= 0 ) || ( stylesheet == null ) || ( lVersion != getVersion( nPortletId ) ) )
+        {
+            return;
+        }
+
+        Long key = getKey( nPortletId, nMode );
+
+        if ( !_mapStyleSheets.containsKey( key ) )
+        {
+            evictIfFull( );
+        }
+
+        _mapStyleSheets.put( key, new VersionedStyleSheet( copy( stylesheet ), lVersion ) );
+
+        if ( lVersion != getVersion( nPortletId ) )
+        {
+            // Invalidated while the entry was put
+            _mapStyleSheets.remove( key );
+        }
+    }
+
+    /**
+     * Invalidates the cached stylesheets of a portlet
+     * 
+     * @param nPortletId
+     *            The portlet id
+     */
+    public void invalidatePortlet( int nPortletId )
+    {
+        // The version is incremented first so that a stylesheet loaded before the invalidation can no longer be put
+        _portletVersions.incrementAndGet( getStripe( nPortletId ) );
+        _mapStyleSheets.keySet( ).removeIf( key -> getPortletId( key ) == nPortletId );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void processPortletEvent( PortletEvent event )
+    {
+        invalidatePortlet( event.getPortletId( ) );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public String getName( )
+    {
+        return SERVICE_NAME;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean isCacheEnable( )
+    {
+        return _bEnable;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int getCacheSize( )
+    {
+        return _mapStyleSheets.size( );
+    }
+
+    /**
+     * Invalidates all the cached stylesheets. Called when a stylesheet is created, modified or removed.
+     */
+    @Override
+    public void resetCache( )
+    {
+        _lVersion.incrementAndGet( );
+        _mapStyleSheets.clear( );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void enableCache( boolean bEnable )
+    {
+        _bEnable = bEnable;
+
+        if ( !_bEnable )
+        {
+            resetCache( );
+        }
+
+        CacheService.updateCacheStatus( this );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public List<String> getKeys( )
+    {
+        List<String> listKeys = new ArrayList<>( );
+
+        for ( Long key : _mapStyleSheets.keySet( ) )
+        {
+            listKeys.add( "portlet:" + getPortletId( key ) + "-mode:" + (int) key.longValue( ) );
+        }
+
+        return listKeys;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int getMaxElements( )
+    {
+        return _nMaxSize;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public long getTimeToLive( )
+    {
+        return 0L;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public long getMemorySize( )
+    {
+        return 0L;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public String getInfos( )
+    {
+        return "Version = " + _lVersion.get( ) + " - Hits = " + _lHits.sum( ) + " - Misses = " + _lMisses.sum( ) + " - Evictions = " + _lEvictions.sum( );
+    }
+
+    /**
+     * Removes cached stylesheets until there is room for a new one. The cache holds descriptors that are cheap to reload : the first entries found are
+     * removed.
+     */
+    private void evictIfFull( )
+    {
+        Iterator<Long> iterator = _mapStyleSheets.keySet( ).iterator( );
+
+        while ( ( _mapStyleSheets.size( ) >= _nMaxSize ) && iterator.hasNext( ) )
+        {
+            iterator.next( );
+            iterator.remove( );
+            _lEvictions.increment( );
+        }
+    }
+
+    /**
+     * Returns the key of the stylesheet of a portlet for a mode
+     * 
+     * @param nPortletId
+     *            The portlet id
+     * @param nMode
+     *            The mode
+     * @return The key
+     */
+    private static Long getKey( int nPortletId, int nMode )
+    {
+        return ( (long) nPortletId << 32 ) | ( nMode & 0xFFFFFFFFL );
+    }
+
+    /**
+     * Returns the portlet id of a key
+     * 
+     * @param key
+     *            The key
+     * @return The portlet id
+     */
+    private static int getPortletId( Long key )
+    {
+        return (int) ( key >> 32 );
+    }
+
+    /**
+     * Returns the version stripe of a portlet
+     * 
+     * @param nPortletId
+     *            The portlet id
+     * @return The stripe index
+     */
+    private static int getStripe( int nPortletId )
+    {
+        return Math.floorMod( nPortletId, PORTLET_VERSION_STRIPES );
+    }
+
+    /**
+     * Copies a stylesheet descriptor so that the cached one can't be modified by the callers
+     * 
+     * @param stylesheet
+     *            The stylesheet
+     * @return The copy
+     */
+    private static StyleSheet copy( StyleSheet stylesheet )
+    {
+        StyleSheet copy = new StyleSheet( );
+        copy.setId( stylesheet.getId( ) );
+        copy.setStyleId( stylesheet.getStyleId( ) );
+        copy.setModeId( stylesheet.getModeId( ) );
+        copy.setDescription( stylesheet.getDescription( ) );
+        copy.setFile( stylesheet.getFile( ) );
+
+        return copy;
+    }
+
+    /**
+     * A stylesheet descriptor with the version of the cache it has been loaded with
+     */
+    private static final class VersionedStyleSheet
+    {
+        private final StyleSheet _stylesheet;
+        private final long _lVersion;
+
+        /**
+         * Constructor
+         * 
+         * @param stylesheet
+         *            The stylesheet
+         * @param lVersion
+         *            The version
+         */
+        VersionedStyleSheet( StyleSheet stylesheet, long lVersion )
+        {
+            _stylesheet = stylesheet;
+            _lVersion = lVersion;
+        }
+
+        StyleSheet getStyleSheet( )
+        {
+            return _stylesheet;
+        }
+
+        long getVersion( )
+        {
+            return _lVersion;
+        }
+    }
+}
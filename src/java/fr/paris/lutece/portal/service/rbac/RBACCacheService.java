@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.rbac;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import fr.paris.lutece.portal.business.rbac.RBACHome;
+import fr.paris.lutece.portal.service.cache.AbstractCacheableService;
+import fr.paris.lutece.portal.service.cache.CacheInvalidationService;
+import fr.paris.lutece.portal.service.cache.SingleFlightLoader;
+
+/**
+ * RBAC Cache Service. The whole core_admin_role_resource table is cached as a single immutable {@link RBACIndex}, loaded once and dropped on each
+ * modification. Each modification increments a version so that an index loaded concurrently with a modification is never kept in the cache.
+ */
+public final class RBACCacheService extends AbstractCacheableService
+{
+    private static final String CACHE_SERVICE_NAME = "RBAC Cache Service";
+    private static final String KEY_INDEX = "index";
+    private final AtomicLong _lVersion = new AtomicLong( );
+
+    /**
+     * Lazy holder of the instance
+     */
+    private static final class InstanceHolder
+    {
+        private static final RBACCacheService INSTANCE = new RBACCacheService( );
+    }
+
+    /** Constructor */
+    private RBACCacheService( )
+    {
+        initCache( );
+    }
+
+    /**
+     * Returns the instance of the service
+     * 
+     * @return The service
+     */
+    public static RBACCacheService getInstance( )
+    {
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * Gets the cache service name
+     * 
+     * @return The service name
+     */
+    @Override
+    public String getName( )
+    {
+        return CACHE_SERVICE_NAME;
+    }
+
+    /**
+     * The index grants the permissions : a stale index must never be served, or a revoked permission would still be granted while the index is reloaded.
+     * 
+     * @return The single flight loader
+     */
+    @Override
+    protected SingleFlightLoader createSingleFlightLoader( )
+    {
+        return new SingleFlightLoader( false );
+    }
+
+    /**
+     * Returns the index of the RBAC entries, loading it if needed
+     * 
+     * @return the index, or null if the cache is disabled
+     */
+    RBACIndex getIndex( )
+    {
+        if ( !isCacheEnable( ) )
+        {
+            return null;
+        }
+
+        return getFromCache( KEY_INDEX, this::loadIndex );
+    }
+
+    /**
+     * Loads the index of the RBAC entries and puts it in the cache unless the entries have been modified during the load
+     * 
+     * @return the index
+     */
+    private RBACIndex loadIndex( )
+    {
+        long lVersion = _lVersion.get( );
+        RBACIndex index = new RBACIndex( RBACHome.findAll( ) );
+        putInCache( KEY_INDEX, index );
+
+        if ( _lVersion.get( ) != lVersion )
+        {
+            // modified during the load : the invalidation may have happened before the put
+            removeKey( KEY_INDEX );
+        }
+
+        return index;
+    }
+
+    /**
+     * Drops the index after a modification of the RBAC entries and publishes the modification to the other nodes of the cluster
+     */
+    public void invalidate( )
+    {
+        dropIndex( );
+        CacheInvalidationService.getInstance( ).publishKeyRemoval( CACHE_SERVICE_NAME, KEY_INDEX );
+    }
+
+    /**
+     * Drops the index
+     */
+    private void dropIndex( )
+    {
+        _lVersion.incrementAndGet( );
+        removeKey( KEY_INDEX );
+    }
+
+    /**
+     * {@inheritDoc }
+     * <br>
+     * Any modification on another node drops the index.
+     */
+    @Override
+    public void processKeyInvalidation( String strKey )
+    {
+        dropIndex( );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void resetCache( )
+    {
+        _lVersion.incrementAndGet( );
+        super.resetCache( );
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.rbac;
+
+import fr.paris.lutece.portal.business.rbac.RBAC;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable index of the RBAC entries. Role keys are numbered and the entries are grouped by resource type and permission key : for each pair, the roles
+ * granted on any resource and the roles granted on each resource id are stored as bitsets. Checking an authorization doesn't query the database and doesn't
+ * allocate any object.
+ */
+public final class RBACIndex
+{
+    private final String [ ] _roleKeys;
+    private final Map<String, Map<String, PermissionEntry>> _mapResourceTypes;
+
+    /**
+     * Roles granted for a resource type and a permission key
+     */
+    private static final class PermissionEntry
+    {
+        private final BitSet _wildcardRoles = new BitSet( );
+        private final Map<String, BitSet> _mapResourceRoles = new HashMap<>( );
+    }
+
+    /**
+     * Builds the index of a list of RBAC entries
+     * 
+     * @param listRBAC
+     *            The RBAC entries
+     */
+    public RBACIndex( Collection<RBAC> listRBAC )
+    {
+        Map<String, Integer> mapRoleIndexes = new HashMap<>( );
+        List<String> listRoleKeys = new ArrayList<>( );
+        Map<String, Map<String, PermissionEntry>> mapResourceTypes = new HashMap<>( );
+
+        for ( RBAC rbac : listRBAC )
+        {
+            if ( rbac.getRoleKey( ) == null || rbac.getResourceTypeKey( ) == null || rbac.getPermissionKey( ) == null )
+            {
+                continue;
+            }
+
+            int nRole = mapRoleIndexes.computeIfAbsent( rbac.getRoleKey( ), key -> {
+                listRoleKeys.add( key );
+                return listRoleKeys.size( ) - 1;
+            } );
+
+            PermissionEntry entry = mapResourceTypes.computeIfAbsent( rbac.getResourceTypeKey( ), key -> new HashMap<>( ) )
+                    .computeIfAbsent( rbac.getPermissionKey( ), key -> new PermissionEntry( ) );
+
+            if ( RBAC.WILDCARD_RESOURCES_ID.equals( rbac.getResourceId( ) ) )
+            {
+                entry._wildcardRoles.set( nRole );
+            }
+            else
+                if ( rbac.getResourceId( ) != null )
+                {
+                    entry._mapResourceRoles.computeIfAbsent( rbac.getResourceId( ), key -> new BitSet( ) ).set( nRole );
+                }
+        }
+
+        _roleKeys = listRoleKeys.toArray( new String [ listRoleKeys.size( )] );
+        _mapResourceTypes = mapResourceTypes;
+    }
+
+    /**
+     * Check that a user having the given roles is allowed to access a resource for a given permission. The roles granted on the wildcard resource id or with
+     * the wildcard permission key are taken into account.
+     * 
+     * @param strResourceTypeCode
+     *            the key of the resource type being considered
+     * @param strResourceId
+     *            the id of the resource being considered
+     * @param strPermission
+     *            the permission needed
+     * @param mapUserRoles
+     *            the roles of the user, by role key
+     * @return true if one of the roles grants the permission on the resource, false otherwise
+     */
+    public boolean isAuthorized( String strResourceTypeCode, String strResourceId, String strPermission, Map<String, ?> mapUserRoles )
+    {
+        Map<String, PermissionEntry> mapPermissions = _mapResourceTypes.get( strResourceTypeCode );
+
+        if ( mapPermissions == null || mapUserRoles == null || mapUserRoles.isEmpty( ) )
+        {
+            return false;
+        }
+
+        return isGranted( mapPermissions.get( strPermission ), strResourceId, mapUserRoles )
+                || isGranted( mapPermissions.get( RBAC.WILDCARD_PERMISSIONS_KEY ), strResourceId, mapUserRoles );
+    }
+
+    /**
+     * Check that one of the roles of a user is granted by an entry, on any resource or on the given one
+     * 
+     * @param entry
+     *            the entry, or null
+     * @param strResourceId
+     *            the resource id
+     * @param mapUserRoles
+     *            the roles of the user
+     * @return true if one of the roles is granted
+     */
+    private boolean isGranted( PermissionEntry entry, String strResourceId, Map<String, ?> mapUserRoles )
+    {
+        return entry != null && ( hasRole( entry._wildcardRoles, mapUserRoles ) || hasRole( entry._mapResourceRoles.get( strResourceId ), mapUserRoles ) );
+    }
+
+    /**
+     * Check that the user has one of the roles of a bitset
+     * 
+     * @param roles
+     *            the roles, or null
+     * @param mapUserRoles
+     *            the roles of the user
+     * @return true if the user has one of the roles
+     */
+    private boolean hasRole( BitSet roles, Map<String, ?> mapUserRoles )
+    {
+        if ( roles != null )
+        {
+            for ( int i = roles.nextSetBit( 0 ); i >= 0; i = roles.nextSetBit( i + 1 ) )
+            {
+                if ( mapUserRoles.containsKey( _roleKeys [i] ) )
+                {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+}
@@ -123,6 +123,13 @@ public final class RBACService
      */
     public static boolean isAuthorized( String strResourceTypeCode, String strResourceId, String strPermission, User user )
     {
+        RBACIndex index = RBACCacheService.getInstance( ).getIndex( );
+
+        if ( index != null )
+        {
+            return ( user != null ) && index.isAuthorized( strResourceTypeCode, strResourceId, strPermission, user.getUserRoles( ) );
+        }
+
         // Check user roles
         Collection<String> colRoles = RBACHome.findRoleKeys( strResourceTypeCode, strResourceId, strPermission );
 
@@ -249,6 +256,14 @@ public final class RBACService
         {
             return Collections.emptyList( );
         }
+        RBACIndex index = RBACCacheService.getInstance( ).getIndex( );
+        if ( index != null )
+        {
+            Map<String, UserRole> userRoles = user.getUserRoles( );
+            return collection.stream( )
+                    .filter( resource -> index.isAuthorized( resource.getResourceTypeCode( ), resource.getResourceId( ), strPermission, userRoles ) )
+                    .collect( Collectors.toList( ) );
+        }
         Map<String, Collection<RBAC>> rbacsByResourceType = new HashMap<>( );
         RBACHome.findByPermissionAndRoles( strPermission, user.getUserRoles( ).keySet( ) ).stream( ).forEach( rbac -> {
             rbacsByResourceType.computeIfAbsent( rbac.getResourceTypeKey( ), t -> new ArrayList<>( ) ).add( rbac );
@@ -341,6 +356,14 @@ public final class RBACService
         {
             return collection;
         }
+        RBACIndex index = RBACCacheService.getInstance( ).getIndex( );
+        if ( index != null )
+        {
+            Map<String, UserRole> userRoles = user.getUserRoles( );
+            return collection.stream( ).filter(
+                    action -> index.isAuthorized( resource.getResourceTypeCode( ), resource.getResourceId( ), action.getPermission( ), userRoles ) )
+                    .collect( Collectors.toList( ) );
+        }
         Set<String> permissions = RBACHome
                 .findByPermissionsAndRoles(
                         collection.stream( ).map( RBACAction::getPermission ).collect( Collectors.toSet( ) ),
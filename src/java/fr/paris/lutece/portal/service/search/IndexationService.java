@@ -41,9 +41,18 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -55,6 +64,11 @@ import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.IndexWriterConfig.OpenMode;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 import org.apache.lucene.util.Version;
@@ -62,6 +76,8 @@ import org.apache.lucene.util.Version;
 import fr.paris.lutece.portal.business.indexeraction.IndexerAction;
 import fr.paris.lutece.portal.business.indexeraction.IndexerActionFilter;
 import fr.paris.lutece.portal.business.indexeraction.IndexerActionHome;
+import fr.paris.lutece.portal.business.page.Page;
+import fr.paris.lutece.portal.business.page.PageHome;
 import fr.paris.lutece.portal.service.init.LuteceInitException;
 import fr.paris.lutece.portal.service.message.SiteMessageException;
 import fr.paris.lutece.portal.service.util.AppLogService;
@@ -79,14 +95,41 @@ public final class IndexationService
     public static final String PARAM_FORCING = "forcing";
     public static final int ALL_DOCUMENT = -1;
     public static final Version LUCENE_INDEX_VERSION = Version.LATEST;
-    private static final String PARAM_TYPE_PAGE = "Page";
     private static final String PROPERTY_ANALYSER_CLASS_NAME = "search.lucene.analyser.className";
+    private static final String PROPERTY_SEARCHER_REFRESH_INTERVAL = "search.lucene.searcher.refreshInterval";
+    private static final String THREAD_NAME_SEARCHER_REFRESH = "Lutece-IndexSearcherRefresh";
+    private static final String PROPERTY_INCREMENTAL_SCAN_PAGES = "search.lucene.incremental.scanPages";
+    private static final String PROPERTY_WRITER_RAM_BUFFER_SIZE = "search.lucene.writer.ramBufferSize";
+    private static final String PROPERTY_INDEXING_THREADS = "search.lucene.indexing.threads";
+    private static final String PROPERTY_INDEXING_QUEUE_SIZE = "search.lucene.indexing.queueSize";
+    private static final String PROPERTY_INDEXING_BATCH_SIZE = "search.lucene.indexing.batchSize";
+    private static final int DEFAULT_WRITER_RAM_BUFFER_SIZE = 64;
+    private static final int DEFAULT_INDEXING_THREADS = 2;
+    private static final int DEFAULT_INDEXING_QUEUE_SIZE = 1000;
+    private static final int DEFAULT_INDEXING_BATCH_SIZE = 100;
+    private static final String THREAD_NAME_INDEXER = "Lutece-Indexer-";
+    private static final String MESSAGE_INDEXING_RUNNING = "An indexing is already running\r\n";
+    private static final long SHUTDOWN_TIMEOUT = 30L;
+    private static final Object LOCK_SEARCHER = new Object( );
+    private static final Object LOCK_WRITER = new Object( );
+    private static final char KEY_SEPARATOR = '|';
     private static String _strIndex;
     private static Analyzer _analyzer;
     private static Map<String, SearchIndexer> _mapIndexers = new ConcurrentHashMap<>( );
-    private static IndexWriter _writer;
+    private static volatile IndexWriter _writer;
+    private static Directory _writerDirectory;
+    private static volatile boolean _bSharedIndex;
+    private static volatile IndexingPipeline _pipeline;
+    private static final ReentrantLock _lockIndexing = new ReentrantLock( );
+    private static final IndexingProgress _progress = new IndexingProgress( );
+    private static final ThreadLocal<StringBuilder> _indexerLogs = new ThreadLocal<>( );
     private static StringBuilder _sbLogs;
     private static SearchIndexerComparator _comparator = new SearchIndexerComparator( );
+    private static volatile SearcherManager _searcherManager;
+    private static volatile IndexWriter _searcherWriter;
+    private static Directory _searcherDirectory;
+    private static ScheduledExecutorService _searcherRefreshExecutor;
+    private static IndexSearcher _searcherIncremental;
 
     /**
      * The private constructor
@@ -134,6 +177,99 @@ public final class IndexationService
         {
             throw new LuteceInitException( "Failed to load Lucene Analyzer class", e );
         }
+
+        // The searcher is refreshed after each indexing. A periodic refresh is only needed if the index is written by another process (ie: a shared index) :
+        // the writer is then released after each indexing and the searcher reads the commits of the directory
+        long lRefreshInterval = AppPropertiesService.getPropertyLong( PROPERTY_SEARCHER_REFRESH_INTERVAL, 0L );
+        _bSharedIndex = lRefreshInterval > 0;
+
+        if ( ( lRefreshInterval > 0 ) && ( _searcherRefreshExecutor == null ) )
+        {
+            _searcherRefreshExecutor = Executors.newSingleThreadScheduledExecutor( runnable -> {
+                Thread thread = new Thread( runnable, THREAD_NAME_SEARCHER_REFRESH );
+                thread.setDaemon( true );
+
+                return thread;
+            } );
+            _searcherRefreshExecutor.scheduleWithFixedDelay( IndexationService::refreshSearcher, lRefreshInterval, lRefreshInterval, TimeUnit.SECONDS );
+        }
+    }
+
+    /**
+     * Closes the index writer, releases the shared searcher and stops its periodic refresh
+     */
+    public static void shutdown( )
+    {
+        closeWriter( );
+
+        if ( _searcherRefreshExecutor != null )
+        {
+            _searcherRefreshExecutor.shutdownNow( );
+            _searcherRefreshExecutor = null;
+        }
+
+        synchronized( LOCK_SEARCHER )
+        {
+            try
+            {
+                if ( _searcherManager != null )
+                {
+                    _searcherManager.close( );
+                }
+
+                if ( _searcherDirectory != null )
+                {
+                    _searcherDirectory.close( );
+                }
+            }
+            catch( IOException e )
+            {
+                AppLogService.error( "Error closing the index searcher : {}", e.getMessage( ), e );
+            }
+            finally
+            {
+                _searcherManager = null;
+                _searcherWriter = null;
+                _searcherDirectory = null;
+            }
+        }
+    }
+
+    /**
+     * Closes the index writer, waiting for the end of a running indexing
+     */
+    private static void closeWriter( )
+    {
+        boolean bLocked = false;
+
+        try
+        {
+            bLocked = _lockIndexing.tryLock( SHUTDOWN_TIMEOUT, TimeUnit.SECONDS );
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+        }
+
+        try
+        {
+            if ( bLocked )
+            {
+                releaseWriter( );
+            }
+            else
+            {
+                // A running indexing is discarded, the index keeps its last commit
+                rollbackWriter( );
+            }
+        }
+        finally
+        {
+            if ( bLocked )
+            {
+                _lockIndexing.unlock( );
+            }
+        }
     }
 
     /**
@@ -173,126 +309,314 @@ public final class IndexationService
     }
 
     /**
-     * Process the indexing
+     * Process the indexing. If an indexing is already running, the request is ignored.
      *
      * @param bCreate
      *            Force creating the index
      * @return the result log of the indexing
      */
-    public static synchronized String processIndexing( boolean bCreate )
+    public static String processIndexing( boolean bCreate )
     {
-        _sbLogs = new StringBuilder( );
-
-        _writer = null;
-
-        boolean bCreateIndex = bCreate;
+        if ( !_lockIndexing.tryLock( ) )
+        {
+            AppLogService.info( "An indexing is already running : the indexing request is ignored" );
 
-        Directory dir = null;
+            return MESSAGE_INDEXING_RUNNING;
+        }
 
         try
         {
-            dir = IndexationService.getDirectoryIndex( );
+            _sbLogs = new StringBuilder( );
 
-            if ( !DirectoryReader.indexExists( dir ) )
-            { // init index
-                bCreateIndex = true;
-            }
+            try
+            {
+                IndexWriter writer = getWriter( );
+                boolean bCreateIndex = bCreate || !DirectoryReader.indexExists( _writerDirectory );
 
-            Date start = new Date( );
-            IndexWriterConfig conf = new IndexWriterConfig( _analyzer );
+                Date start = new Date( );
+                _progress.start( bCreateIndex );
 
-            if ( bCreateIndex )
-            {
-                conf.setOpenMode( OpenMode.CREATE );
-            }
-            else
-            {
-                conf.setOpenMode( OpenMode.APPEND );
-            }
+                if ( bCreateIndex )
+                {
+                    processFullIndexing( writer );
+                }
+                else
+                {
+                    processIncrementalIndexing( );
+                }
 
-            _writer = new IndexWriter( dir, conf );
+                writer.commit( );
 
-            if ( bCreateIndex )
+                if ( _bSharedIndex )
+                {
+                    // Releases the write lock so that the other webapps sharing the index can write it
+                    releaseWriter( );
+                }
+
+                Date end = new Date( );
+                _sbLogs.append( "Duration of the treatment : " );
+                _sbLogs.append( end.getTime( ) - start.getTime( ) );
+                _sbLogs.append( " milliseconds\r\n" );
+            }
+            catch( Exception e )
             {
-                processFullIndexing( );
+                error( "Indexing error ", e, "" );
+
+                // The index keeps its last commit
+                rollbackWriter( );
             }
-            else
+            finally
             {
-                processIncrementalIndexing( );
+                _progress.end( );
             }
 
-            Date end = new Date( );
-            _sbLogs.append( "Duration of the treatment : " );
-            _sbLogs.append( end.getTime( ) - start.getTime( ) );
-            _sbLogs.append( " milliseconds\r\n" );
+            // Make the new commit visible to the searches
+            refreshSearcher( );
+
+            return _sbLogs.toString( );
         }
-        catch( Exception e )
+        finally
         {
-            error( "Indexing error ", e, "" );
+            _lockIndexing.unlock( );
         }
-        finally
+    }
+
+    /**
+     * Gets the index writer, opening it if needed. The writer is kept open between the indexings, unless the index is shared with other webapps.
+     *
+     * @return The index writer
+     * @throws IOException
+     *             If the writer can't be opened
+     */
+    private static IndexWriter getWriter( ) throws IOException
+    {
+        synchronized( LOCK_WRITER )
+        {
+            if ( ( _writer == null ) || !_writer.isOpen( ) )
+            {
+                closeWriterDirectory( );
+
+                Directory dir = getDirectoryIndex( );
+                IndexWriterConfig conf = new IndexWriterConfig( _analyzer );
+                conf.setOpenMode( OpenMode.CREATE_OR_APPEND );
+                conf.setRAMBufferSizeMB( AppPropertiesService.getPropertyInt( PROPERTY_WRITER_RAM_BUFFER_SIZE, DEFAULT_WRITER_RAM_BUFFER_SIZE ) );
+
+                try
+                {
+                    _writer = new IndexWriter( dir, conf );
+                }
+                catch( IOException e )
+                {
+                    dir.close( );
+                    throw e;
+                }
+
+                _writerDirectory = dir;
+            }
+
+            return _writer;
+        }
+    }
+
+    /**
+     * Closes the writer, committing its pending changes, and releases the write lock of the index. It will be opened again by the next indexing.
+     */
+    private static void releaseWriter( )
+    {
+        synchronized( LOCK_WRITER )
         {
             try
             {
-                if ( _writer != null )
+                if ( ( _writer != null ) && _writer.isOpen( ) )
                 {
                     _writer.close( );
                 }
             }
             catch( IOException e )
             {
-                AppLogService.error( e.getMessage( ), e );
+                AppLogService.error( "Error closing the index writer : {}", e.getMessage( ), e );
+            }
+            finally
+            {
+                _writer = null;
+                closeWriterDirectory( );
             }
+        }
+    }
 
+    /**
+     * Discards the uncommitted changes and closes the writer. It will be opened again by the next indexing.
+     */
+    private static void rollbackWriter( )
+    {
+        synchronized( LOCK_WRITER )
+        {
             try
             {
-                if ( dir != null )
+                if ( ( _writer != null ) && _writer.isOpen( ) )
                 {
-                    dir.close( );
+                    _writer.rollback( );
                 }
             }
             catch( IOException e )
             {
-                AppLogService.error( e.getMessage( ), e );
+                AppLogService.error( "Error rolling back the index writer : {}", e.getMessage( ), e );
+            }
+            finally
+            {
+                _writer = null;
+                closeWriterDirectory( );
             }
         }
+    }
+
+    /**
+     * Closes the directory of the writer
+     */
+    private static void closeWriterDirectory( )
+    {
+        if ( _writerDirectory != null )
+        {
+            try
+            {
+                _writerDirectory.close( );
+            }
+            catch( IOException e )
+            {
+                AppLogService.error( e.getMessage( ), e );
+            }
 
-        return _sbLogs.toString( );
+            _writerDirectory = null;
+        }
     }
 
     /**
-     * Process all contents
+     * Process all contents. The enabled indexers run in parallel on a bounded pool and their documents are written by a single thread.
+     *
+     * @param writer
+     *            The index writer
+     * @throws IOException
+     *             if an error occurs
+     * @throws InterruptedException
+     *             if an error occurs
+     * @throws ExecutionException
+     *             if an error occurs
      */
-    private static void processFullIndexing( )
+    private static void processFullIndexing( IndexWriter writer ) throws IOException, InterruptedException, ExecutionException
     {
         _sbLogs.append( "\r\nIndexing all contents ...\r\n" );
 
-        for ( SearchIndexer indexer : getIndexerListSortedByName( ) )
+        // The previous documents stay visible to the searches until the commit
+        writer.deleteAll( );
+
+        IndexingPipeline pipeline = new IndexingPipeline( writer, AppPropertiesService.getPropertyInt( PROPERTY_INDEXING_QUEUE_SIZE, DEFAULT_INDEXING_QUEUE_SIZE ),
+                AppPropertiesService.getPropertyInt( PROPERTY_INDEXING_BATCH_SIZE, DEFAULT_INDEXING_BATCH_SIZE ), _progress );
+        int nThreads = Math.max( 1, AppPropertiesService.getPropertyInt( PROPERTY_INDEXING_THREADS, DEFAULT_INDEXING_THREADS ) );
+        AtomicInteger nThreadCount = new AtomicInteger( );
+        ExecutorService executor = Executors.newFixedThreadPool( nThreads, runnable -> {
+            Thread thread = new Thread( runnable, THREAD_NAME_INDEXER + nThreadCount.incrementAndGet( ) );
+            thread.setDaemon( true );
+
+            return thread;
+        } );
+
+        pipeline.start( );
+        _pipeline = pipeline;
+
+        try
         {
-            // catch any exception coming from an indexer to prevent global indexation to fail
-            try
+            List<Future<String>> listFutures = new ArrayList<>( );
+
+            for ( SearchIndexer indexer : getIndexerListSortedByName( ) )
             {
-                if ( indexer.isEnable( ) )
-                {
-                    _sbLogs.append( "\r\n<strong>Indexer : " );
-                    _sbLogs.append( indexer.getName( ) );
-                    _sbLogs.append( " - " );
-                    _sbLogs.append( indexer.getDescription( ) );
-                    _sbLogs.append( "</strong>\r\n" );
-
-                    // the indexer will call write(doc)
-                    indexer.indexDocuments( );
-                }
+                listFutures.add( executor.submit( ( ) -> runIndexer( indexer ) ) );
             }
-            catch( Exception e )
+
+            // The logs are kept in the order of the indexers
+            for ( Future<String> future : listFutures )
+            {
+                _sbLogs.append( future.get( ) );
+            }
+        }
+        finally
+        {
+            executor.shutdownNow( );
+            _pipeline = null;
+            pipeline.finish( );
+
+            for ( IndexingPipeline.RejectedDocument rejected : pipeline.getRejectedDocuments( ) )
             {
-                error( indexer, e, StringUtils.EMPTY );
+                error( "Document : " + rejected.getType( ) + " #" + rejected.getUid( ), rejected.getException( ), null );
             }
         }
 
         removeAllIndexerAction( );
     }
 
+    /**
+     * Runs an indexer of the full indexing
+     *
+     * @param indexer
+     *            The indexer
+     * @return The logs of the indexer
+     */
+    private static String runIndexer( SearchIndexer indexer )
+    {
+        StringBuilder sbLogs = new StringBuilder( );
+        _indexerLogs.set( sbLogs );
+
+        try
+        {
+            // catch any exception coming from an indexer to prevent global indexation to fail
+            if ( indexer.isEnable( ) )
+            {
+                sbLogs.append( "\r\n<strong>Indexer : " );
+                sbLogs.append( indexer.getName( ) );
+                sbLogs.append( " - " );
+                sbLogs.append( indexer.getDescription( ) );
+                sbLogs.append( "</strong>\r\n" );
+
+                _progress.indexerStarted( indexer.getName( ) );
+
+                // the indexer will call write(doc)
+                indexer.indexDocuments( );
+            }
+        }
+        catch( Exception e )
+        {
+            error( indexer, e, StringUtils.EMPTY );
+        }
+        finally
+        {
+            _progress.indexerEnded( indexer.getName( ) );
+            _indexerLogs.remove( );
+        }
+
+        return sbLogs.toString( );
+    }
+
+    /**
+     * Returns the logs of the current thread : the logs of the indexer running on this thread during a full indexing, the logs of the indexing otherwise
+     *
+     * @return The logs
+     */
+    private static StringBuilder getLogs( )
+    {
+        StringBuilder sbLogs = _indexerLogs.get( );
+
+        return ( sbLogs != null ) ? sbLogs : _sbLogs;
+    }
+
+    /**
+     * Returns the progress of the current indexing and the summary of the last one
+     *
+     * @return The progress
+     */
+    public static IndexingProgress getProgress( )
+    {
+        return _progress;
+    }
+
     /**
      * Process incremental indexing
      *
@@ -307,30 +631,112 @@ public final class IndexationService
      */
     private static void processIncrementalIndexing( ) throws IOException, InterruptedException, SiteMessageException
     {
-        _sbLogs.append( "\r\nIncremental Indexing ...\r\n" );
+        getLogs( ).append( "\r\nIncremental Indexing ...\r\n" );
 
         // incremental indexing
         Collection<IndexerAction> actions = IndexerActionHome.getList( );
 
-        for ( IndexerAction action : actions )
+        // Last task applied to each document during this run
+        Map<String, Integer> mapAppliedTasks = new HashMap<>( );
+        _searcherIncremental = acquireSearcher( );
+
+        try
         {
-            // catch any exception coming from an indexer to prevent global indexation to fail
+            for ( IndexerAction action : actions )
+            {
+                String strKey = action.getIndexerName( ) + KEY_SEPARATOR + action.getIdDocument( ) + KEY_SEPARATOR + action.getIdPortlet( );
+                Integer nLastTask = mapAppliedTasks.put( strKey, action.getIdTask( ) );
+
+                if ( ( nLastTask != null ) && ( nLastTask == action.getIdTask( ) ) )
+                {
+                    // The same task has already been applied to this document during this run (ie: a page modified several times)
+                    removeIndexerAction( action.getIdAction( ) );
+
+                    continue;
+                }
+
+                // catch any exception coming from an indexer to prevent global indexation to fail
+                try
+                {
+                    // The committed hash can only be trusted if the document has not been changed yet during this run
+                    processIndexAction( action, nLastTask == null );
+                }
+                catch( Exception e )
+                {
+                    error( action, e, StringUtils.EMPTY );
+                }
+            }
+
+            if ( AppPropertiesService.getPropertyBoolean( PROPERTY_INCREMENTAL_SCAN_PAGES, false ) )
+            {
+                scanPages( mapAppliedTasks );
+            }
+        }
+        finally
+        {
+            releaseSearcher( _searcherIncremental );
+            _searcherIncremental = null;
+        }
+    }
+
+    /**
+     * Renders all the pages and updates the documents of the pages whose content has changed. This catches the pages whose content is changed without page
+     * nor portlet event (ie: contents of a plugin displayed by a portlet).
+     *
+     * @param mapAppliedTasks
+     *            The tasks applied during this run, whose pages are skipped
+     * @throws IOException
+     *             if an error occurs
+     */
+    private static void scanPages( Map<String, Integer> mapAppliedTasks ) throws IOException
+    {
+        SearchIndexer indexer = _mapIndexers.get( PageIndexer.INDEXER_NAME );
+
+        if ( ( indexer == null ) || !indexer.isEnable( ) )
+        {
+            return;
+        }
+
+        getLogs( ).append( "\r\nScanning the pages ...\r\n" );
+
+        for ( Page page : PageHome.getAllPages( ) )
+        {
+            String strIdPage = String.valueOf( page.getId( ) );
+
+            if ( mapAppliedTasks.containsKey( PageIndexer.INDEXER_NAME + KEY_SEPARATOR + strIdPage + KEY_SEPARATOR + ALL_DOCUMENT ) )
+            {
+                continue;
+            }
+
             try
             {
-                processIndexAction( action );
+                for ( Document doc : indexer.getDocuments( strIdPage ) )
+                {
+                    updateDocument( new Term( SearchItem.FIELD_UID, strIdPage ), doc, true );
+                }
             }
             catch( Exception e )
             {
-                error( action, e, StringUtils.EMPTY );
+                error( indexer, e, "Page ID : " + strIdPage );
             }
         }
-
-        // reindexing all pages.
-        _writer.deleteDocuments( new Term( SearchItem.FIELD_TYPE, PARAM_TYPE_PAGE ) );
-        _mapIndexers.get( PageIndexer.INDEXER_NAME ).indexDocuments( );
     }
 
-    private static void processIndexAction( IndexerAction action ) throws IOException, InterruptedException, SiteMessageException
+    /**
+     * Process an indexer action
+     *
+     * @param action
+     *            The action
+     * @param bCheckHash
+     *            true if a modified document can be skipped when its content hash is the one of the indexed document
+     * @throws IOException
+     *             if an error occurs
+     * @throws InterruptedException
+     *             if an error occurs
+     * @throws SiteMessageException
+     *             if an error occurs
+     */
+    private static void processIndexAction( IndexerAction action, boolean bCheckHash ) throws IOException, InterruptedException, SiteMessageException
     {
         SearchIndexer indexer = _mapIndexers.get( action.getIndexerName( ) );
 
@@ -349,7 +755,7 @@ public final class IndexationService
                     if ( ( action.getIdPortlet( ) == ALL_DOCUMENT ) || ( ( doc.get( SearchItem.FIELD_DOCUMENT_PORTLET_ID ) != null )
                             && ( doc.get( SearchItem.FIELD_DOCUMENT_PORTLET_ID ).equals( doc.get( SearchItem.FIELD_UID ) + "&" + action.getIdPortlet( ) ) ) ) )
                     {
-                        processDocument( action, doc );
+                        processDocument( action, doc, bCheckHash );
                     }
                 }
             }
@@ -382,7 +788,7 @@ public final class IndexationService
             _writer.deleteDocuments( new Term( SearchItem.FIELD_UID, action.getIdDocument( ) ) );
         }
 
-        _sbLogs.append( "Deleting #" ).append( action.getIdDocument( ) ).append( "\r\n" );
+        getLogs( ).append( "Deleting #" ).append( action.getIdDocument( ) ).append( "\r\n" );
     }
 
     /**
@@ -392,35 +798,98 @@ public final class IndexationService
      *            The current action
      * @param doc
      *            The document
+     * @param bCheckHash
+     *            true if a modified document can be skipped when its content hash is the one of the indexed document
      * @throws CorruptIndexException
      *             if an error occurs
      * @throws IOException
      *             if an error occurs
      */
-    private static void processDocument( IndexerAction action, Document doc ) throws IOException
+    private static void processDocument( IndexerAction action, Document doc, boolean bCheckHash ) throws IOException
     {
         if ( action.getIdTask( ) == IndexerAction.TASK_CREATE )
         {
             _writer.addDocument( doc );
+            _progress.addDocuments( 1 );
             logDoc( "Adding ", doc );
         }
         else
             if ( action.getIdTask( ) == IndexerAction.TASK_MODIFY )
             {
+                Term term;
+
                 if ( action.getIdPortlet( ) != ALL_DOCUMENT )
                 {
                     // delete only the index linked to this portlet
-                    _writer.updateDocument( new Term( SearchItem.FIELD_DOCUMENT_PORTLET_ID, doc.get( SearchItem.FIELD_DOCUMENT_PORTLET_ID ) ), doc );
+                    term = new Term( SearchItem.FIELD_DOCUMENT_PORTLET_ID, doc.get( SearchItem.FIELD_DOCUMENT_PORTLET_ID ) );
                 }
                 else
                 {
-                    _writer.updateDocument( new Term( SearchItem.FIELD_UID, doc.getField( SearchItem.FIELD_UID ).stringValue( ) ), doc );
+                    term = new Term( SearchItem.FIELD_UID, doc.getField( SearchItem.FIELD_UID ).stringValue( ) );
                 }
 
-                logDoc( "Updating ", doc );
+                updateDocument( term, doc, bCheckHash );
             }
     }
 
+    /**
+     * Replaces the indexed document matching a term, unless its content hash hasn't changed
+     *
+     * @param term
+     *            The term identifying the indexed document
+     * @param doc
+     *            The new document
+     * @param bCheckHash
+     *            true if the document can be skipped when its content hash is the one of the indexed document
+     * @throws IOException
+     *             if an error occurs
+     */
+    private static void updateDocument( Term term, Document doc, boolean bCheckHash ) throws IOException
+    {
+        if ( bCheckHash && isUnchanged( term, doc ) )
+        {
+            logDoc( "Unchanged ", doc );
+
+            return;
+        }
+
+        _writer.updateDocument( term, doc );
+        _progress.addDocuments( 1 );
+        logDoc( "Updating ", doc );
+    }
+
+    /**
+     * Tells whether a document has the same content hash as the single committed document matching a term
+     *
+     * @param term
+     *            The term identifying the indexed document
+     * @param doc
+     *            The new document
+     * @return true if the document is unchanged
+     * @throws IOException
+     *             if an error occurs
+     */
+    private static boolean isUnchanged( Term term, Document doc ) throws IOException
+    {
+        String strHash = doc.get( SearchItem.FIELD_CONTENT_HASH );
+
+        if ( ( strHash == null ) || ( _searcherIncremental == null ) || ( term.text( ) == null ) )
+        {
+            return false;
+        }
+
+        TopDocs topDocs = _searcherIncremental.search( new TermQuery( term ), 2 );
+
+        if ( topDocs.scoreDocs.length != 1 )
+        {
+            return false;
+        }
+
+        Document indexedDoc = _searcherIncremental.doc( topDocs.scoreDocs [0].doc );
+
+        return strHash.equals( indexedDoc.get( SearchItem.FIELD_CONTENT_HASH ) );
+    }
+
     /**
      * Index one document, called by plugin indexers
      *
@@ -433,7 +902,18 @@ public final class IndexationService
      */
     public static void write( Document doc ) throws IOException
     {
-        _writer.addDocument( doc );
+        IndexingPipeline pipeline = _pipeline;
+
+        if ( pipeline != null )
+        {
+            pipeline.put( doc );
+        }
+        else
+        {
+            _writer.addDocument( doc );
+            _progress.addDocuments( 1 );
+        }
+
         logDoc( "Indexing ", doc );
     }
 
@@ -447,13 +927,13 @@ public final class IndexationService
      */
     private static void logDoc( String strAction, Document doc )
     {
-        _sbLogs.append( strAction );
-        _sbLogs.append( doc.get( SearchItem.FIELD_TYPE ) );
-        _sbLogs.append( " #" );
-        _sbLogs.append( doc.get( SearchItem.FIELD_UID ) );
-        _sbLogs.append( " - " );
-        _sbLogs.append( doc.get( SearchItem.FIELD_TITLE ) );
-        _sbLogs.append( "\r\n" );
+        getLogs( ).append( strAction );
+        getLogs( ).append( doc.get( SearchItem.FIELD_TYPE ) );
+        getLogs( ).append( " #" );
+        getLogs( ).append( doc.get( SearchItem.FIELD_UID ) );
+        getLogs( ).append( " - " );
+        getLogs( ).append( doc.get( SearchItem.FIELD_TITLE ) );
+        getLogs( ).append( "\r\n" );
     }
 
     /**
@@ -501,32 +981,32 @@ public final class IndexationService
      */
     private static void error( String strTitle, Exception e, String strMessage )
     {
-        _sbLogs.append( "</pre>\r\n" );
-        _sbLogs.append( "<div class=\"alert alert-danger\">\r\n" );
-        _sbLogs.append( strTitle );
-        _sbLogs.append( " - ERROR : " );
-        _sbLogs.append( "<strong>\r\n" );
-        _sbLogs.append( e.getMessage( ) );
-        _sbLogs.append( "</strong>\r\n" );
+        getLogs( ).append( "</pre>\r\n" );
+        getLogs( ).append( "<div class=\"alert alert-danger\">\r\n" );
+        getLogs( ).append( strTitle );
+        getLogs( ).append( " - ERROR : " );
+        getLogs( ).append( "<strong>\r\n" );
+        getLogs( ).append( e.getMessage( ) );
+        getLogs( ).append( "</strong>\r\n" );
 
         if ( e.getCause( ) != null )
         {
-            _sbLogs.append( " : " );
-            _sbLogs.append( "<strong>\r\n" );
-            _sbLogs.append( e.getCause( ).getMessage( ) );
-            _sbLogs.append( "</strong>\r\n" );
+            getLogs( ).append( " : " );
+            getLogs( ).append( "<strong>\r\n" );
+            getLogs( ).append( e.getCause( ).getMessage( ) );
+            getLogs( ).append( "</strong>\r\n" );
         }
 
         if ( StringUtils.isNotBlank( strMessage ) )
         {
-            _sbLogs.append( " - " );
-            _sbLogs.append( "<strong>\r\n" );
-            _sbLogs.append( strMessage );
-            _sbLogs.append( "</strong>\r\n" );
+            getLogs( ).append( " - " );
+            getLogs( ).append( "<strong>\r\n" );
+            getLogs( ).append( strMessage );
+            getLogs( ).append( "</strong>\r\n" );
         }
 
-        _sbLogs.append( "</div>\r\n" );
-        _sbLogs.append( "<pre>" );
+        getLogs( ).append( "</div>\r\n" );
+        getLogs( ).append( "<pre>" );
 
         AppLogService.error( "Indexing error : " + e.getMessage( ), e );
     }
@@ -543,6 +1023,175 @@ public final class IndexationService
         return FSDirectory.open( Paths.get( _strIndex ) );
     }
 
+    /**
+     * Acquires the shared searcher of the index. The searcher must be released by {@link #releaseSearcher(IndexSearcher)} once the search is done. Concurrent
+     * searches share the same reader and its caches until the next refresh of the index.
+     *
+     * @return The searcher
+     * @throws IOException
+     *             If the index doesn't exist or can't be opened
+     */
+    public static IndexSearcher acquireSearcher( ) throws IOException
+    {
+        return getSearcherManager( ).acquire( );
+    }
+
+    /**
+     * Releases a searcher acquired by {@link #acquireSearcher()}
+     *
+     * @param searcher
+     *            The searcher, may be null
+     */
+    public static void releaseSearcher( IndexSearcher searcher )
+    {
+        if ( searcher == null )
+        {
+            return;
+        }
+
+        try
+        {
+            SearcherManager manager = _searcherManager;
+
+            if ( manager != null )
+            {
+                manager.release( searcher );
+            }
+            else
+            {
+                // The manager has been closed since the acquisition
+                searcher.getIndexReader( ).decRef( );
+            }
+        }
+        catch( IOException e )
+        {
+            AppLogService.error( "Error releasing the index searcher : {}", e.getMessage( ), e );
+        }
+    }
+
+    /**
+     * Refreshes the shared searcher if the index has changed since its opening. The searches in progress keep their searcher.
+     */
+    public static void refreshSearcher( )
+    {
+        SearcherManager manager = _searcherManager;
+
+        if ( ( manager != null ) && !isStale( manager ) )
+        {
+            try
+            {
+                manager.maybeRefresh( );
+            }
+            catch( IOException | AlreadyClosedException e )
+            {
+                AppLogService.error( "Unable to refresh the index searcher : {}", e.getMessage( ), e );
+            }
+        }
+    }
+
+    /**
+     * Checks if a searcher manager reads a writer that has been closed since its opening
+     *
+     * @param manager
+     *            The searcher manager
+     * @return true if the manager must be opened again
+     */
+    private static boolean isStale( SearcherManager manager )
+    {
+        IndexWriter writer = _searcherWriter;
+
+        return ( manager == _searcherManager ) && ( writer != null ) && !writer.isOpen( );
+    }
+
+    /**
+     * Gets the searcher manager, opening it on the first search. The searcher reads the last commit of the directory of the index writer, so that the
+     * changes of a running indexing are never seen before its commit. When the index is shared with other webapps, the searcher reads the commits of its own
+     * directory.
+     *
+     * @return The searcher manager
+     * @throws IOException
+     *             If the index doesn't exist or can't be opened
+     */
+    private static SearcherManager getSearcherManager( ) throws IOException
+    {
+        SearcherManager manager = _searcherManager;
+
+        if ( ( manager == null ) || isStale( manager ) )
+        {
+            synchronized( LOCK_SEARCHER )
+            {
+                manager = _searcherManager;
+
+                if ( ( manager != null ) && isStale( manager ) )
+                {
+                    // The writer has been rolled back : the searches in progress keep their searcher
+                    manager.close( );
+                    manager = null;
+                    _searcherManager = null;
+                    _searcherWriter = null;
+                }
+
+                if ( manager == null )
+                {
+                    manager = _bSharedIndex ? openDirectorySearcherManager( ) : openWriterSearcherManager( );
+                    _searcherManager = manager;
+                }
+            }
+        }
+
+        return manager;
+    }
+
+    /**
+     * Opens a searcher manager reading the last commit of the directory of the index writer. The uncommitted changes of the writer (the deletion of all the
+     * documents by a full indexing for instance) are not visible.
+     *
+     * @return The searcher manager
+     * @throws IOException
+     *             If the writer can't be opened or if the index has no commit yet
+     */
+    private static SearcherManager openWriterSearcherManager( ) throws IOException
+    {
+        IndexWriter writer = getWriter( );
+        SearcherManager manager = new SearcherManager( DirectoryReader.open( writer.getDirectory( ) ), null );
+        _searcherWriter = writer;
+
+        return manager;
+    }
+
+    /**
+     * Opens a searcher manager reading the last commit of the index directory
+     *
+     * @return The searcher manager
+     * @throws IOException
+     *             If the index doesn't exist or can't be opened
+     */
+    private static SearcherManager openDirectorySearcherManager( ) throws IOException
+    {
+        if ( _searcherDirectory != null )
+        {
+            _searcherDirectory.close( );
+            _searcherDirectory = null;
+        }
+
+        Directory directory = getDirectoryIndex( );
+        SearcherManager manager;
+
+        try
+        {
+            manager = new SearcherManager( directory, null );
+        }
+        catch( IOException e )
+        {
+            directory.close( );
+            throw e;
+        }
+
+        _searcherDirectory = directory;
+
+        return manager;
+    }
+
     /**
      * Gets the current analyser
      *
@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.search;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexWriter;
+
+/**
+ * Pipeline between the indexers producing documents and the index writer. <br>
+ * The indexers put their documents in a bounded queue, so a fast indexer is slowed down rather than filling the memory, and a single consumer thread writes
+ * them to the index by batches. <br>
+ * A document rejected by the writer is skipped and kept in the list of the rejected documents, while a failure of the writer itself stops the pipeline.
+ */
+final class IndexingPipeline
+{
+    private static final String THREAD_NAME = "Lutece-IndexWriter";
+    private static final long POLL_TIMEOUT = 100L;
+
+    private final IndexWriter _writer;
+    private final BlockingQueue<Document> _queue;
+    private final int _nBatchSize;
+    private final IndexingProgress _progress;
+    private final Thread _consumer;
+    private final List<RejectedDocument> _listRejected = Collections.synchronizedList( new ArrayList<>( ) );
+    private volatile boolean _bClosed;
+    private volatile IOException _failure;
+
+    /**
+     * Constructor
+     *
+     * @param writer
+     *            The index writer
+     * @param nQueueSize
+     *            The capacity of the queue
+     * @param nBatchSize
+     *            The maximum number of documents written at once
+     * @param progress
+     *            The progress of the indexing
+     */
+    IndexingPipeline( IndexWriter writer, int nQueueSize, int nBatchSize, IndexingProgress progress )
+    {
+        _writer = writer;
+        _queue = new ArrayBlockingQueue<>( Math.max( 1, nQueueSize ) );
+        _nBatchSize = Math.max( 1, nBatchSize );
+        _progress = progress;
+        _consumer = new Thread( this::consume, THREAD_NAME );
+        _consumer.setDaemon( true );
+    }
+
+    /**
+     * Starts the consumer thread
+     */
+    void start( )
+    {
+        _consumer.start( );
+    }
+
+    /**
+     * Puts a document in the queue, waiting for some room if the queue is full
+     *
+     * @param doc
+     *            The document
+     * @throws IOException
+     *             If the writer has failed or if the thread is interrupted
+     */
+    void put( Document doc ) throws IOException
+    {
+        try
+        {
+            while ( !_queue.offer( doc, POLL_TIMEOUT, TimeUnit.MILLISECONDS ) )
+            {
+                checkFailure( );
+            }
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+            throw new InterruptedIOException( "Interrupted while queuing a document to index" );
+        }
+
+        checkFailure( );
+    }
+
+    /**
+     * Waits for all the queued documents to be written and stops the consumer thread
+     *
+     * @throws IOException
+     *             If the writer has failed or if the thread is interrupted
+     */
+    void finish( ) throws IOException
+    {
+        _bClosed = true;
+
+        try
+        {
+            _consumer.join( );
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+            throw new InterruptedIOException( "Interrupted while waiting for the end of the indexing" );
+        }
+
+        checkFailure( );
+    }
+
+    /**
+     * Returns the documents rejected by the writer
+     *
+     * @return The rejected documents
+     */
+    List<RejectedDocument> getRejectedDocuments( )
+    {
+        synchronized( _listRejected )
+        {
+            return new ArrayList<>( _listRejected );
+        }
+    }
+
+    /**
+     * Throws the failure of the writer if any
+     *
+     * @throws IOException
+     *             The failure
+     */
+    private void checkFailure( ) throws IOException
+    {
+        if ( _failure != null )
+        {
+            throw _failure;
+        }
+    }
+
+    /**
+     * Consumer loop : writes the queued documents by batches until the pipeline is closed and the queue empty
+     */
+    private void consume( )
+    {
+        List<Document> listBatch = new ArrayList<>( _nBatchSize );
+
+        try
+        {
+            while ( !_bClosed || !_queue.isEmpty( ) )
+            {
+                Document doc = _queue.poll( POLL_TIMEOUT, TimeUnit.MILLISECONDS );
+
+                if ( doc != null )
+                {
+                    listBatch.add( doc );
+                    _queue.drainTo( listBatch, _nBatchSize - 1 );
+
+                    int nWritten = 0;
+
+                    for ( Document document : listBatch )
+                    {
+                        if ( writeDocument( document ) )
+                        {
+                            nWritten++;
+                        }
+                    }
+
+                    _progress.addDocuments( nWritten );
+                    listBatch.clear( );
+                }
+            }
+        }
+        catch( IOException e )
+        {
+            _failure = e;
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+            _failure = new InterruptedIOException( "Index writer thread interrupted" );
+        }
+        catch( RuntimeException e )
+        {
+            _failure = new IOException( e );
+        }
+        finally
+        {
+            // Unblocks the producers
+            _queue.clear( );
+        }
+    }
+
+    /**
+     * Writes a document to the index. A document rejected by the writer (an immense term for instance) is kept in the list of the rejected documents.
+     *
+     * @param doc
+     *            The document
+     * @return true if the document has been written
+     * @throws IOException
+     *             If the writer has failed
+     */
+    private boolean writeDocument( Document doc ) throws IOException
+    {
+        try
+        {
+            _writer.addDocument( doc );
+
+            return true;
+        }
+        catch( RuntimeException e )
+        {
+            if ( !_writer.isOpen( ) || ( _writer.getTragicException( ) != null ) )
+            {
+                throw new IOException( e );
+            }
+
+            _listRejected.add( new RejectedDocument( doc, e ) );
+
+            return false;
+        }
+    }
+
+    /**
+     * A document rejected by the writer
+     */
+    static final class RejectedDocument
+    {
+        private final String _strType;
+        private final String _strUid;
+        private final RuntimeException _exception;
+
+        /**
+         * Constructor
+         *
+         * @param doc
+         *            The document
+         * @param exception
+         *            The exception thrown by the writer
+         */
+        RejectedDocument( Document doc, RuntimeException exception )
+        {
+            _strType = doc.get( SearchItem.FIELD_TYPE );
+            _strUid = doc.get( SearchItem.FIELD_UID );
+            _exception = exception;
+        }
+
+        /**
+         * Returns the type of the document
+         *
+         * @return The type
+         */
+        String getType( )
+        {
+            return _strType;
+        }
+
+        /**
+         * Returns the uid of the document
+         *
+         * @return The uid
+         */
+        String getUid( )
+        {
+            return _strUid;
+        }
+
+        /**
+         * Returns the exception thrown by the writer
+         *
+         * @return The exception
+         */
+        RuntimeException getException( )
+        {
+            return _exception;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Progress and throughput of the current indexing and summary of the last one
+ */
+public final class IndexingProgress
+{
+    private final LongAdder _lDocuments = new LongAdder( );
+    private final Collection<String> _activeIndexers = ConcurrentHashMap.newKeySet( );
+    private volatile boolean _bRunning;
+    private volatile boolean _bFullIndexing;
+    private volatile long _lStartNanos;
+    private volatile Date _dateStart;
+    private volatile Date _dateLastEnd;
+    private volatile long _lLastDuration;
+    private volatile long _lLastDocuments;
+    private volatile boolean _bLastFullIndexing;
+
+    /**
+     * Starts a new indexing
+     *
+     * @param bFullIndexing
+     *            true for a full indexing
+     */
+    void start( boolean bFullIndexing )
+    {
+        _lDocuments.reset( );
+        _activeIndexers.clear( );
+        _bFullIndexing = bFullIndexing;
+        _lStartNanos = System.nanoTime( );
+        _dateStart = new Date( );
+        _bRunning = true;
+    }
+
+    /**
+     * Ends the current indexing
+     */
+    void end( )
+    {
+        _lLastDuration = TimeUnit.NANOSECONDS.toMillis( System.nanoTime( ) - _lStartNanos );
+        _lLastDocuments = _lDocuments.sum( );
+        _bLastFullIndexing = _bFullIndexing;
+        _dateLastEnd = new Date( );
+        _activeIndexers.clear( );
+        _bRunning = false;
+    }
+
+    /**
+     * Counts written documents
+     *
+     * @param nCount
+     *            The number of documents
+     */
+    void addDocuments( int nCount )
+    {
+        _lDocuments.add( nCount );
+    }
+
+    /**
+     * Marks an indexer as running
+     *
+     * @param strIndexerName
+     *            The indexer name
+     */
+    void indexerStarted( String strIndexerName )
+    {
+        _activeIndexers.add( strIndexerName );
+    }
+
+    /**
+     * Marks an indexer as done
+     *
+     * @param strIndexerName
+     *            The indexer name
+     */
+    void indexerEnded( String strIndexerName )
+    {
+        _activeIndexers.remove( strIndexerName );
+    }
+
+    /**
+     * Tells whether an indexing is running
+     *
+     * @return true if an indexing is running
+     */
+    public boolean isRunning( )
+    {
+        return _bRunning;
+    }
+
+    /**
+     * Tells whether the current indexing is a full indexing
+     *
+     * @return true for a full indexing
+     */
+    public boolean isFullIndexing( )
+    {
+        return _bFullIndexing;
+    }
+
+    /**
+     * Returns the start date of the current or last indexing
+     *
+     * @return The start date or null if no indexing has run
+     */
+    public Date getStartDate( )
+    {
+        return _dateStart;
+    }
+
+    /**
+     * Returns the number of documents written by the current indexing
+     *
+     * @return The number of documents
+     */
+    public long getDocumentsCount( )
+    {
+        return _lDocuments.sum( );
+    }
+
+    /**
+     * Returns the elapsed time of the current indexing
+     *
+     * @return The elapsed time in milliseconds
+     */
+    public long getElapsedTime( )
+    {
+        return _bRunning ? TimeUnit.NANOSECONDS.toMillis( System.nanoTime( ) - _lStartNanos ) : 0L;
+    }
+
+    /**
+     * Returns the throughput of the current indexing
+     *
+     * @return The number of documents written per second
+     */
+    public long getThroughput( )
+    {
+        return getThroughput( getDocumentsCount( ), getElapsedTime( ) );
+    }
+
+    /**
+     * Returns the names of the indexers running
+     *
+     * @return The names
+     */
+    public List<String> getActiveIndexers( )
+    {
+        return new ArrayList<>( _activeIndexers );
+    }
+
+    /**
+     * Returns the end date of the last indexing
+     *
+     * @return The end date or null if no indexing has completed
+     */
+    public Date getLastEndDate( )
+    {
+        return _dateLastEnd;
+    }
+
+    /**
+     * Returns the duration of the last indexing
+     *
+     * @return The duration in milliseconds
+     */
+    public long getLastDuration( )
+    {
+        return _lLastDuration;
+    }
+
+    /**
+     * Returns the number of documents written by the last indexing
+     *
+     * @return The number of documents
+     */
+    public long getLastDocumentsCount( )
+    {
+        return _lLastDocuments;
+    }
+
+    /**
+     * Returns the throughput of the last indexing
+     *
+     * @return The number of documents written per second
+     */
+    public long getLastThroughput( )
+    {
+        return getThroughput( _lLastDocuments, _lLastDuration );
+    }
+
+    /**
+     * Tells whether the last indexing was a full indexing
+     *
+     * @return true for a full indexing
+     */
+    public boolean isLastFullIndexing( )
+    {
+        return _bLastFullIndexing;
+    }
+
+    /**
+     * Computes a throughput
+     *
+     * @param lDocuments
+     *            The number of documents
+     * @param lDuration
+     *            The duration in milliseconds
+     * @return The number of documents per second
+     */
+    private static long getThroughput( long lDocuments, long lDuration )
+    {
+        return ( lDuration > 0 ) ? ( ( lDocuments * 1000L ) / lDuration ) : lDocuments;
+    }
+}
@@ -48,8 +48,6 @@ import org.apache.commons.lang3.ArrayUtils;
 import org.apache.lucene.document.DateTools;
 import org.apache.lucene.document.DateTools.Resolution;
 import org.apache.lucene.document.Document;
-import org.apache.lucene.index.DirectoryReader;
-import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.queryparser.classic.QueryParser;
 import org.apache.lucene.queryparser.classic.QueryParserBase;
@@ -61,7 +59,6 @@ import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TermRangeQuery;
 import org.apache.lucene.search.TopDocs;
-import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.BytesRef;
 
 import fr.paris.lutece.portal.business.page.Page;
@@ -221,9 +218,11 @@ public class LuceneSearchEngine implements SearchEngine
     private List<SearchResult> search( String strTagFilter, String strQuery, Query allFilter, HttpServletRequest request, boolean bFilterResult )
     {
         List<SearchItem> listResults = new ArrayList<>( );
-        try ( Directory directory = IndexationService.getDirectoryIndex( ) ; IndexReader ir = DirectoryReader.open( directory ) ; )
+        IndexSearcher searcher = null;
+
+        try
         {
-            IndexSearcher searcher = new IndexSearcher( ir );
+            searcher = IndexationService.acquireSearcher( );
 
             BooleanQuery.Builder bQueryBuilder = new BooleanQuery.Builder( );
 
@@ -287,6 +286,10 @@ public class LuceneSearchEngine implements SearchEngine
         {
             AppLogService.error( e.getMessage( ), e );
         }
+        finally
+        {
+            IndexationService.releaseSearcher( searcher );
+        }
         return convertList( listResults );
     }
 
@@ -40,6 +40,8 @@ import fr.paris.lutece.portal.service.page.IPageService;
 import fr.paris.lutece.portal.service.spring.SpringContextService;
 import fr.paris.lutece.portal.service.util.AppException;
 import fr.paris.lutece.portal.service.util.AppPropertiesService;
+import fr.paris.lutece.portal.service.util.CompiledProperty;
+import fr.paris.lutece.portal.service.util.CryptoService;
 import fr.paris.lutece.util.url.UrlItem;
 import org.apache.lucene.index.IndexOptions;
 
@@ -82,6 +84,10 @@ public class PageIndexer implements SearchIndexer
     private static IPageService _pageService = SpringContextService.getBean( "pageService" );
     private static final String INDEXER_DESCRIPTION = "Indexer service for pages";
     private static final String INDEXER_VERSION = "1.0.0";
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final char HASH_SEPARATOR = '\u0000';
+    private static final CompiledProperty<Boolean> _enable = new CompiledProperty<>( PROPERTY_INDEXER_ENABLE,
+            strEnable -> ( strEnable == null ) || strEnable.equalsIgnoreCase( Boolean.TRUE.toString( ) ) );
 
     /**
      * {@inheritDoc}
@@ -172,9 +178,7 @@ public class PageIndexer implements SearchIndexer
     @Override
     public boolean isEnable( )
     {
-        String strEnable = AppPropertiesService.getProperty( PROPERTY_INDEXER_ENABLE, Boolean.TRUE.toString( ) );
-
-        return ( strEnable.equalsIgnoreCase( Boolean.TRUE.toString( ) ) );
+        return _enable.get( );
     }
 
     /**
@@ -297,6 +301,19 @@ public class PageIndexer implements SearchIndexer
         doc.add( new Field( SearchItem.FIELD_TYPE, INDEX_TYPE_PAGE, ft ) );
         doc.add( new Field( SearchItem.FIELD_ROLE, page.getRole( ), ft ) );
 
+        // Hash of all the indexed values : the incremental indexing skips the pages whose hash hasn't changed
+        StringBuilder sbHash = new StringBuilder( );
+        sbHash.append( strUrl ).append( HASH_SEPARATOR ).append( strDate ).append( HASH_SEPARATOR ).append( page.getName( ) ).append( HASH_SEPARATOR )
+                .append( sbFieldContent ).append( HASH_SEPARATOR ).append( sbFieldMetadata ).append( HASH_SEPARATOR ).append( page.getDescription( ) )
+                .append( HASH_SEPARATOR ).append( page.getRole( ) );
+
+        String strHash = CryptoService.encrypt( sbHash.toString( ), HASH_ALGORITHM );
+
+        if ( strHash != null )
+        {
+            doc.add( new StoredField( SearchItem.FIELD_CONTENT_HASH, strHash ) );
+        }
+
         // return the document
         return doc;
     }
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.search;
+
+import fr.paris.lutece.portal.business.indexeraction.IndexerAction;
+import fr.paris.lutece.portal.service.cache.CacheInvalidationService;
+import fr.paris.lutece.portal.service.page.PageEvent;
+import fr.paris.lutece.portal.service.page.PageEventListener;
+import fr.paris.lutece.portal.service.page.PageService;
+import fr.paris.lutece.portal.service.portlet.PortletEvent;
+import fr.paris.lutece.portal.service.portlet.PortletEventListener;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+/**
+ * Queues the indexer actions of the pages that are created, modified or deleted, so that the incremental indexing only processes the changed pages.
+ */
+public class PageIndexerEventListener implements PageEventListener, PortletEventListener
+{
+    /**
+     * Constructor
+     */
+    public PageIndexerEventListener( )
+    {
+        PageService.addPageEventListener( this );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void processPageEvent( PageEvent event )
+    {
+        if ( ( event.getPage( ) == null ) || !isQueuing( ) )
+        {
+            return;
+        }
+
+        // A page modification replaces its document : it is also used for the creation so that a page is never indexed twice
+        int nIdTask = ( event.getEventType( ) == PageEvent.PAGE_DELETED ) ? IndexerAction.TASK_DELETE : IndexerAction.TASK_MODIFY;
+        addPageAction( event.getPage( ).getId( ), nIdTask );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void processPortletEvent( PortletEvent event )
+    {
+        if ( ( event.getType( ) == PortletEvent.INVALIDATE ) && ( event.getPageId( ) > 0 ) && isQueuing( ) )
+        {
+            addPageAction( event.getPageId( ), IndexerAction.TASK_MODIFY );
+        }
+    }
+
+    /**
+     * Tells whether the actions must be queued : nothing is queued if the page indexer is disabled, and the events applied from another node of the
+     * cluster have already been queued by this node
+     *
+     * @return true if the actions must be queued
+     */
+    private boolean isQueuing( )
+    {
+        return AppPropertiesService.getPropertyBoolean( PageIndexer.PROPERTY_INDEXER_ENABLE, true )
+                && !CacheInvalidationService.getInstance( ).isApplyingRemoteInvalidation( );
+    }
+
+    /**
+     * Queues an action on a page
+     *
+     * @param nIdPage
+     *            The page id
+     * @param nIdTask
+     *            The task
+     */
+    private void addPageAction( int nIdPage, int nIdTask )
+    {
+        IndexationService.addIndexerAction( String.valueOf( nIdPage ), PageIndexer.INDEXER_NAME, nIdTask );
+    }
+}
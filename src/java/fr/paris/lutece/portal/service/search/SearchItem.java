@@ -52,6 +52,9 @@ public class SearchItem
     public static final String FIELD_STATE = "state";
     public static final String FIELD_DOCUMENT_PORTLET_ID = "document_portlet_id";
 
+    /** Stored hash of the indexed content. The incremental indexing doesn't rewrite a document whose hash hasn't changed */
+    public static final String FIELD_CONTENT_HASH = "content_hash";
+
     // Variables declarations
     private String _strId;
     private String _strTitle;
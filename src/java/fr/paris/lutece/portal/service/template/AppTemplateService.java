@@ -33,13 +33,13 @@
  */
 package fr.paris.lutece.portal.service.template;
 
-import fr.paris.lutece.portal.service.datastore.DatastoreService;
-import fr.paris.lutece.portal.service.i18n.I18nService;
 import fr.paris.lutece.portal.service.i18n.I18nTemplateMethod;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.portal.service.plugin.PluginService;
 import fr.paris.lutece.portal.service.util.AppLogService;
 import fr.paris.lutece.util.html.HtmlTemplate;
+import fr.paris.lutece.util.metrics.LatencyHistogram;
+import fr.paris.lutece.util.metrics.MetricsRegistry;
 
 import java.util.Locale;
 
@@ -50,6 +50,7 @@ import java.util.Locale;
 public final class AppTemplateService
 {
     // Variables
+    private static final LatencyHistogram _getTemplateHistogram = MetricsRegistry.getHistogram( "appTemplateService.getTemplate" );
     private static String _strTemplateDefaultPath;
     private static IFreeMarkerTemplateService _freeMarkerTemplateService;
 
@@ -205,12 +206,17 @@ public final class AppTemplateService
      */
     public static HtmlTemplate getTemplate( String strTemplate, String strPath, Locale locale, Object model )
     {
-        HtmlTemplate template;
-
-        // Load the template from the file
-        template = loadTemplate( strPath, strTemplate, locale, model );
+        long lStart = MetricsRegistry.start( );
 
-        return template;
+        try
+        {
+            // Load the template from the file
+            return loadTemplate( strPath, strTemplate, locale, model );
+        }
+        finally
+        {
+            MetricsRegistry.stop( _getTemplateHistogram, lStart );
+        }
     }
 
     /**
@@ -230,12 +236,7 @@ public final class AppTemplateService
     {
         HtmlTemplate template = getFreeMarkerTemplateService( ).loadTemplateFromStringFtl( strFreemarkerTemplateData, locale, model );
 
-        if ( locale != null )
-        {
-            String strLocalized = I18nService.localize( template.getHtml( ), locale );
-            template = new HtmlTemplate( strLocalized );
-        }
-        return template;
+        return resolveKeys( template, locale, false );
     }
     
     
@@ -257,12 +258,7 @@ public final class AppTemplateService
     {
         HtmlTemplate template = getFreeMarkerTemplateService( ).loadTemplateFromStringFtl( strFreemarkerTemplateName,strFreemarkerTemplateData, locale, model,bResetCache );
 
-        if ( locale != null )
-        {
-            String strLocalized = I18nService.localize( template.getHtml( ), locale );
-            template = new HtmlTemplate( strLocalized );
-        }
-        return template;
+        return resolveKeys( template, locale, false );
     }
 
     /**
@@ -280,18 +276,28 @@ public final class AppTemplateService
      */
     private static HtmlTemplate loadTemplate( String strPath, String strTemplate, Locale locale, Object model )
     {
-        HtmlTemplate template;
-        template = getFreeMarkerTemplateService( ).loadTemplate( strPath, strTemplate, locale, model );
+        HtmlTemplate template = getFreeMarkerTemplateService( ).loadTemplate( strPath, strTemplate, locale, model );
 
-        if ( locale != null )
-        {
-            String strLocalized = I18nService.localize( template.getHtml( ), locale );
-            template = new HtmlTemplate( strLocalized );
-        }
+        return resolveKeys( template, locale, true );
+    }
 
-        template = new HtmlTemplate( DatastoreService.replaceKeys( template.getHtml( ) ) );
+    /**
+     * Substitutes the i18n and datastore keys of a rendered template in a single pass
+     * 
+     * @param template
+     *            The rendered template
+     * @param locale
+     *            The locale of the i18n keys, or null not to substitute them
+     * @param bDatastoreKeys
+     *            true to substitute the datastore keys
+     * @return The template itself if it contains no key, otherwise a new template
+     */
+    private static HtmlTemplate resolveKeys( HtmlTemplate template, Locale locale, boolean bDatastoreKeys )
+    {
+        String strHtml = template.getHtml( );
+        String strResolved = TemplateKeysResolver.resolve( strHtml, locale, bDatastoreKeys );
 
-        return template;
+        return ( strResolved == strHtml ) ? template : new HtmlTemplate( strResolved );
     }
 
     /**
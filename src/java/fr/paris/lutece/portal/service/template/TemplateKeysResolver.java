@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.template;
+
+import fr.paris.lutece.portal.service.datastore.DatastoreService;
+import fr.paris.lutece.portal.service.i18n.I18nService;
+
+import java.util.Locale;
+
+/**
+ * Substitutes the <code>#i18n{key}</code> and <code>#dskey{key}</code> markers of a rendered template in a single pass. The output is copied only if it
+ * contains markers, and the values are inserted literally.
+ */
+public final class TemplateKeysResolver
+{
+    private static final char MARKER_START = '#';
+    private static final char MARKER_END = '}';
+    private static final String MARKER_I18N = "#i18n{";
+    private static final String MARKER_DATASTORE = "#dskey{";
+    private static final int BUFFER_EXTRA_SIZE = 256;
+
+    /**
+     * Private constructor
+     */
+    private TemplateKeysResolver( )
+    {
+    }
+
+    /**
+     * Substitutes the markers of a content
+     * 
+     * @param strSource
+     *            The content
+     * @param locale
+     *            The locale of the i18n keys, or null not to substitute the i18n keys
+     * @param bDatastoreKeys
+     *            true to substitute the datastore keys
+     * @return The content with the keys substituted, or the source itself if it contains no marker
+     */
+    public static String resolve( String strSource, Locale locale, boolean bDatastoreKeys )
+    {
+        if ( strSource == null )
+        {
+            return null;
+        }
+
+        StringBuilder sbResult = null;
+        int nCopied = 0;
+        int nPos = strSource.indexOf( MARKER_START );
+
+        while ( nPos >= 0 )
+        {
+            boolean bI18n = ( locale != null ) && strSource.startsWith( MARKER_I18N, nPos );
+            int nKeyStart = -1;
+
+            if ( bI18n )
+            {
+                nKeyStart = nPos + MARKER_I18N.length( );
+            }
+            else
+                if ( bDatastoreKeys && strSource.startsWith( MARKER_DATASTORE, nPos ) )
+                {
+                    nKeyStart = nPos + MARKER_DATASTORE.length( );
+                }
+
+            int nKeyEnd = ( nKeyStart >= 0 ) ? findKeyEnd( strSource, nKeyStart ) : -1;
+
+            if ( nKeyEnd < 0 )
+            {
+                nPos = strSource.indexOf( MARKER_START, nPos + 1 );
+                continue;
+            }
+
+            String strKey = strSource.substring( nKeyStart, nKeyEnd );
+            String strValue;
+
+            if ( bI18n )
+            {
+                strValue = I18nService.getLocalizedString( strKey, locale );
+
+                // the localized strings used to be processed by the datastore substitution too
+                if ( bDatastoreKeys && strValue.indexOf( MARKER_START ) >= 0 )
+                {
+                    strValue = resolve( strValue, null, true );
+                }
+            }
+            else
+            {
+                strValue = DatastoreService.getKeyReplacement( strKey );
+            }
+
+            if ( sbResult == null )
+            {
+                sbResult = new StringBuilder( strSource.length( ) + BUFFER_EXTRA_SIZE );
+            }
+
+            sbResult.append( strSource, nCopied, nPos ).append( strValue );
+            nCopied = nKeyEnd + 1;
+            nPos = strSource.indexOf( MARKER_START, nCopied );
+        }
+
+        if ( sbResult == null )
+        {
+            return strSource;
+        }
+
+        return sbResult.append( strSource, nCopied, strSource.length( ) ).toString( );
+    }
+
+    /**
+     * Finds the end of a key. As the former regular expressions, a key doesn't span several lines.
+     * 
+     * @param strSource
+     *            The content
+     * @param nKeyStart
+     *            The start of the key
+     * @return The position of the closing brace, or -1 if the marker is not closed on the same line
+     */
+    private static int findKeyEnd( String strSource, int nKeyStart )
+    {
+        for ( int i = nKeyStart; i < strSource.length( ); i++ )
+        {
+            char c = strSource.charAt( i );
+
+            if ( c == MARKER_END )
+            {
+                return i;
+            }
+
+            if ( c == '\n' || c == '\r' )
+            {
+                return -1;
+            }
+        }
+
+        return -1;
+    }
+}
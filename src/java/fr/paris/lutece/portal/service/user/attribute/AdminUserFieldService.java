@@ -33,6 +33,7 @@
  */
 package fr.paris.lutece.portal.service.user.attribute;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
@@ -134,20 +135,15 @@ public final class AdminUserFieldService
     {
         // Attributes created in the Back-Office
         List<IAttribute> listAttributes = _attributeService.getCoreAttributesWithoutFields( locale );
+        List<AdminUserField> listAllUserFields = new ArrayList<>( );
 
         for ( IAttribute attribute : listAttributes )
         {
-            List<AdminUserField> listUserFields = attribute.getUserFieldsData( request, user );
-
-            for ( AdminUserField userField : listUserFields )
-            {
-                if ( userField != null )
-                {
-                    AdminUserFieldHome.create( userField );
-                }
-            }
+            listAllUserFields.addAll( attribute.getUserFieldsData( request, user ) );
         }
 
+        AdminUserFieldHome.create( listAllUserFields );
+
         // Attributes associated to the plugins
         for ( AdminUserFieldListenerService adminUserFieldListenerService : SpringContextService.getBeansOfType( AdminUserFieldListenerService.class ) )
         {
@@ -185,17 +181,15 @@ public final class AdminUserFieldService
         auFieldFilter.setIdUser( user.getUserId( ) );
         AdminUserFieldHome.removeByFilter( auFieldFilter );
 
+        List<AdminUserField> listAllUserFields = new ArrayList<>( );
+
         for ( Entry<Integer, List<AdminUserField>> entry : map.entrySet( ) )
         {
-            for ( AdminUserField userField : entry.getValue( ) )
-            {
-                if ( userField != null )
-                {
-                    AdminUserFieldHome.create( userField );
-                }
-            }
+            listAllUserFields.addAll( entry.getValue( ) );
         }
 
+        AdminUserFieldHome.create( listAllUserFields );
+
         // Attributes associated to the plugins
         for ( AdminUserFieldListenerService adminUserFieldListenerService : SpringContextService.getBeansOfType( AdminUserFieldListenerService.class ) )
         {
@@ -39,6 +39,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -49,12 +51,16 @@ import org.eclipse.microprofile.config.spi.ConfigSource;
 import fr.paris.lutece.util.AppInitPropertiesService;
 
 /**
- * this class provides management services for properties files
+ * this class provides management services for properties files. The properties are read from an immutable snapshot of the resolved values, which is replaced
+ * when the properties are reloaded.
  */
 public final class AppPropertiesService
 {
    
 	private static Config _config;
+    private static final AtomicLong _lVersion = new AtomicLong( );
+    private static final List<PropertiesReloadListener> _listReloadListeners = new CopyOnWriteArrayList<>( );
+    private static volatile PropertiesSnapshot _snapshot;
     /**
      * Private constructor
      */
@@ -74,6 +80,7 @@ public final class AppPropertiesService
     	
 		try {
 			_config= ConfigProvider.getConfig();
+			_snapshot = new PropertiesSnapshot( _config, _lVersion.incrementAndGet( ) );
 			
 		} catch (Exception e) {
 			AppLogService.error(e.getMessage( ), e);
@@ -91,7 +98,7 @@ public final class AppPropertiesService
      */
     public static String getProperty( String strProperty )
     {
-    	return _config.getOptionalValue(strProperty, String.class).orElse(null);
+        return _snapshot.getProperty( strProperty );
     }
 
     /**
@@ -105,7 +112,9 @@ public final class AppPropertiesService
      */
     public static String getProperty( String strProperty, String strDefault )
     {
-    	return _config.getOptionalValue(strProperty, String.class).orElse( strDefault );
+        String strValue = _snapshot.getProperty( strProperty );
+
+        return ( strValue != null ) ? strValue : strDefault;
     }
 
     /**
@@ -119,7 +128,7 @@ public final class AppPropertiesService
      */
     public static int getPropertyInt( String strProperty, int nDefault )
     {
-        return _config.getOptionalValue(strProperty, Integer.class).orElse( nDefault );
+        return _snapshot.getValue( strProperty, Integer.class ).orElse( nDefault );
     }
 
     /**
@@ -133,7 +142,7 @@ public final class AppPropertiesService
      */
     public static long getPropertyLong( String strProperty, long lDefault )
     {
-        return _config.getOptionalValue(strProperty, Long.class).orElse( lDefault );
+        return _snapshot.getValue( strProperty, Long.class ).orElse( lDefault );
     }
 
     /**
@@ -147,7 +156,55 @@ public final class AppPropertiesService
      */
     public static boolean getPropertyBoolean( String strProperty, boolean bDefault )
     {
-        return _config.getOptionalValue(strProperty, Boolean.class).orElse( bDefault );
+        return _snapshot.getValue( strProperty, Boolean.class ).orElse( bDefault );
+    }
+
+    /**
+     * Returns the comma separated values of a variable defined in the .properties file of the application
+     *
+     * @param strProperty
+     *            The variable name
+     * @return The trimmed non empty values, as an unmodifiable list, empty if the variable is not defined
+     * @since 7.0.17
+     */
+    public static List<String> getPropertyList( String strProperty )
+    {
+        return _snapshot.getList( strProperty );
+    }
+
+    /**
+     * Returns the version of the properties, incremented each time the properties are reloaded
+     *
+     * @return The version
+     * @since 7.0.17
+     */
+    public static long getVersion( )
+    {
+        return _snapshot.getVersion( );
+    }
+
+    /**
+     * Registers a listener notified each time the properties are reloaded
+     *
+     * @param listener
+     *            The listener
+     * @since 7.0.17
+     */
+    public static void addReloadListener( PropertiesReloadListener listener )
+    {
+        _listReloadListeners.add( listener );
+    }
+
+    /**
+     * Unregisters a listener
+     *
+     * @param listener
+     *            The listener
+     * @since 7.0.17
+     */
+    public static void removeReloadListener( PropertiesReloadListener listener )
+    {
+        _listReloadListeners.remove( listener );
     }
 
     /**
@@ -182,6 +239,7 @@ public final class AppPropertiesService
     public static void reloadAll( )
     {
     	AppInitPropertiesService.reloadAll( );
+        onReload( );
     }
 
     /**
@@ -194,6 +252,27 @@ public final class AppPropertiesService
     public static void reload( String strFilename )
     {
     	AppInitPropertiesService.reload( strFilename );
+        onReload( );
+    }
+
+    /**
+     * Replaces the snapshot of the properties after a reload and notifies the listeners
+     */
+    private static void onReload( )
+    {
+        _snapshot = new PropertiesSnapshot( _config, _lVersion.incrementAndGet( ) );
+
+        for ( PropertiesReloadListener listener : _listReloadListeners )
+        {
+            try
+            {
+                listener.propertiesReloaded( );
+            }
+            catch( RuntimeException e )
+            {
+                AppLogService.error( "Error notifying a properties reload listener : {}", e.getMessage( ), e );
+            }
+        }
     }
 
     /**
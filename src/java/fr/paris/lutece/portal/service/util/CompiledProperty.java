@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.util;
+
+import java.util.function.Function;
+
+/**
+ * A value computed from a property, such as a parsed list or a set of URLs. The value is computed on first use and computed again only when the properties
+ * have been reloaded, so it can be held by a static field and read on each request.
+ * 
+ * @param <T>
+ *            The type of the computed value
+ * @since 7.0.17
+ */
+public final class CompiledProperty<T>
+{
+    private final String _strProperty;
+    private final Function<String, T> _compiler;
+    private volatile VersionedValue<T> _value;
+
+    /**
+     * A computed value and the version of the properties it was computed from
+     * 
+     * @param <T>
+     *            The type of the value
+     */
+    private static final class VersionedValue<T>
+    {
+        private final long _lVersion;
+        private final T _value;
+
+        /**
+         * Constructor
+         * 
+         * @param lVersion
+         *            The version of the properties
+         * @param value
+         *            The value
+         */
+        VersionedValue( long lVersion, T value )
+        {
+            _lVersion = lVersion;
+            _value = value;
+        }
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param strProperty
+     *            The property name
+     * @param compiler
+     *            Computes the value from the value of the property, which is null if the property is not defined. The compiler may read other properties.
+     */
+    public CompiledProperty( String strProperty, Function<String, T> compiler )
+    {
+        _strProperty = strProperty;
+        _compiler = compiler;
+    }
+
+    /**
+     * Returns the value computed from the current properties
+     * 
+     * @return The value
+     */
+    public T get( )
+    {
+        long lVersion = AppPropertiesService.getVersion( );
+        VersionedValue<T> value = _value;
+
+        if ( value == null || value._lVersion != lVersion )
+        {
+            value = new VersionedValue<>( lVersion, _compiler.apply( AppPropertiesService.getProperty( _strProperty ) ) );
+            _value = value;
+        }
+
+        return value._value;
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.microprofile.config.Config;
+
+/**
+ * Immutable snapshot of the resolved properties. All the property names known by the configuration are resolved once when the snapshot is created. Typed
+ * values and lists are converted on first use and kept for the life of the snapshot. A new snapshot, with a new version, replaces this one each time the
+ * properties are reloaded.
+ */
+final class PropertiesSnapshot
+{
+    /** Maximum number of missing property names remembered, as some names are built from request data */
+    private static final int MAX_MISSING_NAMES = 10000;
+    private static final String LIST_SEPARATOR = ",";
+
+    private final Config _config;
+    private final long _lVersion;
+    private final Map<String, String> _mapValues;
+    private final ConcurrentMap<Class<?>, ConcurrentMap<String, Optional<?>>> _mapTypedValues = new ConcurrentHashMap<>( );
+    private final ConcurrentMap<String, List<String>> _mapLists = new ConcurrentHashMap<>( );
+    private final ConcurrentMap<String, Boolean> _mapMissingNames = new ConcurrentHashMap<>( );
+
+    /**
+     * Creates a snapshot of the configuration
+     * 
+     * @param config
+     *            The configuration
+     * @param lVersion
+     *            The version of the snapshot
+     */
+    PropertiesSnapshot( Config config, long lVersion )
+    {
+        _config = config;
+        _lVersion = lVersion;
+
+        Map<String, String> mapValues = new HashMap<>( );
+
+        for ( String strName : config.getPropertyNames( ) )
+        {
+            config.getOptionalValue( strName, String.class ).ifPresent( strValue -> mapValues.put( strName, strValue ) );
+        }
+
+        _mapValues = mapValues;
+    }
+
+    /**
+     * Returns the version of the snapshot
+     * 
+     * @return The version
+     */
+    long getVersion( )
+    {
+        return _lVersion;
+    }
+
+    /**
+     * Returns the value of a property
+     * 
+     * @param strProperty
+     *            The property name
+     * @return The value, or null if the property is not defined
+     */
+    String getProperty( String strProperty )
+    {
+        String strValue = _mapValues.get( strProperty );
+
+        if ( strValue == null && !_mapMissingNames.containsKey( strProperty ) )
+        {
+            // names not listed by the configuration sources, such as environment variable names, are resolved by the configuration
+            strValue = _config.getOptionalValue( strProperty, String.class ).orElse( null );
+
+            if ( strValue == null && _mapMissingNames.size( ) < MAX_MISSING_NAMES )
+            {
+                _mapMissingNames.put( strProperty, Boolean.TRUE );
+            }
+        }
+
+        return strValue;
+    }
+
+    /**
+     * Returns the value of a property converted to a given type
+     * 
+     * @param <T>
+     *            The property type
+     * @param strProperty
+     *            The property name
+     * @param type
+     *            The property type
+     * @return The value, empty if the property is not defined
+     * @throws IllegalArgumentException
+     *             if the value can not be converted to the given type
+     */
+    @SuppressWarnings( "unchecked" )
+    <T> Optional<T> getValue( String strProperty, Class<T> type )
+    {
+        if ( !_mapValues.containsKey( strProperty ) )
+        {
+            return ( getProperty( strProperty ) == null ) ? Optional.empty( ) : _config.getOptionalValue( strProperty, type );
+        }
+
+        ConcurrentMap<String, Optional<?>> mapValues = _mapTypedValues.computeIfAbsent( type, t -> new ConcurrentHashMap<>( ) );
+        Optional<?> value = mapValues.get( strProperty );
+
+        if ( value == null )
+        {
+            value = _config.getOptionalValue( strProperty, type );
+            mapValues.putIfAbsent( strProperty, value );
+        }
+
+        return (Optional<T>) value;
+    }
+
+    /**
+     * Returns the comma separated values of a property
+     * 
+     * @param strProperty
+     *            The property name
+     * @return The trimmed non empty values, as an unmodifiable list, empty if the property is not defined
+     */
+    List<String> getList( String strProperty )
+    {
+        List<String> list = _mapLists.get( strProperty );
+
+        if ( list == null )
+        {
+            String strValue = getProperty( strProperty );
+
+            if ( strValue == null )
+            {
+                return Collections.emptyList( );
+            }
+
+            List<String> listValues = new ArrayList<>( );
+
+            for ( String strItem : strValue.split( LIST_SEPARATOR ) )
+            {
+                if ( StringUtils.isNotBlank( strItem ) )
+                {
+                    listValues.add( strItem.trim( ) );
+                }
+            }
+
+            list = Collections.unmodifiableList( listValues );
+            _mapLists.putIfAbsent( strProperty, list );
+        }
+
+        return list;
+    }
+}
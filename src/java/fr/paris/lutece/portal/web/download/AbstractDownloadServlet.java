@@ -50,6 +50,7 @@ import fr.paris.lutece.portal.service.file.IFileStoreServiceProvider;
 import fr.paris.lutece.portal.service.message.SiteMessageException;
 import fr.paris.lutece.portal.service.message.SiteMessageService;
 import fr.paris.lutece.portal.service.security.UserNotSignedException;
+import fr.paris.lutece.portal.service.util.AppLogService;
 import fr.paris.lutece.portal.service.util.AppPathService;
 import fr.paris.lutece.portal.web.PortalJspBean;
 
@@ -58,11 +59,22 @@ public abstract class AbstractDownloadServlet extends HttpServlet
     private static final long serialVersionUID = 6622358100579620819L;
     private static final String MESSAGE_UNKNOWN_PROVIDER = "portal.file.download.provider.unknown";
     private static final String MESSAGE_UNKNOWN_FILE = "portal.file.download.file.unknown";
+    private static final String HEADER_ACCEPT_RANGES = "Accept-Ranges";
+    private static final String HEADER_CONTENT_DISPOSITION = "Content-Disposition";
+    private static final String HEADER_CONTENT_RANGE = "Content-Range";
+    private static final String HEADER_ETAG = "ETag";
+    private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+    private static final String HEADER_IF_RANGE = "If-Range";
+    private static final String HEADER_RANGE = "Range";
+    private static final String ACCEPT_RANGES_BYTES = "bytes";
+    private static final String WEAK_ETAG_PREFIX = "W/";
+    private static final String ETAG_ANY = "*";
 
     @Override
     protected void doGet( HttpServletRequest request, HttpServletResponse response ) throws ServletException, IOException
     {
         File file = null;
+        long lContentLength = -1;
         IFileStoreServiceProvider fileStoreServiceProvider = FileService.getInstance( )
                 .getFileStoreServiceProvider( request.getParameter( FileService.PARAMETER_PROVIDER ) );
 
@@ -79,11 +91,16 @@ public abstract class AbstractDownloadServlet extends HttpServlet
                 {
                     if ( isFromBo( ) )
                     {
-                        file = fileStoreServiceProvider.getFileFromRequestBO( request );
+                        file = fileStoreServiceProvider.getFileMetaDataFromRequestBO( request );
                     }
                     else
                     {
-                        file = fileStoreServiceProvider.getFileFromRequestFO( request );
+                        file = fileStoreServiceProvider.getFileMetaDataFromRequestFO( request );
+                    }
+
+                    if ( file != null )
+                    {
+                        lContentLength = fileStoreServiceProvider.getContentLength( file );
                     }
                 }
                 catch( AccessDeniedException | ExpiredLinkException ex )
@@ -101,7 +118,7 @@ public abstract class AbstractDownloadServlet extends HttpServlet
                 }
             }
 
-            if ( file == null || file.getPhysicalFile( ) == null )
+            if ( file == null || lContentLength < 0 )
             {
                 SiteMessageService.setMessage( request, MESSAGE_UNKNOWN_FILE );
             }
@@ -110,18 +127,129 @@ public abstract class AbstractDownloadServlet extends HttpServlet
         catch( SiteMessageException e )
         {
             response.sendRedirect( AppPathService.getSiteMessageUrl( request ) );
+
+            return;
+        }
+
+        if ( file != null && !response.isCommitted( ) )
+        {
+            sendFile( request, response, fileStoreServiceProvider, file, lContentLength );
+        }
+    }
+
+    /**
+     * Sends the content of a file, or the requested range of it. The content is written by the provider, so it doesn't need to be loaded in memory.
+     * 
+     * @param request
+     *            the request
+     * @param response
+     *            the response
+     * @param fileStoreServiceProvider
+     *            the provider of the file
+     * @param file
+     *            the file meta data
+     * @param lContentLength
+     *            the length of the content
+     * @throws IOException
+     *             if the response can not be written
+     */
+    private void sendFile( HttpServletRequest request, HttpServletResponse response, IFileStoreServiceProvider fileStoreServiceProvider, File file,
+            long lContentLength ) throws IOException
+    {
+        String strETag = fileStoreServiceProvider.getETag( file );
+
+        if ( strETag != null )
+        {
+            response.setHeader( HEADER_ETAG, strETag );
+
+            if ( matchesETag( request.getHeader( HEADER_IF_NONE_MATCH ), strETag ) )
+            {
+                response.setStatus( HttpServletResponse.SC_NOT_MODIFIED );
+
+                return;
+            }
+        }
+
+        response.setHeader( HEADER_ACCEPT_RANGES, ACCEPT_RANGES_BYTES );
+
+        // If-Range needs a strong validator : the whole content is sent if it is present
+        ByteRange range = ( request.getHeader( HEADER_IF_RANGE ) == null ) ? ByteRange.parse( request.getHeader( HEADER_RANGE ), lContentLength ) : null;
+
+        if ( range == ByteRange.UNSATISFIABLE )
+        {
+            response.setHeader( HEADER_CONTENT_RANGE, "bytes */" + lContentLength );
+            response.sendError( HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE );
+
+            return;
+        }
+
+        long lOffset = 0;
+        long lLength = lContentLength;
+
+        if ( range != null )
+        {
+            lOffset = range.getOffset( );
+            lLength = range.getLength( );
+            response.setStatus( HttpServletResponse.SC_PARTIAL_CONTENT );
+            response.setHeader( HEADER_CONTENT_RANGE, range.getContentRange( lContentLength ) );
+        }
+
+        response.setContentType( file.getMimeType( ) );
+        response.setHeader( HEADER_CONTENT_DISPOSITION, "attachment; filename=\"" + file.getTitle( ) + "\";" );
+        response.setContentLengthLong( lLength );
+
+        try ( OutputStream outputStream = response.getOutputStream( ) )
+        {
+            fileStoreServiceProvider.writeContent( file, lOffset, lLength, outputStream );
+        }
+        catch( FileServiceException e )
+        {
+            // the headers are already sent
+            AppLogService.error( "Error sending the file {} : {}", file.getFileKey( ), e.getMessage( ), e );
         }
+    }
+
+    /**
+     * Checks whether an If-None-Match header matches an entity tag, using the weak comparison
+     * 
+     * @param strIfNoneMatch
+     *            the header value, or null
+     * @param strETag
+     *            the entity tag
+     * @return true if the header matches
+     */
+    public static boolean matchesETag( String strIfNoneMatch, String strETag )
+    {
+        if ( strIfNoneMatch == null )
+        {
+            return false;
+        }
+
+        String strOpaqueTag = removeWeakPrefix( strETag );
 
-        if ( file != null )
+        for ( String strTag : strIfNoneMatch.split( "," ) )
         {
-            // send the file
-            try ( OutputStream outputStream = response.getOutputStream( ) )
+            String strTrimmedTag = strTag.trim( );
+
+            if ( ETAG_ANY.equals( strTrimmedTag ) || strOpaqueTag.equals( removeWeakPrefix( strTrimmedTag ) ) )
             {
-                response.setContentType( file.getMimeType( ) );
-                response.setHeader( "Content-Disposition", "attachment; filename=\"" + file.getTitle( ) + "\";" );
-                outputStream.write( file.getPhysicalFile( ).getValue( ) );
+                return true;
             }
         }
+
+        return false;
+    }
+
+    /**
+     * Removes the weak prefix of an entity tag
+     * 
+     * @param strETag
+     *            the entity tag
+     * @return the opaque tag
+     */
+    private static String removeWeakPrefix( String strETag )
+    {
+        return strETag.startsWith( WEAK_ETAG_PREFIX ) ? strETag.substring( WEAK_ETAG_PREFIX.length( ) ) : strETag;
     }
 
     protected abstract boolean isFromBo( );
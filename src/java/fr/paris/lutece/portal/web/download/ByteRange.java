@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.web.download;
+
+/**
+ * A single byte range of an HTTP Range header (RFC 7233). Multiple ranges are not supported : the whole content is sent instead, as allowed by the RFC.
+ */
+final class ByteRange
+{
+    /** Range which can not be satisfied : the response status should be 416 */
+    static final ByteRange UNSATISFIABLE = new ByteRange( -1, -1 );
+
+    private static final String BYTES_UNIT = "bytes=";
+    private static final char RANGE_SEPARATOR = '-';
+    private static final char RANGES_SEPARATOR = ',';
+    private static final long NO_POSITION = -1;
+    private static final long INVALID_POSITION = -2;
+
+    private final long _lOffset;
+    private final long _lLength;
+
+    /**
+     * Constructor
+     * 
+     * @param lOffset
+     *            the offset of the first byte
+     * @param lLength
+     *            the number of bytes
+     */
+    private ByteRange( long lOffset, long lLength )
+    {
+        _lOffset = lOffset;
+        _lLength = lLength;
+    }
+
+    /**
+     * Returns the offset of the first byte
+     * 
+     * @return the offset
+     */
+    long getOffset( )
+    {
+        return _lOffset;
+    }
+
+    /**
+     * Returns the number of bytes
+     * 
+     * @return the length
+     */
+    long getLength( )
+    {
+        return _lLength;
+    }
+
+    /**
+     * Returns the value of the Content-Range header of the range
+     * 
+     * @param lContentLength
+     *            the length of the whole content
+     * @return the header value
+     */
+    String getContentRange( long lContentLength )
+    {
+        return "bytes " + _lOffset + RANGE_SEPARATOR + ( _lOffset + _lLength - 1 ) + "/" + lContentLength;
+    }
+
+    /**
+     * Parses a Range header
+     * 
+     * @param strRange
+     *            the header value, or null
+     * @param lContentLength
+     *            the length of the content
+     * @return the range, {@link #UNSATISFIABLE} if the range can not be satisfied, or null if the whole content should be sent (no header, invalid header
+     *         or multiple ranges)
+     */
+    static ByteRange parse( String strRange, long lContentLength )
+    {
+        if ( strRange == null || !strRange.regionMatches( true, 0, BYTES_UNIT, 0, BYTES_UNIT.length( ) ) )
+        {
+            return null;
+        }
+
+        String strSpec = strRange.substring( BYTES_UNIT.length( ) ).trim( );
+        int nSeparator = strSpec.indexOf( RANGE_SEPARATOR );
+
+        if ( nSeparator < 0 || strSpec.indexOf( RANGES_SEPARATOR ) >= 0 )
+        {
+            return null;
+        }
+
+        long lFirst = parsePosition( strSpec.substring( 0, nSeparator ) );
+        long lLast = parsePosition( strSpec.substring( nSeparator + 1 ) );
+
+        if ( lFirst == INVALID_POSITION || lLast == INVALID_POSITION )
+        {
+            return null;
+        }
+
+        if ( lFirst == NO_POSITION )
+        {
+            // suffix range : the last bytes
+            if ( lLast == NO_POSITION )
+            {
+                return null;
+            }
+
+            if ( lLast == 0 || lContentLength == 0 )
+            {
+                return UNSATISFIABLE;
+            }
+
+            long lLength = Math.min( lLast, lContentLength );
+
+            return new ByteRange( lContentLength - lLength, lLength );
+        }
+
+        if ( lLast >= 0 && lLast < lFirst )
+        {
+            return null;
+        }
+
+        if ( lFirst >= lContentLength )
+        {
+            return UNSATISFIABLE;
+        }
+
+        long lEnd = ( lLast == NO_POSITION ) ? lContentLength - 1 : Math.min( lLast, lContentLength - 1 );
+
+        return new ByteRange( lFirst, lEnd - lFirst + 1 );
+    }
+
+    /**
+     * Parses a byte position
+     * 
+     * @param strPosition
+     *            the position
+     * @return the position, NO_POSITION if empty or INVALID_POSITION if invalid
+     */
+    private static long parsePosition( String strPosition )
+    {
+        String strValue = strPosition.trim( );
+
+        if ( strValue.isEmpty( ) )
+        {
+            return NO_POSITION;
+        }
+
+        for ( int i = 0; i < strValue.length( ); i++ )
+        {
+            char c = strValue.charAt( i );
+
+            if ( c < '0' || c > '9' )
+            {
+                return INVALID_POSITION;
+            }
+        }
+
+        try
+        {
+            return Long.parseLong( strValue );
+        }
+        catch( NumberFormatException e )
+        {
+            return INVALID_POSITION;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.web.ratelimit;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.util.ratelimit.RateLimiter;
+import fr.paris.lutece.util.ratelimit.RateLimiterRegistry;
+
+/**
+ * Limits the rate of the requests of each client (remote address) on the mapped URLs, for instance the login or the search. The requests over the limit
+ * are answered with a 429 status. <br>
+ * Init parameters :
+ * <ul>
+ * <li>permits : the number of requests allowed per period for a client, also the largest burst (10 by default)</li>
+ * <li>period : the period in milliseconds (60000 by default)</li>
+ * <li>parameterName and parameterValue : optional, only the requests having this parameter value are limited (e.g. page=search on Portal.jsp)</li>
+ * </ul>
+ * The limiter is registered under the name of the filter and its counts are shown with the metrics.
+ * 
+ * @since 7.0.17
+ */
+public class RateLimitFilter implements Filter
+{
+    private static final String PARAMETER_PERMITS = "permits";
+    private static final String PARAMETER_PERIOD = "period";
+    private static final String PARAMETER_PARAMETER_NAME = "parameterName";
+    private static final String PARAMETER_PARAMETER_VALUE = "parameterValue";
+    private static final int DEFAULT_PERMITS = 10;
+    private static final long DEFAULT_PERIOD = 60000L;
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+    private static final String HEADER_RETRY_AFTER = "Retry-After";
+
+    private RateLimiter _limiter;
+    private String _strParameterName;
+    private String _strParameterValue;
+    private String _strRetryAfter;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void init( FilterConfig config ) throws ServletException
+    {
+        int nPermits = DEFAULT_PERMITS;
+        long lPeriod = DEFAULT_PERIOD;
+
+        try
+        {
+            String strValue = config.getInitParameter( PARAMETER_PERMITS );
+
+            if ( strValue != null )
+            {
+                nPermits = Integer.parseInt( strValue.trim( ) );
+            }
+
+            strValue = config.getInitParameter( PARAMETER_PERIOD );
+
+            if ( strValue != null )
+            {
+                lPeriod = Long.parseLong( strValue.trim( ) );
+            }
+
+            _limiter = RateLimiterRegistry.register( new RateLimiter( config.getFilterName( ), nPermits, lPeriod, TimeUnit.MILLISECONDS ) );
+        }
+        catch( IllegalArgumentException ex )
+        {
+            // also catches the NumberFormatException
+            throw new ServletException( "Invalid rate limit of the filter " + config.getFilterName( ) + " : " + ex.getMessage( ), ex );
+        }
+
+        _strParameterName = config.getInitParameter( PARAMETER_PARAMETER_NAME );
+        _strParameterValue = config.getInitParameter( PARAMETER_PARAMETER_VALUE );
+
+        // a client over the limit gets a new permit after the period divided by the permits
+        _strRetryAfter = String.valueOf( Math.max( 1L, TimeUnit.MILLISECONDS.toSeconds( ( lPeriod + nPermits - 1 ) / nPermits ) ) );
+        AppLogService.info( "Rate limit filter {} : {} requests per {} ms", config.getFilterName( ), nPermits, lPeriod );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void destroy( )
+    {
+        if ( _limiter != null )
+        {
+            RateLimiterRegistry.unregister( _limiter );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void doFilter( ServletRequest request, ServletResponse response, FilterChain chain ) throws IOException, ServletException
+    {
+        if ( !isLimited( request ) || _limiter.tryAcquire( request.getRemoteAddr( ) ) )
+        {
+            chain.doFilter( request, response );
+
+            return;
+        }
+
+        AppLogService.debug( "Rate limit {} : request of {} rejected", _limiter.getName( ), request.getRemoteAddr( ) );
+
+        if ( response instanceof HttpServletResponse )
+        {
+            HttpServletResponse httpResponse = (HttpServletResponse) response;
+            httpResponse.setHeader( HEADER_RETRY_AFTER, _strRetryAfter );
+            httpResponse.sendError( SC_TOO_MANY_REQUESTS );
+        }
+    }
+
+    /**
+     * Tells whether a request is subject to the limit
+     * 
+     * @param request
+     *            The request
+     * @return true if the request is limited
+     */
+    private boolean isLimited( ServletRequest request )
+    {
+        if ( _strParameterName == null )
+        {
+            return true;
+        }
+
+        String strValue = request.getParameter( _strParameterName );
+
+        return ( _strParameterValue == null ) ? ( strValue != null ) : _strParameterValue.equals( strValue );
+    }
+}
@@ -63,6 +63,7 @@ public class SearchIndexationJspBean extends AdminFeaturesPageJspBean
     private static final String TEMPLATE_INDEXER_LOGS = "admin/search/search_indexation_logs.html";
     private static final String MARK_LOGS = "logs";
     private static final String MARK_INDEXERS_LIST = "indexers_list";
+    private static final String MARK_INDEXING_PROGRESS = "indexing_progress";
 
     /**
      * Displays the indexing parameters
@@ -76,6 +77,7 @@ public class SearchIndexationJspBean extends AdminFeaturesPageJspBean
         HashMap<String, Object> model = new HashMap<>( );
         Collection<SearchIndexer> listIndexers = IndexationService.getIndexers( );
         model.put( MARK_INDEXERS_LIST, listIndexers );
+        model.put( MARK_INDEXING_PROGRESS, IndexationService.getProgress( ) );
         model.put( SecurityTokenService.MARK_TOKEN, SecurityTokenService.getInstance( ).getToken( request, TEMPLATE_MANAGE_INDEXER ) );
 
         HtmlTemplate template = AppTemplateService.getTemplate( TEMPLATE_MANAGE_INDEXER, getLocale( ), model );
@@ -34,6 +34,7 @@
 package fr.paris.lutece.portal.web.system;
 
 import fr.paris.lutece.portal.service.admin.AccessDeniedException;
+import fr.paris.lutece.portal.service.cache.CacheInvalidationService;
 import fr.paris.lutece.portal.service.cache.CacheService;
 import fr.paris.lutece.portal.service.cache.CacheableService;
 import fr.paris.lutece.portal.service.i18n.I18nService;
@@ -119,6 +120,7 @@ public class CacheJspBean extends AdminFeaturesPageJspBean
             int nCacheIndex = Integer.parseInt( strCacheIndex );
             CacheableService cs = CacheService.getCacheableServicesList( ).get( nCacheIndex );
             cs.resetCache( );
+            CacheInvalidationService.getInstance( ).publishCacheReset( cs.getName( ) );
         }
         else
         {
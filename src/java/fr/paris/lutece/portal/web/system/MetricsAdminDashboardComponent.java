@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.web.system;
+
+import fr.paris.lutece.portal.business.user.AdminUser;
+import fr.paris.lutece.portal.service.dashboard.admin.AdminDashboardComponent;
+import fr.paris.lutece.portal.service.security.SecurityTokenService;
+import fr.paris.lutece.portal.service.template.AppTemplateService;
+import fr.paris.lutece.util.html.HtmlTemplate;
+import fr.paris.lutece.util.metrics.LatencyHistogram;
+import fr.paris.lutece.util.metrics.MetricsRegistry;
+import fr.paris.lutece.util.ratelimit.RateLimiter;
+import fr.paris.lutece.util.ratelimit.RateLimiterRegistry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * MetricsAdminDashboardComponent : displays the request metrics histograms and the counts of the rate limiters
+ */
+public class MetricsAdminDashboardComponent extends AdminDashboardComponent
+{
+    private static final String EMPTY_STRING = "";
+    private static final String MARK_METRICS_ENABLED = "metrics_enabled";
+    private static final String MARK_HISTOGRAMS_LIST = "histograms_list";
+    private static final String KEY_NAME = "name";
+    private static final String KEY_COUNT = "count";
+    private static final String KEY_MEAN = "mean";
+    private static final String KEY_P50 = "p50";
+    private static final String KEY_P95 = "p95";
+    private static final String KEY_P99 = "p99";
+    private static final String KEY_MAX = "max";
+    private static final String MARK_RATE_LIMITERS_LIST = "rate_limiters_list";
+    private static final String KEY_PERMITS = "permits";
+    private static final String KEY_PERIOD = "period";
+    private static final String KEY_ALLOWED = "allowed";
+    private static final String KEY_REJECTED = "rejected";
+    private static final String KEY_KEYS = "keys";
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDashboardData( AdminUser user, HttpServletRequest request )
+    {
+        if ( !user.checkRight( MetricsJspBean.RIGHT_METRICS_MANAGEMENT ) )
+        {
+            return EMPTY_STRING;
+        }
+
+        Map<String, Object> model = new HashMap<>( );
+        model.put( MARK_METRICS_ENABLED, MetricsRegistry.isEnabled( ) );
+        model.put( MARK_HISTOGRAMS_LIST, getHistogramsList( ) );
+        model.put( MARK_RATE_LIMITERS_LIST, getRateLimitersList( ) );
+        model.put( SecurityTokenService.MARK_TOKEN, SecurityTokenService.getInstance( ).getToken( request, MetricsJspBean.TEMPLATE_METRICS_DASHBOARD ) );
+
+        HtmlTemplate template = AppTemplateService.getTemplate( MetricsJspBean.TEMPLATE_METRICS_DASHBOARD, user.getLocale( ), model );
+
+        return template.getHtml( );
+    }
+
+    /**
+     * Builds the rows of the histograms table, durations are in microseconds
+     * 
+     * @return The rows
+     */
+    private static List<Map<String, Object>> getHistogramsList( )
+    {
+        List<Map<String, Object>> list = new ArrayList<>( );
+
+        for ( LatencyHistogram histogram : MetricsRegistry.getHistograms( ) )
+        {
+            if ( histogram.getCount( ) == 0 )
+            {
+                continue;
+            }
+
+            Map<String, Object> row = new HashMap<>( );
+            row.put( KEY_NAME, histogram.getName( ) );
+            row.put( KEY_COUNT, histogram.getCount( ) );
+            row.put( KEY_MEAN, Math.round( histogram.getMean( TimeUnit.MICROSECONDS ) ) );
+            row.put( KEY_P50, histogram.getPercentile( 50, TimeUnit.MICROSECONDS ) );
+            row.put( KEY_P95, histogram.getPercentile( 95, TimeUnit.MICROSECONDS ) );
+            row.put( KEY_P99, histogram.getPercentile( 99, TimeUnit.MICROSECONDS ) );
+            row.put( KEY_MAX, histogram.getMax( TimeUnit.MICROSECONDS ) );
+            list.add( row );
+        }
+
+        return list;
+    }
+
+    /**
+     * Builds the rows of the rate limiters table, periods are in milliseconds
+     * 
+     * @return The rows
+     */
+    private static List<Map<String, Object>> getRateLimitersList( )
+    {
+        List<Map<String, Object>> list = new ArrayList<>( );
+
+        for ( RateLimiter limiter : RateLimiterRegistry.getRateLimiters( ) )
+        {
+            Map<String, Object> row = new HashMap<>( );
+            row.put( KEY_NAME, limiter.getName( ) );
+            row.put( KEY_PERMITS, limiter.getPermits( ) );
+            row.put( KEY_PERIOD, limiter.getPeriod( TimeUnit.MILLISECONDS ) );
+            row.put( KEY_ALLOWED, limiter.getAllowedCount( ) );
+            row.put( KEY_REJECTED, limiter.getRejectedCount( ) );
+            row.put( KEY_KEYS, limiter.getKeyCount( ) );
+            list.add( row );
+        }
+
+        return list;
+    }
+}
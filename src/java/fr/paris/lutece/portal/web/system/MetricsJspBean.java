@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.web.system;
+
+import javax.servlet.http.HttpServletRequest;
+
+import fr.paris.lutece.portal.service.admin.AccessDeniedException;
+import fr.paris.lutece.portal.service.metrics.MetricsService;
+import fr.paris.lutece.portal.service.security.SecurityTokenService;
+import fr.paris.lutece.portal.web.admin.PluginAdminPageJspBean;
+
+/**
+ * This class provides the actions of the request metrics admin dashboard
+ */
+public class MetricsJspBean extends PluginAdminPageJspBean
+{
+    public static final String RIGHT_METRICS_MANAGEMENT = CacheJspBean.RIGHT_CACHE_MANAGEMENT;
+    static final String TEMPLATE_METRICS_DASHBOARD = "admin/dashboard/admin/metrics_dashboard.html";
+
+    private static final long serialVersionUID = 4807145233466382917L;
+    private static final String ANCHOR_ADMIN_DASHBOARDS = "metrics";
+    private static final String PARAMETER_ENABLED = "enabled";
+
+    /**
+     * Enables or disables the timing of the requests
+     *
+     * @param request
+     *            the request
+     * @return the admin dashboards URL
+     * @throws AccessDeniedException
+     *             if the security token is invalid
+     */
+    public String doUpdateMetrics( HttpServletRequest request ) throws AccessDeniedException
+    {
+        if ( !SecurityTokenService.getInstance( ).validate( request, TEMPLATE_METRICS_DASHBOARD ) )
+        {
+            throw new AccessDeniedException( ERROR_INVALID_TOKEN );
+        }
+
+        MetricsService.getInstance( ).setEnabled( Boolean.parseBoolean( request.getParameter( PARAMETER_ENABLED ) ) );
+
+        return getAdminDashboardsUrl( request, ANCHOR_ADMIN_DASHBOARDS );
+    }
+
+    /**
+     * Resets the metrics histograms
+     *
+     * @param request
+     *            the request
+     * @return the admin dashboards URL
+     * @throws AccessDeniedException
+     *             if the security token is invalid
+     */
+    public String doResetMetrics( HttpServletRequest request ) throws AccessDeniedException
+    {
+        if ( !SecurityTokenService.getInstance( ).validate( request, TEMPLATE_METRICS_DASHBOARD ) )
+        {
+            throw new AccessDeniedException( ERROR_INVALID_TOKEN );
+        }
+
+        MetricsService.getInstance( ).reset( );
+
+        return getAdminDashboardsUrl( request, ANCHOR_ADMIN_DASHBOARDS );
+    }
+}
@@ -34,12 +34,12 @@
 package fr.paris.lutece.portal.web.upload;
 
 import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.util.ratelimit.RateLimiter;
+import fr.paris.lutece.util.ratelimit.RateLimiterRegistry;
 
 import java.io.IOException;
 
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
@@ -48,16 +48,15 @@ import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 
-import org.apache.commons.collections.CollectionUtils;
-
 /**
  * A rewrite of the multipart filter from the com.oreilly.servlet package. The rewrite allows us to use initialization parameters specified in the Lutece
- * configuration files.
+ * configuration files. <br>
+ * The interval between two uploads of a client is checked by a lock-free {@link RateLimiter} allowing one request per interval, registered under the name
+ * of the filter.
  */
 public class DosGuardFilter implements Filter
 {
-    // Initial capacity of the HashMap
-    private static final int INITIAL_CAPACITY = 100;
+    private static final String LIMITER_PREFIX = "dosGuard.";
 
     // The size under which requests are allowed systematically
     private int _nMinContentLength;
@@ -65,12 +64,8 @@ public class DosGuardFilter implements Filter
     // The minimum interval allowed between two requests from the same client
     private int _nMinInterval;
 
-    // The HashMap used to store IP/time entries
-    private Map<String, Long> _mapLastRequestTimes;
-
-    // The LinkedList used to store entries in their order of arrival (to speed
-    // up cleaning the HashMap)
-    private LinkedList<Entry> _listOrderedRequests;
+    // The limiter allowing one request per interval for each client
+    private RateLimiter _limiter;
 
     /**
      * {@inheritDoc}
@@ -78,9 +73,6 @@ public class DosGuardFilter implements Filter
     @Override
     public void init( FilterConfig config ) throws ServletException
     {
-        _mapLastRequestTimes = new HashMap<>( INITIAL_CAPACITY );
-        _listOrderedRequests = new LinkedList<>( );
-
         try
         {
             String paramValue = config.getInitParameter( "minContentLength" );
@@ -103,6 +95,12 @@ public class DosGuardFilter implements Filter
             servletEx.initCause( ex );
             throw servletEx;
         }
+
+        if ( _nMinInterval >= 0 )
+        {
+            _limiter = RateLimiterRegistry.register( new RateLimiter( LIMITER_PREFIX + config.getFilterName( ), 1, Math.max( 1, _nMinInterval ),
+                    TimeUnit.MILLISECONDS ) );
+        }
     }
 
     /**
@@ -111,7 +109,10 @@ public class DosGuardFilter implements Filter
     @Override
     public void destroy( )
     {
-        // Do nothing
+        if ( _limiter != null )
+        {
+            RateLimiterRegistry.unregister( _limiter );
+        }
     }
 
     /**
@@ -140,153 +141,27 @@ public class DosGuardFilter implements Filter
      *            the size of the request
      * @return true if allowed, false otherwize
      */
-    public synchronized boolean isAllowed( String strRemoteAddr, int iContentLength )
+    public boolean isAllowed( String strRemoteAddr, int iContentLength )
     {
-        AppLogService.debug( "DosGuard : isAllowed({}, {})", strRemoteAddr, iContentLength );
-
         // Ignore requests if minInterval is negative (e.g. -1)
-        if ( _nMinInterval < 0 )
+        if ( _limiter == null )
         {
-            AppLogService.debug( "minInterval is below minimum, ignored" );
-
             return true;
         }
 
         // Ignore the requests under the minimum size
         if ( iContentLength < _nMinContentLength )
         {
-            AppLogService.debug( "ContentLength is below minimum, ignored" );
-
             return true;
         }
 
-        // Record the time of this request
-        long lRequestTime = System.currentTimeMillis( );
-        AppLogService.debug( "Request time : {}", lRequestTime );
-
-        // Test if IP was previously recorded
-        Long previousRequestTime = _mapLastRequestTimes.get( strRemoteAddr );
-        AppLogService.debug( "Previous request time : {}", previousRequestTime );
-
-        if ( previousRequestTime != null )
-        {
-            AppLogService.debug( "IP is in the map" );
-
-            // Test if IP is allowed to make a new request
-            if ( lRequestTime > ( previousRequestTime.longValue( ) + _nMinInterval ) )
-            {
-                AppLogService.debug( "IP is allowed to make a new request" );
-
-                // Clean up
-                this.cleanExpiredEntries( );
-
-                // Update the map with the new time
-                _mapLastRequestTimes.put( strRemoteAddr, Long.valueOf( lRequestTime ) );
-
-                // Add a new entry in the list
-                _listOrderedRequests.addFirst( new Entry( strRemoteAddr, lRequestTime ) );
-
-                return true;
-            }
-
-            AppLogService.debug( "IP is not allowed to make a new request" );
-
-            return false;
-        }
-
-        AppLogService.debug( "IP is not in the map" );
-
-        // Clean up
-        this.cleanExpiredEntries( );
-
-        // Add the IP and the time to the map
-        _mapLastRequestTimes.put( strRemoteAddr, Long.valueOf( lRequestTime ) );
-
-        // Add a new entry in the list
-        _listOrderedRequests.addFirst( new Entry( strRemoteAddr, lRequestTime ) );
-
-        return true;
-    }
-
-    /**
-     * Cleans the internal map from expired entries.
-     */
-    private void cleanExpiredEntries( )
-    {
-        AppLogService.debug( "DosGuard.class : cleanExpiredEntries()" );
-
-        if ( CollectionUtils.isNotEmpty( _listOrderedRequests ) )
-        {
-            // Expired entries are those where the IP can't be blocked anymore
-            long lMinTime = System.currentTimeMillis( ) - _nMinInterval;
-
-            AppLogService.debug( "Min time : {}", lMinTime );
-
-            // Read entries from the list, remove them as long as they are expired
-            boolean bDone = false;
-
-            while ( !bDone && CollectionUtils.isNotEmpty( _listOrderedRequests ) )
-            {
-                // The list is ordered by arrival time, so the last one is the
-                // oldest
-                Entry lastEntry = _listOrderedRequests.getLast( );
-
-                if ( lastEntry.getRequestTime( ) < lMinTime )
-                {
-                    // The entry is expired, remove it from the map and the list
-                    _mapLastRequestTimes.remove( lastEntry.getRemoteAddr( ) );
-                    _listOrderedRequests.removeLast( );
-
-                    AppLogService.debug( "Removing [{}, {}]", lastEntry.getRemoteAddr( ), lastEntry.getRequestTime( ) );
-                }
-                else
-                {
-                    bDone = true;
-                }
-            }
-        }
-    }
-
-    /**
-     * Utility class used to store entries in the list.
-     */
-    private static class Entry
-    {
-        private String _strRemoteAddr;
-        private long _lRequestTime;
-
-        /**
-         * Constructor
-         * 
-         * @param strRemoteAddr
-         *            The remote address
-         * @param lRequestTime
-         *            The request time
-         */
-        public Entry( String strRemoteAddr, long lRequestTime )
-        {
-            this._strRemoteAddr = strRemoteAddr;
-            this._lRequestTime = lRequestTime;
-        }
+        boolean bAllowed = _limiter.tryAcquire( strRemoteAddr );
 
-        /**
-         * Gets the remote address
-         * 
-         * @return The remote address
-         */
-        public String getRemoteAddr( )
+        if ( !bAllowed )
         {
-            return _strRemoteAddr;
+            AppLogService.debug( "DosGuard : request of {} rejected, content length {}", strRemoteAddr, iContentLength );
         }
 
-        /**
-         * Gets the request time
-         * 
-         * @return The request time
-         */
-        public long getRequestTime( )
-        {
-            return _lRequestTime;
-        }
+        return bAllowed;
     }
 }
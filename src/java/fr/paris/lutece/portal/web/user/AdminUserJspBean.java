@@ -38,6 +38,7 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -1737,10 +1738,7 @@ public class AdminUserJspBean extends AdminFeaturesPageJspBean
 
         if ( arrayRights != null )
         {
-            for ( String strRight : arrayRights )
-            {
-                AdminUserHome.createRightForUser( nUserId, strRight );
-            }
+            AdminUserHome.createRightsForUser( nUserId, Arrays.asList( arrayRights ) );
         }
 
         HashMap<String, String [ ]> mapData = new HashMap<>( );
@@ -1903,10 +1901,7 @@ public class AdminUserJspBean extends AdminFeaturesPageJspBean
 
         if ( arrayRoles != null )
         {
-            for ( String strRole : arrayRoles )
-            {
-                AdminUserHome.createRoleForUser( nUserId, strRole );
-            }
+            AdminUserHome.createRolesForUser( nUserId, Arrays.asList( arrayRoles ) );
         }
 
         HashMap<String, String [ ]> mapData = new HashMap<>( );
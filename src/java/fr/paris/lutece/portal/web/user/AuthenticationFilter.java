@@ -38,7 +38,6 @@ import java.util.Collection;
 import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.StringTokenizer;
 
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
@@ -67,6 +66,7 @@ import fr.paris.lutece.portal.service.spring.SpringContextService;
 import fr.paris.lutece.portal.service.util.AppLogService;
 import fr.paris.lutece.portal.service.util.AppPathService;
 import fr.paris.lutece.portal.service.util.AppPropertiesService;
+import fr.paris.lutece.portal.service.util.CompiledProperty;
 import fr.paris.lutece.portal.web.constants.Messages;
 import fr.paris.lutece.portal.web.constants.Parameters;
 import fr.paris.lutece.util.url.UrlItem;
@@ -81,14 +81,49 @@ public class AuthenticationFilter implements Filter
 {
     private static final String PROPERTY_URL_PREFIX = "path.jsp.admin.public.";
     private static final String PROPERTY_URL_SUFFIX_LIST = "list";
-    private static final String CONSTANT_LIST_SEPARATOR = ",";
     private static final String PROPERTY_RESET_EXCEPTION_MESSAGE = "User must reset his password.";
     private static final String PROPERTY_JSP_URL_ADMIN_LOGOUT = "lutece.admin.logout.url";
     private static final String JSP_URL_ADMIN_LOGIN = "jsp/admin/AdminLogin.jsp";
     private static final String BEAN_SECURITY_HEADER_SERVICE = "securityHeaderService";
     private static final String LOGGER_LUTECE_SECURITY_HEADER = "lutece.securityHeader";
+    private static final CompiledProperty<PublicUrls> _publicUrls = new CompiledProperty<>( PROPERTY_URL_PREFIX + PROPERTY_URL_SUFFIX_LIST,
+            strList -> new PublicUrls( ) );
     private Logger _logger = LogManager.getLogger( LOGGER_LUTECE_SECURITY_HEADER );
 
+    /**
+     * The public urls under jsp/admin, read from the properties
+     */
+    private static final class PublicUrls
+    {
+        private final Set<String> _setAbsoluteUrls = new HashSet<>( );
+        private final Set<String> _setRelativeUrls = new HashSet<>( );
+
+        /**
+         * Reads the urls of the public list
+         */
+        PublicUrls( )
+        {
+            for ( String strName : AppPropertiesService.getPropertyList( PROPERTY_URL_PREFIX + PROPERTY_URL_SUFFIX_LIST ) )
+            {
+                String strUrl = AppPropertiesService.getProperty( PROPERTY_URL_PREFIX + strName );
+
+                if ( strUrl == null )
+                {
+                    continue;
+                }
+
+                if ( strUrl.startsWith( "http://" ) || strUrl.startsWith( "https://" ) )
+                {
+                    _setAbsoluteUrls.add( strUrl );
+                }
+                else
+                {
+                    _setRelativeUrls.add( strUrl );
+                }
+            }
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -369,25 +404,17 @@ public class AuthenticationFilter implements Filter
      */
     private boolean isInPublicUrlList( HttpServletRequest request, String strRequestedUrl )
     {
-        // recovers list from the
-        String strList = AppPropertiesService.getProperty( PROPERTY_URL_PREFIX + PROPERTY_URL_SUFFIX_LIST );
-
-        // extracts each item (separated by a comma) from the includes list
-        StringTokenizer strTokens = new StringTokenizer( strList, CONSTANT_LIST_SEPARATOR );
+        // the list is read once and read again only when the properties are reloaded
+        PublicUrls publicUrls = _publicUrls.get( );
 
-        while ( strTokens.hasMoreTokens( ) )
+        if ( publicUrls._setAbsoluteUrls.contains( strRequestedUrl ) )
         {
-            String strName = strTokens.nextToken( );
-            String strUrl = AppPropertiesService.getProperty( PROPERTY_URL_PREFIX + strName );
-            strUrl = getAbsoluteUrl( request, strUrl );
-
-            if ( strRequestedUrl.equals( strUrl ) )
-            {
-                return true;
-            }
+            return true;
         }
 
-        return false;
+        String strBaseUrl = AppPathService.getBaseUrl( request );
+
+        return strRequestedUrl.startsWith( strBaseUrl ) && publicUrls._setRelativeUrls.contains( strRequestedUrl.substring( strBaseUrl.length( ) ) );
     }
 
     /**
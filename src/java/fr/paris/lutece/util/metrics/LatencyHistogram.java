@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram. <br>
+ * Durations are recorded in nanoseconds into power-of-two buckets of microseconds, so recording a value never allocates nor blocks. Percentiles are
+ * therefore approximations whose precision is the width of the bucket holding the value.
+ */
+public class LatencyHistogram
+{
+    private static final int BUCKET_COUNT = 40;
+    private static final long NANOS_PER_MICRO = 1000L;
+
+    private final String _strName;
+    private final AtomicLongArray _buckets = new AtomicLongArray( BUCKET_COUNT );
+    private final LongAdder _count = new LongAdder( );
+    private final LongAdder _totalNanos = new LongAdder( );
+    private final LongAccumulator _maxNanos = new LongAccumulator( Long::max, 0L );
+
+    /**
+     * Constructor
+     * 
+     * @param strName
+     *            The histogram name
+     */
+    public LatencyHistogram( String strName )
+    {
+        _strName = strName;
+    }
+
+    /**
+     * Returns the histogram name
+     * 
+     * @return The name
+     */
+    public String getName( )
+    {
+        return _strName;
+    }
+
+    /**
+     * Records a duration
+     * 
+     * @param lDurationNanos
+     *            The duration in nanoseconds
+     */
+    public void record( long lDurationNanos )
+    {
+        long lNanos = ( lDurationNanos < 0 ) ? 0 : lDurationNanos;
+        _buckets.incrementAndGet( getBucketIndex( lNanos / NANOS_PER_MICRO ) );
+        _count.increment( );
+        _totalNanos.add( lNanos );
+        _maxNanos.accumulate( lNanos );
+    }
+
+    /**
+     * Records the time elapsed since a start time given by {@link System#nanoTime()}
+     * 
+     * @param lStartNanos
+     *            The start time in nanoseconds
+     */
+    public void recordSince( long lStartNanos )
+    {
+        record( System.nanoTime( ) - lStartNanos );
+    }
+
+    /**
+     * Returns the number of recorded values
+     * 
+     * @return The count
+     */
+    public long getCount( )
+    {
+        return _count.sum( );
+    }
+
+    /**
+     * Returns the mean of the recorded values
+     * 
+     * @param unit
+     *            The time unit of the result
+     * @return The mean duration
+     */
+    public double getMean( TimeUnit unit )
+    {
+        long lCount = _count.sum( );
+
+        if ( lCount == 0 )
+        {
+            return 0;
+        }
+
+        return (double) _totalNanos.sum( ) / lCount / unit.toNanos( 1 );
+    }
+
+    /**
+     * Returns the greatest recorded value
+     * 
+     * @param unit
+     *            The time unit of the result
+     * @return The max duration
+     */
+    public long getMax( TimeUnit unit )
+    {
+        return unit.convert( _maxNanos.get( ), TimeUnit.NANOSECONDS );
+    }
+
+    /**
+     * Returns an approximation of a percentile of the recorded values. The value returned is the upper bound of the bucket holding the percentile.
+     * 
+     * @param dPercentile
+     *            The percentile between 0 and 100
+     * @param unit
+     *            The time unit of the result
+     * @return The percentile duration
+     */
+    public long getPercentile( double dPercentile, TimeUnit unit )
+    {
+        long lCount = 0;
+        long [ ] counts = new long [ BUCKET_COUNT];
+
+        for ( int i = 0; i < BUCKET_COUNT; i++ )
+        {
+            counts [i] = _buckets.get( i );
+            lCount += counts [i];
+        }
+
+        if ( lCount == 0 )
+        {
+            return 0;
+        }
+
+        long lThreshold = (long) Math.ceil( lCount * Math.min( 100d, Math.max( 0d, dPercentile ) ) / 100d );
+        long lCumulated = 0;
+
+        for ( int i = 0; i < BUCKET_COUNT; i++ )
+        {
+            lCumulated += counts [i];
+
+            if ( lCumulated >= lThreshold && counts [i] > 0 )
+            {
+                return unit.convert( getBucketUpperBound( i ) * NANOS_PER_MICRO, TimeUnit.NANOSECONDS );
+            }
+        }
+
+        return getMax( unit );
+    }
+
+    /**
+     * Resets all the recorded values
+     */
+    public void reset( )
+    {
+        for ( int i = 0; i < BUCKET_COUNT; i++ )
+        {
+            _buckets.set( i, 0 );
+        }
+
+        _count.reset( );
+        _totalNanos.reset( );
+        _maxNanos.reset( );
+    }
+
+    /**
+     * Returns a summary of the histogram
+     * 
+     * @return The summary
+     */
+    @Override
+    public String toString( )
+    {
+        return _strName + " count=" + getCount( ) + " mean=" + String.format( "%.1f", getMean( TimeUnit.MICROSECONDS ) ) + "us p50="
+                + getPercentile( 50, TimeUnit.MICROSECONDS ) + "us p99=" + getPercentile( 99, TimeUnit.MICROSECONDS ) + "us max="
+                + getMax( TimeUnit.MICROSECONDS ) + "us";
+    }
+
+    /**
+     * Returns the bucket index of a value
+     * 
+     * @param lMicros
+     *            The value in microseconds
+     * @return The bucket index
+     */
+    private static int getBucketIndex( long lMicros )
+    {
+        int nIndex = ( lMicros <= 0 ) ? 0 : ( Long.SIZE - Long.numberOfLeadingZeros( lMicros ) );
+
+        return Math.min( nIndex, BUCKET_COUNT - 1 );
+    }
+
+    /**
+     * Returns the upper bound of a bucket
+     * 
+     * @param nIndex
+     *            The bucket index
+     * @return The upper bound in microseconds
+     */
+    private static long getBucketUpperBound( int nIndex )
+    {
+        return ( nIndex == 0 ) ? 1 : ( 1L << nIndex ) - 1;
+    }
+}
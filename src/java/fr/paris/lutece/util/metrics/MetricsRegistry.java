@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of the latency histograms measured on the request hot paths. <br>
+ * Timing is switchable at runtime : when the registry is disabled, {@link #start()} returns 0 without reading the clock and {@link #stop(LatencyHistogram, long)}
+ * ignores the call, so an instrumented section costs a volatile read. Histograms registered with {@link #register(LatencyHistogram)} are always recorded by their
+ * owner and are only listed here.
+ */
+public final class MetricsRegistry
+{
+    private static final ConcurrentMap<String, LatencyHistogram> _mapHistograms = new ConcurrentHashMap<>( );
+    private static volatile boolean _bEnabled;
+
+    /**
+     * Private constructor
+     */
+    private MetricsRegistry( )
+    {
+    }
+
+    /**
+     * Tells whether the timing of the instrumented sections is enabled
+     * 
+     * @return true if enabled
+     */
+    public static boolean isEnabled( )
+    {
+        return _bEnabled;
+    }
+
+    /**
+     * Enables or disables the timing of the instrumented sections
+     * 
+     * @param bEnabled
+     *            true to enable
+     */
+    public static void setEnabled( boolean bEnabled )
+    {
+        _bEnabled = bEnabled;
+    }
+
+    /**
+     * Returns the histogram registered under a given name, creating it if needed
+     * 
+     * @param strName
+     *            The histogram name
+     * @return The histogram
+     */
+    public static LatencyHistogram getHistogram( String strName )
+    {
+        return _mapHistograms.computeIfAbsent( strName, LatencyHistogram::new );
+    }
+
+    /**
+     * Registers an histogram created and recorded by its owner. If an histogram is already registered under the same name, it is kept and returned.
+     * 
+     * @param histogram
+     *            The histogram
+     * @return The registered histogram
+     */
+    public static LatencyHistogram register( LatencyHistogram histogram )
+    {
+        LatencyHistogram existing = _mapHistograms.putIfAbsent( histogram.getName( ), histogram );
+
+        return ( existing != null ) ? existing : histogram;
+    }
+
+    /**
+     * Returns a group of histograms sharing a common name prefix
+     * 
+     * @param strPrefix
+     *            The prefix of the names
+     * @return The group
+     */
+    public static HistogramGroup getGroup( String strPrefix )
+    {
+        return new HistogramGroup( strPrefix );
+    }
+
+    /**
+     * Returns all the registered histograms sorted by name
+     * 
+     * @return The histograms
+     */
+    public static List<LatencyHistogram> getHistograms( )
+    {
+        List<LatencyHistogram> list = new ArrayList<>( _mapHistograms.values( ) );
+        list.sort( Comparator.comparing( LatencyHistogram::getName ) );
+
+        return list;
+    }
+
+    /**
+     * Resets all the registered histograms
+     */
+    public static void reset( )
+    {
+        for ( LatencyHistogram histogram : _mapHistograms.values( ) )
+        {
+            histogram.reset( );
+        }
+    }
+
+    /**
+     * Starts timing a section
+     * 
+     * @return The start time in nanoseconds or 0 if the registry is disabled
+     */
+    public static long start( )
+    {
+        return _bEnabled ? System.nanoTime( ) : 0L;
+    }
+
+    /**
+     * Stops timing a section started by {@link #start()}
+     * 
+     * @param histogram
+     *            The histogram to record the duration into
+     * @param lStart
+     *            The value returned by {@link #start()}
+     */
+    public static void stop( LatencyHistogram histogram, long lStart )
+    {
+        if ( lStart != 0L )
+        {
+            histogram.recordSince( lStart );
+        }
+    }
+
+    /**
+     * Group of histograms named by a common prefix and a tag (plugin name, portlet type, ...). Histograms of a group are created lazily on first use and then
+     * looked up without building their name again.
+     */
+    public static final class HistogramGroup
+    {
+        /** The tag of the durations recorded without tag */
+        public static final String TAG_UNKNOWN = "unknown";
+
+        private final String _strPrefix;
+        private final ConcurrentMap<String, LatencyHistogram> _mapByTag = new ConcurrentHashMap<>( );
+
+        /**
+         * Constructor
+         * 
+         * @param strPrefix
+         *            The prefix of the names
+         */
+        private HistogramGroup( String strPrefix )
+        {
+            _strPrefix = strPrefix;
+        }
+
+        /**
+         * Returns the histogram of a tag
+         * 
+         * @param strTag
+         *            The tag, a null tag is recorded as {@value #TAG_UNKNOWN}
+         * @return The histogram
+         */
+        public LatencyHistogram get( String strTag )
+        {
+            String strKey = ( strTag != null ) ? strTag : TAG_UNKNOWN;
+            LatencyHistogram histogram = _mapByTag.get( strKey );
+
+            if ( histogram == null )
+            {
+                histogram = _mapByTag.computeIfAbsent( strKey, t -> getHistogram( _strPrefix + '.' + t ) );
+            }
+
+            return histogram;
+        }
+
+        /**
+         * Stops timing a section started by {@link MetricsRegistry#start()} and records it into the histogram of a tag
+         * 
+         * @param strTag
+         *            The tag
+         * @param lStart
+         *            The value returned by {@link MetricsRegistry#start()}
+         */
+        public void stop( String strTag, long lStart )
+        {
+            if ( lStart != 0L )
+            {
+                get( strTag ).recordSince( lStart );
+            }
+        }
+
+        /**
+         * Returns the histograms of this group
+         * 
+         * @return The histograms
+         */
+        public Collection<LatencyHistogram> getHistograms( )
+        {
+            return _mapByTag.values( );
+        }
+    }
+}
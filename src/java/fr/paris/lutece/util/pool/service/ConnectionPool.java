@@ -34,8 +34,9 @@
 package fr.paris.lutece.util.pool.service;
 
 import fr.paris.lutece.portal.service.util.AppException;
+import fr.paris.lutece.util.metrics.LatencyHistogram;
+import fr.paris.lutece.util.metrics.MetricsRegistry;
 
-import org.apache.commons.collections.CollectionUtils;
 import org.apache.logging.log4j.Logger;
 
 import java.io.PrintWriter;
@@ -45,31 +46,56 @@ import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.sql.DataSource;
 
 /**
  * This class manages a database connection pool. <br>
  * Connections are wrapped by a {@link LuteceConnection} to avoid explicit calls to {@link Connection#close()}. Connections are released to this pool when
- * {@link Connection#close()} is called, and are not actually closed until {@link #release()} call.
+ * {@link Connection#close()} is called, and are not actually closed until {@link #release()} call. <br>
+ * The pool is non-blocking : free connections are reserved with a compare-and-set on their state, each thread first tries the connection it released
+ * last, connections are validated outside of any lock and only when they have been idle longer than the validation interval, and new physical connections
+ * are opened by a background thread while the requesting threads wait for the first connection made available.
  * 
  * @see LuteceConnection
  */
 public class ConnectionPool implements DataSource
 {
+    /** Default interval in milliseconds during which an idle connection is not validated again */
+    public static final long DEFAULT_VALIDATION_INTERVAL = 3000L;
     private static final String DEFAULT_CHECK_VALID_CONNECTION_SQL = "SELECT 1";
+    private static final int HANDOFF_QUEUE_CAPACITY = 128;
+    private static final long CREATOR_KEEP_ALIVE_SECONDS = 30L;
+    private String _strName;
     private String _strUrl;
     private String _strUser;
     private String _strPassword;
     private int _nMaxConns;
     private int _nTimeOut;
     private Logger _logger;
-    private int _nCheckedOut;
-    private List<Connection> _freeConnections = new ArrayList<>( );
     private String _strCheckValidConnectionSql; // Added in v1.4
+    private boolean _bCustomCheckValidConnectionSql;
+    private long _lValidationIntervalNanos;
     private PrintWriter _logWriter;
+    private final List<PoolEntry> _listEntries = new CopyOnWriteArrayList<>( );
+    private final BlockingQueue<PoolEntry> _handoffQueue = new LinkedBlockingQueue<>( HANDOFF_QUEUE_CAPACITY );
+    private final ThreadLocal<PoolEntry> _threadEntry = new ThreadLocal<>( );
+    private final AtomicInteger _nReservedConns = new AtomicInteger( );
+    private final AtomicInteger _nWaiters = new AtomicInteger( );
+    private final ExecutorService _connectionCreator;
+    private final LatencyHistogram _waitTimeHistogram;
+    private final LatencyHistogram _acquisitionTimeHistogram;
+    private volatile SQLException _lastCreationException;
+    private volatile boolean _bReleased;
 
     /**
      * Constructor.
@@ -96,21 +122,64 @@ public class ConnectionPool implements DataSource
     public ConnectionPool( String strName, String strUrl, String strUser, String strPassword, int nMaxConns, int nInitConns, int nTimeOut, Logger logger,
             String strCheckValidConnectionSql )
     {
+        this( strName, strUrl, strUser, strPassword, nMaxConns, nInitConns, nTimeOut, logger, strCheckValidConnectionSql, DEFAULT_VALIDATION_INTERVAL );
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param strName
+     *            Nom du pool
+     * @param strUrl
+     *            JDBC Data source URL
+     * @param strUser
+     *            SQL User
+     * @param strPassword
+     *            SQL Password
+     * @param nMaxConns
+     *            Max connections
+     * @param nInitConns
+     *            Initials connections
+     * @param nTimeOut
+     *            Timeout to get a connection
+     * @param logger
+     *            the Logger object
+     * @param strCheckValidConnectionSql
+     *            The SQL syntax used for check connexion validatation. If not set, {@link Connection#isValid(int)} is used.
+     * @param lValidationInterval
+     *            The interval in milliseconds during which an idle connection is not validated again
+     */
+    public ConnectionPool( String strName, String strUrl, String strUser, String strPassword, int nMaxConns, int nInitConns, int nTimeOut, Logger logger,
+            String strCheckValidConnectionSql, long lValidationInterval )
+    {
+        _strName = strName;
         _strUrl = strUrl;
         _strUser = strUser;
         _strPassword = strPassword;
         _nMaxConns = nMaxConns;
         _nTimeOut = ( nTimeOut > 0 ) ? nTimeOut : 5;
         _logger = logger;
+        _lValidationIntervalNanos = TimeUnit.MILLISECONDS.toNanos( Math.max( 0L, lValidationInterval ) );
+        // Pool timings are always recorded, they are shared through the registry to be listed with the request metrics
+        _waitTimeHistogram = MetricsRegistry.getHistogram( "connectionPool." + strName + ".waitTime" );
+        _acquisitionTimeHistogram = MetricsRegistry.getHistogram( "connectionPool." + strName + ".acquisitionTime" );
+        _connectionCreator = new ThreadPoolExecutor( 0, 1, CREATOR_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>( ), runnable -> {
+            Thread thread = new Thread( runnable, "lutece-pool-" + strName + "-creator" );
+            thread.setDaemon( true );
+
+            return thread;
+        } );
+
+        _bCustomCheckValidConnectionSql = ( strCheckValidConnectionSql != null ) && !strCheckValidConnectionSql.equals( "" )
+                && !strCheckValidConnectionSql.equalsIgnoreCase( DEFAULT_CHECK_VALID_CONNECTION_SQL );
+        _strCheckValidConnectionSql = _bCustomCheckValidConnectionSql ? strCheckValidConnectionSql : DEFAULT_CHECK_VALID_CONNECTION_SQL;
+
         initPool( nInitConns );
         _logger.info( "New pool created : {}", strName );
 
-        _strCheckValidConnectionSql = ( ( strCheckValidConnectionSql != null ) && !strCheckValidConnectionSql.equals( "" ) ) ? strCheckValidConnectionSql
-                : DEFAULT_CHECK_VALID_CONNECTION_SQL;
-
         String lf = System.getProperty( "line.separator" );
-        _logger.debug( "{} url={}{} user= {}{} initconns= {}{} maxConns={}{} logintimeout={}", lf, strUrl, lf, _strUser, lf,
-                nInitConns, lf, _nMaxConns, lf, _nTimeOut );
+        _logger.debug( "{} url={}{} user= {}{} initconns= {}{} maxConns={}{} logintimeout={}{} validationinterval={}", lf, strUrl, lf, _strUser, lf,
+                nInitConns, lf, _nMaxConns, lf, _nTimeOut, lf, lValidationInterval );
         _logger.debug( ( ) -> getStats( ) );
     }
 
@@ -124,13 +193,20 @@ public class ConnectionPool implements DataSource
     {
         for ( int i = 0; i < initConns; i++ )
         {
+            if ( !reserveConnectionSlot( ) )
+            {
+                return;
+            }
+
             try
             {
-                Connection pc = newConnection( );
-                _freeConnections.add( pc );
+                PoolEntry entry = new PoolEntry( newConnection( ) );
+                entry.setFree( );
+                _listEntries.add( entry );
             }
             catch( SQLException e )
             {
+                _nReservedConns.decrementAndGet( );
                 throw new AppException( "SQL Error executing command : " + e.toString( ), e );
             }
         }
@@ -168,52 +244,230 @@ public class ConnectionPool implements DataSource
      * @throws SQLException
      *             The SQL exception
      */
-    private synchronized Connection getConnection( long timeout ) throws SQLException
+    private Connection getConnection( long timeout ) throws SQLException
+    {
+        if ( _bReleased )
+        {
+            throw new SQLException( "The pool " + _strName + " has been released" );
+        }
+
+        long lStart = System.nanoTime( );
+        long lDeadline = lStart + TimeUnit.MILLISECONDS.toNanos( timeout );
+
+        while ( true )
+        {
+            PoolEntry entry = borrowEntry( lDeadline );
+
+            // Check if the Connection is still OK, outside of any lock
+            if ( isEntryValid( entry ) )
+            {
+                _acquisitionTimeHistogram.recordSince( lStart );
+                _logger.debug( "Delivered connection from pool" );
+                _logger.debug( ( ) -> getStats( ) );
+
+                return entry.getConnection( );
+            }
+
+            // It was bad. Try again with the remaining timeout
+            _logger.error( "Removed selected bad connection from pool" );
+            discardEntry( entry );
+        }
+    }
+
+    /**
+     * Reserves a free entry of the pool, waiting for one to be released or created if none is available.
+     *
+     * @param lDeadline
+     *            The deadline as a {@link System#nanoTime()} value
+     * @return The reserved entry
+     * @throws SQLException
+     *             If no connection was made available before the deadline
+     */
+    private PoolEntry borrowEntry( long lDeadline ) throws SQLException
     {
-        // Get a pooled Connection from the cache or a new one.
-        // Wait if all are checked out and the max limit has
-        // been reached.
-        long startTime = System.currentTimeMillis( );
-        long remaining = timeout;
-        Connection conn = null;
+        // Try the connection last used by this thread first, then any free connection
+        PoolEntry entry = _threadEntry.get( );
 
-        while ( ( conn = getPooledConnection( ) ) == null )
+        if ( ( entry != null ) && entry.tryReserve( ) )
         {
-            try
+            return entry;
+        }
+
+        entry = reserveFreeEntry( );
+
+        if ( entry != null )
+        {
+            return entry;
+        }
+
+        long lWaitStart = System.nanoTime( );
+        _nWaiters.incrementAndGet( );
+
+        try
+        {
+            requestNewConnection( );
+
+            while ( true )
             {
-                _logger.debug( "Waiting for connection. Timeout= {}", remaining );
+                // Scan again now that this thread is registered as a waiter, so a connection released meanwhile can't be missed
+                entry = reserveFreeEntry( );
+
+                if ( entry != null )
+                {
+                    return entry;
+                }
 
-                wait( remaining );
+                long lRemaining = lDeadline - System.nanoTime( );
+
+                if ( lRemaining <= 0 )
+                {
+                    // Timeout has expired
+                    _logger.debug( "Time-out while waiting for connection" );
+                    throw new SQLException( "getConnection() timed-out", _lastCreationException );
+                }
+
+                _logger.debug( "Waiting for connection. Timeout= {}", ( ) -> TimeUnit.NANOSECONDS.toMillis( lRemaining ) );
+                entry = _handoffQueue.poll( lRemaining, TimeUnit.NANOSECONDS );
+
+                if ( ( entry != null ) && entry.tryReserve( ) )
+                {
+                    return entry;
+                }
             }
-            catch( InterruptedException e )
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+            throw new SQLException( "Interrupted while waiting for a connection", e );
+        }
+        finally
+        {
+            _nWaiters.decrementAndGet( );
+            _waitTimeHistogram.recordSince( lWaitStart );
+        }
+    }
+
+    /**
+     * Reserves the first free entry of the pool
+     *
+     * @return The reserved entry or null if no entry is free
+     */
+    private PoolEntry reserveFreeEntry( )
+    {
+        for ( PoolEntry entry : _listEntries )
+        {
+            if ( entry.tryReserve( ) )
             {
-                _logger.debug( "A connection has been released by another thread.", e );
+                return entry;
             }
+        }
+
+        return null;
+    }
+
+    /**
+     * Asks the background creator to open a new connection if the max limit has not been reached
+     */
+    private void requestNewConnection( )
+    {
+        if ( !reserveConnectionSlot( ) )
+        {
+            return;
+        }
+
+        try
+        {
+            _connectionCreator.execute( this::createEntry );
+        }
+        catch( RejectedExecutionException e )
+        {
+            _nReservedConns.decrementAndGet( );
+            _logger.error( "Unable to schedule the creation of a new connection", e );
+        }
+    }
 
-            remaining = timeout - ( System.currentTimeMillis( ) - startTime );
+    /**
+     * Reserves a slot for a new connection
+     *
+     * @return true if the max limit has not been reached
+     */
+    private boolean reserveConnectionSlot( )
+    {
+        while ( true )
+        {
+            int nReserved = _nReservedConns.get( );
 
-            if ( remaining <= 0 )
+            if ( ( _nMaxConns != 0 ) && ( nReserved >= _nMaxConns ) )
             {
-                // Timeout has expired
-                _logger.debug( "Time-out while waiting for connection" );
-                throw new SQLException( "getConnection() timed-out" );
+                return false;
+            }
+
+            if ( _nReservedConns.compareAndSet( nReserved, nReserved + 1 ) )
+            {
+                return true;
             }
         }
+    }
 
-        // Check if the Connection is still OK
-        if ( !isConnectionOK( conn ) )
+    /**
+     * Opens a new connection, adds it to the pool and hands it to a waiting thread. Runs in the creator thread.
+     */
+    private void createEntry( )
+    {
+        try
         {
-            // It was bad. Try again with the remaining timeout
-            _logger.error( "Removed selected bad connection from pool" );
+            PoolEntry entry = new PoolEntry( newConnection( ) );
+            _lastCreationException = null;
+
+            if ( _bReleased )
+            {
+                // The pool has been released while the connection was opened
+                _nReservedConns.decrementAndGet( );
+                closePhysicalConnection( entry.getConnection( ) );
 
-            return getConnection( remaining );
+                return;
+            }
+
+            entry.setFree( );
+            _listEntries.add( entry );
+
+            if ( _nWaiters.get( ) > 0 )
+            {
+                _handoffQueue.offer( entry );
+            }
+        }
+        catch( SQLException e )
+        {
+            _nReservedConns.decrementAndGet( );
+            _lastCreationException = e;
+            _logger.error( "Unable to create a new connection for the pool {}", _strName, e );
         }
+    }
 
-        _nCheckedOut++;
-        _logger.debug( "Delivered connection from pool" );
-        _logger.debug( getStats( ) );
+    /**
+     * Checks a reserved entry, validating its connection if it has been idle longer than the validation interval
+     *
+     * @param entry
+     *            The entry to check
+     * @return true if the connection is OK, otherwise false.
+     */
+    private boolean isEntryValid( PoolEntry entry )
+    {
+        long lNow = System.nanoTime( );
 
-        return conn;
+        if ( ( lNow - entry.getLastAccess( ) ) < _lValidationIntervalNanos )
+        {
+            return true;
+        }
+
+        boolean bValid = isConnectionOK( entry.getConnection( ) );
+
+        if ( bValid )
+        {
+            entry.setLastAccess( lNow );
+        }
+
+        return bValid;
     }
 
     /**
@@ -225,36 +479,31 @@ public class ConnectionPool implements DataSource
      */
     private boolean isConnectionOK( Connection conn )
     {
-        Statement testStmt = null;
-
         try
         {
-            if ( !conn.isClosed( ) )
+            if ( conn.isClosed( ) )
             {
-                // Try to createStatement to see if it's really alive
-                testStmt = conn.createStatement( );
-                testStmt.executeQuery( _strCheckValidConnectionSql );
-                testStmt.close( );
+                return false;
             }
-            else
+
+            if ( !_bCustomCheckValidConnectionSql )
             {
-                return false;
+                return conn.isValid( _nTimeOut );
             }
         }
-        catch( SQLException e )
+        catch( SQLException | AbstractMethodError e )
         {
-            if ( testStmt != null )
-            {
-                try
-                {
-                    testStmt.close( );
-                }
-                catch( SQLException se )
-                {
-                    throw new AppException( "ConnectionService : SQL Error executing command : " + se.toString( ) );
-                }
-            }
+            // The driver doesn't support isValid : fall back to the SQL check
+            _logger.debug( "Connection.isValid not available, using the check SQL", e );
+        }
 
+        // Try to createStatement to see if it's really alive
+        try ( Statement testStmt = conn.createStatement( ) )
+        {
+            testStmt.executeQuery( _strCheckValidConnectionSql );
+        }
+        catch( SQLException e )
+        {
             _logger.error( "Pooled Connection was not okay", e );
 
             return false;
@@ -264,30 +513,48 @@ public class ConnectionPool implements DataSource
     }
 
     /**
-     * Gets a connection from the pool
+     * Removes an entry from the pool and closes its connection
      *
-     * @return An opened connection
-     * @throws SQLException
-     *             The exception
+     * @param entry
+     *            The entry to discard
      */
-    private Connection getPooledConnection( ) throws SQLException
+    private void discardEntry( PoolEntry entry )
     {
-        Connection conn = null;
+        entry.setRemoved( );
 
-        if ( CollectionUtils.isNotEmpty( _freeConnections ) )
+        if ( _listEntries.remove( entry ) )
         {
-            // Pick the first Connection in the Vector
-            // to get round-robin usage
-            conn = _freeConnections.get( 0 );
-            _freeConnections.remove( 0 );
+            _nReservedConns.decrementAndGet( );
         }
-        else
-            if ( ( _nMaxConns == 0 ) || ( _nCheckedOut < _nMaxConns ) )
+
+        closePhysicalConnection( entry.getConnection( ) );
+    }
+
+    /**
+     * Closes the physical connection wrapped by a pooled connection
+     *
+     * @param connection
+     *            The connection
+     */
+    private void closePhysicalConnection( Connection connection )
+    {
+        try
+        {
+            if ( connection instanceof LuteceConnection )
             {
-                conn = newConnection( );
+                ( (LuteceConnection) connection ).closeConnection( );
+            }
+            else
+            {
+                connection.close( );
             }
 
-        return conn;
+            _logger.debug( "Closed connection" );
+        }
+        catch( SQLException e )
+        {
+            _logger.error( "Couldn't close connection", e );
+        }
     }
 
     /**
@@ -313,7 +580,7 @@ public class ConnectionPool implements DataSource
 
         // wrap connection so this connection pool is used when conn.close() is called
         conn = LuteceConnectionFactory.newInstance( this, conn );
-        _logger.info( "New connection created. Connections count is : " + ( getConnectionCount( ) + 1 ) );
+        _logger.info( "New connection created. Connections count is : {}", _nReservedConns.get( ) );
         return conn;
     }
 
@@ -323,43 +590,78 @@ public class ConnectionPool implements DataSource
      * @param conn
      *            The released connection to return to pool
      */
-    public synchronized void freeConnection( Connection conn )
+    public void freeConnection( Connection conn )
     {
-        // Put the connection at the end of the Vector
-        _freeConnections.add( conn );
-        _nCheckedOut--;
-        notifyAll( );
+        PoolEntry entry = findEntry( conn );
+
+        if ( entry == null )
+        {
+            // Connection not created by this pool or already discarded : it is closed rather than counted beyond the max limit
+            _logger.error( "Closed a connection returned to the pool {} that doesn't belong to it", _strName );
+            closePhysicalConnection( conn );
+
+            return;
+        }
+
+        entry.setLastAccess( System.nanoTime( ) );
+        entry.setFree( );
+
+        if ( _bReleased && entry.tryReserve( ) )
+        {
+            // Connection in use when the pool was released
+            discardEntry( entry );
+
+            return;
+        }
+
+        _threadEntry.set( entry );
+
+        if ( _nWaiters.get( ) > 0 )
+        {
+            _handoffQueue.offer( entry );
+        }
+
         _logger.debug( "Returned connection to pool" );
         _logger.debug( ( ) -> getStats( ) );
     }
 
     /**
-     * Releases the pool by closing all its connections.
+     * Finds the entry of a pooled connection
+     *
+     * @param conn
+     *            The connection
+     * @return The entry or null if the connection doesn't belong to this pool
      */
-    public synchronized void release( )
+    private PoolEntry findEntry( Connection conn )
     {
-        for ( Connection connection : _freeConnections )
+        for ( PoolEntry entry : _listEntries )
         {
-            try
+            if ( entry.getConnection( ) == conn )
             {
-                if ( connection instanceof LuteceConnection )
-                {
-                    ( (LuteceConnection) connection ).closeConnection( );
-                }
-                else
-                {
-                    connection.close( );
-                }
-
-                _logger.debug( "Closed connection" );
+                return entry;
             }
-            catch( SQLException e )
+        }
+
+        return null;
+    }
+
+    /**
+     * Releases the pool by closing all its connections. The connections in use are closed when they are returned to the pool.
+     */
+    public void release( )
+    {
+        _bReleased = true;
+        _connectionCreator.shutdownNow( );
+
+        for ( PoolEntry entry : _listEntries )
+        {
+            if ( entry.tryReserve( ) )
             {
-                _logger.error( "Couldn't close connection", e );
+                discardEntry( entry );
             }
         }
 
-        _freeConnections.clear( );
+        _handoffQueue.clear( );
     }
 
     /**
@@ -379,7 +681,7 @@ public class ConnectionPool implements DataSource
      */
     public int getConnectionCount( )
     {
-        return getFreeConnectionCount( ) + getBusyConnectionCount( );
+        return _listEntries.size( );
     }
 
     /**
@@ -389,7 +691,7 @@ public class ConnectionPool implements DataSource
      */
     public int getFreeConnectionCount( )
     {
-        return _freeConnections.size( );
+        return countEntries( PoolEntry.STATE_FREE );
     }
 
     /**
@@ -399,7 +701,29 @@ public class ConnectionPool implements DataSource
      */
     public int getBusyConnectionCount( )
     {
-        return _nCheckedOut;
+        return countEntries( PoolEntry.STATE_IN_USE );
+    }
+
+    /**
+     * Counts the entries in a given state
+     *
+     * @param nState
+     *            The state
+     * @return The count
+     */
+    private int countEntries( int nState )
+    {
+        int nCount = 0;
+
+        for ( PoolEntry entry : _listEntries )
+        {
+            if ( entry.getState( ) == nState )
+            {
+                nCount++;
+            }
+        }
+
+        return nCount;
     }
 
     /**
@@ -412,6 +736,26 @@ public class ConnectionPool implements DataSource
         return _nMaxConns;
     }
 
+    /**
+     * Returns the histogram of the time spent by threads waiting for a connection when none was available
+     * 
+     * @return The wait time histogram
+     */
+    public LatencyHistogram getWaitTimeHistogram( )
+    {
+        return _waitTimeHistogram;
+    }
+
+    /**
+     * Returns the histogram of the total time spent to deliver a connection, validation included
+     * 
+     * @return The acquisition time histogram
+     */
+    public LatencyHistogram getAcquisitionTimeHistogram( )
+    {
+        return _acquisitionTimeHistogram;
+    }
+
     /**
      * Returns the connection of the pool.
      *
@@ -527,4 +871,63 @@ public class ConnectionPool implements DataSource
     {
         return java.util.logging.Logger.getLogger( java.util.logging.Logger.GLOBAL_LOGGER_NAME );
     }
+
+    /**
+     * A connection of the pool with its state
+     */
+    private static final class PoolEntry
+    {
+        static final int STATE_FREE = 0;
+        static final int STATE_IN_USE = 1;
+        static final int STATE_REMOVED = 2;
+        private final Connection _connection;
+        private final AtomicInteger _nState = new AtomicInteger( STATE_IN_USE );
+        private volatile long _lLastAccess = System.nanoTime( );
+
+        /**
+         * Constructor. The entry is created in use.
+         *
+         * @param connection
+         *            The pooled connection
+         */
+        PoolEntry( Connection connection )
+        {
+            _connection = connection;
+        }
+
+        Connection getConnection( )
+        {
+            return _connection;
+        }
+
+        int getState( )
+        {
+            return _nState.get( );
+        }
+
+        boolean tryReserve( )
+        {
+            return _nState.compareAndSet( STATE_FREE, STATE_IN_USE );
+        }
+
+        void setFree( )
+        {
+            _nState.compareAndSet( STATE_IN_USE, STATE_FREE );
+        }
+
+        void setRemoved( )
+        {
+            _nState.set( STATE_REMOVED );
+        }
+
+        long getLastAccess( )
+        {
+            return _lLastAccess;
+        }
+
+        void setLastAccess( long lLastAccess )
+        {
+            _lLastAccess = lLastAccess;
+        }
+    }
 }
@@ -173,7 +173,11 @@ public class LuteceConnectionService implements ConnectionService
         String checkValidConnectionSql = ( htParamsConnectionPool.get( getPoolName( ) + ".checkvalidconnectionsql" ) == null ) ? ""
                 : htParamsConnectionPool.get( getPoolName( ) + ".checkvalidconnectionsql" );
 
-        _connPool = new ConnectionPool( getPoolName( ), url, user, password, maxConns, initConns, timeOut, _logger, checkValidConnectionSql );
+        long validationInterval = ( htParamsConnectionPool.get( getPoolName( ) + ".validationinterval" ) == null ) ? ConnectionPool.DEFAULT_VALIDATION_INTERVAL
+                : Long.parseLong( htParamsConnectionPool.get( getPoolName( ) + ".validationinterval" ) );
+
+        _connPool = new ConnectionPool( getPoolName( ), url, user, password, maxConns, initConns, timeOut, _logger, checkValidConnectionSql,
+                validationInterval );
     }
 
     /**
@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free rate limiter allowing a number of requests per period for each key (a client address, a login, ...). <br>
+ * Each key is a token bucket holding up to the number of permits and refilled continuously, implemented as a generic cell rate algorithm : the state of a
+ * key is a single theoretical arrival time updated by compare and set, so the requests of different keys never contend and the requests of the same key
+ * only retry on a concurrent update. <br>
+ * The keys whose bucket is full again are removed by a sweep run at most once per sweep interval by the request that claims it, instead of a cleaning on
+ * every request. The allowed and rejected requests are counted.
+ * 
+ * @since 7.0.17
+ */
+public class RateLimiter
+{
+    private static final long EXPIRED = Long.MIN_VALUE;
+    private static final long MIN_SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos( 1 );
+
+    private final String _strName;
+    private final int _nPermits;
+    private final long _lPeriodNanos;
+    private final long _lEmissionIntervalNanos;
+    private final long _lToleranceNanos;
+    private final long _lSweepIntervalNanos;
+    private final LongSupplier _clock;
+    private final ConcurrentMap<String, AtomicLong> _mapStates = new ConcurrentHashMap<>( );
+    private final AtomicLong _lNextSweep;
+    private final LongAdder _lAllowed = new LongAdder( );
+    private final LongAdder _lRejected = new LongAdder( );
+
+    /**
+     * Constructor
+     * 
+     * @param strName
+     *            The name of the limiter
+     * @param nPermits
+     *            The number of requests allowed per period for a key, which is also the largest burst
+     * @param lPeriod
+     *            The period
+     * @param unit
+     *            The unit of the period
+     */
+    public RateLimiter( String strName, int nPermits, long lPeriod, TimeUnit unit )
+    {
+        this( strName, nPermits, lPeriod, unit, System::nanoTime );
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param strName
+     *            The name of the limiter
+     * @param nPermits
+     *            The number of requests allowed per period for a key
+     * @param lPeriod
+     *            The period
+     * @param unit
+     *            The unit of the period
+     * @param clock
+     *            The clock, in nanoseconds
+     */
+    RateLimiter( String strName, int nPermits, long lPeriod, TimeUnit unit, LongSupplier clock )
+    {
+        if ( ( nPermits <= 0 ) || ( lPeriod <= 0 ) )
+        {
+            throw new IllegalArgumentException( "Invalid rate limit for " + strName + " : " + nPermits + " per " + lPeriod + " " + unit );
+        }
+
+        _strName = strName;
+        _nPermits = nPermits;
+        _lPeriodNanos = unit.toNanos( lPeriod );
+        _lEmissionIntervalNanos = Math.max( 1L, _lPeriodNanos / nPermits );
+        _lToleranceNanos = _lPeriodNanos - _lEmissionIntervalNanos;
+        _lSweepIntervalNanos = Math.max( MIN_SWEEP_INTERVAL_NANOS, _lPeriodNanos );
+        _clock = clock;
+        _lNextSweep = new AtomicLong( clock.getAsLong( ) + _lSweepIntervalNanos );
+    }
+
+    /**
+     * Returns the name of the limiter
+     * 
+     * @return The name
+     */
+    public String getName( )
+    {
+        return _strName;
+    }
+
+    /**
+     * Returns the number of requests allowed per period for a key
+     * 
+     * @return The number of permits
+     */
+    public int getPermits( )
+    {
+        return _nPermits;
+    }
+
+    /**
+     * Returns the period
+     * 
+     * @param unit
+     *            The unit of the result
+     * @return The period
+     */
+    public long getPeriod( TimeUnit unit )
+    {
+        return unit.convert( _lPeriodNanos, TimeUnit.NANOSECONDS );
+    }
+
+    /**
+     * Takes a permit for a key if one is available
+     * 
+     * @param strKey
+     *            The key
+     * @return true if the request is allowed, false if the key has exceeded its rate
+     */
+    public boolean tryAcquire( String strKey )
+    {
+        String strStateKey = ( strKey != null ) ? strKey : "";
+        long lNow = _clock.getAsLong( );
+        boolean bAllowed = acquire( strStateKey, lNow );
+
+        if ( bAllowed )
+        {
+            _lAllowed.increment( );
+        }
+        else
+        {
+            _lRejected.increment( );
+        }
+
+        long lNextSweep = _lNextSweep.get( );
+
+        if ( ( lNow - lNextSweep >= 0 ) && _lNextSweep.compareAndSet( lNextSweep, lNow + _lSweepIntervalNanos ) )
+        {
+            sweep( lNow );
+        }
+
+        return bAllowed;
+    }
+
+    /**
+     * Updates the theoretical arrival time of a key
+     * 
+     * @param strKey
+     *            The key
+     * @param lNow
+     *            The current time
+     * @return true if the request is allowed
+     */
+    private boolean acquire( String strKey, long lNow )
+    {
+        while ( true )
+        {
+            AtomicLong state = _mapStates.get( strKey );
+
+            if ( state == null )
+            {
+                state = _mapStates.computeIfAbsent( strKey, k -> new AtomicLong( lNow ) );
+            }
+
+            long lArrival = state.get( );
+
+            if ( lArrival == EXPIRED )
+            {
+                // removed by a sweep : the next loop uses a new state
+                _mapStates.remove( strKey, state );
+
+                continue;
+            }
+
+            long lStart = ( lArrival - lNow > 0 ) ? lArrival : lNow;
+
+            if ( lStart - lNow > _lToleranceNanos )
+            {
+                return false;
+            }
+
+            if ( state.compareAndSet( lArrival, lStart + _lEmissionIntervalNanos ) )
+            {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Removes the keys whose bucket is full again
+     * 
+     * @param lNow
+     *            The current time
+     */
+    private void sweep( long lNow )
+    {
+        for ( Map.Entry<String, AtomicLong> entry : _mapStates.entrySet( ) )
+        {
+            AtomicLong state = entry.getValue( );
+            long lArrival = state.get( );
+
+            if ( ( lArrival != EXPIRED ) && ( lArrival - lNow <= 0 ) && state.compareAndSet( lArrival, EXPIRED ) )
+            {
+                _mapStates.remove( entry.getKey( ), state );
+            }
+        }
+    }
+
+    /**
+     * Returns the number of keys currently tracked
+     * 
+     * @return The number of keys
+     */
+    public int getKeyCount( )
+    {
+        return _mapStates.size( );
+    }
+
+    /**
+     * Returns the number of allowed requests
+     * 
+     * @return The count
+     */
+    public long getAllowedCount( )
+    {
+        return _lAllowed.sum( );
+    }
+
+    /**
+     * Returns the number of rejected requests
+     * 
+     * @return The count
+     */
+    public long getRejectedCount( )
+    {
+        return _lRejected.sum( );
+    }
+
+    /**
+     * Resets the counts of allowed and rejected requests
+     */
+    public void resetCounts( )
+    {
+        _lAllowed.reset( );
+        _lRejected.reset( );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString( )
+    {
+        return _strName + " : permits = " + _nPermits + " per " + TimeUnit.NANOSECONDS.toMillis( _lPeriodNanos ) + " ms, allowed = " + getAllowedCount( )
+                + ", rejected = " + getRejectedCount( ) + ", keys = " + getKeyCount( );
+    }
+}
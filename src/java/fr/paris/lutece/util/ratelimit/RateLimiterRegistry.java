@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.ratelimit;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of the rate limiters, listed by the metrics service with their counts of allowed and rejected requests
+ * 
+ * @since 7.0.17
+ */
+public final class RateLimiterRegistry
+{
+    private static final ConcurrentMap<String, RateLimiter> _mapLimiters = new ConcurrentHashMap<>( );
+
+    /**
+     * Private constructor
+     */
+    private RateLimiterRegistry( )
+    {
+    }
+
+    /**
+     * Registers a rate limiter. A limiter already registered under the same name is replaced, so that a filter initialized again uses its new settings.
+     * 
+     * @param limiter
+     *            The limiter
+     * @return The limiter
+     */
+    public static RateLimiter register( RateLimiter limiter )
+    {
+        _mapLimiters.put( limiter.getName( ), limiter );
+
+        return limiter;
+    }
+
+    /**
+     * Unregisters a rate limiter
+     * 
+     * @param limiter
+     *            The limiter
+     */
+    public static void unregister( RateLimiter limiter )
+    {
+        _mapLimiters.remove( limiter.getName( ), limiter );
+    }
+
+    /**
+     * Returns the limiter registered under a given name
+     * 
+     * @param strName
+     *            The name
+     * @return The limiter or null
+     */
+    public static RateLimiter getRateLimiter( String strName )
+    {
+        return _mapLimiters.get( strName );
+    }
+
+    /**
+     * Returns all the registered limiters sorted by name
+     * 
+     * @return The limiters
+     */
+    public static List<RateLimiter> getRateLimiters( )
+    {
+        List<RateLimiter> list = new ArrayList<>( _mapLimiters.values( ) );
+        list.sort( Comparator.comparing( RateLimiter::getName ) );
+
+        return list;
+    }
+
+    /**
+     * Resets the counts of all the registered limiters
+     */
+    public static void resetCounts( )
+    {
+        for ( RateLimiter limiter : _mapLimiters.values( ) )
+        {
+            limiter.resetCounts( );
+        }
+    }
+}
@@ -39,6 +39,7 @@ import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.portal.service.util.AppException;
 import fr.paris.lutece.portal.service.util.AppLogService;
 import fr.paris.lutece.portal.service.util.NoDatabaseException;
+import fr.paris.lutece.util.metrics.MetricsRegistry;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -85,6 +86,13 @@ public class DAOUtil implements AutoCloseable
     private static final String DEFAULT_MODULE_NAME = "lutece";
     private static final String LOGGER_DEBUG_SQL = "lutece.debug.sql.";
 
+    /** Default number of batched statements sent to the database at once */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    /** Execution times of the statements by plugin name, recorded when the metrics are enabled */
+    private static final MetricsRegistry.HistogramGroup _executeQueryHistograms = MetricsRegistry.getGroup( "daoUtil.executeQuery" );
+    private static final MetricsRegistry.HistogramGroup _executeUpdateHistograms = MetricsRegistry.getGroup( "daoUtil.executeUpdate" );
+
     /** Connection Service providing connection from a defined pool */
     private PluginConnectionService _connectionService;
 
@@ -107,6 +115,15 @@ public class DAOUtil implements AutoCloseable
     private Integer _autoGeneratedKeys;
     private ResultSet _generatedKeysResultSet;
 
+    /**
+     * Batch state : flush size, statements waiting to be sent, keys generated by the statements already sent and the connection which auto commit is disabled
+     * until the batch is committed
+     */
+    private int _nBatchSize = DEFAULT_BATCH_SIZE;
+    private int _nBatchCount;
+    private List<Long> _listBatchGeneratedKeys;
+    private Connection _batchConnection;
+
     /** True if SQL request are logged */
     private boolean _bReleased;
     private String _strSQL;
@@ -341,6 +358,8 @@ public class DAOUtil implements AutoCloseable
      */
     public void executeUpdate( )
     {
+        long lStart = MetricsRegistry.start( );
+
         try
         {
             _statement.executeUpdate( );
@@ -354,6 +373,10 @@ public class DAOUtil implements AutoCloseable
             free( );
             throw new AppException( getErrorMessage( e ), e );
         }
+        finally
+        {
+            _executeUpdateHistograms.stop( _strPluginName, lStart );
+        }
     }
 
     /**
@@ -361,6 +384,8 @@ public class DAOUtil implements AutoCloseable
      */
     public void executeQuery( )
     {
+        long lStart = MetricsRegistry.start( );
+
         try
         {
             _resultSet = _statement.executeQuery( );
@@ -370,6 +395,95 @@ public class DAOUtil implements AutoCloseable
             free( );
             throw new AppException( getErrorMessage( e ), e );
         }
+        finally
+        {
+            _executeQueryHistograms.stop( _strPluginName, lStart );
+        }
+    }
+
+    /**
+     * Sets the number of batched statements sent to the database at once by {@link #addBatch()}
+     * 
+     * @param nBatchSize
+     *            the flush size, 0 or less to send the statements only on {@link #executeBatch()}
+     * @since 7.0.17
+     */
+    public void setBatchSize( int nBatchSize )
+    {
+        _nBatchSize = nBatchSize;
+    }
+
+    /**
+     * Returns the keys generated by the batched statements sent so far, in the order the statements were added. The DAOUtil must have been created with
+     * <code>Statement.RETURN_GENERATED_KEYS</code>.
+     * 
+     * @return the generated keys
+     * @since 7.0.17
+     */
+    public List<Long> getBatchGeneratedKeys( )
+    {
+        return ( _listBatchGeneratedKeys != null ) ? _listBatchGeneratedKeys : new ArrayList<>( );
+    }
+
+    /**
+     * Reads the keys generated by the last executed batch
+     * 
+     * @throws SQLException
+     *             if the keys can not be read
+     */
+    private void readBatchGeneratedKeys( ) throws SQLException
+    {
+        if ( _listBatchGeneratedKeys == null )
+        {
+            _listBatchGeneratedKeys = new ArrayList<>( );
+        }
+
+        try ( ResultSet keys = _statement.getGeneratedKeys( ) )
+        {
+            while ( keys.next( ) )
+            {
+                _listBatchGeneratedKeys.add( keys.getLong( 1 ) );
+            }
+        }
+    }
+
+    /**
+     * Rolls back the statements of a batch executed outside of a transaction and not committed yet, then restores the auto commit of the connection. The
+     * rollback comes first because enabling the auto commit commits the pending statements. Must be called before the connection is freed.
+     */
+    private void endBatchTransaction( )
+    {
+        Connection connection = _batchConnection;
+        _batchConnection = null;
+
+        try
+        {
+            connection.rollback( );
+        }
+        catch( SQLException e )
+        {
+            AppLogService.error( "Unable to roll back a batch : {}", e.getMessage( ), e );
+        }
+
+        restoreAutoCommit( connection );
+    }
+
+    /**
+     * Restores the auto commit of a connection after a batch
+     * 
+     * @param connection
+     *            the connection which auto commit has been disabled
+     */
+    private void restoreAutoCommit( Connection connection )
+    {
+        try
+        {
+            connection.setAutoCommit( true );
+        }
+        catch( SQLException e )
+        {
+            AppLogService.error( "Unable to restore the auto commit of a connection : {}", e.getMessage( ), e );
+        }
     }
 
     /**
@@ -413,6 +527,19 @@ public class DAOUtil implements AutoCloseable
         if ( !_bReleased )
         {
             _logger.debug( _sbLogs );
+
+            if ( _nBatchCount > 0 )
+            {
+                AppLogService.error( "DAOUtil freed with {} batched statement(s) not executed - Plugin : {}", _nBatchCount, _strPluginName );
+                _nBatchCount = 0;
+            }
+
+            if ( _batchConnection != null )
+            {
+                AppLogService.error( "DAOUtil freed before the batch was committed, the statements already sent are rolled back - Plugin : {}",
+                        _strPluginName );
+                endBatchTransaction( );
+            }
         }
 
         try
@@ -3221,8 +3348,10 @@ public class DAOUtil implements AutoCloseable
     }
 
     /**
-     * Adds a set of parameters to this <code>PreparedStatement</code> object's batch of commands.
+     * Adds a set of parameters to this <code>PreparedStatement</code> object's batch of commands. The batch is sent to the database each time it reaches the
+     * batch size.
      * 
+     * @see #setBatchSize(int)
      * @since 7.0.0
      */
     public void addBatch( )
@@ -3236,6 +3365,8 @@ public class DAOUtil implements AutoCloseable
             free( );
             throw new AppException( getErrorMessage( e ), e );
         }
+
+        onBatchAdded( );
     }
 
     /**
@@ -3262,6 +3393,21 @@ public class DAOUtil implements AutoCloseable
             free( );
             throw new AppException( getErrorMessage( e ), e );
         }
+
+        onBatchAdded( );
+    }
+
+    /**
+     * Counts a command added to the batch and sends the batch if it has reached the batch size. The commands sent are committed by {@link #executeBatch()}.
+     */
+    private void onBatchAdded( )
+    {
+        _nBatchCount++;
+
+        if ( _nBatchSize > 0 && _nBatchCount >= _nBatchSize )
+        {
+            sendBatch( );
+        }
     }
 
     /**
@@ -3277,6 +3423,7 @@ public class DAOUtil implements AutoCloseable
         try
         {
             _statement.clearBatch( );
+            _nBatchCount = 0;
         }
         catch( SQLException e )
         {
@@ -3308,25 +3455,99 @@ public class DAOUtil implements AutoCloseable
     }
 
     /**
-     * Submits a batch of commands to the database for execution and if all commands execute successfully, returns an array of update counts.
+     * Submits a batch of commands to the database for execution and if all commands execute successfully, returns an array of update counts. The commands
+     * which have not been submitted are discarded when the DAOUtil is freed, so this method must be called once the last command has been added.
+     * <p>
+     * Outside of a transaction, the auto commit of the connection is disabled when the first commands are sent, including the intermediate sends made by
+     * {@link #addBatch()} when the batch size is reached, and all the commands of the batch are committed together by this method : either all of them are
+     * applied or none. A DAOUtil freed without calling this method rolls them back. Within a transaction managed by {@link TransactionManager} or Spring,
+     * they are committed with the transaction.
      * 
      * @since 7.0.0
-     * @return The elements of the array that is returned are ordered to correspond to the commands in the batch, which are ordered according to the order in
-     *         which they were added to the batch.
+     * @return The elements of the array that is returned are ordered to correspond to the commands submitted by this call, which are ordered according to the
+     *         order in which they were added to the batch.
      */
     public int [ ] executeBatch( )
     {
+        int [ ] counts = ( _nBatchCount > 0 ) ? sendBatch( ) : new int [ 0];
+
+        if ( _batchConnection != null )
+        {
+            try
+            {
+                _batchConnection.commit( );
+            }
+            catch( SQLException e )
+            {
+                throw abortBatch( e );
+            }
+
+            Connection connection = _batchConnection;
+            _batchConnection = null;
+            restoreAutoCommit( connection );
+        }
+
+        return counts;
+    }
+
+    /**
+     * Sends the pending commands of the batch to the database, disabling the auto commit of the connection outside of a transaction
+     * 
+     * @return the update counts of the commands sent
+     */
+    private int [ ] sendBatch( )
+    {
+        long lStart = MetricsRegistry.start( );
+
         try
         {
-            return _statement.executeBatch( );
+            if ( ( _batchConnection == null ) && !_bTransactionnal && _statement.getConnection( ).getAutoCommit( ) )
+            {
+                _batchConnection = _statement.getConnection( );
+                _batchConnection.setAutoCommit( false );
+            }
+
+            int [ ] counts = _statement.executeBatch( );
+            _nBatchCount = 0;
+
+            if ( _autoGeneratedKeys != null && _autoGeneratedKeys.equals( Statement.RETURN_GENERATED_KEYS ) )
+            {
+                readBatchGeneratedKeys( );
+            }
+
+            return counts;
         }
         catch( SQLException e )
         {
-            free( );
-            throw new AppException( getErrorMessage( e ), e );
+            throw abortBatch( e );
+        }
+        finally
+        {
+            _executeUpdateHistograms.stop( _strPluginName, lStart );
         }
     }
 
+    /**
+     * Aborts a failed batch : rolls it back and restores the auto commit of the connection, then frees the connection
+     * 
+     * @param e
+     *            the cause of the failure
+     * @return the exception to throw
+     */
+    private AppException abortBatch( SQLException e )
+    {
+        _nBatchCount = 0;
+
+        if ( _batchConnection != null )
+        {
+            endBatchTransaction( );
+        }
+
+        free( );
+
+        return new AppException( getErrorMessage( e ), e );
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -35,16 +35,25 @@ package fr.paris.lutece.util.xml;
 
 import fr.paris.lutece.portal.service.util.AppLogService;
 import fr.paris.lutece.portal.service.util.AppPropertiesService;
+import fr.paris.lutece.util.metrics.LatencyHistogram;
+import fr.paris.lutece.util.metrics.MetricsRegistry;
 
 import java.io.StringWriter;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
@@ -57,78 +66,167 @@ import javax.xml.transform.TransformerFactoryConfigurationError;
 import javax.xml.transform.stream.StreamResult;
 
 /**
- * This class provides methods to transform XML documents using XSLT with cache
+ * This class provides methods to transform XML documents using XSLT with cache. <br>
+ * Compiled stylesheets ({@link Templates}, which are thread-safe) are shared by all the threads in a bounded LRU cache. A stylesheet is compiled only once
+ * even when several threads ask for it at the same time : the first one compiles it while the others wait for the result.
  */
 public final class XmlTransformer
 {
     private static final String ERROR_MESSAGE_XLST = "Error transforming document XSLT : ";
+
+    /**
+     * @deprecated the compiled stylesheets are shared in a single cache, sized by {@link #PROPERTY_CACHE_MAX_SIZE}
+     */
+    @Deprecated
     public static final String PROPERTY_TRANSFORMER_POOL_SIZE = "service.xmlTransformer.transformerPoolSize";
+
+    /**
+     * @deprecated the compiled stylesheets are shared in a single cache, sized by {@link #CACHE_MAX_SIZE}
+     */
+    @Deprecated
     public static final int TRANSFORMER_POOL_SIZE = AppPropertiesService.getPropertyInt( PROPERTY_TRANSFORMER_POOL_SIZE, 2 );
     public static final int MAX_TRANSFORMER_SIZE = 1000;
-    private static final List<ConcurrentMap<String, Templates>> transformersPoolList = new ArrayList<>( TRANSFORMER_POOL_SIZE );
+    public static final String PROPERTY_CACHE_MAX_SIZE = "service.xmlTransformer.cacheMaxSize";
+    public static final int CACHE_MAX_SIZE = AppPropertiesService.getPropertyInt( PROPERTY_CACHE_MAX_SIZE, MAX_TRANSFORMER_SIZE );
+    private static final int EVICTION_PERCENT = 10;
+    private static final ConcurrentMap<String, TemplatesEntry> _mapTemplates = new ConcurrentHashMap<>( );
+    private static final ReentrantLock _lockEviction = new ReentrantLock( );
+    private static final AtomicLong _lAccessClock = new AtomicLong( );
+    private static final LongAdder _lCacheHits = new LongAdder( );
+    private static final LongAdder _lCacheMisses = new LongAdder( );
+    private static final LatencyHistogram _compileTimeHistogram = MetricsRegistry.register( new LatencyHistogram( "xmlTransformer.compileTime" ) );
+    private static final LatencyHistogram _transformHistogram = MetricsRegistry.getHistogram( "xmlTransformer.transform" );
+
+    // TransformerFactory instances are not thread-safe : each thread keeps its own
+    private static final ThreadLocal<TransformerFactory> _transformerFactory = ThreadLocal.withInitial( TransformerFactory::newInstance );
 
-    static
+    /**
+     * This method gets a templates instance from cache or compiles a new one.
+     *
+     * Previously (before 6.0.0) it returned directly a transformer, now it returns a templates which can create transformers cheaply.
+     * 
+     * @param stylesheetLoader
+     *            Loader of the XSL source, only called if the stylesheet has to be compiled
+     * @param strStyleSheetId
+     *            The StyleSheet Id
+     * @return XmlTransformer object
+     * @throws TransformerException
+     */
+    private Templates getTemplates( Supplier<Source> stylesheetLoader, String strStyleSheetId ) throws TransformerException
     {
-        for ( int i = 0; i < TRANSFORMER_POOL_SIZE; i++ )
+        if ( CACHE_MAX_SIZE <= 0 )
+        {
+            _lCacheMisses.increment( );
+
+            return compileTemplates( stylesheetLoader.get( ), strStyleSheetId );
+        }
+
+        TemplatesEntry entry = _mapTemplates.get( strStyleSheetId );
+
+        if ( entry == null )
         {
-            transformersPoolList.add( new ConcurrentHashMap<String, Templates>( MAX_TRANSFORMER_SIZE ) );
+            TemplatesEntry newEntry = new TemplatesEntry( _lAccessClock.incrementAndGet( ) );
+            entry = _mapTemplates.putIfAbsent( strStyleSheetId, newEntry );
+
+            if ( entry == null )
+            {
+                // This thread won the race : it compiles the stylesheet for all the others
+                _lCacheMisses.increment( );
+
+                try
+                {
+                    newEntry.complete( compileTemplates( stylesheetLoader.get( ), strStyleSheetId ) );
+                }
+                catch( TransformerException | RuntimeException e )
+                {
+                    _mapTemplates.remove( strStyleSheetId, newEntry );
+                    newEntry.fail( e );
+                    throw e;
+                }
+
+                evictIfFull( );
+
+                return newEntry.getTemplates( );
+            }
         }
+
+        _lCacheHits.increment( );
+        entry.touch( _lAccessClock.incrementAndGet( ) );
+
+        return entry.getTemplates( );
     }
 
     /**
-     * This method try to get a templates instance from cache or create a new one if can't.
-     *
-     * Previously (before 6.0.0) it returned directly a transformer, now it returns a templates which can create transformers cheaply.
+     * Compiles a stylesheet
      * 
      * @param stylesheet
      *            The XML document content
      * @param strStyleSheetId
      *            The StyleSheet Id
-     * @return XmlTransformer object
+     * @return The compiled stylesheet
      * @throws TransformerException
+     *             If the stylesheet can't be compiled
      */
-    private Templates getTemplates( Source stylesheet, String strStyleSheetId ) throws TransformerException
+    private static Templates compileTemplates( Source stylesheet, String strStyleSheetId ) throws TransformerException
     {
-        Templates result = null;
+        long lStart = System.nanoTime( );
 
-        if ( TRANSFORMER_POOL_SIZE > 0 )
+        try
         {
-            int nTransformerListIndex = 0;
+            Templates result = _transformerFactory.get( ).newTemplates( stylesheet );
+            AppLogService.debug( " --  XML Templates instantiation : strStyleSheetId= {}", strStyleSheetId );
 
-            do
+            return result;
+        }
+        catch( TransformerConfigurationException e )
+        {
+            String strMessage = e.getMessage( );
+
+            if ( e.getLocationAsString( ) != null )
             {
-                result = transformersPoolList.get( nTransformerListIndex ).remove( strStyleSheetId );
-                nTransformerListIndex++;
+                strMessage += ( "- location : " + e.getLocationAsString( ) );
             }
-            while ( ( result == null ) && ( nTransformerListIndex < TRANSFORMER_POOL_SIZE ) );
+
+            throw new TransformerException( ERROR_MESSAGE_XLST + strMessage, e.getCause( ) );
+        }
+        catch( TransformerFactoryConfigurationError e )
+        {
+            throw new TransformerException( ERROR_MESSAGE_XLST + e.getMessage( ), e );
         }
+        finally
+        {
+            _compileTimeHistogram.recordSince( lStart );
+        }
+    }
 
-        if ( result == null )
+    /**
+     * Removes the least recently used templates when the cache is full. Only one thread evicts at a time, the others don't wait for it.
+     */
+    private static void evictIfFull( )
+    {
+        if ( ( _mapTemplates.size( ) <= CACHE_MAX_SIZE ) || !_lockEviction.tryLock( ) )
         {
-            // only one thread can use transformer
-            try
-            {
-                result = TransformerFactory.newInstance( ).newTemplates( stylesheet );
-                AppLogService.debug( " --  XML Templates instantiation : strStyleSheetId= {}", strStyleSheetId );
-            }
-            catch( TransformerConfigurationException e )
-            {
-                String strMessage = e.getMessage( );
+            return;
+        }
 
-                if ( e.getLocationAsString( ) != null )
-                {
-                    strMessage += ( "- location : " + e.getLocationAsString( ) );
-                }
+        try
+        {
+            List<Entry<String, TemplatesEntry>> listEntries = new ArrayList<>( _mapTemplates.entrySet( ) );
+            int nToRemove = ( listEntries.size( ) - CACHE_MAX_SIZE ) + ( ( CACHE_MAX_SIZE * EVICTION_PERCENT ) / 100 );
+            listEntries.sort( Comparator.comparingLong( e -> e.getValue( ).getLastAccess( ) ) );
 
-                throw new TransformerException( ERROR_MESSAGE_XLST + strMessage, e.getCause( ) );
-            }
-            catch( TransformerFactoryConfigurationError e )
+            for ( int i = 0; ( i < nToRemove ) && ( i < listEntries.size( ) ); i++ )
             {
-                throw new TransformerException( ERROR_MESSAGE_XLST + e.getMessage( ), e );
+                Entry<String, TemplatesEntry> entry = listEntries.get( i );
+                _mapTemplates.remove( entry.getKey( ), entry.getValue( ) );
             }
-        }
 
-        return result;
+            AppLogService.debug( "XmlTransformer : cache is full, {} templates removed. You may need to increase cache size.", nToRemove );
+        }
+        finally
+        {
+            _lockEviction.unlock( );
+        }
     }
 
     /**
@@ -136,10 +234,7 @@ public final class XmlTransformer
      */
     public static void cleanTransformerList( )
     {
-        for ( ConcurrentMap<String, Templates> transformerList : transformersPoolList )
-        {
-            transformerList.clear( );
-        }
+        _mapTemplates.clear( );
     }
 
     /**
@@ -149,52 +244,37 @@ public final class XmlTransformer
      */
     public static int getTransformersCount( )
     {
-        int nCount = 0;
-
-        for ( ConcurrentMap<String, Templates> transformerList : transformersPoolList )
-        {
-            nCount += transformerList.size( );
-        }
-
-        return nCount;
+        return _mapTemplates.size( );
     }
 
     /**
-     * Release Transformer instance in cache. Previously (before 6.0.0) the cache stored transformers, now it stores templates.
+     * Gets the number of stylesheets found in the cache, compiled or being compiled by another thread
      * 
-     * @param templates
-     *            The XML templates
-     * @param strStyleSheetId
-     *            The StyleSheet Id
+     * @return the cache hits count
      */
-    private void releaseTemplates( Templates templates, String strStyleSheetId )
+    public static long getCacheHits( )
     {
-        if ( TRANSFORMER_POOL_SIZE > 0 )
-        {
-            Templates result = null;
-            ConcurrentMap<String, Templates> transformerList = null;
-            int nTransformerListIndex = 0;
-
-            do
-            {
-                transformerList = transformersPoolList.get( nTransformerListIndex );
-                nTransformerListIndex++;
+        return _lCacheHits.sum( );
+    }
 
-                // This set of action is not performed atomically but it can not cause problems
-                if ( transformerList.size( ) < MAX_TRANSFORMER_SIZE )
-                {
-                    result = transformerList.putIfAbsent( strStyleSheetId, templates );
-                }
-                else
-                {
-                    // Aggressive release ( speed up GC )
-                    transformerList.clear( );
+    /**
+     * Gets the number of stylesheets that had to be compiled
+     * 
+     * @return the cache misses count
+     */
+    public static long getCacheMisses( )
+    {
+        return _lCacheMisses.sum( );
+    }
 
-                    AppLogService.info( "XmlTransformer : cache is full, you may need to increase cache size." );
-                }
-            }
-            while ( ( result != null ) && ( nTransformerListIndex < TRANSFORMER_POOL_SIZE ) );
-        }
+    /**
+     * Gets the histogram of the stylesheets compilation times
+     * 
+     * @return the compilation times histogram
+     */
+    public static LatencyHistogram getCompileTimeHistogram( )
+    {
+        return _compileTimeHistogram;
     }
 
     /**
@@ -217,7 +297,30 @@ public final class XmlTransformer
     public String transform( Source source, Source stylesheet, String strStyleSheetId, Map<String, String> params, Properties outputProperties )
             throws TransformerException
     {
-        Templates templates = this.getTemplates( stylesheet, strStyleSheetId );
+        return transform( source, strStyleSheetId, ( ) -> stylesheet, params, outputProperties );
+    }
+
+    /**
+     * Transform XML documents using XSLT with cache. The XSL source is only loaded if the stylesheet is not already compiled in the cache.
+     * 
+     * @param source
+     *            The XML document content
+     * @param strStyleSheetId
+     *            The StyleSheet Id
+     * @param stylesheetLoader
+     *            Loader of the XSL source
+     * @param params
+     *            Parameters that can be used by the XSL StyleSheet
+     * @param outputProperties
+     *            Properties to use for the XSL transform. Will overload the XSL output definition.
+     * @return The output document
+     * @throws TransformerException
+     *             The exception
+     */
+    public String transform( Source source, String strStyleSheetId, Supplier<Source> stylesheetLoader, Map<String, String> params,
+            Properties outputProperties ) throws TransformerException
+    {
+        Templates templates = this.getTemplates( stylesheetLoader, strStyleSheetId );
         Transformer transformer = templates.newTransformer( );
 
         if ( outputProperties != null )
@@ -237,6 +340,7 @@ public final class XmlTransformer
 
         StringWriter sw = new StringWriter( );
         Result result = new StreamResult( sw );
+        long lStart = MetricsRegistry.start( );
 
         try
         {
@@ -255,9 +359,78 @@ public final class XmlTransformer
         }
         finally
         {
-            this.releaseTemplates( templates, strStyleSheetId );
+            MetricsRegistry.stop( _transformHistogram, lStart );
         }
 
         return sw.toString( );
     }
+
+    /**
+     * A cached compiled stylesheet, possibly still being compiled
+     */
+    private static final class TemplatesEntry
+    {
+        private final CompletableFuture<Templates> _future = new CompletableFuture<>( );
+        private volatile long _lLastAccess;
+
+        /**
+         * Constructor
+         * 
+         * @param lLastAccess
+         *            The access clock value
+         */
+        TemplatesEntry( long lLastAccess )
+        {
+            _lLastAccess = lLastAccess;
+        }
+
+        void complete( Templates templates )
+        {
+            _future.complete( templates );
+        }
+
+        void fail( Exception e )
+        {
+            _future.completeExceptionally( e );
+        }
+
+        void touch( long lLastAccess )
+        {
+            _lLastAccess = lLastAccess;
+        }
+
+        long getLastAccess( )
+        {
+            return _lLastAccess;
+        }
+
+        /**
+         * Gets the compiled stylesheet, waiting for the end of its compilation by another thread if needed
+         * 
+         * @return The templates
+         * @throws TransformerException
+         *             If the compilation failed
+         */
+        Templates getTemplates( ) throws TransformerException
+        {
+            try
+            {
+                return _future.get( );
+            }
+            catch( InterruptedException e )
+            {
+                Thread.currentThread( ).interrupt( );
+                throw new TransformerException( ERROR_MESSAGE_XLST + "interrupted while waiting for the stylesheet compilation", e );
+            }
+            catch( ExecutionException e )
+            {
+                if ( e.getCause( ) instanceof TransformerException )
+                {
+                    throw (TransformerException) e.getCause( );
+                }
+
+                throw new TransformerException( ERROR_MESSAGE_XLST + e.getCause( ).getMessage( ), e.getCause( ) );
+            }
+        }
+    }
 }
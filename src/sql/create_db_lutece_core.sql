@@ -596,3 +596,33 @@ CREATE TABLE core_admin_security_header (
   is_active SMALLINT DEFAULT 0,
   PRIMARY KEY  (id_security_header)
 );
+
+--
+-- Table structure for table core_cache_invalidation
+--
+DROP TABLE IF EXISTS core_cache_invalidation;
+CREATE TABLE core_cache_invalidation (
+  id_invalidation int AUTO_INCREMENT NOT NULL,
+  node_id VARCHAR(100) NOT NULL,
+  invalidation_type VARCHAR(20) NOT NULL,
+  event_type int default 0 NOT NULL,
+  id_resource int default 0 NOT NULL,
+  id_page int default 0 NOT NULL,
+  cache_name VARCHAR(255) DEFAULT NULL,
+  cache_key VARCHAR(255) DEFAULT NULL,
+  date_creation TIMESTAMP NOT NULL,
+  PRIMARY KEY (id_invalidation)
+);
+
+CREATE INDEX index_cache_invalidation_date ON core_cache_invalidation ( date_creation );
+
+--
+-- Table structure for table core_daemon_lock
+--
+DROP TABLE IF EXISTS core_daemon_lock;
+CREATE TABLE core_daemon_lock (
+  daemon_id VARCHAR(100) NOT NULL,
+  node_id VARCHAR(255) NOT NULL,
+  date_expiry TIMESTAMP NOT NULL,
+  PRIMARY KEY (daemon_id)
+);
@@ -31,3 +31,38 @@ INSERT INTO core_admin_security_header (name, value, description, type, page_cat
 INSERT INTO core_admin_security_header (name, value, description, type, page_category, is_active) VALUES ('Clear-Site-Data', '"cache","cookies","storage"', 'The Clear-Site-Data header clears browsing data (cookies, storage, cache) associated with the requesting website. It allows web developers to have more control over the data stored by a client browser for their origins. This header is useful for example, during a logout process, in order to ensure that all stored content on the client side like cookies, storage and cache are removed. The value recommended by OWASP for this header is ''"cache","cookies","storage"'' and this is the value retained for Lutece. It is added to the front office/back office logout pages of Lutece.', 'page', 'logout_FO', 1);
 INSERT INTO core_admin_security_header (name, value, description, type, page_category, is_active) VALUES ('Strict-Transport-Security', 'max-age=31536000; includeSubDomains', 'The HTTP Content-Security-Policy response header allows website administrators to control resources the user agent is allowed to load for a given page. With a few exceptions, policies mostly involve specifying server origins and script endpoints. This helps guard against cross-site scripting attacks (Cross-site_scripting). The value recommended by OWASP for this header when used as a response of an API call is ''frame-ancestors ''none'''' and this is the value retained for Lutece. It prevents any domain from framing the response returned by the API call.', 'rest_api', NULL, 1);
 INSERT INTO core_admin_security_header (name, value, description, type, page_category, is_active) VALUES ('Content-Security-Policy', 'frame-ancestors ''none''', 'The HTTP Strict-Transport-Security response header (often abbreviated as HSTS) informs browsers that the site should only be accessed using HTTPS, and that any future attempts to access it using HTTP should automatically be converted to HTTPS. The value recommended by OWASP for this header when used as a response of an API call is ''max-age=31536000; includeSubDomains'' and this is the value retained for Lutece. This setting means that the browser should remember that this site and all of his subdomains are only to be accessed using HTTPS for 31536000 seconds (1 year).', 'rest_api', NULL, 1);
+
+--
+-- Table structure for table core_cache_invalidation
+--
+DROP TABLE IF EXISTS core_cache_invalidation;
+CREATE TABLE core_cache_invalidation (
+  id_invalidation int AUTO_INCREMENT NOT NULL,
+  node_id VARCHAR(100) NOT NULL,
+  invalidation_type VARCHAR(20) NOT NULL,
+  event_type int default 0 NOT NULL,
+  id_resource int default 0 NOT NULL,
+  id_page int default 0 NOT NULL,
+  cache_name VARCHAR(255) DEFAULT NULL,
+  cache_key VARCHAR(255) DEFAULT NULL,
+  date_creation TIMESTAMP NOT NULL,
+  PRIMARY KEY (id_invalidation)
+);
+
+CREATE INDEX index_cache_invalidation_date ON core_cache_invalidation ( date_creation );
+
+--
+-- Table structure for table core_daemon_lock
+--
+DROP TABLE IF EXISTS core_daemon_lock;
+CREATE TABLE core_daemon_lock (
+  daemon_id VARCHAR(100) NOT NULL,
+  node_id VARCHAR(255) NOT NULL,
+  date_expiry TIMESTAMP NOT NULL,
+  PRIMARY KEY (daemon_id)
+);
+
+--
+-- Request metrics admin dashboard
+--
+INSERT INTO core_admin_dashboard(dashboard_name, dashboard_column, dashboard_order) VALUES('metricsAdminDashboardComponent', 1, 7);
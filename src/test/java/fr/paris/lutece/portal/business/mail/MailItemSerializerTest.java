@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.business.mail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import fr.paris.lutece.portal.service.mail.MailItem;
+import fr.paris.lutece.test.LuteceTestCase;
+import fr.paris.lutece.util.mail.FileAttachment;
+import fr.paris.lutece.util.mail.UrlAttachment;
+
+/**
+ * MailItemSerializer Test Class
+ */
+public class MailItemSerializerTest extends LuteceTestCase
+{
+    public void testRoundTrip( ) throws IOException
+    {
+        MailItem item = getMailItem( );
+        MailItem read = MailItemSerializer.deserialize( MailItemSerializer.serialize( item ) );
+
+        assertMailItemEquals( item, read );
+    }
+
+    public void testNullValues( ) throws IOException
+    {
+        MailItem read = MailItemSerializer.deserialize( MailItemSerializer.serialize( new MailItem( ) ) );
+
+        assertNull( read.getRecipientsTo( ) );
+        assertNull( read.getSubject( ) );
+        assertNull( read.getUrlsAttachement( ) );
+        assertNull( read.getFilesAttachement( ) );
+    }
+
+    public void testLegacyJavaSerialization( ) throws IOException
+    {
+        MailItem item = getMailItem( );
+        byte [ ] legacy = javaSerialize( item );
+
+        assertMailItemEquals( item, MailItemSerializer.deserialize( legacy ) );
+        assertTrue( MailItemSerializer.serialize( item ).length < legacy.length );
+    }
+
+    public void testInvalidData( )
+    {
+        try
+        {
+            MailItemSerializer.deserialize( new byte [ ] {
+                    'L', 'M', MailItemSerializer.VERSION + 1
+            } );
+            fail( "Should have failed on an unknown version" );
+        }
+        catch( IOException e )
+        {
+            // expected
+        }
+
+        try
+        {
+            MailItemSerializer.deserialize( new byte [ ] {
+                    'L', 'M', MailItemSerializer.VERSION, 0, 0, 0, 100
+            } );
+            fail( "Should have failed on truncated data" );
+        }
+        catch( IOException e )
+        {
+            // expected
+        }
+    }
+
+    private MailItem getMailItem( ) throws IOException
+    {
+        MailItem item = new MailItem( );
+        item.setRecipientsTo( "to1@lutece.fr;to2@lutece.fr" );
+        item.setRecipientsCc( "cc@lutece.fr" );
+        item.setSenderName( "Sender éè" );
+        item.setSenderEmail( "sender@lutece.fr" );
+        item.setSubject( "Subject €" );
+        item.setMessage( "<p>Message</p>" );
+        item.setCalendarMessage( "BEGIN:VCALENDAR" );
+        item.setCreateEvent( true );
+        item.setFormat( MailItem.FORMAT_MULTIPART_HTML );
+        item.setUniqueRecipientTo( true );
+
+        List<UrlAttachment> listUrls = new ArrayList<>( );
+        listUrls.add( new UrlAttachment( "images/logo.png", new URL( "http://localhost/lutece/images/logo.png" ) ) );
+        item.setUrlsAttachement( listUrls );
+
+        List<FileAttachment> listFiles = new ArrayList<>( );
+        listFiles.add( new FileAttachment( "file.txt", new byte [ ] {
+                1, 2, 3
+        }, "text/plain" ) );
+        item.setFilesAttachement( listFiles );
+
+        return item;
+    }
+
+    private void assertMailItemEquals( MailItem expected, MailItem actual )
+    {
+        assertEquals( expected.getRecipientsTo( ), actual.getRecipientsTo( ) );
+        assertEquals( expected.getRecipientsCc( ), actual.getRecipientsCc( ) );
+        assertEquals( expected.getRecipientsBcc( ), actual.getRecipientsBcc( ) );
+        assertEquals( expected.getSenderName( ), actual.getSenderName( ) );
+        assertEquals( expected.getSenderEmail( ), actual.getSenderEmail( ) );
+        assertEquals( expected.getSubject( ), actual.getSubject( ) );
+        assertEquals( expected.getMessage( ), actual.getMessage( ) );
+        assertEquals( expected.getCalendarMessage( ), actual.getCalendarMessage( ) );
+        assertEquals( expected.getCreateEvent( ), actual.getCreateEvent( ) );
+        assertEquals( expected.getFormat( ), actual.getFormat( ) );
+        assertEquals( expected.isUniqueRecipientTo( ), actual.isUniqueRecipientTo( ) );
+        assertEquals( expected.getUrlsAttachement( ).size( ), actual.getUrlsAttachement( ).size( ) );
+        assertEquals( expected.getUrlsAttachement( ).get( 0 ).getContentLocation( ), actual.getUrlsAttachement( ).get( 0 ).getContentLocation( ) );
+        assertEquals( expected.getUrlsAttachement( ).get( 0 ).getUrlData( ).toExternalForm( ),
+                actual.getUrlsAttachement( ).get( 0 ).getUrlData( ).toExternalForm( ) );
+        assertEquals( expected.getFilesAttachement( ).size( ), actual.getFilesAttachement( ).size( ) );
+        assertEquals( expected.getFilesAttachement( ).get( 0 ).getFileName( ), actual.getFilesAttachement( ).get( 0 ).getFileName( ) );
+        assertEquals( expected.getFilesAttachement( ).get( 0 ).getType( ), actual.getFilesAttachement( ).get( 0 ).getType( ) );
+        assertTrue( Arrays.equals( expected.getFilesAttachement( ).get( 0 ).getData( ), actual.getFilesAttachement( ).get( 0 ).getData( ) ) );
+    }
+
+    private byte [ ] javaSerialize( MailItem item ) throws IOException
+    {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream( );
+
+        try ( ObjectOutputStream out = new ObjectOutputStream( baos ) )
+        {
+            out.writeObject( item );
+        }
+
+        return baos.toByteArray( );
+    }
+}
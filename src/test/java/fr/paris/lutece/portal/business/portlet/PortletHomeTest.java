@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.business.portlet;
+
+import fr.paris.lutece.portal.business.page.Page;
+import fr.paris.lutece.portal.business.page.PageHome;
+import fr.paris.lutece.portal.business.style.PageTemplateHome;
+import fr.paris.lutece.portal.service.page.IPageService;
+import fr.paris.lutece.portal.service.portal.PortalService;
+import fr.paris.lutece.portal.service.spring.SpringContextService;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.test.LuteceTestCase;
+import fr.paris.lutece.util.metrics.LatencyHistogram;
+import fr.paris.lutece.util.metrics.MetricsRegistry;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PortletHome Test Class
+ */
+public class PortletHomeTest extends LuteceTestCase
+{
+    private static final String ALIAS_PORTLET_TYPE_ID = "ALIAS_PORTLET";
+    private static final int PORTLETS_COUNT = 5;
+    private static final int ITERATIONS = 100;
+
+    // page, portlet ids, portlets common data, alias portlets data
+    private static final int MAX_QUERIES_PER_PAGE = 4;
+
+    /**
+     * Test of findByPrimaryKeys and of the number of queries needed to load a page with its portlets
+     */
+    public void testFindByPrimaryKeys( )
+    {
+        IPageService pageService = (IPageService) SpringContextService.getBean( "pageService" );
+        PortletHome home = AliasPortletHome.getInstance( );
+        Page page = new Page( );
+        List<Portlet> listCreated = new ArrayList<>( );
+        boolean bMetricsEnabled = MetricsRegistry.isEnabled( );
+
+        try
+        {
+            page.setParentPageId( PortalService.getRootPageId( ) );
+            page.setPageTemplateId( PageTemplateHome.getPageTemplatesList( ).get( 0 ).getId( ) );
+            page.setName( "page" + System.nanoTime( ) );
+            page.setDateUpdate( new Timestamp( System.currentTimeMillis( ) ) );
+            pageService.createPage( page );
+
+            for ( int i = 0; i < PORTLETS_COUNT; i++ )
+            {
+                AliasPortlet portlet = new AliasPortlet( );
+                portlet.setPortletTypeId( ALIAS_PORTLET_TYPE_ID );
+                portlet.setPageId( page.getId( ) );
+                portlet.setName( "portlet" + i );
+                portlet.setOrder( i );
+                portlet.setAliasId( i + 1 );
+                listCreated.add( home.create( portlet ) );
+            }
+
+            List<Integer> listIds = new ArrayList<>( );
+
+            for ( Portlet portlet : listCreated )
+            {
+                listIds.add( portlet.getId( ) );
+            }
+
+            List<Portlet> listLoaded = PortletHome.findByPrimaryKeys( listIds );
+            assertEquals( PORTLETS_COUNT, listLoaded.size( ) );
+
+            for ( int i = 0; i < PORTLETS_COUNT; i++ )
+            {
+                Portlet expected = PortletHome.findByPrimaryKey( listIds.get( i ) );
+                Portlet loaded = listLoaded.get( i );
+                assertEquals( expected.getId( ), loaded.getId( ) );
+                assertEquals( expected.getName( ), loaded.getName( ) );
+                assertEquals( expected.getHomeClassName( ), loaded.getHomeClassName( ) );
+                assertEquals( ( (AliasPortlet) expected ).getAliasId( ), ( (AliasPortlet) loaded ).getAliasId( ) );
+            }
+
+            // The queries are counted by the DAOUtil histograms, which are only recorded when the metrics are enabled
+            MetricsRegistry.setEnabled( true );
+
+            long lQueries = getExecutedQueriesCount( );
+            long lStart = System.nanoTime( );
+
+            for ( int i = 0; i < ITERATIONS; i++ )
+            {
+                assertEquals( PORTLETS_COUNT, PageHome.findByPrimaryKey( page.getId( ) ).getPortlets( ).size( ) );
+            }
+
+            double dQueriesPerPage = (double) ( getExecutedQueriesCount( ) - lQueries ) / ITERATIONS;
+            AppLogService.info( "PageHome.findByPrimaryKey with {} portlets : {} queries, {} us per page", PORTLETS_COUNT, dQueriesPerPage,
+                    ( System.nanoTime( ) - lStart ) / 1000 / ITERATIONS );
+            assertTrue( "Too many queries per page : " + dQueriesPerPage, dQueriesPerPage <= MAX_QUERIES_PER_PAGE );
+        }
+        finally
+        {
+            MetricsRegistry.setEnabled( bMetricsEnabled );
+
+            for ( Portlet portlet : listCreated )
+            {
+                home.remove( portlet );
+            }
+
+            if ( page.getId( ) != 0 )
+            {
+                PageHome.remove( page.getId( ) );
+            }
+        }
+    }
+
+    /**
+     * Returns the number of queries executed by the DAOUtil instances while the metrics were enabled
+     *
+     * @return The number of queries
+     */
+    private long getExecutedQueriesCount( )
+    {
+        long lCount = 0;
+
+        for ( LatencyHistogram histogram : MetricsRegistry.getHistograms( ) )
+        {
+            if ( histogram.getName( ).startsWith( "daoUtil.executeQuery." ) )
+            {
+                lCount += histogram.getCount( );
+            }
+        }
+
+        return lCount;
+    }
+}
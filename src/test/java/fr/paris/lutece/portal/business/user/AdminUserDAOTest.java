@@ -34,6 +34,8 @@
 package fr.paris.lutece.portal.business.user;
 
 import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 
@@ -87,6 +89,43 @@ public class AdminUserDAOTest extends LuteceTestCase
         }
     }
 
+    public void testSelectUsersByIdList( )
+    {
+        AdminUserDAO adminUserDAO = getAdminUserDAO( );
+        String randomUsername = "user" + new SecureRandom( ).nextLong( );
+        IPasswordFactory passwordFactory = SpringContextService.getBean( IPasswordFactory.BEAN_NAME );
+
+        LuteceDefaultAdminUser user = new LuteceDefaultAdminUser( randomUsername, new LuteceDefaultAdminAuthentication( ) );
+        user.setPassword( passwordFactory.getPasswordFromCleartext( randomUsername ) );
+        user.setFirstName( randomUsername );
+        user.setLastName( randomUsername );
+        user.setEmail( randomUsername + "@lutece.fr" );
+        adminUserDAO.insert( user );
+
+        try
+        {
+            List<AdminUser> listUsers = adminUserDAO.selectUsersByIdList( Arrays.asList( 1, user.getUserId( ), -1 ) );
+            assertEquals( 2, listUsers.size( ) );
+            for ( AdminUser storedUser : listUsers )
+            {
+                if ( storedUser.getUserId( ) == user.getUserId( ) )
+                {
+                    assertEquals( randomUsername, storedUser.getAccessCode( ) );
+                    assertEquals( randomUsername + "@lutece.fr", storedUser.getEmail( ) );
+                }
+                else
+                {
+                    assertEquals( "admin", storedUser.getAccessCode( ) );
+                }
+            }
+            assertTrue( adminUserDAO.selectUsersByIdList( Collections.emptyList( ) ).isEmpty( ) );
+        }
+        finally
+        {
+            adminUserDAO.delete( user.getUserId( ) );
+        }
+    }
+
     public void testLoadDefaultAdminUser( )
     {
         AdminUserDAO adminUserDAO = getAdminUserDAO( );
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.cache;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * CacheTagIndex Test Class
+ */
+public class CacheTagIndexTest extends LuteceTestCase
+{
+    /**
+     * Test of removeTag
+     */
+    public void testRemoveTag( )
+    {
+        CacheTagIndex index = new CacheTagIndex( );
+        index.tag( "key1", Arrays.asList( "page:1", "portlet:10" ) );
+        index.tag( "key12", Collections.singletonList( "page:12" ) );
+
+        Set<String> setKeys = index.removeTag( "page:1" );
+        assertEquals( 1, setKeys.size( ) );
+        assertTrue( setKeys.contains( "key1" ) );
+
+        // key1 is no longer referenced by its other tags
+        assertTrue( index.getKeys( "portlet:10" ).isEmpty( ) );
+        assertEquals( 1, index.getKeys( "page:12" ).size( ) );
+        assertEquals( 1, index.getKeysCount( ) );
+        assertTrue( index.removeTag( "page:1" ).isEmpty( ) );
+    }
+
+    /**
+     * Test of removeKey
+     */
+    public void testRemoveKey( )
+    {
+        CacheTagIndex index = new CacheTagIndex( );
+        index.tag( "key1", Collections.singletonList( "page:1" ) );
+        index.tag( "key2", Collections.singletonList( "page:1" ) );
+
+        index.removeKey( "key1" );
+        assertEquals( 1, index.getKeys( "page:1" ).size( ) );
+
+        index.removeKey( "key2" );
+        assertEquals( 0, index.getTagsCount( ) );
+        assertEquals( 0, index.getKeysCount( ) );
+    }
+
+    /**
+     * Test of the page id parsing of the headers page caching filter
+     */
+    public void testFilterPageId( )
+    {
+        assertEquals( "1", HeadersPageCachingFilter.getPageId( "GET/lutece/jsp/site/Portal.jsp?page_id=1" ) );
+        assertEquals( "12", HeadersPageCachingFilter.getPageId( "GET/lutece/jsp/site/Portal.jsp?a=b&page_id=12&c=d" ) );
+        assertNull( HeadersPageCachingFilter.getPageId( "GET/lutece/jsp/site/Portal.jsp?mypage_id=1" ) );
+        assertNull( HeadersPageCachingFilter.getPageId( "GET/lutece/jsp/site/Portal.jsp?page_id=1a" ) );
+    }
+}
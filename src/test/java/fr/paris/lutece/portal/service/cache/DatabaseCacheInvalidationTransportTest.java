@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import fr.paris.lutece.portal.business.cache.CacheInvalidation;
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * DatabaseCacheInvalidationTransport Test Class
+ */
+public class DatabaseCacheInvalidationTransportTest extends LuteceTestCase
+{
+    /**
+     * Test of the invalidations exchanged between two nodes
+     */
+    public void testPublishAndPoll( )
+    {
+        List<CacheInvalidation> listReceivedA = new ArrayList<>( );
+        List<CacheInvalidation> listReceivedB = new ArrayList<>( );
+        DatabaseCacheInvalidationTransport transportA = new DatabaseCacheInvalidationTransport( );
+        DatabaseCacheInvalidationTransport transportB = new DatabaseCacheInvalidationTransport( );
+        transportA.start( "junit-A", listReceivedA::add );
+        transportB.start( "junit-B", listReceivedB::add );
+
+        // The polls are run by the test
+        transportA.stop( );
+        transportB.stop( );
+
+        CacheInvalidation invalidation = new CacheInvalidation( );
+        invalidation.setNodeId( "junit-A" );
+        invalidation.setType( CacheInvalidation.TYPE_PAGE );
+        invalidation.setEventType( 2 );
+        invalidation.setIdResource( 12 );
+        transportA.publish( invalidation );
+
+        transportB.poll( );
+        assertEquals( 1, listReceivedB.size( ) );
+        assertEquals( CacheInvalidation.TYPE_PAGE, listReceivedB.get( 0 ).getType( ) );
+        assertEquals( 12, listReceivedB.get( 0 ).getIdResource( ) );
+
+        // Already received invalidations and the invalidations of the node itself are ignored
+        transportB.poll( );
+        transportA.poll( );
+        assertEquals( 1, listReceivedB.size( ) );
+        assertTrue( listReceivedA.isEmpty( ) );
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import fr.paris.lutece.test.LuteceTestCase;
+import net.sf.ehcache.config.CacheConfiguration;
+
+/**
+ * LocalCache Test Class
+ */
+public class LocalCacheTest extends LuteceTestCase
+{
+    /**
+     * Creates a cache configuration
+     *
+     * @param nMaxElements
+     *            The max elements
+     * @param lTimeToLive
+     *            The time to live in seconds
+     * @return The configuration
+     */
+    private CacheConfiguration getConfiguration( int nMaxElements, long lTimeToLive )
+    {
+        CacheConfiguration config = new CacheConfiguration( );
+        config.setName( "LocalCacheTest" );
+        config.setMaxElementsInMemory( nMaxElements );
+        config.setTimeToLiveSeconds( lTimeToLive );
+        config.setTimeToIdleSeconds( 0 );
+
+        return config;
+    }
+
+    /**
+     * Test of get, put and remove
+     */
+    public void testPutGetRemove( )
+    {
+        LocalCache cache = new LocalCache( getConfiguration( 10, 0 ), 0 );
+        List<String> listRemoved = new ArrayList<>( );
+        cache.addListener( new ICacheListener( )
+        {
+            @Override
+            public void onRemoved( String strKey, Object object )
+            {
+                listRemoved.add( strKey + "=" + object );
+            }
+        } );
+
+        cache.put( "key", "value" );
+        assertEquals( "value", cache.get( "key" ) );
+        assertNull( cache.get( "other" ) );
+        assertTrue( cache.remove( "key" ) );
+        assertFalse( cache.remove( "key" ) );
+        assertNull( cache.get( "key" ) );
+        assertEquals( "[key=value]", listRemoved.toString( ) );
+        assertEquals( 1, cache.getHitCount( ) );
+        assertEquals( 2, cache.getMissCount( ) );
+        assertEquals( 0, cache.getMemorySize( ) );
+    }
+
+    /**
+     * Test of the size based eviction : the entries read since the last eviction are kept
+     */
+    public void testSizeEviction( )
+    {
+        LocalCache cache = new LocalCache( getConfiguration( 3, 0 ), 0 );
+        cache.put( "1", "a" );
+        cache.put( "2", "b" );
+        cache.put( "3", "c" );
+        cache.get( "1" );
+        cache.put( "4", "d" );
+
+        assertEquals( 3, cache.getSize( ) );
+        assertEquals( 1, cache.getEvictionCount( ) );
+        assertEquals( "a", cache.get( "1" ) );
+        assertNull( cache.get( "2" ) );
+    }
+
+    /**
+     * Test of the weight based eviction
+     */
+    public void testWeightEviction( )
+    {
+        long lMaxWeight = 3L * LocalCache.weigh( "0123456789" );
+        LocalCache cache = new LocalCache( getConfiguration( 0, 0 ), lMaxWeight );
+
+        for ( int i = 0; i < 10; i++ )
+        {
+            cache.put( "key" + i, "0123456789" );
+            assertTrue( cache.getMemorySize( ) <= lMaxWeight );
+        }
+
+        assertEquals( 3, cache.getSize( ) );
+    }
+
+    /**
+     * Test of removeAll and of the entries replaced in the cache
+     */
+    public void testRemoveAll( )
+    {
+        LocalCache cache = new LocalCache( getConfiguration( 100, 0 ), 0 );
+
+        for ( int i = 0; i < 1000; i++ )
+        {
+            cache.put( "key" + ( i % 10 ), "value" + i );
+        }
+
+        assertEquals( 10, cache.getSize( ) );
+        assertEquals( 0, cache.getEvictionCount( ) );
+        cache.removeAll( );
+        assertEquals( 0, cache.getSize( ) );
+        assertEquals( 0, cache.getMemorySize( ) );
+        assertTrue( cache.getKeys( ).isEmpty( ) );
+    }
+
+    /**
+     * Test that the expired entries are removed and notified without being read
+     *
+     * @throws InterruptedException
+     */
+    public void testExpiration( ) throws InterruptedException
+    {
+        LocalCache cache = new LocalCache( getConfiguration( 100, 1 ), 0 );
+        List<String> listExpired = new ArrayList<>( );
+        cache.addListener( new ICacheListener( )
+        {
+            @Override
+            public void onExpired( String strKey, Object object )
+            {
+                listExpired.add( strKey );
+            }
+        } );
+
+        cache.put( "1", "a" );
+        cache.put( "2", "b" );
+        cache.put( "3", "c" );
+        assertEquals( 3, cache.getSize( ) );
+
+        TimeUnit.MILLISECONDS.sleep( 1100 );
+
+        // Each put checks the oldest entries of the clock
+        cache.put( "4", "d" );
+        assertEquals( 2, cache.getExpirationCount( ) );
+        assertEquals( 2 * LocalCache.weigh( "a" ), cache.getMemorySize( ) );
+
+        // The size and the keys exclude the remaining expired entry
+        assertEquals( 1, cache.getSize( ) );
+        assertEquals( "[4]", cache.getKeys( ).toString( ) );
+        assertEquals( 3, listExpired.size( ) );
+        assertEquals( LocalCache.weigh( "d" ), cache.getMemorySize( ) );
+    }
+
+    /**
+     * Test that the expired entries are removed before a live entry is evicted
+     *
+     * @throws InterruptedException
+     */
+    public void testExpirationBeforeEviction( ) throws InterruptedException
+    {
+        LocalCache cache = new LocalCache( getConfiguration( 3, 1 ), 0 );
+        cache.put( "1", "a" );
+        TimeUnit.MILLISECONDS.sleep( 1100 );
+        cache.put( "2", "b" );
+        cache.put( "3", "c" );
+        cache.get( "2" );
+        cache.get( "3" );
+        cache.put( "4", "d" );
+
+        assertEquals( 0, cache.getEvictionCount( ) );
+        assertEquals( 1, cache.getExpirationCount( ) );
+        assertEquals( 3, cache.getSize( ) );
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.cache;
+
+import fr.paris.lutece.test.LuteceTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SingleFlightLoader Test Class
+ */
+public class SingleFlightLoaderTest extends LuteceTestCase
+{
+    private static final String KEY = "key";
+    private static final String VALUE = "value";
+    private static final int THREADS = 8;
+
+    /**
+     * Concurrent requests for a missing key are served by a single load
+     * 
+     * @throws Exception
+     *             if an error occurs
+     */
+    public void testCoalescedLoads( ) throws Exception
+    {
+        SingleFlightLoader loader = new SingleFlightLoader( 10000L, 0L, 0 );
+        Map<String, String> cache = new ConcurrentHashMap<>( );
+        AtomicInteger nLoads = new AtomicInteger( );
+        CountDownLatch latchStart = new CountDownLatch( 1 );
+        ExecutorService executor = Executors.newFixedThreadPool( THREADS );
+
+        try
+        {
+            List<Future<String>> listFutures = new ArrayList<>( );
+
+            for ( int i = 0; i < THREADS; i++ )
+            {
+                listFutures.add( executor.submit( ( ) -> {
+                    latchStart.await( );
+
+                    return loader.get( KEY, ( ) -> cache.get( KEY ), ( ) -> {
+                        nLoads.incrementAndGet( );
+                        Thread.sleep( 200 );
+                        cache.put( KEY, VALUE );
+
+                        return VALUE;
+                    } );
+                } ) );
+            }
+
+            latchStart.countDown( );
+
+            for ( Future<String> future : listFutures )
+            {
+                assertEquals( VALUE, future.get( 10, TimeUnit.SECONDS ) );
+            }
+
+            assertEquals( 1, nLoads.get( ) );
+            assertEquals( 1, loader.getLoadsCount( ) );
+            assertTrue( loader.getCoalescedCount( ) <= THREADS - 1 );
+        }
+        finally
+        {
+            executor.shutdownNow( );
+        }
+    }
+
+    /**
+     * An entry that is not put in the cache is built by each request
+     * 
+     * @throws Exception
+     *             if an error occurs
+     */
+    public void testNotCacheableEntry( ) throws Exception
+    {
+        SingleFlightLoader loader = new SingleFlightLoader( 10000L, 0L, 0 );
+        AtomicInteger nLoads = new AtomicInteger( );
+
+        assertEquals( VALUE, loader.get( KEY, ( ) -> null, ( ) -> {
+            nLoads.incrementAndGet( );
+
+            return VALUE;
+        } ) );
+        assertEquals( VALUE, loader.get( KEY, ( ) -> null, ( ) -> {
+            nLoads.incrementAndGet( );
+
+            return VALUE;
+        } ) );
+        assertEquals( 2, nLoads.get( ) );
+        assertEquals( 0, loader.getCoalescedCount( ) );
+    }
+
+    /**
+     * The previous value is served while the entry is being built again
+     * 
+     * @throws Exception
+     *             if an error occurs
+     */
+    public void testStaleValue( ) throws Exception
+    {
+        SingleFlightLoader loader = new SingleFlightLoader( 10000L, 60L, 10 );
+        loader.putStale( KEY, "stale" );
+
+        CountDownLatch latchLoading = new CountDownLatch( 1 );
+        CountDownLatch latchRelease = new CountDownLatch( 1 );
+        ExecutorService executor = Executors.newSingleThreadExecutor( );
+
+        try
+        {
+            Future<String> leader = executor.submit( ( ) -> loader.get( KEY, ( ) -> null, ( ) -> {
+                latchLoading.countDown( );
+                latchRelease.await( );
+
+                return VALUE;
+            } ) );
+
+            latchLoading.await( );
+            assertEquals( "stale", loader.get( KEY, ( ) -> null, ( ) -> VALUE ) );
+            assertEquals( 1, loader.getStaleServedCount( ) );
+
+            latchRelease.countDown( );
+            assertEquals( VALUE, leader.get( 10, TimeUnit.SECONDS ) );
+
+            // The stale value is dropped once the entry has been built
+            assertEquals( VALUE, loader.get( KEY, ( ) -> null, ( ) -> VALUE ) );
+            assertEquals( 1, loader.getStaleServedCount( ) );
+        }
+        finally
+        {
+            executor.shutdownNow( );
+        }
+    }
+
+    /**
+     * Test that the stale values are bounded without disabling the new ones
+     */
+    public void testStaleValuesBound( )
+    {
+        SingleFlightLoader loader = new SingleFlightLoader( 10000L, 60L, 3 );
+
+        for ( int i = 0; i < 10; i++ )
+        {
+            loader.putStale( KEY + i, "stale" + i );
+        }
+
+        assertEquals( 3, loader.getStaleCount( ) );
+
+        // a key kept again does not evict another one
+        loader.putStale( KEY + 9, "stale" );
+        assertEquals( 3, loader.getStaleCount( ) );
+
+        loader.clearStale( );
+        assertEquals( 0, loader.getStaleCount( ) );
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.daemon;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import fr.paris.lutece.test.LuteceTestCase;
+
+public class DaemonScheduleTest extends LuteceTestCase
+{
+    private static final long INTERVAL = 10000L;
+
+    public void testFixedRate( )
+    {
+        DaemonSchedule schedule = new DaemonSchedule( null, false, 0L, DaemonSchedule.MissedRunPolicy.COALESCE, false );
+        assertFalse( schedule.isFixedDelay( ) );
+        assertEquals( 110000L, schedule.nextRunTime( INTERVAL, 100000L, 100500L ) );
+        // late scheduler : a single catch up run right now
+        assertEquals( 135000L, schedule.nextRunTime( INTERVAL, 100000L, 135000L ) );
+        assertEquals( INTERVAL, schedule.getPeriod( INTERVAL, 0L ) );
+    }
+
+    public void testFixedRateSkip( )
+    {
+        DaemonSchedule schedule = new DaemonSchedule( null, false, 0L, DaemonSchedule.MissedRunPolicy.SKIP, false );
+        // late scheduler : the missed ticks are dropped
+        assertEquals( 140000L, schedule.nextRunTime( INTERVAL, 100000L, 135000L ) );
+    }
+
+    public void testFixedDelay( )
+    {
+        DaemonSchedule schedule = new DaemonSchedule( null, true, 0L, DaemonSchedule.MissedRunPolicy.COALESCE, false );
+        assertTrue( schedule.isFixedDelay( ) );
+        assertEquals( 145000L, schedule.nextRunTime( INTERVAL, 100000L, 135000L ) );
+    }
+
+    public void testCron( )
+    {
+        DaemonSchedule schedule = new DaemonSchedule( "0 30 2 * * *", false, 0L, DaemonSchedule.MissedRunPolicy.COALESCE, true );
+        assertTrue( schedule.isCron( ) );
+        assertFalse( schedule.isFixedDelay( ) );
+        assertTrue( schedule.isClustered( ) );
+
+        ZoneId zone = ZoneId.systemDefault( );
+        long lNow = LocalDateTime.of( 2024, 3, 12, 10, 0 ).atZone( zone ).toInstant( ).toEpochMilli( );
+        long lExpected = LocalDateTime.of( 2024, 3, 13, 2, 30 ).atZone( zone ).toInstant( ).toEpochMilli( );
+        assertEquals( lExpected, schedule.nextRunTime( INTERVAL, 0L, lNow ) );
+        assertEquals( 24L * 3600L * 1000L, schedule.getPeriod( INTERVAL, lNow ) );
+    }
+
+    public void testJitter( )
+    {
+        DaemonSchedule schedule = new DaemonSchedule( null, false, 500L, DaemonSchedule.MissedRunPolicy.COALESCE, false );
+
+        for ( int i = 0; i < 100; i++ )
+        {
+            long lJitter = schedule.nextJitter( );
+            assertTrue( lJitter >= 0L && lJitter <= 500L );
+        }
+        assertEquals( 0L, new DaemonSchedule( null, false, 0L, DaemonSchedule.MissedRunPolicy.COALESCE, false ).nextJitter( ) );
+    }
+}
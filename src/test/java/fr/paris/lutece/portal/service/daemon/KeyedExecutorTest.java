@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.daemon;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * KeyedExecutor Test Class
+ */
+public class KeyedExecutorTest extends LuteceTestCase
+{
+    private static final int TASKS = 50;
+
+    public void testSameKeyRunsInOrder( ) throws InterruptedException
+    {
+        KeyedExecutor executor = new KeyedExecutor( Executors.newCachedThreadPool( ), 4, 0, "junit.keyedExecutor" );
+        List<Integer> listOrder = Collections.synchronizedList( new ArrayList<>( ) );
+        AtomicInteger nConcurrent = new AtomicInteger( );
+        AtomicInteger nMaxConcurrent = new AtomicInteger( );
+        CountDownLatch latch = new CountDownLatch( TASKS );
+
+        for ( int i = 0; i < TASKS; i++ )
+        {
+            int nTask = i;
+            executor.submit( ( ) -> {
+                nMaxConcurrent.accumulateAndGet( nConcurrent.incrementAndGet( ), Math::max );
+                listOrder.add( nTask );
+                sleep( 1L );
+                nConcurrent.decrementAndGet( );
+                latch.countDown( );
+            }, "key", "plugin" );
+        }
+
+        assertTrue( latch.await( 30, TimeUnit.SECONDS ) );
+        assertEquals( 1, nMaxConcurrent.get( ) );
+
+        for ( int i = 0; i < TASKS; i++ )
+        {
+            assertEquals( Integer.valueOf( i ), listOrder.get( i ) );
+        }
+
+        executor.shutdown( 10, TimeUnit.SECONDS );
+        assertEquals( TASKS, executor.getCompletedCount( ) );
+    }
+
+    public void testKeylessTasksAreLimited( ) throws InterruptedException
+    {
+        KeyedExecutor executor = new KeyedExecutor( Executors.newCachedThreadPool( ), 3, 0, "junit.keyedExecutor" );
+        AtomicInteger nConcurrent = new AtomicInteger( );
+        AtomicInteger nMaxConcurrent = new AtomicInteger( );
+        CountDownLatch latch = new CountDownLatch( TASKS );
+
+        for ( int i = 0; i < TASKS; i++ )
+        {
+            executor.submit( ( ) -> {
+                nMaxConcurrent.accumulateAndGet( nConcurrent.incrementAndGet( ), Math::max );
+                sleep( 2L );
+                nConcurrent.decrementAndGet( );
+                latch.countDown( );
+            }, null, null );
+        }
+
+        assertTrue( latch.await( 30, TimeUnit.SECONDS ) );
+        // keyless tasks run concurrently up to the global limit
+        assertTrue( nMaxConcurrent.get( ) > 1 );
+        assertTrue( nMaxConcurrent.get( ) <= 3 );
+        executor.shutdown( 10, TimeUnit.SECONDS );
+    }
+
+    public void testGroupLimit( ) throws InterruptedException
+    {
+        KeyedExecutor executor = new KeyedExecutor( Executors.newCachedThreadPool( ), 4, 1, "junit.keyedExecutor" );
+        AtomicInteger nConcurrentA = new AtomicInteger( );
+        AtomicInteger nMaxConcurrentA = new AtomicInteger( );
+        CountDownLatch latchB = new CountDownLatch( 1 );
+        CountDownLatch latch = new CountDownLatch( TASKS + 1 );
+
+        for ( int i = 0; i < TASKS; i++ )
+        {
+            executor.submit( ( ) -> {
+                nMaxConcurrentA.accumulateAndGet( nConcurrentA.incrementAndGet( ), Math::max );
+                sleep( 1L );
+                nConcurrentA.decrementAndGet( );
+                latch.countDown( );
+            }, null, "pluginA" );
+        }
+
+        // a task of another group is not blocked by the tasks of the first group
+        executor.submit( ( ) -> {
+            latchB.countDown( );
+            latch.countDown( );
+        }, null, "pluginB" );
+
+        assertTrue( latchB.await( 5, TimeUnit.SECONDS ) );
+        assertTrue( executor.getQueuedCount( ) > 0 );
+        assertTrue( latch.await( 30, TimeUnit.SECONDS ) );
+        assertEquals( 1, nMaxConcurrentA.get( ) );
+        executor.shutdown( 10, TimeUnit.SECONDS );
+        assertEquals( 0, executor.getRunningCount( ) );
+    }
+
+    public void testFailingTaskReleasesKey( ) throws InterruptedException
+    {
+        KeyedExecutor executor = new KeyedExecutor( Executors.newCachedThreadPool( ), 1, 0, "junit.keyedExecutor" );
+        CountDownLatch latch = new CountDownLatch( 1 );
+
+        executor.submit( ( ) -> {
+            throw new IllegalStateException( "junit" );
+        }, "key", "plugin" );
+        executor.submit( latch::countDown, "key", "plugin" );
+
+        assertTrue( latch.await( 5, TimeUnit.SECONDS ) );
+        executor.shutdown( 10, TimeUnit.SECONDS );
+    }
+
+    private static void sleep( long lMillis )
+    {
+        try
+        {
+            Thread.sleep( lMillis );
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.daemon;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import fr.paris.lutece.test.LuteceTestCase;
+
+public class ScheduledDaemonSchedulerTest extends LuteceTestCase
+{
+    private ScheduledDaemonScheduler getScheduler( ExecutorService executor, DaemonSchedule.MissedRunPolicy policy )
+    {
+        return new ScheduledDaemonScheduler( executor, 1, entry -> new DaemonSchedule( null, false, 0L, policy, false ), "junit", 0L );
+    }
+
+    private DaemonEntry getDaemonEntry( String name ) throws ClassNotFoundException, InstantiationException, IllegalAccessException
+    {
+        DaemonEntry entry = new DaemonEntry( );
+        entry.setId( name );
+        entry.setIsRunning( true );
+        entry.setPluginName( "core" );
+        entry.setClassName( TestDaemon.class.getName( ) );
+        entry.loadDaemon( );
+        entry.setInterval( 1 );
+        TestDaemon testDaemon = (TestDaemon) entry.getDaemon( );
+        testDaemon.setPluginName( "core" );
+        return entry;
+    }
+
+    public void testEnqueue( ) throws Exception
+    {
+        ScheduledDaemonScheduler scheduler = getScheduler( Executors.newSingleThreadExecutor( ), DaemonSchedule.MissedRunPolicy.COALESCE );
+        try
+        {
+            DaemonEntry entry = getDaemonEntry( "JUNIT-scheduled-enqueue" );
+            TestDaemon testDaemon = (TestDaemon) entry.getDaemon( );
+            testDaemon.setRunThrows( true );
+            assertTrue( scheduler.enqueue( entry, 0L, TimeUnit.MILLISECONDS ) );
+            testDaemon.go( );
+            testDaemon.waitForCompletion( );
+            assertTrue( testDaemon.hasRun( ) );
+
+            // the daemon can run again after having thrown
+            Instant start = Instant.now( );
+            assertTrue( scheduler.enqueue( entry, 300L, TimeUnit.MILLISECONDS ) );
+            testDaemon.go( );
+            assertTrue( 300L <= Duration.between( start, Instant.now( ) ).toMillis( ) );
+            testDaemon.waitForCompletion( );
+        }
+        finally
+        {
+            scheduler.shutdown( );
+        }
+    }
+
+    public void testEnqueueCoalesced( ) throws Exception
+    {
+        ScheduledDaemonScheduler scheduler = getScheduler( Executors.newCachedThreadPool( ), DaemonSchedule.MissedRunPolicy.COALESCE );
+        try
+        {
+            DaemonEntry entry = getDaemonEntry( "JUNIT-scheduled-coalesced" );
+            TestDaemon testDaemon = (TestDaemon) entry.getDaemon( );
+            assertTrue( scheduler.enqueue( entry, 0L, TimeUnit.MILLISECONDS ) );
+            testDaemon.go( );
+            // requests received while running give a single run after the current one
+            assertTrue( scheduler.enqueue( entry, 0L, TimeUnit.MILLISECONDS ) );
+            assertTrue( scheduler.enqueue( entry, 0L, TimeUnit.MILLISECONDS ) );
+            testDaemon.waitForCompletion( );
+            testDaemon.go( );
+            testDaemon.waitForCompletion( );
+            try
+            {
+                testDaemon.go( 500L, TimeUnit.MILLISECONDS );
+                fail( "The requests should have been coalesced" );
+            }
+            catch( TimeoutException e )
+            {
+                // ok
+            }
+        }
+        finally
+        {
+            scheduler.shutdown( );
+        }
+    }
+
+    public void testScheduleOverrunSkip( ) throws Exception
+    {
+        ScheduledDaemonScheduler scheduler = getScheduler( Executors.newCachedThreadPool( ), DaemonSchedule.MissedRunPolicy.SKIP );
+        try
+        {
+            DaemonEntry entry = getDaemonEntry( "JUNIT-scheduled-skip" );
+            TestDaemon testDaemon = (TestDaemon) entry.getDaemon( );
+            scheduler.schedule( entry, 0L, TimeUnit.MILLISECONDS );
+            testDaemon.go( );
+            // the daemon keeps running for more than its interval
+            Thread.sleep( 1500L );
+            testDaemon.waitForCompletion( );
+            assertTrue( scheduler.getOverrunCount( entry.getId( ) ) >= 1L );
+            // the next run follows the schedule
+            testDaemon.go( );
+            testDaemon.waitForCompletion( );
+        }
+        finally
+        {
+            scheduler.shutdown( );
+        }
+    }
+
+    public void testUnschedule( ) throws ClassNotFoundException, InstantiationException, IllegalAccessException, InterruptedException,
+            BrokenBarrierException, TimeoutException
+    {
+        ScheduledDaemonScheduler scheduler = getScheduler( Executors.newSingleThreadExecutor( ), DaemonSchedule.MissedRunPolicy.COALESCE );
+        try
+        {
+            DaemonEntry entry = getDaemonEntry( "JUNIT-scheduled-unschedule" );
+            TestDaemon testDaemon = (TestDaemon) entry.getDaemon( );
+            scheduler.schedule( entry, 0L, TimeUnit.MILLISECONDS );
+            testDaemon.go( );
+            scheduler.unSchedule( entry );
+            assertEquals( 0, testDaemon.getStopCallNumber( ) );
+            testDaemon.waitForCompletion( );
+            Thread.sleep( 100L );
+            assertEquals( 1, testDaemon.getStopCallNumber( ) );
+        }
+        finally
+        {
+            scheduler.shutdown( );
+        }
+    }
+
+    public void testEnqueueAfterShutdown( ) throws ClassNotFoundException, InstantiationException, IllegalAccessException
+    {
+        ScheduledDaemonScheduler scheduler = getScheduler( Executors.newSingleThreadExecutor( ), DaemonSchedule.MissedRunPolicy.COALESCE );
+        scheduler.shutdown( );
+        try
+        {
+            scheduler.enqueue( getDaemonEntry( "JUNIT-scheduled-shutdown" ), 0L, TimeUnit.MILLISECONDS );
+            fail( "Should not be able to enqueue after shutdown" );
+        }
+        catch( IllegalStateException e )
+        {
+            // ok
+        }
+    }
+}
@@ -94,6 +94,50 @@ public abstract class DatastoreServiceCacheTest extends LuteceTestCase
         }
     }
 
+    public void testMissingKey( )
+    {
+        String strKey = PREFIX_A + "missing";
+
+        assertFalse( DatastoreService.existsKey( strKey ) );
+        assertEquals( "default", DatastoreService.getDataValue( strKey, "default" ) );
+
+        DatastoreService.setDataValue( strKey, "value" );
+        assertTrue( DatastoreService.existsKey( strKey ) );
+        assertEquals( "value", DatastoreService.getDataValue( strKey, "default" ) );
+
+        DatastoreService.removeData( strKey );
+        assertFalse( DatastoreService.existsKey( strKey ) );
+    }
+
+    public void testRemoveDataByPrefix( )
+    {
+        // the LIKE wildcards of the prefix must match literally
+        DatastoreService.setDataValue( "a_1", "a_1" );
+        DatastoreService.setDataValue( "a_%.1", "a_%.1" );
+        // the prefix is case sensitive, whatever the collation of the database
+        DatastoreService.setDataValue( "A.other", "A.other" );
+
+        try
+        {
+            DatastoreService.removeDataByPrefix( "a_%" );
+            assertFalse( DatastoreService.existsKey( "a_%.1" ) );
+            assertTrue( DatastoreService.existsKey( "a_1" ) );
+            assertEquals( NUM_VALUES, DatastoreService.getDataByPrefix( PREFIX_A ).size( ) );
+
+            DatastoreService.removeDataByPrefix( PREFIX_A );
+            assertEquals( 0, DatastoreService.getDataByPrefix( PREFIX_A ).size( ) );
+            assertFalse( DatastoreService.existsKey( PREFIX_A + 1 ) );
+            assertTrue( DatastoreService.existsKey( "A.other" ) );
+            assertEquals( NUM_VALUES, DatastoreService.getDataByPrefix( PREFIX_B ).size( ) );
+        }
+        finally
+        {
+            DatastoreService.removeData( "a_1" );
+            DatastoreService.removeData( "a_%.1" );
+            DatastoreService.removeData( "A.other" );
+        }
+    }
+
     @Override
     protected void tearDown( ) throws Exception
     {
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.datastore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+
+import fr.paris.lutece.portal.business.datastore.DataEntity;
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * DatastoreSnapshot Test Class
+ */
+public class DatastoreSnapshotTest extends LuteceTestCase
+{
+    private DatastoreSnapshot getSnapshot( String... keys )
+    {
+        List<DataEntity> listEntities = new ArrayList<>( );
+
+        for ( String strKey : keys )
+        {
+            listEntities.add( new DataEntity( strKey, "value_" + strKey ) );
+        }
+
+        return new DatastoreSnapshot( listEntities, 1L );
+    }
+
+    public void testGetValue( )
+    {
+        DatastoreSnapshot snapshot = getSnapshot( "a", "b" );
+
+        assertEquals( 2, snapshot.size( ) );
+        assertEquals( 1L, snapshot.getVersion( ) );
+        assertTrue( snapshot.containsKey( "a" ) );
+        assertEquals( "value_a", snapshot.getValue( "a" ) );
+        assertFalse( snapshot.containsKey( "c" ) );
+        assertNull( snapshot.getValue( "c" ) );
+    }
+
+    public void testGetByPrefix( )
+    {
+        DatastoreSnapshot snapshot = getSnapshot( "a", "a.", "a.1", "a.2", "a.2.x", "a/", "a_1", "b.1", "a" + Character.MAX_VALUE, "a" + Character.MAX_VALUE + "1" );
+
+        NavigableMap<String, String> map = snapshot.getByPrefix( "a." );
+        assertEquals( 4, map.size( ) );
+        assertEquals( "a.", map.firstKey( ) );
+        assertEquals( "a.2.x", map.lastKey( ) );
+
+        assertEquals( 1, snapshot.getByPrefix( "a_" ).size( ) );
+        assertEquals( 0, snapshot.getByPrefix( "c" ).size( ) );
+        assertEquals( 2, snapshot.getByPrefix( "a" + Character.MAX_VALUE ).size( ) );
+        assertEquals( 9, snapshot.getByPrefix( "a" ).size( ) );
+        assertEquals( 10, snapshot.getByPrefix( "" ).size( ) );
+    }
+
+    public void testImmutable( )
+    {
+        DatastoreSnapshot snapshot = getSnapshot( "a.1" );
+
+        try
+        {
+            snapshot.getByPrefix( "a." ).put( "a.2", "value" );
+            fail( "The snapshot should be immutable" );
+        }
+        catch( UnsupportedOperationException e )
+        {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.image;
+
+import fr.paris.lutece.test.LuteceTestCase;
+
+public class CachedImageResourceTest extends LuteceTestCase
+{
+    private static ImageResource image( byte[ ] content, String strMimeType )
+    {
+        ImageResource image = new ImageResource( );
+        image.setImage( content );
+        image.setMimeType( strMimeType );
+        return image;
+    }
+
+    public void testOf( )
+    {
+        assertSame( CachedImageResource.EMPTY, CachedImageResource.of( null ) );
+        assertSame( CachedImageResource.EMPTY, CachedImageResource.of( image( null, "image/png" ) ) );
+        assertSame( CachedImageResource.EMPTY, CachedImageResource.of( image( new byte[ 0 ], "image/png" ) ) );
+
+        CachedImageResource cached = CachedImageResource.of( image( new byte[ ] { 1, 2, 3 }, "image/png" ) );
+        assertFalse( cached.isEmpty( ) );
+        assertEquals( "image/png", cached.getMimeType( ) );
+        assertEquals( 3, cached.getImage( ).length );
+        assertTrue( cached.getWeight( ) > 3 );
+    }
+
+    public void testETag( )
+    {
+        String strETag = CachedImageResource.of( image( new byte[ ] { 1, 2, 3 }, "image/png" ) ).getETag( );
+        assertTrue( strETag.startsWith( "\"" ) && strETag.endsWith( "\"" ) );
+        assertEquals( strETag, CachedImageResource.of( image( new byte[ ] { 1, 2, 3 }, "image/gif" ) ).getETag( ) );
+        assertFalse( strETag.equals( CachedImageResource.of( image( new byte[ ] { 1, 2, 4 }, "image/png" ) ).getETag( ) ) );
+        assertFalse( strETag.equals( CachedImageResource.of( image( new byte[ ] { 1, 2, 3, 0 }, "image/png" ) ).getETag( ) ) );
+    }
+}
@@ -0,0 +1,364 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.mail;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.mail.Message;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+
+import org.apache.logging.log4j.LogManager;
+
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * SmtpTransportPool Test Class. The messages are sent to a local fake SMTP server.
+ */
+public class SmtpTransportPoolTest extends LuteceTestCase
+{
+    private static final String HOST = "127.0.0.1";
+    private static final int MESSAGES = 50;
+    private static final int POOL_SIZE = 4;
+
+    public void testBorrowRelease( ) throws Exception
+    {
+        try ( FakeSmtpServer server = new FakeSmtpServer( ) )
+        {
+            Session session = getSession( server.getPort( ) );
+
+            try ( SmtpTransportPool pool = new SmtpTransportPool( session, HOST, server.getPort( ), null, null, 2 ) )
+            {
+                Transport transport1 = pool.borrow( );
+                Transport transport2 = pool.borrow( );
+                assertNotSame( transport1, transport2 );
+                assertTrue( transport1.isConnected( ) );
+
+                pool.release( transport1 );
+                // the released transport is reused
+                assertSame( transport1, pool.borrow( ) );
+
+                pool.invalidate( transport2 );
+                assertFalse( transport2.isConnected( ) );
+                pool.release( transport1 );
+            }
+
+            assertEquals( 2, server.getConnectionsCount( ) );
+        }
+    }
+
+    public void testTransportsReused( ) throws Exception
+    {
+        try ( FakeSmtpServer server = new FakeSmtpServer( ) )
+        {
+            Session session = getSession( server.getPort( ) );
+
+            send( session, server.getPort( ), 1 );
+            assertEquals( MESSAGES, server.getMessagesCount( ) );
+            assertEquals( 1, server.getConnectionsCount( ) );
+
+            send( session, server.getPort( ), POOL_SIZE );
+            assertEquals( 2 * MESSAGES, server.getMessagesCount( ) );
+            assertTrue( server.getConnectionsCount( ) <= 1 + POOL_SIZE );
+        }
+    }
+
+    public void testBrokenTransportReplaced( ) throws Exception
+    {
+        try ( FakeSmtpServer server = new FakeSmtpServer( ) )
+        {
+            Session session = getSession( server.getPort( ) );
+
+            try ( SmtpTransportPool pool = new SmtpTransportPool( session, HOST, server.getPort( ), null, null, 1 ) )
+            {
+                Transport transport = pool.borrow( );
+                pool.release( transport );
+
+                // the server closes the idle connection
+                server.dropConnections( );
+
+                Transport replacement = pool.borrow( );
+                assertNotSame( transport, replacement );
+                assertTrue( replacement.isConnected( ) );
+                pool.release( replacement );
+            }
+
+            assertEquals( 2, server.getConnectionsCount( ) );
+        }
+    }
+
+    public void testMailRequeuedOnFailure( ) throws Exception
+    {
+        try ( FakeSmtpServer server = new FakeSmtpServer( ) )
+        {
+            Session session = getSession( server.getPort( ) );
+            IMailQueue queue = new MemoryQueue( );
+            AtomicBoolean bConnectionFailed = new AtomicBoolean( );
+            server.setDropOnData( true );
+
+            try ( SmtpTransportPool pool = new SmtpTransportPool( session, HOST, server.getPort( ), null, null, 1 ) )
+            {
+                new MailSenderDaemon( ).sendQueuedMail( getMailItem( ), pool, session, queue, LogManager.getLogger( "lutece.mail" ), bConnectionFailed );
+
+                assertTrue( bConnectionFailed.get( ) );
+                assertEquals( 1, queue.size( ) );
+                assertEquals( 0, server.getMessagesCount( ) );
+
+                // the next mail is kept for the retry without being sent
+                new MailSenderDaemon( ).sendQueuedMail( getMailItem( ), pool, session, queue, LogManager.getLogger( "lutece.mail" ), bConnectionFailed );
+                assertEquals( 2, queue.size( ) );
+            }
+        }
+    }
+
+    private MailItem getMailItem( )
+    {
+        MailItem mail = new MailItem( );
+        mail.setFormat( MailItem.FORMAT_TEXT );
+        mail.setSenderName( "sender" );
+        mail.setSenderEmail( "sender@lutece.fr" );
+        mail.setRecipientsTo( "to@lutece.fr" );
+        mail.setSubject( "Subject" );
+        mail.setMessage( "Body of the message" );
+
+        return mail;
+    }
+
+    private void send( Session session, int nPort, int nPoolSize ) throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool( nPoolSize );
+
+        try ( SmtpTransportPool pool = new SmtpTransportPool( session, HOST, nPort, null, null, nPoolSize ) )
+        {
+            List<Future<?>> listFutures = new ArrayList<>( );
+
+            for ( int i = 0; i < MESSAGES; i++ )
+            {
+                int nMessage = i;
+                listFutures.add( executor.submit( ( ) -> {
+                    Message msg = new MimeMessage( session );
+                    msg.setFrom( new InternetAddress( "sender@lutece.fr" ) );
+                    msg.setRecipients( Message.RecipientType.TO, InternetAddress.parse( "to" + nMessage + "@lutece.fr" ) );
+                    msg.setSubject( "Message " + nMessage );
+                    msg.setText( "Body of the message " + nMessage );
+
+                    Transport transport = pool.borrow( );
+
+                    try
+                    {
+                        transport.sendMessage( msg, msg.getAllRecipients( ) );
+                    }
+                    finally
+                    {
+                        pool.release( transport );
+                    }
+
+                    return null;
+                } ) );
+            }
+
+            for ( Future<?> future : listFutures )
+            {
+                future.get( 1, TimeUnit.MINUTES );
+            }
+        }
+        finally
+        {
+            executor.shutdown( );
+        }
+    }
+
+    private Session getSession( int nPort )
+    {
+        Properties props = new Properties( );
+        props.put( "mail.smtp.host", HOST );
+        props.put( "mail.smtp.port", String.valueOf( nPort ) );
+
+        return Session.getInstance( props );
+    }
+
+    /**
+     * Minimal SMTP server accepting every message
+     */
+    private static final class FakeSmtpServer implements AutoCloseable, Runnable
+    {
+        private final ServerSocket _serverSocket;
+        private final AtomicInteger _nConnections = new AtomicInteger( );
+        private final AtomicInteger _nMessages = new AtomicInteger( );
+        private final List<Socket> _listSockets = new ArrayList<>( );
+        private final ExecutorService _executor = Executors.newCachedThreadPool( );
+        private volatile boolean _bDropOnData;
+
+        FakeSmtpServer( ) throws IOException
+        {
+            _serverSocket = new ServerSocket( 0, 50, InetAddress.getByName( HOST ) );
+            _executor.submit( this );
+        }
+
+        void setDropOnData( boolean bDropOnData )
+        {
+            _bDropOnData = bDropOnData;
+        }
+
+        void dropConnections( ) throws IOException
+        {
+            synchronized( _listSockets )
+            {
+                for ( Socket socket : _listSockets )
+                {
+                    socket.close( );
+                }
+
+                _listSockets.clear( );
+            }
+        }
+
+        int getPort( )
+        {
+            return _serverSocket.getLocalPort( );
+        }
+
+        int getConnectionsCount( )
+        {
+            return _nConnections.get( );
+        }
+
+        int getMessagesCount( )
+        {
+            return _nMessages.get( );
+        }
+
+        @Override
+        public void run( )
+        {
+            while ( !_serverSocket.isClosed( ) )
+            {
+                try
+                {
+                    Socket socket = _serverSocket.accept( );
+                    _nConnections.incrementAndGet( );
+
+                    synchronized( _listSockets )
+                    {
+                        _listSockets.add( socket );
+                    }
+
+                    _executor.submit( ( ) -> handle( socket ) );
+                }
+                catch( IOException e )
+                {
+                    // server closed
+                }
+            }
+        }
+
+        private Void handle( Socket socket ) throws IOException
+        {
+            try ( Socket s = socket ;
+                    BufferedReader in = new BufferedReader( new InputStreamReader( s.getInputStream( ), StandardCharsets.US_ASCII ) ) ;
+                    OutputStream out = s.getOutputStream( ) )
+            {
+                reply( out, "220 localhost ESMTP" );
+
+                String strLine;
+
+                while ( ( strLine = in.readLine( ) ) != null )
+                {
+                    String strCommand = strLine.toUpperCase( );
+
+                    if ( strCommand.startsWith( "DATA" ) && _bDropOnData )
+                    {
+                        break;
+                    }
+
+                    if ( strCommand.startsWith( "DATA" ) )
+                    {
+                        reply( out, "354 End data with <CR><LF>.<CR><LF>" );
+
+                        while ( ( strLine = in.readLine( ) ) != null && !".".equals( strLine ) )
+                        {
+                            // read the message
+                        }
+
+                        _nMessages.incrementAndGet( );
+                        reply( out, "250 OK" );
+                    }
+                    else
+                        if ( strCommand.startsWith( "QUIT" ) )
+                        {
+                            reply( out, "221 Bye" );
+                            break;
+                        }
+                        else
+                        {
+                            reply( out, "250 OK" );
+                        }
+                }
+            }
+
+            return null;
+        }
+
+        private void reply( OutputStream out, String strReply ) throws IOException
+        {
+            out.write( ( strReply + "\r\n" ).getBytes( StandardCharsets.US_ASCII ) );
+            out.flush( );
+        }
+
+        @Override
+        public void close( ) throws IOException
+        {
+            _serverSocket.close( );
+            _executor.shutdownNow( );
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.page;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * PortletRenderingService Test Class
+ */
+public class PortletRenderingServiceTest extends LuteceTestCase
+{
+    private PortletRenderingService _service;
+
+    @Override
+    protected void tearDown( ) throws Exception
+    {
+        if ( _service != null )
+        {
+            _service.process( );
+        }
+
+        super.tearDown( );
+    }
+
+    /**
+     * The results are returned in the order of the tasks, whatever their completion order
+     * 
+     * @throws Exception
+     */
+    public void testOrdering( ) throws Exception
+    {
+        _service = new PortletRenderingService( 4, 16, 5000L );
+
+        List<PortletRenderingService.RenderingTask<String>> listTasks = new ArrayList<>( );
+
+        for ( int i = 0; i < 8; i++ )
+        {
+            int nIndex = i;
+            listTasks.add( request -> {
+                Thread.sleep( ( 8 - nIndex ) * 10L );
+
+                return "portlet" + nIndex;
+            } );
+        }
+
+        List<Future<String>> listFutures = _service.invokeAll( new MockHttpServletRequest( ), listTasks );
+
+        assertEquals( 8, listFutures.size( ) );
+
+        for ( int i = 0; i < 8; i++ )
+        {
+            assertFalse( listFutures.get( i ).isCancelled( ) );
+            assertEquals( "portlet" + i, listFutures.get( i ).get( ) );
+        }
+    }
+
+    /**
+     * A task that is not rendered within the timeout is cancelled without affecting the others
+     * 
+     * @throws Exception
+     */
+    public void testTimeout( ) throws Exception
+    {
+        _service = new PortletRenderingService( 4, 16, 200L );
+
+        CountDownLatch latch = new CountDownLatch( 1 );
+        List<PortletRenderingService.RenderingTask<String>> listTasks = new ArrayList<>( );
+        listTasks.add( request -> "first" );
+        listTasks.add( request -> {
+            latch.await( );
+
+            return "slow";
+        } );
+        listTasks.add( request -> "last" );
+
+        long lStart = System.nanoTime( );
+        List<Future<String>> listFutures = _service.invokeAll( new MockHttpServletRequest( ), listTasks );
+        long lElapsed = TimeUnit.NANOSECONDS.toMillis( System.nanoTime( ) - lStart );
+
+        assertTrue( "invokeAll waited " + lElapsed + " ms", lElapsed < 2000L );
+        assertEquals( "first", listFutures.get( 0 ).get( ) );
+        assertTrue( listFutures.get( 1 ).isCancelled( ) );
+        assertEquals( "last", listFutures.get( 2 ).get( ) );
+        latch.countDown( );
+    }
+
+    /**
+     * When the pool and its queue are full, the tasks are rendered by the calling thread
+     * 
+     * @throws Exception
+     */
+    public void testSerialFallback( ) throws Exception
+    {
+        _service = new PortletRenderingService( 1, 1, 5000L );
+
+        Thread caller = Thread.currentThread( );
+        CountDownLatch latch = new CountDownLatch( 1 );
+        AtomicReference<Thread> lastThread = new AtomicReference<>( );
+        List<PortletRenderingService.RenderingTask<String>> listTasks = new ArrayList<>( );
+        listTasks.add( request -> {
+            latch.await( 5, TimeUnit.SECONDS );
+
+            return "busy";
+        } );
+        listTasks.add( request -> "queued" );
+        listTasks.add( request -> {
+            lastThread.set( Thread.currentThread( ) );
+            latch.countDown( );
+
+            return "caller";
+        } );
+
+        List<Future<String>> listFutures = _service.invokeAll( new MockHttpServletRequest( ), listTasks );
+
+        assertSame( caller, lastThread.get( ) );
+        assertEquals( "busy", listFutures.get( 0 ).get( ) );
+        assertEquals( "queued", listFutures.get( 1 ).get( ) );
+        assertEquals( "caller", listFutures.get( 2 ).get( ) );
+    }
+
+    /**
+     * The tasks get their own copy of the request, detached from the page request once rendered
+     * 
+     * @throws Exception
+     */
+    public void testRequestSnapshot( ) throws Exception
+    {
+        _service = new PortletRenderingService( 2, 4, 5000L );
+
+        MockHttpServletRequest pageRequest = new MockHttpServletRequest( );
+        pageRequest.addParameter( "page_id", "3" );
+        pageRequest.setAttribute( "shared", "page" );
+
+        AtomicReference<HttpServletRequest> taskRequest = new AtomicReference<>( );
+        List<PortletRenderingService.RenderingTask<String>> listTasks = new ArrayList<>( );
+        listTasks.add( request -> {
+            taskRequest.set( request );
+            request.setAttribute( "shared", "portlet" );
+
+            return request.getParameter( "page_id" ) + request.getAttribute( "shared" );
+        } );
+        listTasks.add( request -> request.getParameter( "page_id" ) + request.getAttribute( "shared" ) );
+
+        List<Future<String>> listFutures = _service.invokeAll( pageRequest, listTasks );
+
+        assertEquals( "3portlet", listFutures.get( 0 ).get( ) );
+        assertEquals( "3page", listFutures.get( 1 ).get( ) );
+        assertEquals( "page", pageRequest.getAttribute( "shared" ) );
+
+        pageRequest.setParameter( "page_id", "4" );
+        assertEquals( "3", taskRequest.get( ).getParameter( "page_id" ) );
+
+        try
+        {
+            taskRequest.get( ).getSession( );
+            fail( "The request of the page should no longer be reachable" );
+        }
+        catch( IllegalStateException e )
+        {
+            // expected
+        }
+    }
+}
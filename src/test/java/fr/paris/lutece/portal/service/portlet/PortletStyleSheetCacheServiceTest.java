@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.portlet;
+
+import fr.paris.lutece.portal.business.stylesheet.StyleSheet;
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * PortletStyleSheetCacheService Test Class
+ */
+public class PortletStyleSheetCacheServiceTest extends LuteceTestCase
+{
+    private static final int PORTLET_ID = 1;
+    private static final int MODE = 0;
+    private static final int MAX_SIZE = 100;
+
+    /**
+     * Test of putStyleSheet and getStyleSheet
+     */
+    public void testPutAndGet( )
+    {
+        PortletStyleSheetCacheService service = new PortletStyleSheetCacheService( MAX_SIZE );
+        assertNull( service.getStyleSheet( PORTLET_ID, MODE ) );
+
+        StyleSheet stylesheet = new StyleSheet( );
+        stylesheet.setId( 2 );
+        service.putStyleSheet( PORTLET_ID, MODE, stylesheet, service.getVersion( PORTLET_ID ) );
+
+        assertEquals( 2, service.getStyleSheet( PORTLET_ID, MODE ).getId( ) );
+        assertNull( service.getStyleSheet( PORTLET_ID, MODE + 1 ) );
+        assertEquals( 1, service.getCacheSize( ) );
+    }
+
+    /**
+     * Test that a stylesheet loaded before a reset of the cache is not stored
+     */
+    public void testStaleVersion( )
+    {
+        PortletStyleSheetCacheService service = new PortletStyleSheetCacheService( MAX_SIZE );
+        long lVersion = service.getVersion( PORTLET_ID );
+        service.resetCache( );
+
+        service.putStyleSheet( PORTLET_ID, MODE, new StyleSheet( ), lVersion );
+        assertNull( service.getStyleSheet( PORTLET_ID, MODE ) );
+    }
+
+    /**
+     * Test of processPortletEvent
+     */
+    public void testPortletEvent( )
+    {
+        PortletStyleSheetCacheService service = new PortletStyleSheetCacheService( MAX_SIZE );
+        service.putStyleSheet( PORTLET_ID, MODE, new StyleSheet( ), service.getVersion( PORTLET_ID ) );
+        service.putStyleSheet( PORTLET_ID + 1, MODE, new StyleSheet( ), service.getVersion( PORTLET_ID + 1 ) );
+
+        service.processPortletEvent( new PortletEvent( PortletEvent.INVALIDATE, PORTLET_ID, 0 ) );
+
+        assertNull( service.getStyleSheet( PORTLET_ID, MODE ) );
+        assertNotNull( service.getStyleSheet( PORTLET_ID + 1, MODE ) );
+    }
+
+    /**
+     * Test that a stylesheet loaded before a portlet event is not stored
+     */
+    public void testStalePortletVersion( )
+    {
+        PortletStyleSheetCacheService service = new PortletStyleSheetCacheService( MAX_SIZE );
+        long lVersion = service.getVersion( PORTLET_ID );
+        service.invalidatePortlet( PORTLET_ID );
+
+        service.putStyleSheet( PORTLET_ID, MODE, new StyleSheet( ), lVersion );
+        assertNull( service.getStyleSheet( PORTLET_ID, MODE ) );
+    }
+
+    /**
+     * Test that the cached stylesheets can't be modified by the callers
+     */
+    public void testCopies( )
+    {
+        PortletStyleSheetCacheService service = new PortletStyleSheetCacheService( MAX_SIZE );
+        StyleSheet stylesheet = new StyleSheet( );
+        stylesheet.setId( 2 );
+        service.putStyleSheet( PORTLET_ID, MODE, stylesheet, service.getVersion( PORTLET_ID ) );
+        stylesheet.setId( 3 );
+        service.getStyleSheet( PORTLET_ID, MODE ).setId( 4 );
+
+        assertEquals( 2, service.getStyleSheet( PORTLET_ID, MODE ).getId( ) );
+    }
+
+    /**
+     * Test that the cache doesn't grow beyond its maximum size
+     */
+    public void testMaxSize( )
+    {
+        PortletStyleSheetCacheService service = new PortletStyleSheetCacheService( 10 );
+
+        for ( int i = 0; i < 100; i++ )
+        {
+            service.putStyleSheet( i, MODE, new StyleSheet( ), service.getVersion( i ) );
+        }
+
+        assertEquals( 10, service.getCacheSize( ) );
+        assertNotNull( service.getStyleSheet( 99, MODE ) );
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.rbac;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import fr.paris.lutece.portal.business.rbac.RBAC;
+import fr.paris.lutece.test.LuteceTestCase;
+
+public class RBACIndexTest extends LuteceTestCase
+{
+    private static final String[ ][ ] DATA = {
+            { "ROLE1", "TYPE1", "ID1", "PERM1" }, { "ROLE2", "TYPE2", "*", "PERM2" }, { "ROLE3", "TYPE3", "ID3", "*" }, { "ROLE4", "TYPE4", "*", "*" },
+            { "ROLE5", "TYPE1", "ID5", "PERM1" },
+    };
+
+    private RBACIndex _index;
+
+    @Override
+    protected void setUp( ) throws Exception
+    {
+        super.setUp( );
+        List<RBAC> listRBAC = new ArrayList<>( );
+        for ( String[ ] rbacData : DATA )
+        {
+            RBAC rbac = new RBAC( );
+            rbac.setRoleKey( rbacData[ 0 ] );
+            rbac.setResourceTypeKey( rbacData[ 1 ] );
+            rbac.setResourceId( rbacData[ 2 ] );
+            rbac.setPermissionKey( rbacData[ 3 ] );
+            listRBAC.add( rbac );
+        }
+        _index = new RBACIndex( listRBAC );
+    }
+
+    private static Map<String, Object> roles( String... roleKeys )
+    {
+        Map<String, Object> mapRoles = new HashMap<>( );
+        for ( String strRoleKey : roleKeys )
+        {
+            mapRoles.put( strRoleKey, strRoleKey );
+        }
+        return mapRoles;
+    }
+
+    public void testResourceIdAndPermission( )
+    {
+        assertTrue( _index.isAuthorized( "TYPE1", "ID1", "PERM1", roles( "ROLE1" ) ) );
+        assertFalse( _index.isAuthorized( "TYPE1", "ID2", "PERM1", roles( "ROLE1" ) ) );
+        assertFalse( _index.isAuthorized( "TYPE1", "ID1", "PERM2", roles( "ROLE1" ) ) );
+        assertFalse( _index.isAuthorized( "TYPE2", "ID1", "PERM1", roles( "ROLE1" ) ) );
+        assertFalse( _index.isAuthorized( "TYPE1", "ID1", "PERM1", roles( "ROLE5" ) ) );
+        assertTrue( _index.isAuthorized( "TYPE1", "ID5", "PERM1", roles( "ROLE1", "ROLE5" ) ) );
+    }
+
+    public void testWildcards( )
+    {
+        assertTrue( _index.isAuthorized( "TYPE2", "ANY", "PERM2", roles( "ROLE2" ) ) );
+        assertFalse( _index.isAuthorized( "TYPE2", "ANY", "PERM1", roles( "ROLE2" ) ) );
+        assertTrue( _index.isAuthorized( "TYPE3", "ID3", "ANY", roles( "ROLE3" ) ) );
+        assertFalse( _index.isAuthorized( "TYPE3", "ID1", "ANY", roles( "ROLE3" ) ) );
+        assertTrue( _index.isAuthorized( "TYPE4", "ANY", "ANY", roles( "ROLE4" ) ) );
+        assertTrue( _index.isAuthorized( "TYPE4", null, "ANY", roles( "ROLE4" ) ) );
+    }
+
+    public void testNoRole( )
+    {
+        assertFalse( _index.isAuthorized( "TYPE1", "ID1", "PERM1", Collections.emptyMap( ) ) );
+        assertFalse( _index.isAuthorized( "TYPE1", "ID1", "PERM1", null ) );
+        assertFalse( _index.isAuthorized( "UNKNOWN", "ID1", "PERM1", roles( "ROLE1" ) ) );
+        assertFalse( new RBACIndex( Collections.emptyList( ) ).isAuthorized( "TYPE1", "ID1", "PERM1", roles( "ROLE1" ) ) );
+    }
+}
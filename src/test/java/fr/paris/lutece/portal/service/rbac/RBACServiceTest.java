@@ -39,6 +39,8 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
 
@@ -50,6 +52,9 @@ import fr.paris.lutece.util.ReferenceList;
 
 public class RBACServiceTest extends LuteceTestCase
 {
+    private static final String KEY_INDEX = "index";
+    private static final long RELOAD_DURATION = 200L;
+
     private final static class TestResource implements RBACResource
     {
 
@@ -517,4 +522,36 @@ public class RBACServiceTest extends LuteceTestCase
         } );
     }
 
+    @Test
+    public void testRevokedRoleRefusedDuringReload( ) throws Exception
+    {
+        User user = new TestUser( "JUNITROLE1" );
+        assertTrue( RBACService.isAuthorized( "JUNITTYPE1", "JUNITID1", "JUNITPERM1", user ) );
+
+        // revoke the role, then hold the reload of the index
+        RBACHome.remove( rbacs.iterator( ).next( ).getRBACId( ) );
+
+        CountDownLatch started = new CountDownLatch( 1 );
+        Thread reload = new Thread( ( ) -> {
+            try
+            {
+                RBACCacheService.getInstance( ).getFromCache( KEY_INDEX, ( ) -> {
+                    started.countDown( );
+                    Thread.sleep( RELOAD_DURATION );
+
+                    return null;
+                } );
+            }
+            catch( InterruptedException e )
+            {
+                Thread.currentThread( ).interrupt( );
+            }
+        } );
+        reload.start( );
+        assertTrue( started.await( 5, TimeUnit.SECONDS ) );
+
+        assertFalse( RBACService.isAuthorized( "JUNITTYPE1", "JUNITID1", "JUNITPERM1", user ) );
+        reload.join( );
+    }
+
 }
@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.search;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermQuery;
+
+import fr.paris.lutece.portal.service.message.SiteMessageException;
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * IndexationService Test Class. <br>
+ * Indexes test documents through a test indexer and checks what the shared searcher sees.
+ */
+public class IndexationServiceTest extends LuteceTestCase
+{
+    private static final String UID_PREFIX = "junit_indexation_";
+
+    /**
+     * Indexer of test documents, searching the index while it is running if asked to
+     */
+    private static final class TestSearchIndexer implements SearchIndexer
+    {
+        private final List<String> _listUids = new ArrayList<>( );
+        private String _strSearchedUid;
+        private volatile int _nSearchedCount = -1;
+
+        @Override
+        public boolean isEnable( )
+        {
+            return true;
+        }
+
+        @Override
+        public void indexDocuments( ) throws IOException, InterruptedException, SiteMessageException
+        {
+            for ( String strUid : _listUids )
+            {
+                IndexationService.write( createDocument( strUid ) );
+            }
+
+            if ( _strSearchedUid != null )
+            {
+                _nSearchedCount = countDocuments( _strSearchedUid );
+            }
+        }
+
+        @Override
+        public String getVersion( )
+        {
+            return "1.0.0";
+        }
+
+        @Override
+        public String getSpecificSearchAppUrl( )
+        {
+            return null;
+        }
+
+        @Override
+        public String getName( )
+        {
+            return this.getClass( ).getCanonicalName( );
+        }
+
+        @Override
+        public List<String> getListType( )
+        {
+            return null;
+        }
+
+        @Override
+        public List<Document> getDocuments( String strIdDocument ) throws IOException, InterruptedException, SiteMessageException
+        {
+            return null;
+        }
+
+        @Override
+        public String getDescription( )
+        {
+            return "junit test indexer";
+        }
+    }
+
+    /**
+     * Creates a test document
+     * 
+     * @param strUid
+     *            The uid of the document
+     * @return The document
+     */
+    private static Document createDocument( String strUid )
+    {
+        Document doc = new Document( );
+        doc.add( new StringField( SearchItem.FIELD_UID, UID_PREFIX + strUid, Field.Store.YES ) );
+
+        return doc;
+    }
+
+    /**
+     * Counts the documents of a given uid with the shared searcher
+     * 
+     * @param strUid
+     *            The uid of the documents
+     * @return The count
+     * @throws IOException
+     *             If an error occurs
+     */
+    private static int countDocuments( String strUid ) throws IOException
+    {
+        IndexSearcher searcher = IndexationService.acquireSearcher( );
+
+        try
+        {
+            return countDocuments( searcher, strUid );
+        }
+        finally
+        {
+            IndexationService.releaseSearcher( searcher );
+        }
+    }
+
+    /**
+     * Counts the documents of a given uid with a searcher
+     * 
+     * @param searcher
+     *            The searcher
+     * @param strUid
+     *            The uid of the documents
+     * @return The count
+     * @throws IOException
+     *             If an error occurs
+     */
+    private static int countDocuments( IndexSearcher searcher, String strUid ) throws IOException
+    {
+        return searcher.count( new TermQuery( new Term( SearchItem.FIELD_UID, UID_PREFIX + strUid ) ) );
+    }
+
+    public void testSearcherKeepsItsView( ) throws Exception
+    {
+        TestSearchIndexer indexer = new TestSearchIndexer( );
+        IndexationService.registerIndexer( indexer );
+
+        try
+        {
+            indexer._listUids.add( "1" );
+            IndexationService.processIndexing( true );
+
+            IndexSearcher searcher = IndexationService.acquireSearcher( );
+
+            try
+            {
+                assertEquals( 1, countDocuments( searcher, "1" ) );
+                assertEquals( 0, countDocuments( searcher, "2" ) );
+
+                indexer._listUids.add( "2" );
+                IndexationService.processIndexing( true );
+
+                // The searcher acquired before the commit keeps its view of the index
+                assertEquals( 0, countDocuments( searcher, "2" ) );
+            }
+            finally
+            {
+                IndexationService.releaseSearcher( searcher );
+            }
+
+            IndexationService.refreshSearcher( );
+            assertEquals( 1, countDocuments( "1" ) );
+            assertEquals( 1, countDocuments( "2" ) );
+        }
+        finally
+        {
+            IndexationService.unregisterIndexer( indexer );
+        }
+    }
+
+    public void testFullIndexingNotVisibleBeforeCommit( ) throws Exception
+    {
+        TestSearchIndexer indexer = new TestSearchIndexer( );
+        IndexationService.registerIndexer( indexer );
+
+        try
+        {
+            indexer._listUids.add( "1" );
+            IndexationService.processIndexing( true );
+            assertEquals( 1, countDocuments( "1" ) );
+
+            // The searcher is opened again during the next full indexing, after the deletion of all the documents
+            IndexationService.shutdown( );
+            indexer._listUids.clear( );
+            indexer._listUids.add( "2" );
+            indexer._strSearchedUid = "1";
+            IndexationService.processIndexing( true );
+
+            assertEquals( 1, indexer._nSearchedCount );
+            assertEquals( 0, countDocuments( "1" ) );
+            assertEquals( 1, countDocuments( "2" ) );
+        }
+        finally
+        {
+            IndexationService.unregisterIndexer( indexer );
+        }
+    }
+}
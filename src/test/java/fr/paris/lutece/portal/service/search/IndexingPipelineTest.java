@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.search;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.ByteBlockPool;
+
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * IndexingPipeline Test Class
+ */
+public class IndexingPipelineTest extends LuteceTestCase
+{
+    private static final int PRODUCERS = 4;
+    private static final int DOCUMENTS = 2500;
+
+    public void testConcurrentProducers( ) throws Exception
+    {
+        IndexingProgress progress = new IndexingProgress( );
+        progress.start( true );
+
+        try ( Directory dir = new ByteBuffersDirectory( ) ; IndexWriter writer = new IndexWriter( dir, new IndexWriterConfig( new StandardAnalyzer( ) ) ) )
+        {
+            // A small queue to make the producers wait for the writer
+            IndexingPipeline pipeline = new IndexingPipeline( writer, 10, 7, progress );
+            pipeline.start( );
+
+            ExecutorService executor = Executors.newFixedThreadPool( PRODUCERS );
+            Future<?> [ ] futures = new Future<?> [ PRODUCERS];
+
+            for ( int i = 0; i < PRODUCERS; i++ )
+            {
+                int nProducer = i;
+                futures [i] = executor.submit( ( ) -> {
+                    for ( int j = 0; j < DOCUMENTS; j++ )
+                    {
+                        Document doc = new Document( );
+                        doc.add( new StringField( SearchItem.FIELD_UID, nProducer + "_" + j, Field.Store.YES ) );
+                        pipeline.put( doc );
+                    }
+
+                    return null;
+                } );
+            }
+
+            for ( Future<?> future : futures )
+            {
+                future.get( 1, TimeUnit.MINUTES );
+            }
+
+            executor.shutdown( );
+            pipeline.finish( );
+            writer.commit( );
+
+            assertEquals( PRODUCERS * DOCUMENTS, writer.getDocStats( ).numDocs );
+            assertEquals( PRODUCERS * DOCUMENTS, progress.getDocumentsCount( ) );
+        }
+
+        progress.end( );
+        assertFalse( progress.isRunning( ) );
+        assertEquals( PRODUCERS * DOCUMENTS, progress.getLastDocumentsCount( ) );
+    }
+
+    public void testRejectedDocument( ) throws Exception
+    {
+        IndexingProgress progress = new IndexingProgress( );
+        progress.start( true );
+
+        try ( Directory dir = new ByteBuffersDirectory( ) ; IndexWriter writer = new IndexWriter( dir, new IndexWriterConfig( new StandardAnalyzer( ) ) ) )
+        {
+            IndexingPipeline pipeline = new IndexingPipeline( writer, 10, 7, progress );
+            pipeline.start( );
+
+            for ( int i = 0; i < 10; i++ )
+            {
+                Document doc = new Document( );
+                doc.add( new StringField( SearchItem.FIELD_UID, "doc_" + i, Field.Store.YES ) );
+
+                if ( i == 5 )
+                {
+                    // An immense term is rejected by the writer
+                    doc.add( new StringField( SearchItem.FIELD_CONTENTS, new String( new char [ ByteBlockPool.BYTE_BLOCK_SIZE] ).replace( '\0', 'a' ),
+                            Field.Store.NO ) );
+                }
+
+                pipeline.put( doc );
+            }
+
+            pipeline.finish( );
+            writer.commit( );
+
+            assertEquals( 9, writer.getDocStats( ).numDocs );
+            assertEquals( 9, progress.getDocumentsCount( ) );
+
+            List<IndexingPipeline.RejectedDocument> listRejected = pipeline.getRejectedDocuments( );
+            assertEquals( 1, listRejected.size( ) );
+            assertEquals( "doc_5", listRejected.get( 0 ).getUid( ) );
+            assertTrue( listRejected.get( 0 ).getException( ) instanceof IllegalArgumentException );
+        }
+    }
+}
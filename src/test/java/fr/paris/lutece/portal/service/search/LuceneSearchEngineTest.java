@@ -104,7 +104,9 @@ public class LuceneSearchEngineTest extends LuteceTestCase
             doc.add( new Field( SearchItem.FIELD_ROLE, "role1", ft ) );
 
             // Not using IndexationService.write(doc) because it needs to be
-            // called by IndexationService.processIndexing() (or else it throws null pointer exception)
+            // called by IndexationService.processIndexing() (or else it throws null pointer exception).
+            // The writer of IndexationService is closed to release the lock of the index
+            IndexationService.shutdown( );
             IndexWriter indexWriter = getIndexWriter( );
             indexWriter.addDocument( doc );
 
@@ -114,6 +116,9 @@ public class LuceneSearchEngineTest extends LuteceTestCase
             indexWriter.addDocument( doc );
 
             indexWriter.close( );
+
+            // The index is written outside of IndexationService.processIndexing() : the shared searcher must be refreshed
+            IndexationService.refreshSearcher( );
         }
     }
 
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.template;
+
+import java.util.Locale;
+
+import fr.paris.lutece.portal.service.datastore.DatastoreService;
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * TemplateKeysResolver Test Class
+ */
+public class TemplateKeysResolverTest extends LuteceTestCase
+{
+    private static final String DS_KEY = "junit.templateKeysResolver";
+
+    public void testNoMarker( )
+    {
+        String strSource = "<p>#1 no marker #i18n without brace</p>";
+
+        assertSame( strSource, TemplateKeysResolver.resolve( strSource, Locale.FRENCH, true ) );
+        assertNull( TemplateKeysResolver.resolve( null, Locale.FRENCH, true ) );
+    }
+
+    public void testI18nKeys( )
+    {
+        String strSource = "<a>#i18n{portal.util.labelCancel}</a>#i18n{portal.util.labelCancel}";
+
+        assertEquals( "<a>Annuler</a>Annuler", TemplateKeysResolver.resolve( strSource, Locale.FRENCH, false ) );
+        // without locale, the i18n keys are kept
+        assertSame( strSource, TemplateKeysResolver.resolve( strSource, null, true ) );
+        // a key doesn't span several lines
+        String strMultiline = "#i18n{portal.util.\nlabelCancel}";
+        assertSame( strMultiline, TemplateKeysResolver.resolve( strMultiline, Locale.FRENCH, false ) );
+    }
+
+    public void testDatastoreKeys( )
+    {
+        DatastoreService.setDataValue( DS_KEY, "a $1 \\ value" );
+
+        try
+        {
+            String strSource = "#dskey{" + DS_KEY + "} - #i18n{portal.util.labelCancel}";
+
+            assertEquals( "a $1 \\ value - Annuler", TemplateKeysResolver.resolve( strSource, Locale.FRENCH, true ) );
+            assertEquals( "#dskey{" + DS_KEY + "} - Annuler", TemplateKeysResolver.resolve( strSource, Locale.FRENCH, false ) );
+            assertEquals( "DS Value Missing", TemplateKeysResolver.resolve( "#dskey{" + DS_KEY + ".missing}", null, true ) );
+        }
+        finally
+        {
+            DatastoreService.removeData( DS_KEY );
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.service.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.microprofile.config.Config;
+
+import fr.paris.lutece.test.LuteceTestCase;
+import io.smallrye.config.PropertiesConfigSource;
+import io.smallrye.config.SmallRyeConfigBuilder;
+
+public class PropertiesSnapshotTest extends LuteceTestCase
+{
+    private PropertiesSnapshot _snapshot;
+
+    @Override
+    protected void setUp( ) throws Exception
+    {
+        super.setUp( );
+        Map<String, String> mapProperties = new HashMap<>( );
+        mapProperties.put( "snapshot.test.string", "value" );
+        mapProperties.put( "snapshot.test.int", "42" );
+        mapProperties.put( "snapshot.test.boolean", "true" );
+        mapProperties.put( "snapshot.test.list", "a, b,,c ," );
+        mapProperties.put( "snapshot.test.notint", "abc" );
+        Config config = new SmallRyeConfigBuilder( ).withSources( new PropertiesConfigSource( mapProperties, "test", 100 ) ).build( );
+        _snapshot = new PropertiesSnapshot( config, 3 );
+    }
+
+    public void testGetProperty( )
+    {
+        assertEquals( 3, _snapshot.getVersion( ) );
+        assertEquals( "value", _snapshot.getProperty( "snapshot.test.string" ) );
+        assertNull( _snapshot.getProperty( "snapshot.test.missing" ) );
+        assertNull( _snapshot.getProperty( "snapshot.test.missing" ) );
+    }
+
+    public void testGetValue( )
+    {
+        assertEquals( Integer.valueOf( 42 ), _snapshot.getValue( "snapshot.test.int", Integer.class ).get( ) );
+        assertEquals( Long.valueOf( 42 ), _snapshot.getValue( "snapshot.test.int", Long.class ).get( ) );
+        assertEquals( Boolean.TRUE, _snapshot.getValue( "snapshot.test.boolean", Boolean.class ).get( ) );
+        assertFalse( _snapshot.getValue( "snapshot.test.missing", Integer.class ).isPresent( ) );
+        try
+        {
+            _snapshot.getValue( "snapshot.test.notint", Integer.class );
+            fail( "the value should not be converted" );
+        }
+        catch( IllegalArgumentException e )
+        {
+            // expected
+        }
+    }
+
+    public void testGetList( )
+    {
+        assertEquals( Arrays.asList( "a", "b", "c" ), _snapshot.getList( "snapshot.test.list" ) );
+        assertSame( _snapshot.getList( "snapshot.test.list" ), _snapshot.getList( "snapshot.test.list" ) );
+        assertTrue( _snapshot.getList( "snapshot.test.missing" ).isEmpty( ) );
+    }
+}
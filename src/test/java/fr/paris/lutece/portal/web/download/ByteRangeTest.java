@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.portal.web.download;
+
+import fr.paris.lutece.test.LuteceTestCase;
+
+public class ByteRangeTest extends LuteceTestCase
+{
+    public void testNoRange( )
+    {
+        assertNull( ByteRange.parse( null, 100 ) );
+        assertNull( ByteRange.parse( "items=0-10", 100 ) );
+        assertNull( ByteRange.parse( "bytes=0-10,20-30", 100 ) );
+        assertNull( ByteRange.parse( "bytes=abc-10", 100 ) );
+        assertNull( ByteRange.parse( "bytes=20-10", 100 ) );
+        assertNull( ByteRange.parse( "bytes=-", 100 ) );
+    }
+
+    public void testRange( )
+    {
+        ByteRange range = ByteRange.parse( "bytes=10-19", 100 );
+        assertEquals( 10, range.getOffset( ) );
+        assertEquals( 10, range.getLength( ) );
+        assertEquals( "bytes 10-19/100", range.getContentRange( 100 ) );
+
+        range = ByteRange.parse( "Bytes=90-", 100 );
+        assertEquals( 90, range.getOffset( ) );
+        assertEquals( 10, range.getLength( ) );
+
+        range = ByteRange.parse( "bytes=90-500", 100 );
+        assertEquals( 90, range.getOffset( ) );
+        assertEquals( 10, range.getLength( ) );
+    }
+
+    public void testSuffixRange( )
+    {
+        ByteRange range = ByteRange.parse( "bytes=-30", 100 );
+        assertEquals( 70, range.getOffset( ) );
+        assertEquals( 30, range.getLength( ) );
+
+        range = ByteRange.parse( "bytes=-500", 100 );
+        assertEquals( 0, range.getOffset( ) );
+        assertEquals( 100, range.getLength( ) );
+    }
+
+    public void testUnsatisfiable( )
+    {
+        assertSame( ByteRange.UNSATISFIABLE, ByteRange.parse( "bytes=100-", 100 ) );
+        assertSame( ByteRange.UNSATISFIABLE, ByteRange.parse( "bytes=-0", 100 ) );
+        assertSame( ByteRange.UNSATISFIABLE, ByteRange.parse( "bytes=-10", 0 ) );
+    }
+
+    public void testMatchesETag( )
+    {
+        assertFalse( AbstractDownloadServlet.matchesETag( null, "\"1\"" ) );
+        assertTrue( AbstractDownloadServlet.matchesETag( "\"1\"", "\"1\"" ) );
+        assertTrue( AbstractDownloadServlet.matchesETag( "\"0\", W/\"1\"", "\"1\"" ) );
+        assertTrue( AbstractDownloadServlet.matchesETag( "\"1\"", "W/\"1\"" ) );
+        assertTrue( AbstractDownloadServlet.matchesETag( "*", "\"1\"" ) );
+        assertFalse( AbstractDownloadServlet.matchesETag( "\"2\"", "\"1\"" ) );
+    }
+}
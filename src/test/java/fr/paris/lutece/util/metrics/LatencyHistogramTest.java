@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * LatencyHistogram Test Class
+ */
+public class LatencyHistogramTest extends LuteceTestCase
+{
+    public void testRecord( )
+    {
+        LatencyHistogram histogram = new LatencyHistogram( "test" );
+
+        for ( int i = 1; i <= 100; i++ )
+        {
+            histogram.record( TimeUnit.MILLISECONDS.toNanos( i ) );
+        }
+
+        assertEquals( 100, histogram.getCount( ) );
+        assertEquals( 100, histogram.getMax( TimeUnit.MILLISECONDS ) );
+        assertEquals( 50.5d, histogram.getMean( TimeUnit.MILLISECONDS ), 0.01d );
+
+        // Buckets are powers of two : the percentile is at most twice the exact value
+        long lMedian = histogram.getPercentile( 50, TimeUnit.MICROSECONDS );
+        assertTrue( lMedian >= 50000 && lMedian < 100000 );
+        long lP99 = histogram.getPercentile( 99, TimeUnit.MICROSECONDS );
+        assertTrue( lP99 >= 99000 && lP99 < 198000 );
+    }
+
+    public void testReset( )
+    {
+        LatencyHistogram histogram = new LatencyHistogram( "test" );
+        histogram.record( 1000 );
+        histogram.reset( );
+
+        assertEquals( 0, histogram.getCount( ) );
+        assertEquals( 0, histogram.getPercentile( 99, TimeUnit.NANOSECONDS ) );
+        assertEquals( 0d, histogram.getMean( TimeUnit.NANOSECONDS ), 0d );
+    }
+
+    public void testConcurrentRecord( ) throws InterruptedException
+    {
+        LatencyHistogram histogram = new LatencyHistogram( "test" );
+        Thread [ ] threads = new Thread [ 8];
+
+        for ( int i = 0; i < threads.length; i++ )
+        {
+            threads [i] = new Thread( ( ) -> {
+                for ( int j = 0; j < 10000; j++ )
+                {
+                    histogram.record( j );
+                }
+            } );
+            threads [i].start( );
+        }
+
+        for ( Thread thread : threads )
+        {
+            thread.join( );
+        }
+
+        assertEquals( 80000, histogram.getCount( ) );
+    }
+}
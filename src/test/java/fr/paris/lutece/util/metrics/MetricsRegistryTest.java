@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.metrics;
+
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * MetricsRegistry Test Class
+ */
+public class MetricsRegistryTest extends LuteceTestCase
+{
+    public void testDisabled( )
+    {
+        boolean bEnabled = MetricsRegistry.isEnabled( );
+
+        try
+        {
+            MetricsRegistry.setEnabled( false );
+            LatencyHistogram histogram = MetricsRegistry.getHistogram( "test.disabled" );
+
+            long lStart = MetricsRegistry.start( );
+            assertEquals( 0L, lStart );
+            MetricsRegistry.stop( histogram, lStart );
+
+            assertEquals( 0, histogram.getCount( ) );
+        }
+        finally
+        {
+            MetricsRegistry.setEnabled( bEnabled );
+        }
+    }
+
+    public void testEnabled( )
+    {
+        boolean bEnabled = MetricsRegistry.isEnabled( );
+
+        try
+        {
+            MetricsRegistry.setEnabled( true );
+            LatencyHistogram histogram = MetricsRegistry.getHistogram( "test.enabled" );
+            histogram.reset( );
+
+            MetricsRegistry.stop( histogram, MetricsRegistry.start( ) );
+
+            assertEquals( 1, histogram.getCount( ) );
+            assertSame( histogram, MetricsRegistry.getHistogram( "test.enabled" ) );
+            assertTrue( MetricsRegistry.getHistograms( ).contains( histogram ) );
+        }
+        finally
+        {
+            MetricsRegistry.setEnabled( bEnabled );
+        }
+    }
+
+    public void testGroup( )
+    {
+        boolean bEnabled = MetricsRegistry.isEnabled( );
+
+        try
+        {
+            MetricsRegistry.setEnabled( true );
+            MetricsRegistry.HistogramGroup group = MetricsRegistry.getGroup( "test.group" );
+
+            group.stop( "plugin", MetricsRegistry.start( ) );
+            group.stop( null, MetricsRegistry.start( ) );
+
+            assertEquals( 2, group.getHistograms( ).size( ) );
+            assertSame( group.get( "plugin" ), MetricsRegistry.getHistogram( "test.group.plugin" ) );
+            assertEquals( 1, MetricsRegistry.getHistogram( "test.group." + MetricsRegistry.HistogramGroup.TAG_UNKNOWN ).getCount( ) );
+        }
+        finally
+        {
+            MetricsRegistry.setEnabled( bEnabled );
+        }
+    }
+}
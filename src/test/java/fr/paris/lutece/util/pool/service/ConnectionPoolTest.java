@@ -0,0 +1,426 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.pool.service;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.logging.log4j.LogManager;
+
+import fr.paris.lutece.portal.service.util.AppPathService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * ConnectionPool Test Class. <br>
+ * Runs more threads than connections against the test database and against an in-memory driver simulating the network round trips, and checks that the
+ * pool never delivers more connections than its maximum.
+ */
+public class ConnectionPoolTest extends LuteceTestCase
+{
+    private static final String DB_PROPERTIES = "/WEB-INF/conf/db.properties";
+    private static final String POOL_NAME = "portal";
+    private static final int THREADS = 16;
+    private static final int MAX_CONNS = 4;
+    private static final int ITERATIONS = 250;
+    private static final String STUB_URL = "jdbc:lutece-stub:";
+    private static final long STUB_ROUND_TRIP_NANOS = TimeUnit.MICROSECONDS.toNanos( 50 );
+    private static final StubDriver STUB_DRIVER = new StubDriver( );
+
+    static
+    {
+        try
+        {
+            DriverManager.registerDriver( STUB_DRIVER );
+        }
+        catch( SQLException e )
+        {
+            throw new IllegalStateException( e );
+        }
+    }
+
+    public void testConcurrentGetConnection( ) throws Exception
+    {
+        LuteceConnectionService service = createConnectionService( );
+        ConnectionPool pool = service.getConnectionPool( );
+        ExecutorService executor = Executors.newFixedThreadPool( THREADS );
+        CountDownLatch latch = new CountDownLatch( THREADS );
+        AtomicInteger nErrors = new AtomicInteger( );
+
+        try
+        {
+            for ( int i = 0; i < THREADS; i++ )
+            {
+                executor.execute( ( ) -> {
+                    try
+                    {
+                        for ( int j = 0; j < ITERATIONS; j++ )
+                        {
+                            runQuery( pool );
+                        }
+                    }
+                    catch( SQLException e )
+                    {
+                        nErrors.incrementAndGet( );
+                    }
+                    finally
+                    {
+                        latch.countDown( );
+                    }
+                } );
+            }
+
+            assertTrue( latch.await( 2, TimeUnit.MINUTES ) );
+            assertEquals( 0, nErrors.get( ) );
+            assertEquals( THREADS * ITERATIONS, pool.getAcquisitionTimeHistogram( ).getCount( ) );
+            assertTrue( pool.getConnectionCount( ) <= MAX_CONNS );
+            assertEquals( 0, pool.getBusyConnectionCount( ) );
+        }
+        finally
+        {
+            executor.shutdownNow( );
+            service.release( );
+        }
+    }
+
+    public void testWaitForReleasedConnection( ) throws Exception
+    {
+        ConnectionPool pool = createStubPool( "wait" );
+        Connection [ ] connections = new Connection [ MAX_CONNS];
+
+        try
+        {
+            for ( int i = 0; i < MAX_CONNS; i++ )
+            {
+                connections [i] = pool.getConnection( );
+            }
+
+            Thread thread = new Thread( ( ) -> {
+                try
+                {
+                    TimeUnit.MILLISECONDS.sleep( 200 );
+                    connections [0].close( );
+                }
+                catch( InterruptedException | SQLException e )
+                {
+                    Thread.currentThread( ).interrupt( );
+                }
+            } );
+            thread.start( );
+
+            // Waits for the connection released by the other thread
+            Connection connection = pool.getConnection( );
+            assertSame( connections [0], connection );
+            connection.close( );
+            thread.join( );
+        }
+        finally
+        {
+            for ( int i = 1; i < MAX_CONNS; i++ )
+            {
+                if ( connections [i] != null )
+                {
+                    connections [i].close( );
+                }
+            }
+
+            pool.release( );
+        }
+    }
+
+    public void testConcurrentStubConnections( ) throws Exception
+    {
+        ConnectionPool pool = createStubPool( "concurrent" );
+        ExecutorService executor = Executors.newFixedThreadPool( THREADS );
+        CountDownLatch latch = new CountDownLatch( THREADS );
+        AtomicInteger nErrors = new AtomicInteger( );
+        AtomicInteger nOverflows = new AtomicInteger( );
+
+        try
+        {
+            for ( int i = 0; i < THREADS; i++ )
+            {
+                executor.execute( ( ) -> {
+                    try
+                    {
+                        for ( int j = 0; j < ITERATIONS; j++ )
+                        {
+                            try ( Connection connection = pool.getConnection( ) )
+                            {
+                                if ( pool.getBusyConnectionCount( ) > MAX_CONNS )
+                                {
+                                    nOverflows.incrementAndGet( );
+                                }
+
+                                connection.isValid( 0 );
+                            }
+                        }
+                    }
+                    catch( SQLException e )
+                    {
+                        nErrors.incrementAndGet( );
+                    }
+                    finally
+                    {
+                        latch.countDown( );
+                    }
+                } );
+            }
+
+            assertTrue( latch.await( 2, TimeUnit.MINUTES ) );
+            assertEquals( 0, nErrors.get( ) );
+            assertEquals( 0, nOverflows.get( ) );
+            assertEquals( THREADS * ITERATIONS, pool.getAcquisitionTimeHistogram( ).getCount( ) );
+            assertTrue( pool.getConnectionCount( ) <= MAX_CONNS );
+            assertEquals( 0, pool.getBusyConnectionCount( ) );
+        }
+        finally
+        {
+            executor.shutdownNow( );
+            pool.release( );
+        }
+    }
+
+    public void testFreeForeignConnection( ) throws Exception
+    {
+        ConnectionPool pool = createStubPool( "foreign" );
+
+        try
+        {
+            Connection foreign = DriverManager.getConnection( STUB_URL );
+            pool.freeConnection( foreign );
+
+            // The connection is closed instead of being counted by the pool
+            assertTrue( foreign.isClosed( ) );
+            assertEquals( 1, pool.getConnectionCount( ) );
+            assertEquals( 1, pool.getFreeConnectionCount( ) );
+        }
+        finally
+        {
+            pool.release( );
+        }
+    }
+
+    public void testRelease( ) throws Exception
+    {
+        ConnectionPool pool = createStubPool( "release" );
+        Connection busy = pool.getConnection( );
+        pool.release( );
+
+        assertEquals( 1, pool.getConnectionCount( ) );
+
+        // The connection in use is closed when it is returned
+        busy.close( );
+        assertEquals( 0, pool.getConnectionCount( ) );
+
+        try
+        {
+            pool.getConnection( );
+            fail( "A released pool should not deliver connections" );
+        }
+        catch( SQLException e )
+        {
+            // expected
+        }
+
+        // The creator thread is stopped
+        for ( Thread thread : Thread.getAllStackTraces( ).keySet( ) )
+        {
+            if ( thread.getName( ).equals( "lutece-pool-stub-release-creator" ) )
+            {
+                thread.join( 1000 );
+                assertFalse( thread.isAlive( ) );
+            }
+        }
+    }
+
+    private ConnectionPool createStubPool( String strName )
+    {
+        return new ConnectionPool( "stub-" + strName, STUB_URL, null, null, MAX_CONNS, 1, 30, LogManager.getLogger( "lutece.pool" ), null );
+    }
+
+    private void runQuery( ConnectionPool pool ) throws SQLException
+    {
+        try ( Connection connection = pool.getConnection( ) ; Statement statement = connection.createStatement( ) )
+        {
+            try ( ResultSet rs = statement.executeQuery( "SELECT 1" ) )
+            {
+                rs.next( );
+            }
+        }
+    }
+
+    private LuteceConnectionService createConnectionService( ) throws IOException
+    {
+        Properties dbProps = new Properties( );
+
+        try ( InputStream is = new FileInputStream( AppPathService.getAbsolutePathFromRelativePath( DB_PROPERTIES ) ) )
+        {
+            dbProps.load( is );
+        }
+
+        Map<String, String> mapParams = new HashMap<>( );
+
+        for ( String strName : dbProps.stringPropertyNames( ) )
+        {
+            mapParams.put( strName, AppPropertiesService.getProperty( strName, dbProps.getProperty( strName ) ) );
+        }
+
+        mapParams.put( POOL_NAME + ".maxconns", String.valueOf( MAX_CONNS ) );
+        mapParams.put( POOL_NAME + ".initconns", "1" );
+        mapParams.put( POOL_NAME + ".logintimeout", "30" );
+
+        LuteceConnectionService service = new LuteceConnectionService( );
+        service.setPoolName( POOL_NAME );
+        service.setLogger( LogManager.getLogger( "lutece.pool" ) );
+        service.init( mapParams );
+
+        return service;
+    }
+
+    /**
+     * In-memory driver whose statements only wait for a simulated network round trip
+     */
+    private static final class StubDriver implements Driver
+    {
+        @Override
+        public Connection connect( String strUrl, Properties info )
+        {
+            if ( !acceptsURL( strUrl ) )
+            {
+                return null;
+            }
+
+            AtomicBoolean bClosed = new AtomicBoolean( );
+
+            return (Connection) Proxy.newProxyInstance( StubDriver.class.getClassLoader( ), new Class<?> [ ] {
+                    Connection.class
+            }, ( proxy, method, args ) -> {
+                switch( method.getName( ) )
+                {
+                    case "close":
+                        bClosed.set( true );
+                        return null;
+                    case "isClosed":
+                        return bClosed.get( );
+                    case "isValid":
+                        LockSupport.parkNanos( STUB_ROUND_TRIP_NANOS );
+                        return !bClosed.get( );
+                    case "createStatement":
+                        return newStatement( );
+                    case "equals":
+                        return proxy == args[ 0 ];
+                    case "hashCode":
+                        return System.identityHashCode( proxy );
+                    default:
+                        return null;
+                }
+            } );
+        }
+
+        private static Statement newStatement( )
+        {
+            return (Statement) Proxy.newProxyInstance( StubDriver.class.getClassLoader( ), new Class<?> [ ] {
+                    Statement.class
+            }, ( proxy, method, args ) -> {
+                if ( "executeQuery".equals( method.getName( ) ) )
+                {
+                    LockSupport.parkNanos( STUB_ROUND_TRIP_NANOS );
+
+                    return Proxy.newProxyInstance( StubDriver.class.getClassLoader( ), new Class<?> [ ] {
+                            ResultSet.class
+                    }, ( rsProxy, rsMethod, rsArgs ) -> "next".equals( rsMethod.getName( ) ) ? Boolean.FALSE : null );
+                }
+
+                return null;
+            } );
+        }
+
+        @Override
+        public boolean acceptsURL( String strUrl )
+        {
+            return ( strUrl != null ) && strUrl.startsWith( STUB_URL );
+        }
+
+        @Override
+        public DriverPropertyInfo [ ] getPropertyInfo( String strUrl, Properties info )
+        {
+            return new DriverPropertyInfo [ 0];
+        }
+
+        @Override
+        public int getMajorVersion( )
+        {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion( )
+        {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant( )
+        {
+            return false;
+        }
+
+        @Override
+        public java.util.logging.Logger getParentLogger( ) throws SQLFeatureNotSupportedException
+        {
+            throw new SQLFeatureNotSupportedException( );
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.ratelimit;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * RateLimiter Test Class
+ */
+public class RateLimiterTest extends LuteceTestCase
+{
+    private static final int THREADS = 16;
+    private static final int CLIENTS = 256;
+
+    private final AtomicLong _lNow = new AtomicLong( 1000L );
+
+    private RateLimiter createLimiter( int nPermits, long lPeriodMillis )
+    {
+        return new RateLimiter( "test", nPermits, lPeriodMillis, TimeUnit.MILLISECONDS, _lNow::get );
+    }
+
+    private void advance( long lMillis )
+    {
+        _lNow.addAndGet( TimeUnit.MILLISECONDS.toNanos( lMillis ) );
+    }
+
+    public void testBurstAndRefill( )
+    {
+        RateLimiter limiter = createLimiter( 3, 3000 );
+
+        assertTrue( limiter.tryAcquire( "a" ) );
+        assertTrue( limiter.tryAcquire( "a" ) );
+        assertTrue( limiter.tryAcquire( "a" ) );
+        assertFalse( limiter.tryAcquire( "a" ) );
+        assertTrue( limiter.tryAcquire( "b" ) );
+
+        advance( 999 );
+        assertFalse( limiter.tryAcquire( "a" ) );
+        advance( 1 );
+        assertTrue( limiter.tryAcquire( "a" ) );
+        assertFalse( limiter.tryAcquire( "a" ) );
+
+        assertEquals( 5, limiter.getAllowedCount( ) );
+        assertEquals( 3, limiter.getRejectedCount( ) );
+        limiter.resetCounts( );
+        assertEquals( 0, limiter.getAllowedCount( ) + limiter.getRejectedCount( ) );
+    }
+
+    public void testMinInterval( )
+    {
+        RateLimiter limiter = createLimiter( 1, 2000 );
+
+        assertTrue( limiter.tryAcquire( "127.0.0.1" ) );
+        advance( 1999 );
+        assertFalse( limiter.tryAcquire( "127.0.0.1" ) );
+        advance( 1 );
+        assertTrue( limiter.tryAcquire( "127.0.0.1" ) );
+        assertFalse( limiter.tryAcquire( "127.0.0.1" ) );
+    }
+
+    public void testSweep( )
+    {
+        RateLimiter limiter = createLimiter( 1, 2000 );
+
+        for ( int i = 0; i < 10; i++ )
+        {
+            assertTrue( limiter.tryAcquire( "client" + i ) );
+        }
+
+        assertEquals( 10, limiter.getKeyCount( ) );
+
+        // the buckets are full again and the sweep interval is elapsed
+        advance( 2000 );
+        assertTrue( limiter.tryAcquire( "other" ) );
+        assertEquals( 1, limiter.getKeyCount( ) );
+
+        // a swept key starts with a full bucket
+        assertTrue( limiter.tryAcquire( "client0" ) );
+        assertFalse( limiter.tryAcquire( "client0" ) );
+    }
+
+    public void testInvalidLimit( )
+    {
+        try
+        {
+            createLimiter( 0, 1000 );
+            fail( "Should have thrown IllegalArgumentException" );
+        }
+        catch( IllegalArgumentException e )
+        {
+            // ok
+        }
+    }
+
+    public void testConcurrentSameKey( ) throws Exception
+    {
+        RateLimiter limiter = new RateLimiter( "test", 5, 1, TimeUnit.HOURS );
+
+        long lAllowed = run( key -> limiter.tryAcquire( "same" ), 1000 );
+
+        assertEquals( 5, lAllowed );
+        assertEquals( 5, limiter.getAllowedCount( ) );
+        assertEquals( ( THREADS * 1000 ) - 5, limiter.getRejectedCount( ) );
+    }
+
+    public void testConcurrentClients( ) throws Exception
+    {
+        RateLimiter limiter = new RateLimiter( "test", 1, 1, TimeUnit.HOURS );
+
+        long lAllowed = run( limiter::tryAcquire, 1000 );
+
+        // each client is allowed once
+        assertEquals( CLIENTS, lAllowed );
+        assertEquals( CLIENTS, limiter.getKeyCount( ) );
+    }
+
+    /**
+     * Runs a check by several threads on a set of clients
+     * 
+     * @param check
+     *            the check
+     * @param nIterations
+     *            the checks by thread
+     * @return the number of allowed checks
+     */
+    private static long run( Predicate<String> check, int nIterations ) throws InterruptedException
+    {
+        ExecutorService executor = Executors.newFixedThreadPool( THREADS );
+        CountDownLatch latch = new CountDownLatch( THREADS );
+        AtomicLong lAllowed = new AtomicLong( );
+        String [ ] clients = new String [ CLIENTS];
+
+        for ( int i = 0; i < CLIENTS; i++ )
+        {
+            clients [i] = "10.0." + ( i / 256 ) + "." + ( i % 256 );
+        }
+
+        try
+        {
+            for ( int i = 0; i < THREADS; i++ )
+            {
+                int nOffset = i;
+                executor.execute( ( ) -> {
+                    try
+                    {
+                        long lCount = 0;
+
+                        for ( int j = 0; j < nIterations; j++ )
+                        {
+                            if ( check.test( clients [( j + nOffset ) % CLIENTS] ) )
+                            {
+                                lCount++;
+                            }
+                        }
+
+                        lAllowed.addAndGet( lCount );
+                    }
+                    finally
+                    {
+                        latch.countDown( );
+                    }
+                } );
+            }
+
+            assertTrue( latch.await( 2, TimeUnit.MINUTES ) );
+        }
+        finally
+        {
+            executor.shutdownNow( );
+        }
+
+        return lAllowed.get( );
+    }
+}
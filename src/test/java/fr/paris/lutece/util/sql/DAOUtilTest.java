@@ -37,6 +37,7 @@ import java.security.SecureRandom;
 import java.sql.Statement;
 
 import fr.paris.lutece.portal.service.database.AppConnectionService;
+import fr.paris.lutece.portal.service.util.AppException;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.portal.service.plugin.PluginDefaultImplementation;
 import fr.paris.lutece.test.LuteceTestCase;
@@ -46,6 +47,8 @@ public class DAOUtilTest extends LuteceTestCase
     // Any table would be ok here
     private static final String SQL_INSERT = " INSERT INTO core_datastore ( entity_key, entity_value ) VALUES ( ? , ? ) ";
     private static final String SQL_DELETE = " DELETE FROM core_datastore where entity_key = ? ";
+    private static final String SQL_DELETE_PREFIX = " DELETE FROM core_datastore where entity_key LIKE ? ";
+    private static final String SQL_COUNT_PREFIX = " SELECT COUNT(*) FROM core_datastore where entity_key LIKE ? ";
     private static final String TESTKEY = "daoutiltestkey";
     private static final String TESTVALUE = "daoutiltestvalue";
 
@@ -140,4 +143,130 @@ public class DAOUtilTest extends LuteceTestCase
         }
     }
 
+    public void testBatch( )
+    {
+        String prefix = TESTKEY + new SecureRandom( ).nextLong( );
+        try
+        {
+            try ( DAOUtil daoUtil = new DAOUtil( SQL_INSERT ) )
+            {
+                daoUtil.setBatchSize( 2 );
+                for ( int i = 0; i < 5; i++ )
+                {
+                    daoUtil.setString( 1, prefix + i );
+                    daoUtil.setString( 2, TESTVALUE );
+                    daoUtil.addBatch( );
+                }
+                // the statements already sent are committed with the last ones
+                assertEquals( 0, countKeys( prefix ) );
+                assertEquals( 1, daoUtil.executeBatch( ).length );
+                assertEquals( 0, daoUtil.executeBatch( ).length );
+            }
+            assertEquals( 5, countKeys( prefix ) );
+        }
+        finally
+        {
+            deleteKeys( prefix );
+        }
+    }
+
+    public void testBatchRollbackOutsideTransaction( )
+    {
+        String prefix = TESTKEY + new SecureRandom( ).nextLong( );
+        try
+        {
+            try ( DAOUtil daoUtil = new DAOUtil( SQL_INSERT ) )
+            {
+                daoUtil.setBatchSize( 0 );
+                daoUtil.setString( 1, prefix + "a" );
+                daoUtil.setString( 2, TESTVALUE );
+                daoUtil.addBatch( );
+                // duplicate primary key
+                daoUtil.addBatch( );
+                daoUtil.executeBatch( );
+                fail( "the batch should fail" );
+            }
+            catch( AppException e )
+            {
+                // expected
+            }
+            assertEquals( 0, countKeys( prefix ) );
+        }
+        finally
+        {
+            deleteKeys( prefix );
+        }
+    }
+
+    public void testBatchRollbackAfterFlush( )
+    {
+        String prefix = TESTKEY + new SecureRandom( ).nextLong( );
+        try
+        {
+            try ( DAOUtil daoUtil = new DAOUtil( SQL_INSERT ) )
+            {
+                daoUtil.setBatchSize( 2 );
+                daoUtil.setString( 1, prefix + "a" );
+                daoUtil.setString( 2, TESTVALUE );
+                daoUtil.addBatch( );
+                daoUtil.setString( 1, prefix + "b" );
+                daoUtil.addBatch( );
+                // duplicate primary key sent by the next flush
+                daoUtil.addBatch( );
+                daoUtil.setString( 1, prefix + "c" );
+                daoUtil.addBatch( );
+                fail( "the batch should fail" );
+            }
+            catch( AppException e )
+            {
+                // expected
+            }
+            assertEquals( 0, countKeys( prefix ) );
+        }
+        finally
+        {
+            deleteKeys( prefix );
+        }
+    }
+
+    public void testBatchFreedWithoutExecute( )
+    {
+        String prefix = TESTKEY + new SecureRandom( ).nextLong( );
+        try
+        {
+            try ( DAOUtil daoUtil = new DAOUtil( SQL_INSERT ) )
+            {
+                daoUtil.setBatchSize( 1 );
+                daoUtil.setString( 1, prefix + "a" );
+                daoUtil.setString( 2, TESTVALUE );
+                daoUtil.addBatch( );
+            }
+            assertEquals( 0, countKeys( prefix ) );
+        }
+        finally
+        {
+            deleteKeys( prefix );
+        }
+    }
+
+    private int countKeys( String prefix )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_COUNT_PREFIX ) )
+        {
+            daoUtil.setString( 1, prefix + "%" );
+            daoUtil.executeQuery( );
+            daoUtil.next( );
+            return daoUtil.getInt( 1 );
+        }
+    }
+
+    private void deleteKeys( String prefix )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_DELETE_PREFIX ) )
+        {
+            daoUtil.setString( 1, prefix + "%" );
+            daoUtil.executeUpdate( );
+        }
+    }
+
 }
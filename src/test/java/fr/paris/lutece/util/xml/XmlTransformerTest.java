@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.xml;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.stream.StreamSource;
+
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * XmlTransformer Test Class
+ */
+public class XmlTransformerTest extends LuteceTestCase
+{
+    private static final String XSL = "<xsl:stylesheet version='1.0' xmlns:xsl='http://www.w3.org/1999/XSL/Transform'>"
+            + "<xsl:output method='text'/><xsl:template match='/'>Hello <xsl:value-of select='/name'/></xsl:template></xsl:stylesheet>";
+    private static final String STYLESHEET_ID = "XmlTransformerTest-";
+
+    public void testTransform( ) throws TransformerException
+    {
+        String strResult = new XmlTransformer( ).transform( new StreamSource( new StringReader( "<name>World</name>" ) ),
+                new StreamSource( new StringReader( XSL ) ), STYLESHEET_ID + "transform", null, null );
+
+        assertEquals( "Hello World", strResult );
+    }
+
+    public void testConcurrentCompilation( ) throws Exception
+    {
+        String strStyleSheetId = STYLESHEET_ID + System.nanoTime( );
+        long lMisses = XmlTransformer.getCacheMisses( );
+        ExecutorService executor = Executors.newFixedThreadPool( 8 );
+        List<Future<String>> listResults = new ArrayList<>( );
+
+        try
+        {
+            for ( int i = 0; i < 100; i++ )
+            {
+                String strName = "name" + i;
+                Callable<String> task = ( ) -> new XmlTransformer( ).transform( new StreamSource( new StringReader( "<name>" + strName + "</name>" ) ),
+                        new StreamSource( new StringReader( XSL ) ), strStyleSheetId, null, null );
+                listResults.add( executor.submit( task ) );
+            }
+
+            for ( int i = 0; i < listResults.size( ); i++ )
+            {
+                assertEquals( "Hello name" + i, listResults.get( i ).get( ) );
+            }
+        }
+        finally
+        {
+            executor.shutdown( );
+        }
+
+        // The stylesheet has been compiled only once for all the threads
+        assertEquals( lMisses + 1, XmlTransformer.getCacheMisses( ) );
+    }
+
+    public void testInvalidStylesheet( )
+    {
+        String strStyleSheetId = STYLESHEET_ID + "invalid";
+
+        for ( int i = 0; i < 2; i++ )
+        {
+            try
+            {
+                new XmlTransformer( ).transform( new StreamSource( new StringReader( "<name/>" ) ), new StreamSource( new StringReader( "<invalid" ) ),
+                        strStyleSheetId, null, null );
+                fail( "An exception should have been thrown" );
+            }
+            catch( TransformerException e )
+            {
+                // Failures are not cached : the next call compiles again
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+<%@ page errorPage="../ErrorPage.jsp" %>
+
+<jsp:useBean id="metrics" scope="session" class="fr.paris.lutece.portal.web.system.MetricsJspBean" />
+
+<%
+	metrics.init( request, metrics.RIGHT_METRICS_MANAGEMENT ) ;
+	response.sendRedirect( metrics.doUpdateMetrics( request ) );
+%>